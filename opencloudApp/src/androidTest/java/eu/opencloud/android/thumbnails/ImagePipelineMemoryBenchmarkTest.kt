@@ -0,0 +1,145 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.thumbnails
+
+import android.graphics.Bitmap
+import android.graphics.Canvas
+import android.graphics.Color
+import android.graphics.Paint
+import android.os.Debug
+import android.util.Log
+import androidx.test.platform.app.InstrumentationRegistry
+import coil.request.ImageRequest
+import coil.request.SuccessResult
+import eu.opencloud.android.presentation.thumbnails.ThumbnailTier
+import eu.opencloud.android.presentation.thumbnails.ThumbnailsRequester
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+
+/**
+ * Measures the heap kept alive by the image pipeline while scrolling a folder of 2k images and then paging through
+ * their previews, the way the file list and the image preview use it. Results are reported in logcat under [TAG].
+ */
+class ImagePipelineMemoryBenchmarkTest {
+
+    private val context = InstrumentationRegistry.getInstrumentation().targetContext
+    private val folder = File(context.cacheDir, "image_pipeline_benchmark")
+    private lateinit var images: List<File>
+
+    @Before
+    fun setUp() {
+        folder.mkdirs()
+        images = (0 until FOLDER_SIZE).map { index ->
+            File(folder, "image_$index.jpg").also { writeImage(it, index) }
+        }
+        ThumbnailsRequester.getLocalImageLoader().memoryCache?.clear()
+    }
+
+    @After
+    fun tearDown() {
+        // Several hundred MiB of JPEGs the system would otherwise only reclaim when short of storage
+        folder.deleteRecursively()
+        ThumbnailsRequester.getLocalImageLoader().memoryCache?.clear()
+    }
+
+    @Test
+    fun scroll_folder_and_page_previews_stays_within_memory_budget() = runBlocking {
+        val imageLoader = ThumbnailsRequester.getLocalImageLoader()
+        val memoryCacheMaxSize = imageLoader.memoryCache?.maxSize ?: 0
+        val baseline = retainedHeap()
+        var peakScrolling = 0L
+        var peakPaging = 0L
+
+        // Scrolling: every step shows the next rows of the list at the size of the list icons
+        images.windowed(size = VISIBLE_ROWS, step = SCROLL_STEP, partialWindows = true).forEach { visibleRows ->
+            visibleRows.map { image ->
+                async { load(image, ThumbnailTier.SMALL.sizePx, ThumbnailTier.SMALL.sizePx) }
+            }.awaitAll()
+            peakScrolling = maxOf(peakScrolling, retainedHeap() - baseline)
+        }
+
+        // Paging: one preview at a time, at the size of the screen
+        val displayMetrics = context.resources.displayMetrics
+        images.take(PREVIEW_PAGES).forEach { image ->
+            load(image, displayMetrics.widthPixels, displayMetrics.heightPixels)
+            peakPaging = maxOf(peakPaging, retainedHeap() - baseline)
+        }
+
+        Log.i(
+            TAG, "Memory cache budget: ${memoryCacheMaxSize.toMiB()} MiB, " +
+                    "peak retained while scrolling: ${peakScrolling.toMiB()} MiB, " +
+                    "peak retained while paging: ${peakPaging.toMiB()} MiB"
+        )
+        assertTrue((imageLoader.memoryCache?.size ?: 0) <= memoryCacheMaxSize)
+        assertTrue(peakScrolling <= memoryCacheMaxSize + HEAP_SLACK_BYTES)
+        assertTrue(peakPaging <= memoryCacheMaxSize + HEAP_SLACK_BYTES)
+    }
+
+    private suspend fun load(image: File, widthPx: Int, heightPx: Int) {
+        val request = ImageRequest.Builder(context)
+            .data(image)
+            .size(widthPx, heightPx)
+            .build()
+        assertTrue(ThumbnailsRequester.getLocalImageLoader().execute(request) is SuccessResult)
+    }
+
+    /**
+     * Java and native heap still reachable after a collection. Bitmap pixels live in the native heap, so both are
+     * needed to see what the pipeline holds on to.
+     */
+    private fun retainedHeap(): Long {
+        val runtime = Runtime.getRuntime()
+        runtime.gc()
+        System.runFinalization()
+        runtime.gc()
+        return runtime.totalMemory() - runtime.freeMemory() + Debug.getNativeHeapAllocatedSize()
+    }
+
+    private fun writeImage(file: File, index: Int) {
+        val bitmap = Bitmap.createBitmap(IMAGE_WIDTH, IMAGE_HEIGHT, Bitmap.Config.ARGB_8888)
+        val paint = Paint().apply { textSize = IMAGE_HEIGHT / 4f }
+        Canvas(bitmap).apply {
+            drawColor(Color.HSVToColor(floatArrayOf(index * 360f / FOLDER_SIZE, 0.6f, 0.9f)))
+            drawText(index.toString(), IMAGE_WIDTH / 8f, IMAGE_HEIGHT / 2f, paint)
+        }
+        file.outputStream().use { bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, it) }
+        bitmap.recycle()
+    }
+
+    private fun Long.toMiB(): Long = this / (1024 * 1024)
+    private fun Int.toMiB(): Long = toLong().toMiB()
+
+    companion object {
+        private const val TAG = "ImagePipelineBenchmark"
+        private const val FOLDER_SIZE = 2000
+        private const val VISIBLE_ROWS = 12
+        private const val SCROLL_STEP = 4
+        private const val PREVIEW_PAGES = 100
+        private const val IMAGE_WIDTH = 2048
+        private const val IMAGE_HEIGHT = 1536
+        private const val JPEG_QUALITY = 80
+        private const val HEAP_SLACK_BYTES = 32L * 1024 * 1024
+    }
+}
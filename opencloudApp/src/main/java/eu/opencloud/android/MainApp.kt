@@ -54,6 +54,7 @@ import eu.opencloud.android.domain.spaces.usecases.GetPersonalSpaceForAccountUse
 import eu.opencloud.android.domain.user.usecases.GetStoredQuotaUseCase
 import eu.opencloud.android.extensions.createNotificationChannel
 import eu.opencloud.android.lib.common.SingleSessionManager
+import eu.opencloud.android.lib.common.http.HttpClient
 import eu.opencloud.android.presentation.authentication.AccountUtils
 import eu.opencloud.android.presentation.migration.StorageMigrationActivity
 import eu.opencloud.android.presentation.releasenotes.ReleaseNotesActivity
@@ -63,6 +64,7 @@ import eu.opencloud.android.presentation.security.passcode.PassCodeActivity
 import eu.opencloud.android.presentation.security.passcode.PassCodeManager
 import eu.opencloud.android.presentation.security.pattern.PatternActivity
 import eu.opencloud.android.presentation.security.pattern.PatternManager
+import eu.opencloud.android.presentation.settings.advanced.SettingsAdvancedFragment.Companion.PREF_HTTP2_ENABLED
 import eu.opencloud.android.presentation.settings.logging.SettingsLogsFragment.Companion.PREFERENCE_ENABLE_LOGGING
 import eu.opencloud.android.providers.CoroutinesDispatcherProvider
 import eu.opencloud.android.providers.LogsProvider
@@ -119,6 +121,10 @@ class MainApp : Application() {
         createNotificationChannels()
 
         SingleSessionManager.setUserAgent(userAgent)
+        SingleSessionManager.setMaxConcurrentRequests(resources.getInteger(R.integer.max_concurrent_requests_per_account))
+        HttpClient.setHttp2Enabled(
+            OCSharedPreferencesProvider(applicationContext).getBoolean(PREF_HTTP2_ENABLED, true)
+        )
 
         initDependencyInjection()
 
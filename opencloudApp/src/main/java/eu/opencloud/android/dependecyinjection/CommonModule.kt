@@ -22,6 +22,8 @@ package eu.opencloud.android.dependecyinjection
 
 import androidx.work.WorkManager
 
+import eu.opencloud.android.presentation.thumbnails.OfflineThumbnailStore
+import eu.opencloud.android.presentation.thumbnails.ThumbnailLoadMetrics
 import eu.opencloud.android.providers.AccountProvider
 import eu.opencloud.android.providers.ContextProvider
 import eu.opencloud.android.providers.CoroutinesDispatcherProvider
@@ -29,6 +31,10 @@ import eu.opencloud.android.providers.LogsProvider
 import eu.opencloud.android.providers.MdmProvider
 import eu.opencloud.android.providers.WorkManagerProvider
 import eu.opencloud.android.providers.implementation.OCContextProvider
+import eu.opencloud.android.workers.OfflineThumbnailPackGenerator
+import eu.opencloud.android.workers.TransferBandwidthPolicy
+import eu.opencloud.android.workers.TransferProgressAggregator
+import eu.opencloud.android.workers.TransferScheduler
 import org.koin.android.ext.koin.androidApplication
 import org.koin.android.ext.koin.androidContext
 import org.koin.dsl.module
@@ -43,4 +49,10 @@ val commonModule = module {
     single { WorkManagerProvider(androidContext()) }
     single { AccountProvider(androidContext()) }
     single { WorkManager.getInstance(androidApplication()) }
+    single { TransferScheduler() }
+    single { TransferBandwidthPolicy(get()) }
+    single { TransferProgressAggregator() }
+    single { ThumbnailLoadMetrics() }
+    single { OfflineThumbnailStore(androidContext().filesDir.resolve("offline_thumbnails")) }
+    factory { OfflineThumbnailPackGenerator(androidContext(), get(), get(), get()) }
 }
@@ -59,6 +59,7 @@ import eu.opencloud.android.domain.files.usecases.DisableThumbnailsForFileUseCas
 import eu.opencloud.android.domain.files.usecases.GetFileByIdAsStreamUseCase
 import eu.opencloud.android.domain.files.usecases.GetFileByIdUseCase
 import eu.opencloud.android.domain.files.usecases.GetFileByRemotePathUseCase
+import eu.opencloud.android.domain.files.usecases.GetFileFromRemoteIdUseCase
 import eu.opencloud.android.domain.files.usecases.GetFileWithSyncInfoByIdUseCase
 import eu.opencloud.android.domain.files.usecases.GetFolderContentAsStreamUseCase
 import eu.opencloud.android.domain.files.usecases.GetFolderContentUseCase
@@ -75,6 +76,10 @@ import eu.opencloud.android.domain.files.usecases.RenameFileUseCase
 import eu.opencloud.android.domain.files.usecases.SaveConflictUseCase
 import eu.opencloud.android.domain.files.usecases.SaveDownloadWorkerUUIDUseCase
 import eu.opencloud.android.domain.files.usecases.SaveFileOrFolderUseCase
+import eu.opencloud.android.domain.files.usecases.SaveUploadedFilesUseCase
+import eu.opencloud.android.domain.files.usecases.SearchFilesOnServerAsStreamUseCase
+import eu.opencloud.android.domain.files.usecases.SearchFilesUseCase
+import eu.opencloud.android.domain.files.usecases.SearchFilesWithSyncInfoAsStreamUseCase
 import eu.opencloud.android.domain.files.usecases.SetLastUsageFileUseCase
 import eu.opencloud.android.domain.files.usecases.SortFilesUseCase
 import eu.opencloud.android.domain.files.usecases.SortFilesWithSyncInfoUseCase
@@ -115,6 +120,8 @@ import eu.opencloud.android.usecases.accounts.RemoveAccountUseCase
 import eu.opencloud.android.usecases.files.FilterFileMenuOptionsUseCase
 import eu.opencloud.android.usecases.files.RemoveLocalFilesForAccountUseCase
 import eu.opencloud.android.usecases.files.RemoveLocallyFilesWithLastUsageOlderThanGivenTimeUseCase
+import eu.opencloud.android.usecases.synchronization.FolderDiscoveryCheckpoint
+import eu.opencloud.android.usecases.synchronization.FolderDiscoveryEngine
 import eu.opencloud.android.usecases.synchronization.SynchronizeFileUseCase
 import eu.opencloud.android.usecases.synchronization.SynchronizeFolderUseCase
 import eu.opencloud.android.usecases.transfers.downloads.CancelDownloadForFileUseCase
@@ -135,7 +142,9 @@ import eu.opencloud.android.usecases.transfers.uploads.UploadFileFromContentUriU
 import eu.opencloud.android.usecases.transfers.uploads.UploadFileFromSystemUseCase
 import eu.opencloud.android.usecases.transfers.uploads.UploadFileInConflictUseCase
 import eu.opencloud.android.usecases.transfers.uploads.UploadFilesFromContentUriUseCase
+import eu.opencloud.android.usecases.transfers.uploads.UploadFilesBatchFromSystemUseCase
 import eu.opencloud.android.usecases.transfers.uploads.UploadFilesFromSystemUseCase
+import org.koin.android.ext.koin.androidContext
 import org.koin.core.module.dsl.factoryOf
 import org.koin.dsl.module
 
@@ -168,6 +177,7 @@ val useCaseModule = module {
     factoryOf(::GetFileByIdAsStreamUseCase)
     factoryOf(::GetFileByIdUseCase)
     factoryOf(::GetFileByRemotePathUseCase)
+    factoryOf(::GetFileFromRemoteIdUseCase)
     factoryOf(::GetFileWithSyncInfoByIdUseCase)
     factoryOf(::GetFolderContentAsStreamUseCase)
     factoryOf(::GetFolderContentUseCase)
@@ -187,11 +197,17 @@ val useCaseModule = module {
     factoryOf(::SaveConflictUseCase)
     factoryOf(::SaveDownloadWorkerUUIDUseCase)
     factoryOf(::SaveFileOrFolderUseCase)
+    factoryOf(::SaveUploadedFilesUseCase)
+    factoryOf(::SearchFilesOnServerAsStreamUseCase)
+    factoryOf(::SearchFilesUseCase)
+    factoryOf(::SearchFilesWithSyncInfoAsStreamUseCase)
     factoryOf(::SetLastUsageFileUseCase)
     factoryOf(::SortFilesUseCase)
     factoryOf(::SortFilesWithSyncInfoUseCase)
     factoryOf(::SynchronizeFileUseCase)
     factoryOf(::SynchronizeFolderUseCase)
+    factory { FolderDiscoveryCheckpoint(androidContext().filesDir.resolve("discovery_checkpoints")) }
+    factoryOf(::FolderDiscoveryEngine)
 
     // Open in web
     factoryOf(::CreateFileWithAppProviderUseCase)
@@ -253,6 +269,7 @@ val useCaseModule = module {
     factoryOf(::UploadFileFromSystemUseCase)
     factoryOf(::UploadFileInConflictUseCase)
     factoryOf(::UploadFilesFromContentUriUseCase)
+    factoryOf(::UploadFilesBatchFromSystemUseCase)
     factoryOf(::UploadFilesFromSystemUseCase)
 
     // User
@@ -20,15 +20,10 @@
 
 package eu.opencloud.android.extensions
 
-import android.annotation.SuppressLint
 import android.widget.ImageView
-import com.bumptech.glide.Glide
-import com.bumptech.glide.load.engine.DiskCacheStrategy
+import coil.load
+import eu.opencloud.android.presentation.thumbnails.ThumbnailsRequester
 
-@SuppressLint("CheckResult")
 fun ImageView.setPicture(imageToLoad: Int) {
-    Glide.with(this)
-        .load(imageToLoad)
-        .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
-        .into(this)
+    load(imageToLoad, ThumbnailsRequester.getLocalImageLoader())
 }
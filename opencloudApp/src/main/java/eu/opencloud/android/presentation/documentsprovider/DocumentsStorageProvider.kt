@@ -54,6 +54,7 @@ import eu.opencloud.android.domain.files.usecases.GetFolderContentUseCase
 import eu.opencloud.android.domain.files.usecases.MoveFileUseCase
 import eu.opencloud.android.domain.files.usecases.RemoveFileUseCase
 import eu.opencloud.android.domain.files.usecases.RenameFileUseCase
+import eu.opencloud.android.domain.files.usecases.SearchFilesUseCase
 import eu.opencloud.android.domain.spaces.usecases.GetPersonalAndProjectSpacesForAccountUseCase
 import eu.opencloud.android.domain.spaces.usecases.RefreshSpacesFromServerAsyncUseCase
 import eu.opencloud.android.presentation.authentication.AccountUtils
@@ -78,7 +79,6 @@ import java.io.File
 import java.io.FileNotFoundException
 import java.io.IOException
 import java.util.UUID
-import java.util.Vector
 import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.CompletableFuture
 
@@ -390,10 +390,10 @@ class DocumentsStorageProvider : DocumentsProvider() {
     ): Cursor {
         val result = FileCursor(projection)
 
-        val root = getFileByPathOrException(ROOT_PATH, AccountUtils.getCurrentOpenCloudAccount(context).name)
-
-        for (f in findFiles(root, query)) {
-            result.addFile(f)
+        // Root ids are account names, so search every space of the account the user is browsing
+        val searchFilesUseCase: SearchFilesUseCase by inject()
+        searchFilesUseCase(SearchFilesUseCase.Params(owner = rootId, search = query)).getDataOrNull()?.forEach {
+            result.addFile(it)
         }
 
         return result
@@ -763,19 +763,6 @@ class DocumentsStorageProvider : DocumentsProvider() {
         return cancellationSignal == null || !cancellationSignal.isCanceled
     }
 
-    private fun findFiles(root: OCFile, query: String): Vector<OCFile> {
-        val result = Vector<OCFile>()
-
-        val folderContent = getFolderContent(root.id!!.toInt())
-        folderContent.forEach {
-            if (it.fileName.contains(query)) {
-                result.add(it)
-                if (it.isFolder) result.addAll(findFiles(it, query))
-            }
-        }
-        return result
-    }
-
     private fun notifyChangeInFolder(folderToNotify: String) {
         context?.contentResolver?.notifyChange(toNotifyUri(toUri(folderToNotify)), null)
     }
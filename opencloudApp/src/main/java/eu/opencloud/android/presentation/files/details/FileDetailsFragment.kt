@@ -43,6 +43,7 @@ import eu.opencloud.android.R
 import coil.load
 import eu.opencloud.android.databinding.FileDetailsFragmentBinding
 
+import eu.opencloud.android.presentation.thumbnails.ThumbnailTier
 import eu.opencloud.android.presentation.thumbnails.ThumbnailsRequester
 import eu.opencloud.android.domain.exceptions.AccountNotFoundException
 import eu.opencloud.android.domain.exceptions.InstanceNotConfiguredException
@@ -435,8 +436,7 @@ class FileDetailsFragment : FileFragment() {
                     ThumbnailsRequester.getPreviewUriForFile(
                         OCFileWithSyncInfo(ocFile, null),
                         fileDetailsViewModel.getAccount(),
-                        1024,
-                        1024
+                        ThumbnailTier.LARGE
                     ),
                     ThumbnailsRequester.getContentAddressedImageLoader(fileDetailsViewModel.getAccount())
                 ) {
@@ -43,6 +43,9 @@ import eu.opencloud.android.databinding.ItemFileListBinding
 import eu.opencloud.android.databinding.ListFooterBinding
 import coil.load
 import coil.dispose
+import eu.opencloud.android.presentation.thumbnails.OfflineThumbnailStore
+import eu.opencloud.android.presentation.thumbnails.ThumbnailLoadMetrics
+import eu.opencloud.android.presentation.thumbnails.ThumbnailTier
 import eu.opencloud.android.presentation.thumbnails.ThumbnailsRequester
 import eu.opencloud.android.domain.files.model.FileListOption
 import eu.opencloud.android.domain.files.model.OCFileWithSyncInfo
@@ -57,6 +60,7 @@ class FileListAdapter(
     private val isPickerMode: Boolean,
     private val layoutManager: StaggeredGridLayoutManager,
     private val listener: FileListAdapterListener,
+    private val thumbnailLoadMetrics: ThumbnailLoadMetrics,
 ) : SelectableAdapter<RecyclerView.ViewHolder>() {
 
     var files = mutableListOf<Any>()
@@ -143,6 +147,12 @@ class FileListAdapter(
 
     override fun getItemCount(): Int = files.size
 
+    override fun onViewRecycled(holder: RecyclerView.ViewHolder) {
+        super.onViewRecycled(holder)
+        // A row flung off screen does not need its thumbnail anymore
+        holder.itemView.findViewById<ImageView>(R.id.thumbnail)?.dispose()
+    }
+
     private fun hasFooter(): Boolean = files.lastOrNull() is OCFooterFile
 
     private fun isFooter(position: Int) = files.getOrNull(position) is OCFooterFile
@@ -169,13 +179,23 @@ class FileListAdapter(
             }
         }
 
+    /** Thumbnail the row at [position] shows once bound, or null if it shows none. */
+    fun getThumbnailAt(position: Int): ThumbnailPrefetcher.Thumbnail? {
+        val fileWithSyncInfo = files.getOrNull(position) as? OCFileWithSyncInfo ?: return null
+        val acc = account ?: return null
+        if (fileWithSyncInfo.file.isFolder || !fileWithSyncInfo.file.isImage) return null
+        val tier = thumbnailTierFor(getItemViewType(position))
+        return ThumbnailPrefetcher.Thumbnail(ThumbnailsRequester.getPreviewUriForFile(fileWithSyncInfo, acc, tier), tier, acc)
+    }
+
     fun getCheckedItems(): List<OCFileWithSyncInfo> {
         val checkedItems = mutableListOf<OCFileWithSyncInfo>()
         val checkedPositions = getSelectedItems()
 
         for (i in checkedPositions) {
             val checkedFile: Any? = files.getOrNull(i)
-            if (checkedFile is OCFileWithSyncInfo) {
+            // Files found by the server search are not synced yet, no operation can be done on them
+            if (checkedFile is OCFileWithSyncInfo && checkedFile.file.id != null) {
                 checkedItems.add(checkedFile)
             }
         }
@@ -280,11 +300,15 @@ class FileListAdapter(
 
                 if (file.isImage) {
                     account?.let { acc ->
-                        fileIcon.load(ThumbnailsRequester.getPreviewUriForFile(fileWithSyncInfo, acc),
+                        fileIcon.load(ThumbnailsRequester.getPreviewUriForFile(fileWithSyncInfo, acc, thumbnailTierFor(viewType)),
                             ThumbnailsRequester.getContentAddressedImageLoader(acc)) {
                             placeholder(MimetypeIconUtil.getFileTypeIconId(file.mimeType, file.fileName))
                             error(MimetypeIconUtil.getFileTypeIconId(file.mimeType, file.fileName))
                             crossfade(true)
+                            listener(thumbnailLoadMetrics.newListener())
+                            if (file.isAvailableOffline) {
+                                setParameter(OfflineThumbnailStore.REQUEST_PARAMETER_KEY, OfflineThumbnailStore.keyFor(file), memoryCacheKey = null)
+                            }
                         }
                     }
                 } else {
@@ -379,6 +403,28 @@ class FileListAdapter(
         }
     }
 
+    /**
+     * Grid images fill their column, which is not measured yet when the row is bound, so their tier comes from the
+     * width of the column. The other rows have icons of a fixed size.
+     */
+    private fun thumbnailTierFor(viewType: Int): ThumbnailTier =
+        when (viewType) {
+            ViewType.GRID_IMAGE.ordinal -> {
+                val columnWidth = context.resources.displayMetrics.widthPixels / layoutManager.spanCount
+                ThumbnailTier.forTargetSize(columnWidth, columnWidth)
+            }
+
+            ViewType.GRID_ITEM.ordinal -> ThumbnailTier.forTargetSize(
+                context.resources.getDimensionPixelSize(R.dimen.item_file_grid_width),
+                context.resources.getDimensionPixelSize(R.dimen.item_file_grid_height),
+            )
+
+            else -> {
+                val iconSize = context.resources.getDimensionPixelSize(R.dimen.file_icon_size)
+                ThumbnailTier.forTargetSize(iconSize, iconSize)
+            }
+        }
+
     private fun manageGridLayoutParams(layoutParams: ViewGroup.MarginLayoutParams, marginVertical: Int, height: Int, width: Int) {
         val marginHorizontal = context.resources.getDimensionPixelSize(R.dimen.item_file_image_grid_margin)
         layoutParams.setMargins(marginHorizontal, marginVertical, marginHorizontal, marginVertical)
@@ -46,7 +46,7 @@ class FileListDiffCallback(
         } else if (oldItem is Boolean && newItem is Boolean) {
             true
         } else if (oldItem is OCFileWithSyncInfo && newItem is OCFileWithSyncInfo) {
-            oldItem.file.id == newItem.file.id
+            oldItem.file.id == newItem.file.id && (oldItem.file.id != null || oldItem.file.remoteId == newItem.file.remoteId)
         } else if (oldItem is OCFooterFile && newItem is OCFooterFile) {
             oldItem.text == newItem.text
         }  else {
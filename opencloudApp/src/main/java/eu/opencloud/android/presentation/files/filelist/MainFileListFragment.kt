@@ -57,7 +57,9 @@ import androidx.fragment.app.Fragment
 import androidx.recyclerview.widget.RecyclerView
 import androidx.recyclerview.widget.StaggeredGridLayoutManager
 import coil.load
-import com.bumptech.glide.Glide
+import coil.request.ErrorResult
+import coil.request.ImageRequest
+import coil.request.SuccessResult
 import com.getbase.floatingactionbutton.AddFloatingActionButton
 import com.google.android.material.bottomsheet.BottomSheetBehavior
 import com.google.android.material.bottomsheet.BottomSheetDialog
@@ -114,6 +116,8 @@ import eu.opencloud.android.presentation.files.removefile.RemoveFilesDialogFragm
 import eu.opencloud.android.presentation.files.renamefile.RenameFileDialogFragment
 import eu.opencloud.android.presentation.files.renamefile.RenameFileDialogFragment.Companion.FRAGMENT_TAG_RENAME_FILE
 import eu.opencloud.android.presentation.spaces.SpacesListViewModel
+import eu.opencloud.android.presentation.thumbnails.ThumbnailLoadMetrics
+import eu.opencloud.android.presentation.thumbnails.ThumbnailTier
 import eu.opencloud.android.presentation.thumbnails.ThumbnailsRequester
 import eu.opencloud.android.presentation.transfers.TransfersViewModel
 import eu.opencloud.android.ui.activity.FileActivity
@@ -122,9 +126,9 @@ import eu.opencloud.android.ui.activity.FolderPickerActivity
 import eu.opencloud.android.utils.DisplayUtils
 import eu.opencloud.android.utils.MimetypeIconUtil
 import eu.opencloud.android.utils.PreferenceUtils
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.withContext
+import eu.opencloud.android.workers.TransferScheduler
 import okio.Path.Companion.toPath
+import org.koin.android.ext.android.inject
 import org.koin.androidx.viewmodel.ext.android.sharedViewModel
 import org.koin.androidx.viewmodel.ext.android.viewModel
 import org.koin.core.parameter.parametersOf
@@ -165,6 +169,9 @@ class MainFileListFragment : Fragment(),
 
     private lateinit var layoutManager: StaggeredGridLayoutManager
     private lateinit var fileListAdapter: FileListAdapter
+    private lateinit var thumbnailPrefetcher: ThumbnailPrefetcher
+    private val transferScheduler: TransferScheduler by inject()
+    private val thumbnailLoadMetrics: ThumbnailLoadMetrics by inject()
     private lateinit var viewType: ViewType
 
     var actionMode: ActionMode? = null
@@ -393,10 +400,19 @@ class MainFileListFragment : Fragment(),
             layoutManager = layoutManager,
             isPickerMode = isPickingAFolder(),
             listener = this@MainFileListFragment,
+            thumbnailLoadMetrics = thumbnailLoadMetrics,
         )
 
         binding.recyclerViewMainFileList.adapter = fileListAdapter
 
+        thumbnailPrefetcher = ThumbnailPrefetcher(
+            context = requireContext(),
+            transferScheduler = transferScheduler,
+            thumbnailLoadMetrics = thumbnailLoadMetrics,
+            thumbnailAt = fileListAdapter::getThumbnailAt,
+        )
+        binding.recyclerViewMainFileList.addOnScrollListener(thumbnailPrefetcher)
+
         // Set Swipe to refresh and its listener
         binding.swipeRefreshMainFileList.isEnabled = mainFileListViewModel.fileListOption.value != FileListOption.AV_OFFLINE
         binding.swipeRefreshMainFileList.setOnRefreshListener {
@@ -478,6 +494,9 @@ class MainFileListFragment : Fragment(),
         // Observe the app registry for a single file
         observeAppRegistryMimeTypeSingleFile()
 
+        // Observe the server search results to open
+        observeSearchResultToOpen()
+
         // Observe the file list UI state
         observeFileListUiState()
 
@@ -613,7 +632,7 @@ class MainFileListFragment : Fragment(),
                 val thumbnailBottomSheet = fileOptionsBottomSheetSingleFile.findViewById<ImageView>(R.id.thumbnail_bottom_sheet)
                 val account = AccountUtils.getCurrentOpenCloudAccount(requireContext())
                 thumbnailBottomSheet.load(
-                    ThumbnailsRequester.getPreviewUriForFile(file, account),
+                    ThumbnailsRequester.getPreviewUriForFile(file, account, tier = ThumbnailTier.forView(thumbnailBottomSheet)),
                     ThumbnailsRequester.getContentAddressedImageLoader(account)
                 ) {
                     placeholder(MimetypeIconUtil.getFileTypeIconId(file.mimeType, file.fileName))
@@ -757,7 +776,7 @@ class MainFileListFragment : Fragment(),
                             removeDefaultTint()
                             getDrawableFromUrl(requireContext(), appRegistryProvider.icon)
                         } catch (e: Exception) {
-                            Timber.e(e, "An exception occurred while Glide is trying to load an image")
+                            Timber.e(e, "An exception occurred while loading the app provider icon")
                             addDefaultTint(R.color.bottom_sheet_fragment_item_color)
                             ResourcesCompat.getDrawable(resources, R.drawable.ic_open_in_web, null)
                         }
@@ -773,19 +792,27 @@ class MainFileListFragment : Fragment(),
         }
     }
 
-    private suspend fun getDrawableFromUrl(context: Context, url: String): Drawable? =
-        withContext(Dispatchers.IO) {
-            Glide.with(context)
-                .load(url)
-                .fitCenter()
-                .submit()
-                .get()
+    private suspend fun getDrawableFromUrl(context: Context, url: String): Drawable? {
+        val request = ImageRequest.Builder(context)
+            .data(url)
+            .build()
+        return when (val result = ThumbnailsRequester.getLocalImageLoader().execute(request)) {
+            is SuccessResult -> result.drawable
+            is ErrorResult -> throw result.throwable
         }
+    }
+
+    private fun observeSearchResultToOpen() {
+        collectLatestLifecycleFlow(mainFileListViewModel.searchResultToOpen) { file ->
+            fileActions?.onFileClicked(file)
+        }
+    }
 
     private fun observeFileListUiState() {
         collectLatestLifecycleFlow(mainFileListViewModel.fileListUiState) { fileListUiState ->
             if (fileListUiState !is MainFileListViewModel.FileListUiState.Success) return@collectLatestLifecycleFlow
 
+            thumbnailPrefetcher.cancelAll()
             fileListAdapter.updateFileList(
                 filesToAdd = fileListUiState.folderContent,
                 fileListOption = fileListUiState.fileListOption,
@@ -981,6 +1008,7 @@ class MainFileListFragment : Fragment(),
 
     override fun onDestroy() {
         super.onDestroy()
+        if (::thumbnailPrefetcher.isInitialized) thumbnailPrefetcher.cancelAll()
         _binding = null
     }
 
@@ -1528,7 +1556,9 @@ class MainFileListFragment : Fragment(),
 
         val ocFile = ocFileWithSyncInfo.file
 
-        if (ocFile.isFolder) {
+        if (ocFile.id == null) { // Found by the server search, not synced yet
+            mainFileListViewModel.openSearchResult(ocFile)
+        } else if (ocFile.isFolder) {
             mainFileListViewModel.updateFolderToDisplay(ocFile)
         } else { // Click on a file
             fileActions?.onFileClicked(ocFile)
@@ -1549,6 +1579,7 @@ class MainFileListFragment : Fragment(),
 
     override fun onThreeDotButtonClick(fileWithSyncInfo: OCFileWithSyncInfo) {
         val file = fileWithSyncInfo.file
+        if (file.id == null) return
         fileSingleFile = file
         val fileSync = OCFileSyncInfo(
             fileId = fileWithSyncInfo.file.id!!,
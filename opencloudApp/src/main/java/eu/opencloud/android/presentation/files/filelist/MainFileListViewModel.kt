@@ -40,8 +40,11 @@ import eu.opencloud.android.domain.files.model.OCFileSyncInfo
 import eu.opencloud.android.domain.files.model.OCFileWithSyncInfo
 import eu.opencloud.android.domain.files.usecases.GetFileByIdUseCase
 import eu.opencloud.android.domain.files.usecases.GetFileByRemotePathUseCase
+import eu.opencloud.android.domain.files.usecases.GetFileFromRemoteIdUseCase
 import eu.opencloud.android.domain.files.usecases.GetFolderContentAsStreamUseCase
 import eu.opencloud.android.domain.files.usecases.GetSharedByLinkForAccountAsStreamUseCase
+import eu.opencloud.android.domain.files.usecases.SearchFilesOnServerAsStreamUseCase
+import eu.opencloud.android.domain.files.usecases.SearchFilesWithSyncInfoAsStreamUseCase
 import eu.opencloud.android.domain.files.usecases.SortFilesWithSyncInfoUseCase
 import eu.opencloud.android.domain.spaces.model.OCSpace
 import eu.opencloud.android.domain.spaces.usecases.GetSpaceWithSpecialsByIdForAccountUseCase
@@ -58,26 +61,36 @@ import eu.opencloud.android.providers.CoroutinesDispatcherProvider
 import eu.opencloud.android.usecases.files.FilterFileMenuOptionsUseCase
 import eu.opencloud.android.usecases.synchronization.SynchronizeFolderUseCase
 import eu.opencloud.android.usecases.synchronization.SynchronizeFolderUseCase.SyncFolderMode.SYNC_CONTENTS
+import kotlinx.coroutines.delay
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.MutableSharedFlow
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.SharedFlow
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.catch
 import kotlinx.coroutines.flow.combine
+import kotlinx.coroutines.flow.emitAll
 import kotlinx.coroutines.flow.firstOrNull
 import kotlinx.coroutines.flow.flatMapLatest
+import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.flow.flowOn
 import kotlinx.coroutines.flow.flowOf
 import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.flow.runningFold
 import kotlinx.coroutines.flow.stateIn
 import kotlinx.coroutines.flow.update
 import kotlinx.coroutines.launch
+import timber.log.Timber
 import eu.opencloud.android.domain.files.usecases.SortType.Companion as SortTypeDomain
 
 class MainFileListViewModel(
     private val getFolderContentAsStreamUseCase: GetFolderContentAsStreamUseCase,
     private val getSharedByLinkForAccountAsStreamUseCase: GetSharedByLinkForAccountAsStreamUseCase,
     private val getFilesAvailableOfflineFromAccountAsStreamUseCase: GetFilesAvailableOfflineFromAccountAsStreamUseCase,
+    private val searchFilesWithSyncInfoAsStreamUseCase: SearchFilesWithSyncInfoAsStreamUseCase,
+    private val searchFilesOnServerAsStreamUseCase: SearchFilesOnServerAsStreamUseCase,
+    private val getFileFromRemoteIdUseCase: GetFileFromRemoteIdUseCase,
     private val getFileByIdUseCase: GetFileByIdUseCase,
     private val getFileByRemotePathUseCase: GetFileByRemotePathUseCase,
     private val getSpaceWithSpecialsByIdForAccountUseCase: GetSpaceWithSpecialsByIdForAccountUseCase,
@@ -151,6 +164,9 @@ class MainFileListViewModel(
     private val _menuOptionsSingleFile: MutableSharedFlow<List<FileMenuOption>> = MutableSharedFlow()
     val menuOptionsSingleFile: SharedFlow<List<FileMenuOption>> = _menuOptionsSingleFile
 
+    private val _searchResultToOpen: MutableSharedFlow<OCFile> = MutableSharedFlow()
+    val searchResultToOpen: SharedFlow<OCFile> = _searchResultToOpen
+
     init {
         val sortTypeSelected = SortType.values()[sharedPreferencesProvider.getInt(PREF_FILE_LIST_SORT_TYPE, SortType.SORT_TYPE_BY_NAME.ordinal)]
         val sortOrderSelected =
@@ -269,6 +285,23 @@ class MainFileListViewModel(
         updateSpace()
     }
 
+    /**
+     * Server search results are not in the database yet. They are brought in, with their parent folders, before
+     * browsing into them or opening them.
+     */
+    fun openSearchResult(searchResult: OCFile) {
+        val remoteId = searchResult.remoteId ?: return
+        viewModelScope.launch(coroutinesDispatcherProvider.io) {
+            val result = getFileFromRemoteIdUseCase(GetFileFromRemoteIdUseCase.Params(remoteId = remoteId, accountName = searchResult.owner))
+            val file = result.getDataOrNull() ?: return@launch
+            if (file.isFolder) {
+                updateFolderToDisplay(file)
+            } else {
+                _searchResultToOpen.emit(file)
+            }
+        }
+    }
+
     fun updateSearchFilter(newSearchFilter: String) {
         searchFilter.update { newSearchFilter }
     }
@@ -369,9 +402,15 @@ class MainFileListViewModel(
         searchFilter: String?,
         sortTypeAndOrder: Pair<SortType, SortOrder>,
         space: OCSpace?,
-    ): Flow<FileListUiState> =
-        when (fileListOption) {
-            FileListOption.ALL_FILES -> retrieveFlowForAllFiles(currentFolderDisplayed, currentFolderDisplayed.owner)
+    ): Flow<FileListUiState> {
+        val isSearchInFolderTree = fileListOption == FileListOption.ALL_FILES && !searchFilter.isNullOrBlank()
+        return when (fileListOption) {
+            FileListOption.ALL_FILES ->
+                if (isSearchInFolderTree) {
+                    retrieveFlowForSearch(currentFolderDisplayed, searchFilter.orEmpty())
+                } else {
+                    retrieveFlowForAllFiles(currentFolderDisplayed, currentFolderDisplayed.owner)
+                }
             FileListOption.SHARED_BY_LINK -> retrieveFlowForShareByLink(currentFolderDisplayed, currentFolderDisplayed.owner)
             FileListOption.AV_OFFLINE -> retrieveFlowForAvailableOffline(currentFolderDisplayed, currentFolderDisplayed.owner)
             FileListOption.SPACES_LIST -> flowOf()
@@ -381,7 +420,9 @@ class MainFileListViewModel(
             searchFilter,
             sortTypeAndOrder,
             space,
+            filterBySearch = !isSearchInFolderTree,
         )
+    }
 
     private fun retrieveFlowForAllFiles(
         currentFolderDisplayed: OCFile,
@@ -394,6 +435,59 @@ class MainFileListViewModel(
             )
         )
 
+    /**
+     * Searching from a folder looks through its whole subtree in the local full-text index, not only in the files
+     * that are currently listed. Files not synced yet are added as the server search finds them, without replacing
+     * the local results already shown.
+     */
+    private fun retrieveFlowForSearch(
+        currentFolderDisplayed: OCFile,
+        searchFilter: String,
+    ): Flow<List<OCFileWithSyncInfo>> =
+        combine(
+            searchFilesWithSyncInfoAsStreamUseCase(
+                SearchFilesWithSyncInfoAsStreamUseCase.Params(
+                    owner = currentFolderDisplayed.owner,
+                    search = searchFilter,
+                    spaceId = currentFolderDisplayed.spaceId,
+                    rootPath = currentFolderDisplayed.remotePath,
+                )
+            ),
+            retrieveFlowForSearchOnServer(currentFolderDisplayed, searchFilter),
+        ) { localResults, serverResults ->
+            val localRemoteIds = localResults.mapNotNullTo(HashSet()) { it.file.remoteId }
+            localResults + serverResults
+                .filter { it.remoteId !in localRemoteIds }
+                .map { OCFileWithSyncInfo(file = it) }
+        }
+
+    /**
+     * Every page found on the server is added to the previous ones. The search starts once the user stops typing: a
+     * new filter cancels this flow while it is still waiting. If the server search fails, only local results are shown.
+     */
+    private fun retrieveFlowForSearchOnServer(
+        currentFolderDisplayed: OCFile,
+        searchFilter: String,
+    ): Flow<List<OCFile>> =
+        flow {
+            delay(SEARCH_ON_SERVER_DELAY_MILLIS)
+            emitAll(
+                searchFilesOnServerAsStreamUseCase(
+                    SearchFilesOnServerAsStreamUseCase.Params(
+                        accountName = currentFolderDisplayed.owner,
+                        search = searchFilter,
+                    )
+                )
+            )
+        }
+            .map { page -> page.filter { it.isInFolderTree(currentFolderDisplayed) } }
+            .runningFold(emptyList<OCFile>()) { serverResults, page -> serverResults + page }
+            .flowOn(coroutinesDispatcherProvider.io)
+            .catch { Timber.w(it, "Search on server failed, showing local results only") }
+
+    private fun OCFile.isInFolderTree(folder: OCFile): Boolean =
+        spaceId == folder.spaceId && remotePath != folder.remotePath && remotePath.startsWith(folder.remotePath)
+
     /**
      * In root folder, all the shared by link files should be shown. Otherwise, the folder content should be shown.
      * Logic to handle the browse back in [manageBrowseUp]
@@ -428,14 +522,13 @@ class MainFileListViewModel(
         searchFilter: String?,
         sortTypeAndOrder: Pair<SortType, SortOrder>,
         space: OCSpace?,
+        filterBySearch: Boolean,
     ) = this.map { folderContent ->
         FileListUiState.Success(
             folderToDisplay = currentFolderDisplayed,
             folderContent = folderContent.filter { fileWithSyncInfo ->
-                fileWithSyncInfo.file.fileName.contains(
-                    searchFilter ?: "",
-                    ignoreCase = true
-                ) && (showHiddenFiles || !fileWithSyncInfo.file.fileName.startsWith("."))
+                (!filterBySearch || fileWithSyncInfo.file.fileName.contains(searchFilter ?: "", ignoreCase = true)) &&
+                    (showHiddenFiles || !fileWithSyncInfo.file.fileName.startsWith("."))
             }.let { sortList(it, sortTypeAndOrder) },
             fileListOption = fileListOption,
             searchFilter = searchFilter,
@@ -456,6 +549,7 @@ class MainFileListViewModel(
 
     companion object {
         private const val RECYCLER_VIEW_PREFERRED = "RECYCLER_VIEW_PREFERRED"
+        private const val SEARCH_ON_SERVER_DELAY_MILLIS = 400L
     }
 }
 
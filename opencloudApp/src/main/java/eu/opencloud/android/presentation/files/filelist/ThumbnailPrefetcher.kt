@@ -0,0 +1,151 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.presentation.files.filelist
+
+import android.accounts.Account
+import android.content.Context
+import android.os.SystemClock
+import android.util.LruCache
+import androidx.recyclerview.widget.RecyclerView
+import androidx.recyclerview.widget.StaggeredGridLayoutManager
+import coil.request.Disposable
+import coil.request.ImageRequest
+import eu.opencloud.android.presentation.thumbnails.ThumbnailLoadMetrics
+import eu.opencloud.android.presentation.thumbnails.ThumbnailTier
+import eu.opencloud.android.presentation.thumbnails.ThumbnailsRequester
+import eu.opencloud.android.workers.TransferScheduler
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlin.math.abs
+
+/**
+ * Loads the thumbnails of the rows about to scroll into the file list before they are bound, further ahead the
+ * faster the list scrolls, and drops those of rows left far behind.
+ *
+ * Flings skip prefetching: most of the rows they pass are never shown. Prefetches run at most
+ * [PREFETCH_PARALLELISM] at a time on their own threads, and not at all while the account has transfers the user
+ * started, so they never hold up what the user is waiting for.
+ */
+class ThumbnailPrefetcher(
+    private val context: Context,
+    private val transferScheduler: TransferScheduler,
+    private val thumbnailLoadMetrics: ThumbnailLoadMetrics,
+    private val thumbnailAt: (position: Int) -> Thumbnail?,
+    private val uptimeMillis: () -> Long = SystemClock::uptimeMillis,
+) : RecyclerView.OnScrollListener() {
+
+    data class Thumbnail(val uri: String, val tier: ThumbnailTier, val account: Account)
+
+    private class Prefetch(val uri: String, val disposable: Disposable)
+
+    // Touched from the main thread only, where both scroll events and request callbacks arrive
+    private val inFlight = HashMap<Int, Prefetch>()
+    private val prefetchedUris = LruCache<String, Boolean>(MAX_REMEMBERED_PREFETCHES)
+    private var lastScrollAtMillis = 0L
+
+    override fun onScrolled(recyclerView: RecyclerView, dx: Int, dy: Int) {
+        if (dy == 0) return
+        val layoutManager = recyclerView.layoutManager as? StaggeredGridLayoutManager ?: return
+        val itemCount = recyclerView.adapter?.itemCount ?: return
+
+        val now = uptimeMillis()
+        val elapsedMillis = now - lastScrollAtMillis
+        lastScrollAtMillis = now
+
+        val firstVisible = layoutManager.findFirstVisibleItemPositions(null).filter { it >= 0 }.minOrNull() ?: return
+        val lastVisible = layoutManager.findLastVisibleItemPositions(null).maxOrNull() ?: return
+        val spanCount = layoutManager.spanCount
+        cancelOutside(firstVisible - MAX_ROWS_AHEAD * spanCount, lastVisible + MAX_ROWS_AHEAD * spanCount)
+
+        // The first event after a pause tells nothing about the speed
+        val pixelsPerSecond = if (elapsedMillis in 1..MAX_EVENT_GAP_MILLIS) abs(dy) * 1000L / elapsedMillis else 0L
+        val density = context.resources.displayMetrics.density
+        if (pixelsPerSecond > MAX_PREFETCH_DP_PER_SECOND * density) return
+
+        val rowHeight = recyclerView.getChildAt(0)?.height?.takeIf { it > 0 } ?: return
+        val rowsAhead = (pixelsPerSecond * LOOKAHEAD_MILLIS / 1000 / rowHeight).toInt().coerceIn(MIN_ROWS_AHEAD, MAX_ROWS_AHEAD)
+        val positions = if (dy > 0) {
+            (lastVisible + 1)..minOf(lastVisible + rowsAhead * spanCount, itemCount - 1)
+        } else {
+            (firstVisible - 1) downTo maxOf(firstVisible - rowsAhead * spanCount, 0)
+        }
+        prefetch(positions)
+    }
+
+    /** Drops every prefetch, for instance because the rows moved to other positions. */
+    fun cancelAll() {
+        inFlight.values.forEach { it.disposable.dispose() }
+        inFlight.clear()
+    }
+
+    private fun prefetch(positions: IntProgression) {
+        for (position in positions) {
+            if (position in inFlight) continue
+            val thumbnail = thumbnailAt(position) ?: continue
+            if (prefetchedUris[thumbnail.uri] != null) continue
+            if (transferScheduler.hasInteractiveTransfers(thumbnail.account.name)) return
+
+            val request = ImageRequest.Builder(context)
+                .data(thumbnail.uri)
+                .size(thumbnail.tier.sizePx)
+                .dispatcher(prefetchDispatcher)
+                .listener(
+                    onCancel = { inFlight.removeIfSame(position, thumbnail.uri) },
+                    onError = { _, _ -> inFlight.removeIfSame(position, thumbnail.uri) },
+                    onSuccess = { _, _ ->
+                        inFlight.removeIfSame(position, thumbnail.uri)
+                        prefetchedUris.put(thumbnail.uri, true)
+                        thumbnailLoadMetrics.recordPrefetch()
+                    },
+                )
+                .build()
+            val disposable = ThumbnailsRequester.getContentAddressedImageLoader(thumbnail.account).enqueue(request)
+            if (!disposable.isDisposed) inFlight[position] = Prefetch(thumbnail.uri, disposable)
+        }
+    }
+
+    private fun cancelOutside(fromPosition: Int, toPosition: Int) {
+        val iterator = inFlight.entries.iterator()
+        while (iterator.hasNext()) {
+            val (position, prefetch) = iterator.next()
+            if (position < fromPosition || position > toPosition) {
+                prefetch.disposable.dispose()
+                iterator.remove()
+            }
+        }
+    }
+
+    private fun HashMap<Int, Prefetch>.removeIfSame(position: Int, uri: String) {
+        if (this[position]?.uri == uri) remove(position)
+    }
+
+    companion object {
+        const val PREFETCH_PARALLELISM = 2
+
+        private const val MIN_ROWS_AHEAD = 3
+        private const val MAX_ROWS_AHEAD = 12
+        private const val LOOKAHEAD_MILLIS = 1000L
+        private const val MAX_EVENT_GAP_MILLIS = 100L
+        private const val MAX_PREFETCH_DP_PER_SECOND = 3000
+        private const val MAX_REMEMBERED_PREFETCHES = 512
+
+        @OptIn(ExperimentalCoroutinesApi::class)
+        private val prefetchDispatcher = Dispatchers.IO.limitedParallelism(PREFETCH_PARALLELISM)
+    }
+}
@@ -31,6 +31,7 @@ import androidx.fragment.app.DialogFragment
 import eu.opencloud.android.R
 import eu.opencloud.android.databinding.RemoveFilesDialogBinding
 import coil.load
+import eu.opencloud.android.presentation.thumbnails.ThumbnailTier
 import eu.opencloud.android.presentation.thumbnails.ThumbnailsRequester
 import eu.opencloud.android.presentation.authentication.AccountUtils
 import eu.opencloud.android.domain.files.model.OCFile
@@ -124,7 +125,8 @@ class RemoveFilesDialogFragment : DialogFragment() {
             val file = files[0]
             // Show the thumbnail when the file has one
             val account = AccountUtils.getCurrentOpenCloudAccount(requireContext())
-            thumbnailImageView.load(ThumbnailsRequester.getPreviewUriForFile(file, account),
+            val tier = ThumbnailTier.forView(thumbnailImageView)
+            thumbnailImageView.load(ThumbnailsRequester.getPreviewUriForFile(file, account, tier = tier),
                 ThumbnailsRequester.getContentAddressedImageLoader(account)) {
                 placeholder(MimetypeIconUtil.getFileTypeIconId(file.mimeType, file.fileName))
                 error(MimetypeIconUtil.getFileTypeIconId(file.mimeType, file.fileName))
@@ -28,6 +28,9 @@ import androidx.preference.Preference
 import androidx.preference.PreferenceFragmentCompat
 import androidx.preference.SwitchPreferenceCompat
 import eu.opencloud.android.R
+import eu.opencloud.android.lib.common.network.BandwidthLimiter
+import eu.opencloud.android.workers.TransferBandwidthPolicy
+import eu.opencloud.android.workers.TransferScheduler
 import org.koin.androidx.viewmodel.ext.android.viewModel
 
 class SettingsAdvancedFragment : PreferenceFragmentCompat() {
@@ -37,6 +40,8 @@ class SettingsAdvancedFragment : PreferenceFragmentCompat() {
 
     private var prefShowHiddenFiles: SwitchPreferenceCompat? = null
     private var prefRemoveLocalFiles: ListPreference? = null
+    private var prefHttp2Enabled: SwitchPreferenceCompat? = null
+    private var prefTransferLimits: Map<ListPreference, Pair<TransferScheduler.Priority, Boolean>> = emptyMap()
 
     override fun onCreatePreferences(savedInstanceState: Bundle?, rootKey: String?) {
         setPreferencesFromResource(R.xml.settings_advanced, rootKey)
@@ -59,6 +64,16 @@ class SettingsAdvancedFragment : PreferenceFragmentCompat() {
             ).toTypedArray()
             summary = getString(R.string.prefs_delete_local_files_summary, this.entry)
         }
+        prefHttp2Enabled = findPreference(PREF_HTTP2_ENABLED)
+        prefTransferLimits = TransferScheduler.Priority.values().flatMap { priority ->
+            listOf(true, false).mapNotNull { metered ->
+                findPreference<ListPreference>(TransferBandwidthPolicy.preferenceKey(priority, metered))?.let { it to (priority to metered) }
+            }
+        }.toMap()
+        prefTransferLimits.keys.forEach { preference ->
+            preference.entries = TRANSFER_LIMITS.map { transferLimitLabel(it) }.toTypedArray()
+            preference.entryValues = TRANSFER_LIMITS.map { it.toString() }.toTypedArray()
+        }
         initPreferenceListeners()
     }
 
@@ -66,6 +81,7 @@ class SettingsAdvancedFragment : PreferenceFragmentCompat() {
         super.onViewCreated(view, savedInstanceState)
 
         prefShowHiddenFiles?.isChecked = advancedViewModel.isHiddenFilesShown()
+        prefHttp2Enabled?.isChecked = advancedViewModel.isHttp2Enabled()
     }
 
     private fun initPreferenceListeners() {
@@ -80,9 +96,40 @@ class SettingsAdvancedFragment : PreferenceFragmentCompat() {
             advancedViewModel.scheduleDeleteLocalFiles(newValue)
             true
         }
+
+        prefHttp2Enabled?.setOnPreferenceChangeListener { _: Preference?, newValue: Any ->
+            advancedViewModel.setHttp2Enabled(newValue as Boolean)
+            true
+        }
+
+        prefTransferLimits.forEach { (preference, budget) ->
+            preference.setOnPreferenceChangeListener { _: Preference?, newValue: Any ->
+                advancedViewModel.setTransferLimit(budget.first, budget.second, (newValue as String).toLong())
+                true
+            }
+        }
     }
 
+    private fun transferLimitLabel(bytesPerSecond: Long): String =
+        when {
+            bytesPerSecond == BandwidthLimiter.UNLIMITED -> getString(R.string.prefs_transfer_limit_unlimited)
+            bytesPerSecond < MEGABYTE -> getString(R.string.prefs_transfer_limit_kilobytes, (bytesPerSecond / KILOBYTE).toInt())
+            else -> getString(R.string.prefs_transfer_limit_megabytes, (bytesPerSecond / MEGABYTE).toInt())
+        }
+
     companion object {
         const val PREF_SHOW_HIDDEN_FILES = "show_hidden_files"
+        const val PREF_HTTP2_ENABLED = "http2_enabled"
+
+        private const val KILOBYTE = 1024L
+        private const val MEGABYTE = 1024L * KILOBYTE
+        private val TRANSFER_LIMITS = listOf(
+            BandwidthLimiter.UNLIMITED,
+            128 * KILOBYTE,
+            512 * KILOBYTE,
+            1 * MEGABYTE,
+            5 * MEGABYTE,
+            10 * MEGABYTE,
+        )
     }
 }
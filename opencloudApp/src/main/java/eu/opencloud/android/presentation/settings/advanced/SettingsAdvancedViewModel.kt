@@ -23,13 +23,19 @@ package eu.opencloud.android.presentation.settings.advanced
 
 import androidx.lifecycle.ViewModel
 import eu.opencloud.android.data.providers.SharedPreferencesProvider
+import eu.opencloud.android.lib.common.SingleSessionManager
+import eu.opencloud.android.lib.common.http.HttpClient
+import eu.opencloud.android.presentation.settings.advanced.SettingsAdvancedFragment.Companion.PREF_HTTP2_ENABLED
 import eu.opencloud.android.presentation.settings.advanced.SettingsAdvancedFragment.Companion.PREF_SHOW_HIDDEN_FILES
 import eu.opencloud.android.providers.WorkManagerProvider
+import eu.opencloud.android.workers.TransferBandwidthPolicy
+import eu.opencloud.android.workers.TransferScheduler
 import eu.opencloud.android.workers.RemoveLocallyFilesWithLastUsageOlderThanGivenTimeWorker.Companion.DELETE_FILES_OLDER_GIVEN_TIME_WORKER
 
 class SettingsAdvancedViewModel(
     private val preferencesProvider: SharedPreferencesProvider,
     private val workManagerProvider: WorkManagerProvider,
+    private val transferBandwidthPolicy: TransferBandwidthPolicy,
 ) : ViewModel() {
 
     fun isHiddenFilesShown(): Boolean =
@@ -39,6 +45,25 @@ class SettingsAdvancedViewModel(
         preferencesProvider.putBoolean(PREF_SHOW_HIDDEN_FILES, hide)
     }
 
+    fun isHttp2Enabled(): Boolean =
+        preferencesProvider.getBoolean(PREF_HTTP2_ENABLED, true)
+
+    /**
+     * Clients are rebuilt on their next request, so the change applies without restarting the app.
+     */
+    fun setHttp2Enabled(enabled: Boolean) {
+        preferencesProvider.putBoolean(PREF_HTTP2_ENABLED, enabled)
+        HttpClient.setHttp2Enabled(enabled)
+        SingleSessionManager.getDefaultSingleton().invalidateAllClients()
+    }
+
+    /**
+     * Transfers in progress slow down or speed up right away, as they share the limiter the policy updates.
+     */
+    fun setTransferLimit(priority: TransferScheduler.Priority, metered: Boolean, bytesPerSecond: Long) {
+        transferBandwidthPolicy.setLimit(priority, metered, bytesPerSecond)
+    }
+
     fun scheduleDeleteLocalFiles(newValue: String) {
         workManagerProvider.cancelAllWorkByTag(DELETE_FILES_OLDER_GIVEN_TIME_WORKER)
         if (newValue != RemoveLocalFiles.NEVER.name) {
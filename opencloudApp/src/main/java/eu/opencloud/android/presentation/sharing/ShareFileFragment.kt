@@ -38,6 +38,7 @@ import androidx.fragment.app.Fragment
 import eu.opencloud.android.R
 import eu.opencloud.android.databinding.ShareFileLayoutBinding
 import coil.load
+import eu.opencloud.android.presentation.thumbnails.ThumbnailTier
 import eu.opencloud.android.presentation.thumbnails.ThumbnailsRequester
 import eu.opencloud.android.domain.capabilities.model.CapabilityBooleanType
 import eu.opencloud.android.domain.capabilities.model.OCCapability
@@ -241,7 +242,7 @@ class ShareFileFragment : Fragment(), ShareUserListAdapter.ShareUserAdapterListe
         )
         if (file!!.isImage) {
             binding.shareFileIcon.load(
-                ThumbnailsRequester.getPreviewUriForFile(file!!, account!!),
+                ThumbnailsRequester.getPreviewUriForFile(file!!, account!!, tier = ThumbnailTier.forView(binding.shareFileIcon)),
                 ThumbnailsRequester.getContentAddressedImageLoader(account!!)
             ) {
                 placeholder(MimetypeIconUtil.getFileTypeIconId(file!!.mimeType, file!!.fileName))
@@ -0,0 +1,82 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.presentation.thumbnails
+
+import android.graphics.Bitmap
+import eu.opencloud.android.domain.files.model.OCFile
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+import java.security.MessageDigest
+
+/**
+ * Thumbnails of the images available offline, kept in [directory] apart from the Coil caches, so they are still
+ * there to show when the device is offline and the shared cache evicted the server previews long ago. Only the
+ * available offline sync adds and removes them.
+ */
+class OfflineThumbnailStore(private val directory: File) {
+
+    fun fileFor(key: String): File = File(directory, key + EXTENSION)
+
+    fun contains(key: String): Boolean = fileFor(key).exists()
+
+    fun put(key: String, bitmap: Bitmap): Boolean {
+        if (!directory.exists() && !directory.mkdirs()) return false
+        val target = fileFor(key)
+        val temporary = File(directory, key + TEMPORARY_EXTENSION)
+        return try {
+            temporary.outputStream().use { bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, it) }
+            // Renaming, not to leave a half written thumbnail if the process dies meanwhile
+            temporary.renameTo(target)
+        } catch (e: IOException) {
+            Timber.w(e, "Could not store the offline thumbnail %s", key)
+            temporary.delete()
+            false
+        }
+    }
+
+    /** Removes the thumbnails not in [keys], of files no longer available offline or changed since. */
+    fun retainOnly(keys: Set<String>): Int {
+        val stale = directory.listFiles()?.filter { it.name.removeSuffix(EXTENSION) !in keys }.orEmpty()
+        stale.forEach { it.delete() }
+        return stale.size
+    }
+
+    companion object {
+        /** Coil request parameter with the key of the thumbnail to fall back on when the preview cannot be loaded. */
+        const val REQUEST_PARAMETER_KEY = "offline_thumbnail_key"
+
+        val TIER = ThumbnailTier.MEDIUM
+
+        private const val EXTENSION = ".jpg"
+        private const val TEMPORARY_EXTENSION = ".tmp"
+        private const val JPEG_QUALITY = 80
+
+        /** Changes with the content of the file, so that an outdated thumbnail is never shown for it. */
+        fun keyFor(file: OCFile): String {
+            val identity = listOf(
+                file.owner,
+                file.spaceId.orEmpty(),
+                file.remoteId ?: file.remotePath,
+                ThumbnailsRequester.getThumbnailCacheToken(file),
+            ).joinToString("\n")
+            return MessageDigest.getInstance("SHA-1").digest(identity.toByteArray()).joinToString("") { "%02x".format(it) }
+        }
+    }
+}
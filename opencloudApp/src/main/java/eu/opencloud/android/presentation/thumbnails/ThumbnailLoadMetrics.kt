@@ -0,0 +1,106 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.presentation.thumbnails
+
+import android.os.SystemClock
+import coil.decode.DataSource
+import coil.request.ErrorResult
+import coil.request.ImageRequest
+import coil.request.SuccessResult
+import timber.log.Timber
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Counts how thumbnails shown in the file list were loaded: how many came from a cache, which the prefetcher is
+ * there to raise, and how long rows waited for them once bound.
+ */
+class ThumbnailLoadMetrics(
+    private val elapsedMillis: () -> Long = SystemClock::elapsedRealtime,
+) {
+
+    data class Snapshot(
+        val loaded: Long,
+        val cacheHits: Long,
+        val failed: Long,
+        val prefetched: Long,
+        val averageTimeToThumbnailMillis: Long,
+    ) {
+        val hitRate: Float
+            get() = if (loaded == 0L) 0f else cacheHits.toFloat() / loaded
+    }
+
+    private val loaded = AtomicLong()
+    private val cacheHits = AtomicLong()
+    private val failed = AtomicLong()
+    private val prefetched = AtomicLong()
+    private val totalTimeMillis = AtomicLong()
+
+    /** Listener for the request of a single bound row. */
+    fun newListener(): ImageRequest.Listener = object : ImageRequest.Listener {
+        private var startedAtMillis = 0L
+
+        override fun onStart(request: ImageRequest) {
+            startedAtMillis = elapsedMillis()
+        }
+
+        override fun onSuccess(request: ImageRequest, result: SuccessResult) {
+            recordLoad(result.dataSource, elapsedMillis() - startedAtMillis)
+        }
+
+        override fun onError(request: ImageRequest, result: ErrorResult) {
+            failed.incrementAndGet()
+        }
+    }
+
+    fun recordPrefetch() {
+        prefetched.incrementAndGet()
+    }
+
+    fun snapshot(): Snapshot {
+        val loaded = loaded.get()
+        return Snapshot(
+            loaded = loaded,
+            cacheHits = cacheHits.get(),
+            failed = failed.get(),
+            prefetched = prefetched.get(),
+            averageTimeToThumbnailMillis = if (loaded == 0L) 0 else totalTimeMillis.get() / loaded,
+        )
+    }
+
+    private fun recordLoad(dataSource: DataSource, elapsedMillis: Long) {
+        if (dataSource != DataSource.NETWORK) cacheHits.incrementAndGet()
+        totalTimeMillis.addAndGet(elapsedMillis)
+        val count = loaded.incrementAndGet()
+        if (count % LOG_EVERY_LOADS == 0L) {
+            val snapshot = snapshot()
+            Timber.d(
+                "Thumbnails: %d loaded, %.0f%% from cache, %d ms on average, %d prefetched, %d failed",
+                snapshot.loaded,
+                snapshot.hitRate * 100,
+                snapshot.averageTimeToThumbnailMillis,
+                snapshot.prefetched,
+                snapshot.failed,
+            )
+        }
+    }
+
+    companion object {
+        private const val LOG_EVERY_LOADS = 100L
+    }
+}
@@ -0,0 +1,57 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.presentation.thumbnails
+
+import android.view.View
+import kotlin.math.max
+
+/**
+ * Sizes the server renders previews at. A view asks for the smallest tier covering its longest side, so a list
+ * icon does not download, decode and cache a preview several times bigger than the pixels it has to fill.
+ */
+enum class ThumbnailTier(val sizePx: Int) {
+    SMALL(96),
+    MEDIUM(256),
+    LARGE(1024);
+
+    /** Tiers bigger than this one, smallest first. Any of them is good enough to show in place of this one. */
+    val largerTiers: List<ThumbnailTier>
+        get() = values().filter { it > this }
+
+    companion object {
+        fun forTargetSize(widthPx: Int, heightPx: Int): ThumbnailTier {
+            val longestSide = max(widthPx, heightPx)
+            if (longestSide <= 0) return LARGE
+            return values().firstOrNull { it.sizePx >= longestSide } ?: LARGE
+        }
+
+        /**
+         * Tier for [view], from its size once laid out or from its layout params before. Views that just match
+         * or wrap their parent and were not measured yet get the largest tier.
+         */
+        fun forView(view: View): ThumbnailTier =
+            if (view.width > 0 && view.height > 0) {
+                forTargetSize(view.width, view.height)
+            } else {
+                forTargetSize(view.layoutParams?.width ?: 0, view.layoutParams?.height ?: 0)
+            }
+
+        fun forSize(sizePx: Int): ThumbnailTier? = values().firstOrNull { it.sizePx == sizePx }
+    }
+}
@@ -22,11 +22,18 @@ package eu.opencloud.android.presentation.thumbnails
 
 import android.accounts.Account
 import android.accounts.AccountManager
+import android.app.ActivityManager
+import android.content.Context
 import android.net.Uri
+import android.os.Build
 import androidx.annotation.VisibleForTesting
 import coil.ImageLoader
+import coil.decode.GifDecoder
+import coil.decode.ImageDecoderDecoder
 import coil.disk.DiskCache
 import coil.memory.MemoryCache
+import coil.request.ErrorResult
+import coil.request.ImageResult
 import coil.util.DebugLogger
 import eu.opencloud.android.MainApp.Companion.appContext
 import eu.opencloud.android.data.ClientManager
@@ -42,6 +49,8 @@ import eu.opencloud.android.lib.common.http.HttpConstants.OC_X_REQUEST_ID
 import eu.opencloud.android.lib.common.http.HttpConstants.USER_AGENT_HEADER
 import eu.opencloud.android.lib.common.utils.RandomUtils
 import eu.opencloud.android.presentation.authentication.AccountUtils
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
 import okhttp3.Cache
 import okhttp3.Headers.Companion.toHeaders
 import okhttp3.Interceptor
@@ -55,13 +64,17 @@ import java.util.concurrent.ConcurrentHashMap
 object ThumbnailsRequester : KoinComponent {
     private val clientManager: ClientManager by inject()
     private val preferencesProvider: SharedPreferencesProvider by inject()
+    private val offlineThumbnailStore: OfflineThumbnailStore by inject()
 
     // https://docs.opencloud.eu/docs/next/dev/server/services/thumbnails/information/#thumbnail-query-string-parameters
     private const val SPACE_SPECIAL_PREVIEW_URI = "%s?scalingup=0&a=1&x=%d&y=%d&c=%s&preview=1"
     private const val FILE_PREVIEW_URI = "%s%s?x=%d&y=%d&c=%s&preview=1"
+    private val FILE_PREVIEW_SIZE_REGEX = Regex("""\?x=(\d+)&y=(\d+)&""")
 
     private const val THUMBNAIL_DISK_CACHE_SIZE: Long = 1024 * 1024 * 100 // 100MB
     private const val AVATAR_HTTP_CACHE_SIZE: Long = 10L * 1024 * 1024 // 10MB
+    private const val MEMORY_CACHE_PERCENT = 0.25
+    private const val LOW_RAM_MEMORY_CACHE_PERCENT = 0.15
 
     private val thumbnailImageLoaders = ConcurrentHashMap<String, ImageLoader>()
     private val avatarImageLoaders = ConcurrentHashMap<String, ImageLoader>()
@@ -74,9 +87,32 @@ object ThumbnailsRequester : KoinComponent {
             .build()
     }
 
+    private val isLowRamDevice: Boolean by lazy {
+        (appContext.getSystemService(Context.ACTIVITY_SERVICE) as ActivityManager).isLowRamDevice
+    }
+
     private val sharedMemoryCache: MemoryCache by lazy {
         MemoryCache.Builder(appContext)
-            .maxSizePercent(0.25)
+            .maxSizePercent(if (isLowRamDevice) LOW_RAM_MEMORY_CACHE_PERCENT else MEMORY_CACHE_PERCENT)
+            .build()
+    }
+
+    /**
+     * Every image of the app is decoded by this loader or by one derived from it, so they all share one memory
+     * cache, one disk cache for what comes from the network and the same decoding threads. Bitmaps decoded once are
+     * reused from the memory cache by any screen showing the same image at the same size or smaller.
+     */
+    private val baseImageLoader: ImageLoader by lazy {
+        ImageLoader.Builder(appContext)
+            .apply { if (preferencesProvider.getBoolean("enable_logging", false)) logger(DebugLogger()) }
+            .components {
+                // Animated images played in the previews
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) add(ImageDecoderDecoder.Factory()) else add(GifDecoder.Factory())
+            }
+            .memoryCache { sharedMemoryCache }
+            .diskCache { sharedDiskCache }
+            // Half the memory per pixel, on the devices short of it
+            .allowRgb565(isLowRamDevice)
             .build()
     }
 
@@ -99,23 +135,22 @@ object ThumbnailsRequester : KoinComponent {
         return "$baseUrl/graph/v1.0/me/photo/\$value?u=${account.name.hashCode().toString(16)}"
     }
 
-    fun getPreviewUriForFile(file: OCFile, account: Account, etag: String? = null, width: Int = 1024, height: Int = 1024): String =
-        getPreviewUri(file, null, getThumbnailCacheToken(file, etag), account, width, height)
+    fun getPreviewUriForFile(file: OCFile, account: Account, etag: String? = null, tier: ThumbnailTier = ThumbnailTier.LARGE): String =
+        getPreviewUri(file, null, getThumbnailCacheToken(file, etag), account, tier.sizePx, tier.sizePx)
 
-    fun getPreviewUriForFile(fileWithSyncInfo: OCFileWithSyncInfo, account: Account, width: Int = 1024, height: Int = 1024): String =
+    fun getPreviewUriForFile(fileWithSyncInfo: OCFileWithSyncInfo, account: Account, tier: ThumbnailTier = ThumbnailTier.LARGE): String =
         getPreviewUri(
             fileWithSyncInfo.file,
             fileWithSyncInfo.space?.root?.webDavUrl,
             getThumbnailCacheToken(fileWithSyncInfo.file),
             account,
-            width,
-            height
+            tier.sizePx,
+            tier.sizePx
         )
 
     fun getPreviewUriForSpaceSpecial(spaceSpecial: SpaceSpecial): String =
         String.format(Locale.US, SPACE_SPECIAL_PREVIEW_URI, spaceSpecial.webDavUrl, 1024, 1024, spaceSpecial.eTag)
 
-    @VisibleForTesting
     internal fun getThumbnailCacheToken(file: OCFile, explicitEtag: String? = null): String =
         firstNotBlank(explicitEtag, file.remoteEtag, file.etag).orEmpty()
 
@@ -153,6 +188,27 @@ object ThumbnailsRequester : KoinComponent {
         return String.format(Locale.US, FILE_PREVIEW_URI, previewBaseUrl, encodedPath, width, height, etag.orEmpty())
     }
 
+    /**
+     * Tier of a file preview URI built by [buildPreviewUri], or null for any other URI or for a size that is not a tier.
+     */
+    @VisibleForTesting
+    internal fun getTierOfPreviewUri(uri: String): ThumbnailTier? {
+        val match = FILE_PREVIEW_SIZE_REGEX.find(uri) ?: return null
+        val (width, height) = match.destructured
+        return if (width == height) ThumbnailTier.forSize(width.toInt()) else null
+    }
+
+    /**
+     * The same preview as [uri], rendered at [tier] instead. Only the size changes, so the preview is keyed in the
+     * caches by its path, etag and tier.
+     */
+    @VisibleForTesting
+    internal fun getPreviewUriForTier(uri: String, tier: ThumbnailTier): String =
+        FILE_PREVIEW_SIZE_REGEX.replaceFirst(uri, "?x=${tier.sizePx}&y=${tier.sizePx}&")
+
+    /** Loader for local files, resources and public URLs, which need no credentials of any account. */
+    fun getLocalImageLoader(): ImageLoader = baseImageLoader
+
     fun getContentAddressedImageLoader(): ImageLoader {
         val account = AccountUtils.getCurrentOpenCloudAccount(appContext)
         return getContentAddressedImageLoader(account)
@@ -186,7 +242,7 @@ object ThumbnailsRequester : KoinComponent {
 
     private fun buildThumbnailImageLoader(account: Account): ImageLoader {
         val interceptor = CoilRequestHeaderInterceptor(clientManager, account.name)
-        return ImageLoader(appContext).newBuilder()
+        return baseImageLoader.newBuilder()
             .okHttpClient {
                 // Lazy: deferred to first image request (off main thread).
                 // getClientForCoilThumbnails calls blockingGetAuthToken which
@@ -197,16 +253,19 @@ object ThumbnailsRequester : KoinComponent {
                     .addNetworkInterceptor(CoilCacheResponseInterceptor())
                     .build()
             }
-            .apply { if (preferencesProvider.getBoolean("enable_logging", false)) logger(DebugLogger()) }
-            .memoryCache { sharedMemoryCache }
-            .diskCache { sharedDiskCache }
+            .components(
+                baseImageLoader.components.newBuilder()
+                    .add(ThumbnailTierInterceptor())
+                    .add(OfflineThumbnailInterceptor())
+                    .build()
+            )
             .respectCacheHeaders(false)
             .build()
     }
 
     private fun buildAvatarImageLoader(account: Account): ImageLoader {
         val interceptor = CoilRequestHeaderInterceptor(clientManager, account.name)
-        return ImageLoader(appContext).newBuilder()
+        return baseImageLoader.newBuilder()
             .okHttpClient {
                 clientManager.getClientForCoilThumbnails(account.name)
                     .okHttpClient.newBuilder()
@@ -215,8 +274,6 @@ object ThumbnailsRequester : KoinComponent {
                     .cache(avatarHttpCache)
                     .build()
             }
-            .apply { if (preferencesProvider.getBoolean("enable_logging", false)) logger(DebugLogger()) }
-            .memoryCache { sharedMemoryCache }
             // No Coil disk cache — OkHttp's HTTP cache handles persistence
             // and offline fallback instead.
             .diskCache(null)
@@ -265,6 +322,60 @@ object ThumbnailsRequester : KoinComponent {
         }
     }
 
+    /**
+     * Serves a smaller tier from a bigger one already in the memory or disk cache, instead of downloading it too.
+     * Coil still scales the bigger preview down to the size of the target.
+     */
+    private class ThumbnailTierInterceptor : coil.intercept.Interceptor {
+
+        override suspend fun intercept(chain: coil.intercept.Interceptor.Chain): ImageResult {
+            val request = chain.request
+            val uri = request.data as? String
+            val tier = uri?.let { getTierOfPreviewUri(it) }
+            if (uri == null || tier == null || tier == ThumbnailTier.LARGE) return chain.proceed(request)
+
+            val largerUris = tier.largerTiers.map { getPreviewUriForTier(uri, it) }
+            val isMemoryCacheReadable = request.memoryCachePolicy.readEnabled
+            if (isMemoryCacheReadable && isInMemory(uri)) return chain.proceed(request)
+
+            val cachedLargerUri = largerUris.firstOrNull { isMemoryCacheReadable && isInMemory(it) }
+                ?: if (request.diskCachePolicy.readEnabled) findLargerOnDisk(uri, largerUris) else null
+            if (cachedLargerUri == null) return chain.proceed(request)
+
+            Timber.d("Thumbnail %s served from a bigger tier already cached", uri)
+            return chain.proceed(request.newBuilder().data(cachedLargerUri).build())
+        }
+
+        private suspend fun findLargerOnDisk(uri: String, largerUris: List<String>): String? = withContext(Dispatchers.IO) {
+            if (isOnDisk(uri)) null else largerUris.firstOrNull { isOnDisk(it) }
+        }
+
+        private fun isOnDisk(uri: String): Boolean =
+            sharedDiskCache[uri]?.use { true } ?: false
+
+        // Previews are requested without transformations, so their key is the bare uri
+        private fun isInMemory(uri: String): Boolean =
+            sharedMemoryCache[MemoryCache.Key(uri)] != null
+    }
+
+    /**
+     * Falls back on the thumbnail pinned for files available offline when their preview is neither cached nor
+     * reachable. Requests name the pinned thumbnail with [OfflineThumbnailStore.REQUEST_PARAMETER_KEY].
+     */
+    private class OfflineThumbnailInterceptor : coil.intercept.Interceptor {
+
+        override suspend fun intercept(chain: coil.intercept.Interceptor.Chain): ImageResult {
+            val result = chain.proceed(chain.request)
+            val key = chain.request.parameters.value<String>(OfflineThumbnailStore.REQUEST_PARAMETER_KEY)
+            if (result !is ErrorResult || key == null) return result
+
+            val pinnedThumbnail = withContext(Dispatchers.IO) {
+                offlineThumbnailStore.fileFor(key).takeIf { it.exists() }
+            } ?: return result
+            return chain.proceed(chain.request.newBuilder().data(pinnedThumbnail).build())
+        }
+    }
+
     private class CoilCacheResponseInterceptor : Interceptor {
         override fun intercept(chain: Interceptor.Chain): Response {
             val response = chain.proceed(chain.request())
@@ -42,6 +42,7 @@ import eu.opencloud.android.presentation.authentication.AccountUtils
 import eu.opencloud.android.ui.activity.FileActivity
 import org.koin.androidx.viewmodel.ext.android.viewModel
 import java.io.File
+import java.util.UUID
 
 class TransferListFragment : Fragment() {
 
@@ -52,6 +53,9 @@ class TransferListFragment : Fragment() {
 
     private lateinit var transfersAdapter: TransfersAdapter
 
+    private var workTags: Map<UUID, Set<String>> = emptyMap()
+    private var shownProgress: Map<UUID, Int> = emptyMap()
+
     override fun onCreateView(inflater: LayoutInflater, container: ViewGroup?, savedInstanceState: Bundle?): View {
         _binding = FragmentTransferListBinding.inflate(inflater, container, false)
         return binding.root
@@ -107,9 +111,12 @@ class TransferListFragment : Fragment() {
         }
 
         transfersViewModel.workInfosListLiveData.observe(viewLifecycleOwner) { workInfos ->
-            workInfos.forEach { workInfo ->
-                transfersAdapter.updateTransferProgress(workInfo)
-            }
+            workTags = workInfos.associate { it.id to it.tags }
+            showTransfersProgress(transfersViewModel.transferProgressStateFlow.value, force = true)
+        }
+
+        collectLatestLifecycleFlow(transfersViewModel.transferProgressStateFlow) { progress ->
+            showTransfersProgress(progress, force = false)
         }
 
     }
@@ -119,6 +126,20 @@ class TransferListFragment : Fragment() {
         _binding = null
     }
 
+    /**
+     * Rebinds the progress bar of the transfers whose percentage moved since the last time, or of every running
+     * transfer when [force] is set, as rows of new workers may not have shown any yet.
+     */
+    private fun showTransfersProgress(progress: Map<UUID, Int>, force: Boolean) {
+        progress.forEach { (workId, percent) ->
+            val tags = workTags[workId] ?: return@forEach
+            if (force || shownProgress[workId] != percent) {
+                transfersAdapter.updateTransferProgress(tags, percent)
+            }
+        }
+        shownProgress = progress
+    }
+
     private fun setData(transfersWithSpace: List<Pair<OCTransfer, OCSpace?>>) {
         binding.transfersRecyclerView.isVisible = transfersWithSpace.isNotEmpty()
         binding.transfersListEmpty.apply {
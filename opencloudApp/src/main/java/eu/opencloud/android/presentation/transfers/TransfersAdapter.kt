@@ -27,9 +27,7 @@ import android.view.ViewGroup
 import androidx.core.view.isVisible
 import androidx.recyclerview.widget.DiffUtil
 import androidx.recyclerview.widget.RecyclerView
-import androidx.work.WorkInfo
-import com.bumptech.glide.Glide
-import com.bumptech.glide.load.engine.DiskCacheStrategy
+import coil.load
 import eu.opencloud.android.R
 import eu.opencloud.android.databinding.UploadListGroupBinding
 import eu.opencloud.android.databinding.UploadListItemBinding
@@ -40,12 +38,13 @@ import eu.opencloud.android.domain.transfers.model.TransferStatus
 import eu.opencloud.android.extensions.statusToStringRes
 import eu.opencloud.android.lib.common.OpenCloudAccount
 import eu.opencloud.android.presentation.authentication.AccountUtils
+import eu.opencloud.android.presentation.thumbnails.ThumbnailTier
+import eu.opencloud.android.presentation.thumbnails.ThumbnailsRequester
 import eu.opencloud.android.presentation.transfers.TransfersAdapter.TransferRecyclerItem.HeaderItem
 import eu.opencloud.android.presentation.transfers.TransfersAdapter.TransferRecyclerItem.TransferItem
 import eu.opencloud.android.utils.DisplayUtils
 import eu.opencloud.android.utils.MimetypeIconUtil
 import eu.opencloud.android.utils.PreferenceUtils
-import eu.opencloud.android.workers.DownloadFileWorker
 import timber.log.Timber
 import java.io.File
 
@@ -154,16 +153,15 @@ class TransfersAdapter(
             uploadStatus.isVisible = transferItem.transfer.status != TransferStatus.TRANSFER_SUCCEEDED
             uploadStatus.text = " — " + holder.itemView.context.getString(transferItem.transfer.statusToStringRes())
 
-            Glide.with(holder.itemView)
-                .load(transferItem.transfer.sourcePath ?: transferItem.transfer.localPath)
-                .diskCacheStrategy(DiskCacheStrategy.ALL)
-                .placeholder(
-                    MimetypeIconUtil.getFileTypeIconId(
-                        MimetypeIconUtil.getBestMimeTypeByFilename(transferItem.transfer.localPath),
-                        fileName
-                    )
-                )
-                .into(thumbnail)
+            val fileTypeIcon = MimetypeIconUtil.getFileTypeIconId(
+                MimetypeIconUtil.getBestMimeTypeByFilename(transferItem.transfer.localPath),
+                fileName
+            )
+            thumbnail.load(transferItem.transfer.sourcePath ?: transferItem.transfer.localPath, ThumbnailsRequester.getLocalImageLoader()) {
+                size(ThumbnailTier.SMALL.sizePx)
+                placeholder(fileTypeIcon)
+                error(fileTypeIcon)
+            }
 
             uploadRightButton.isVisible = transferItem.transfer.status != TransferStatus.TRANSFER_SUCCEEDED
 
@@ -262,13 +260,13 @@ class TransfersAdapter(
         diffResult.dispatchUpdatesTo(this)
     }
 
-    fun updateTransferProgress(workInfo: WorkInfo) {
+    fun updateTransferProgress(workTags: Set<String>, percent: Int) {
         var updated = false
         var index = 0
         while (!updated && index < transferItemsList.size) {
             val item = transferItemsList[index]
-            if (item is TransferItem && workInfo.tags.contains(item.transfer.id.toString())) {
-                notifyItemChanged(index, workInfo.progress.getInt(DownloadFileWorker.WORKER_KEY_PROGRESS, -1))
+            if (item is TransferItem && workTags.contains(item.transfer.id.toString())) {
+                notifyItemChanged(index, percent)
                 updated = true
             }
             index += 1
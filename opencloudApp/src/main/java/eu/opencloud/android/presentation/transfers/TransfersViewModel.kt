@@ -46,11 +46,13 @@ import eu.opencloud.android.usecases.transfers.uploads.RetryUploadFromContentUri
 import eu.opencloud.android.usecases.transfers.uploads.RetryUploadFromSystemUseCase
 import eu.opencloud.android.usecases.transfers.uploads.UploadFilesFromContentUriUseCase
 import eu.opencloud.android.usecases.transfers.uploads.UploadFilesFromSystemUseCase
+import eu.opencloud.android.workers.TransferProgressAggregator
 import kotlinx.coroutines.flow.SharingStarted
 import kotlinx.coroutines.flow.StateFlow
 import kotlinx.coroutines.flow.combine
 import kotlinx.coroutines.flow.stateIn
 import kotlinx.coroutines.launch
+import java.util.UUID
 
 class TransfersViewModel(
     private val uploadFilesFromContentUriUseCase: UploadFilesFromContentUriUseCase,
@@ -70,6 +72,7 @@ class TransfersViewModel(
     getSpacesFromEveryAccountUseCaseAsStream: GetSpacesFromEveryAccountUseCaseAsStream,
     private val coroutinesDispatcherProvider: CoroutinesDispatcherProvider,
     workManagerProvider: WorkManagerProvider,
+    transferProgressAggregator: TransferProgressAggregator,
 ) : ViewModel() {
     private val _workInfosListLiveData = MediatorLiveData<List<WorkInfo>>()
     val workInfosListLiveData: LiveData<List<WorkInfo>>
@@ -89,6 +92,8 @@ class TransfersViewModel(
         initialValue = emptyList()
     )
 
+    val transferProgressStateFlow: StateFlow<Map<UUID, Int>> = transferProgressAggregator.progress
+
     private var workInfosLiveData = workManagerProvider.getRunningUploadsWorkInfosLiveData()
 
     init {
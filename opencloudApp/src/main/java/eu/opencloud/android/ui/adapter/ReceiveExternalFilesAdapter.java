@@ -36,6 +36,7 @@ import android.widget.TextView;
 
 import eu.opencloud.android.R;
 import eu.opencloud.android.datamodel.FileDataStorageManager;
+import eu.opencloud.android.presentation.thumbnails.ThumbnailTier;
 import eu.opencloud.android.presentation.thumbnails.ThumbnailsRequester;
 import coil.ImageLoader;
 import eu.opencloud.android.db.PreferenceManager;
@@ -146,7 +147,7 @@ public class ReceiveExternalFilesAdapter extends BaseAdapter implements ListAdap
 
         // get Thumbnail if file is image
         if (file.isImage() && file.getRemoteId() != null) {
-            String uri = ThumbnailsRequester.INSTANCE.getPreviewUriForFile(file, mAccount, null, 384, 384);
+            String uri = ThumbnailsRequester.INSTANCE.getPreviewUriForFile(file, mAccount, null, ThumbnailTier.Companion.forView(fileIcon));
             ImageLoader imageLoader = ThumbnailsRequester.INSTANCE.getContentAddressedImageLoader(mAccount);
             coil.request.ImageRequest request = new coil.request.ImageRequest.Builder(mContext)
                     .data(uri)
@@ -0,0 +1,82 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.ui.preview
+
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Splits an image into square tiles for [TiledPhotoView]. Tiles are aligned to a fixed grid per sample size, so panning
+ * reuses the tiles already decoded instead of cutting new ones.
+ */
+internal object ImageTileGrid {
+
+    /** Side of a tile once decoded, whatever its sample size. */
+    const val TILE_SIZE_PX = 512
+
+    /** Bytes a decoded tile takes at most. */
+    const val TILE_MAX_BYTES = TILE_SIZE_PX * TILE_SIZE_PX * 4
+
+    /** A region of the image, in image pixels, to be decoded one pixel out of [sampleSize]. */
+    data class Tile(
+        val sampleSize: Int,
+        val left: Int,
+        val top: Int,
+        val right: Int,
+        val bottom: Int,
+    )
+
+    /**
+     * Largest power of two sample size whose decoded pixels are not bigger than a screen pixel, for an image shown at
+     * [scale] screen pixels per image pixel.
+     */
+    fun sampleSizeFor(scale: Float): Int {
+        var sampleSize = 1
+        while (sampleSize * 2 * scale <= 1f) {
+            sampleSize *= 2
+        }
+        return sampleSize
+    }
+
+    /** Tiles of an image of [imageWidth] x [imageHeight] overlapping the region from [left], [top] to [right], [bottom]. */
+    fun tilesIn(left: Int, top: Int, right: Int, bottom: Int, imageWidth: Int, imageHeight: Int, sampleSize: Int): List<Tile> {
+        val visibleLeft = max(left, 0)
+        val visibleTop = max(top, 0)
+        val visibleRight = min(right, imageWidth)
+        val visibleBottom = min(bottom, imageHeight)
+        if (visibleLeft >= visibleRight || visibleTop >= visibleBottom) return emptyList()
+
+        val span = TILE_SIZE_PX * sampleSize
+        val tiles = mutableListOf<Tile>()
+        for (row in visibleTop / span..(visibleBottom - 1) / span) {
+            for (column in visibleLeft / span..(visibleRight - 1) / span) {
+                tiles.add(
+                    Tile(
+                        sampleSize = sampleSize,
+                        left = column * span,
+                        top = row * span,
+                        right = min((column + 1) * span, imageWidth),
+                        bottom = min((row + 1) * span, imageHeight),
+                    )
+                )
+            }
+        }
+        return tiles
+    }
+}
@@ -30,9 +30,9 @@ package eu.opencloud.android.ui.preview
 import android.accounts.Account
 import android.graphics.Bitmap
 import android.graphics.Color
-import android.graphics.drawable.Drawable
 import android.os.Build
 import android.os.Bundle
+import android.os.SystemClock
 import android.view.LayoutInflater
 import android.view.Menu
 import android.view.MenuItem
@@ -40,12 +40,9 @@ import android.view.View
 import android.view.ViewGroup
 import android.widget.ProgressBar
 import androidx.core.view.isVisible
-import com.bumptech.glide.Glide
-import com.bumptech.glide.load.DataSource
-import com.bumptech.glide.load.engine.DiskCacheStrategy
-import com.bumptech.glide.load.engine.GlideException
-import com.bumptech.glide.request.RequestListener
-import com.bumptech.glide.request.target.Target
+import coil.load
+import coil.request.CachePolicy
+import coil.size.Scale
 import com.github.chrisbanes.photoview.PhotoView
 import com.google.android.material.snackbar.Snackbar
 import eu.opencloud.android.R
@@ -59,6 +56,7 @@ import eu.opencloud.android.presentation.files.operations.FileOperation
 import eu.opencloud.android.presentation.files.operations.FileOperationsViewModel
 import eu.opencloud.android.presentation.files.removefile.RemoveFilesDialogFragment
 import eu.opencloud.android.presentation.files.removefile.RemoveFilesDialogFragment.Companion.TAG_REMOVE_FILES_DIALOG_FRAGMENT
+import eu.opencloud.android.presentation.thumbnails.ThumbnailsRequester
 import eu.opencloud.android.ui.fragment.FileFragment
 import eu.opencloud.android.utils.PreferenceUtils
 import org.koin.android.ext.android.inject
@@ -312,34 +310,31 @@ class PreviewImageFragment : FileFragment() {
             Timber.w("Storage path for ${file.fileName} is null, nothing to show here")
             return
         }
-        Glide.with(requireContext())
-            .load(File(localStoragePath))
-            .diskCacheStrategy(DiskCacheStrategy.NONE)
-            .skipMemoryCache(true)
-            .listener(object : RequestListener<Drawable?> {
-                override fun onLoadFailed(
-                    e: GlideException?, model: Any, target: Target<Drawable?>, isFirstResource: Boolean
-                ): Boolean {
+        val loadStart = SystemClock.elapsedRealtime()
+        val imageFile = File(localStoragePath)
+        // Decoded at the size of the screen, the tiles of the full resolution image come on zoom
+        binding.photoView.load(imageFile, ThumbnailsRequester.getLocalImageLoader()) {
+            // The file is already on the device, copying it into the disk cache would only duplicate it
+            diskCachePolicy(CachePolicy.DISABLED)
+            // Fitted, as PhotoView shows it, so that panoramas are not decoded to fill the screen
+            scale(Scale.FIT)
+            listener(
+                onError = { _, result ->
                     try {
                         binding.errorGroup.isVisible = true
                     } catch (npe: NullPointerException) {
                         Timber.e(npe)
                     }
-                    Timber.e(e, "Error loading image")
-                    return false
-                }
-
-                override fun onResourceReady(
-                    resource: Drawable?, model: Any, target: Target<Drawable?>,
-                    dataSource: DataSource, isFirstResource: Boolean
-                ): Boolean {
-                    Timber.d("Loading image %s", file.fileName)
+                    Timber.e(result.throwable, "Error loading image")
+                },
+                onSuccess = { _, _ ->
+                    Timber.d("Loaded image %s in %d ms", file.fileName, SystemClock.elapsedRealtime() - loadStart)
 
                     view?.findViewById<ProgressBar>(R.id.progressWheel)?.isVisible = false
-                    return false
-                }
-            })
-            .into(binding.photoView)
+                    _binding?.photoView?.setTileSource(imageFile)
+                },
+            )
+        }
 
         binding.photoView.isVisible = true
     }
@@ -0,0 +1,282 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.ui.preview
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.graphics.BitmapRegionDecoder
+import android.graphics.Canvas
+import android.graphics.Matrix
+import android.graphics.Paint
+import android.graphics.Rect
+import android.graphics.RectF
+import android.media.ExifInterface
+import android.os.Build
+import android.util.AttributeSet
+import android.util.LruCache
+import com.github.chrisbanes.photoview.PhotoView
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.ExperimentalCoroutinesApi
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.cancel
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+import kotlin.math.ceil
+import kotlin.math.floor
+import kotlin.math.max
+
+/**
+ * [PhotoView] for images far bigger than the screen. The drawable set on it is a screen-sized, subsampled version of the
+ * image, which is all that is needed until the user zooms in. From then on, only the tiles of the image that are on
+ * screen are decoded from [setTileSource]'s file, at the resolution they are shown at, and drawn over the drawable.
+ *
+ * Decoded tiles are kept in an LRU cache of bounded size, so the memory used does not depend on the image dimensions.
+ */
+class TiledPhotoView @JvmOverloads constructor(
+    context: Context,
+    attrs: AttributeSet? = null,
+    defStyle: Int = 0,
+) : PhotoView(context, attrs, defStyle) {
+
+    private var source: TileSource? = null
+    private var sourceScope: CoroutineScope? = null
+    private var maximumScaleAdjusted = false
+
+    private val tileCache = object : LruCache<ImageTileGrid.Tile, Bitmap>(TILE_CACHE_MAX_BYTES) {
+        override fun sizeOf(key: ImageTileGrid.Tile, value: Bitmap): Int = value.allocationByteCount
+    }
+    private val pendingTiles = HashMap<ImageTileGrid.Tile, Job>()
+
+    private val imageToView = Matrix()
+    private val viewToImage = Matrix()
+    private val visibleRect = RectF()
+    private val tileRect = RectF()
+    private val tilePaint = Paint(Paint.FILTER_BITMAP_FLAG)
+
+    /**
+     * Decodes tiles of [file] when the image is zoomed in past the resolution of the drawable. `null` stops tiling and
+     * releases the tiles decoded so far.
+     */
+    fun setTileSource(file: File?) {
+        releaseTileSource()
+        file ?: return
+
+        val scope = CoroutineScope(SupervisorJob() + Dispatchers.Main.immediate).also { sourceScope = it }
+        scope.launch {
+            val newSource = withContext(tileDispatcher) { TileSource.open(file) } ?: return@launch
+            source = newSource
+            invalidate()
+        }
+    }
+
+    override fun onDraw(canvas: Canvas) {
+        super.onDraw(canvas)
+        drawTiles(canvas)
+    }
+
+    override fun onDetachedFromWindow() {
+        releaseTileSource()
+        super.onDetachedFromWindow()
+    }
+
+    private fun drawTiles(canvas: Canvas) {
+        val source = source ?: return
+        val drawable = drawable ?: return
+        val displayRect = displayRect ?: return
+        if (displayRect.isEmpty) return
+
+        val scale = displayRect.width() / source.orientedWidth
+        if (!maximumScaleAdjusted) {
+            // Let the user zoom in until one image pixel takes one screen pixel
+            maximumScale = max(maximumScale, this.scale / scale)
+            maximumScaleAdjusted = true
+        }
+
+        imageToView.set(source.orientation)
+        imageToView.postScale(scale, scale)
+        imageToView.postTranslate(displayRect.left, displayRect.top)
+        imageToView.invert(viewToImage)
+        visibleRect.set(0f, 0f, width.toFloat(), height.toFloat())
+        viewToImage.mapRect(visibleRect)
+
+        var sampleSize = ImageTileGrid.sampleSizeFor(scale)
+        var tiles = visibleTiles(source, sampleSize)
+        // Coarser tiles rather than more than the cache holds, which would evict and decode them again on every frame
+        while (tiles.size * ImageTileGrid.TILE_MAX_BYTES > TILE_CACHE_MAX_BYTES) {
+            sampleSize *= 2
+            tiles = visibleTiles(source, sampleSize)
+        }
+        // The drawable already has as much detail as these tiles would add
+        if (source.orientedWidth / sampleSize <= drawable.intrinsicWidth) tiles = emptyList()
+
+        pendingTiles.keys.filter { it !in tiles }.forEach { pendingTiles.remove(it)?.cancel() }
+
+        canvas.save()
+        canvas.concat(imageToView)
+        tiles.forEach { tile ->
+            val bitmap = tileCache[tile]
+            if (bitmap == null) {
+                requestTile(source, tile)
+            } else {
+                tileRect.set(tile.left.toFloat(), tile.top.toFloat(), tile.right.toFloat(), tile.bottom.toFloat())
+                canvas.drawBitmap(bitmap, null, tileRect, tilePaint)
+            }
+        }
+        canvas.restore()
+    }
+
+    private fun visibleTiles(source: TileSource, sampleSize: Int): List<ImageTileGrid.Tile> =
+        ImageTileGrid.tilesIn(
+            left = floor(visibleRect.left).toInt(),
+            top = floor(visibleRect.top).toInt(),
+            right = ceil(visibleRect.right).toInt(),
+            bottom = ceil(visibleRect.bottom).toInt(),
+            imageWidth = source.width,
+            imageHeight = source.height,
+            sampleSize = sampleSize,
+        )
+
+    private fun requestTile(source: TileSource, tile: ImageTileGrid.Tile) {
+        val scope = sourceScope ?: return
+        if (pendingTiles.containsKey(tile)) return
+
+        pendingTiles[tile] = scope.launch {
+            val bitmap = withContext(tileDispatcher) { source.decode(tile) }
+            pendingTiles.remove(tile)
+            if (bitmap != null && source === this@TiledPhotoView.source) {
+                tileCache.put(tile, bitmap)
+                invalidate()
+            }
+        }
+    }
+
+    private fun releaseTileSource() {
+        sourceScope?.cancel()
+        sourceScope = null
+        pendingTiles.clear()
+        tileCache.evictAll()
+        maximumScaleAdjusted = false
+        source?.let { oldSource ->
+            // Queued behind any tile still being decoded from it
+            releaseScope.launch { oldSource.decoder.recycle() }
+        }
+        source = null
+    }
+
+    /** The file being tiled, with the transformation from its stored pixels to the way it is displayed. */
+    private class TileSource(
+        val decoder: BitmapRegionDecoder,
+        val orientation: Matrix,
+        val orientedWidth: Int,
+        private val tileConfig: Bitmap.Config,
+    ) {
+        val width: Int = decoder.width
+        val height: Int = decoder.height
+
+        fun decode(tile: ImageTileGrid.Tile): Bitmap? {
+            val options = BitmapFactory.Options().apply {
+                inSampleSize = tile.sampleSize
+                inPreferredConfig = tileConfig
+            }
+            return try {
+                decoder.decodeRegion(Rect(tile.left, tile.top, tile.right, tile.bottom), options)
+            } catch (e: Exception) {
+                Timber.w(e, "Tile $tile could not be decoded")
+                null
+            } catch (e: OutOfMemoryError) {
+                Timber.w(e, "Not enough memory to decode tile $tile")
+                null
+            }
+        }
+
+        companion object {
+            fun open(file: File): TileSource? {
+                val decoder = try {
+                    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                        BitmapRegionDecoder.newInstance(file.path)
+                    } else {
+                        @Suppress("DEPRECATION")
+                        BitmapRegionDecoder.newInstance(file.path, false)
+                    }
+                } catch (e: IOException) {
+                    // Formats the region decoder does not support, like GIF, are shown from the drawable only
+                    Timber.d(e, "${file.name} cannot be decoded in tiles")
+                    null
+                } ?: return null
+
+                val orientation = try {
+                    ExifInterface(file.path).getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)
+                } catch (e: IOException) {
+                    ExifInterface.ORIENTATION_NORMAL
+                }
+                val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+                BitmapFactory.decodeFile(file.path, bounds)
+                // JPEG has no transparency to keep, so its tiles can take half the memory
+                val tileConfig = if (bounds.outMimeType == MIME_JPEG) Bitmap.Config.RGB_565 else Bitmap.Config.ARGB_8888
+                return fromExifOrientation(decoder, orientation, tileConfig)
+            }
+
+            private fun fromExifOrientation(decoder: BitmapRegionDecoder, orientation: Int, tileConfig: Bitmap.Config): TileSource {
+                val width = decoder.width.toFloat()
+                val height = decoder.height.toFloat()
+                val matrix = Matrix()
+                when (orientation) {
+                    ExifInterface.ORIENTATION_FLIP_HORIZONTAL -> matrix.apply { postScale(-1f, 1f); postTranslate(width, 0f) }
+                    ExifInterface.ORIENTATION_ROTATE_180 -> matrix.apply { postRotate(180f); postTranslate(width, height) }
+                    ExifInterface.ORIENTATION_FLIP_VERTICAL -> matrix.apply { postScale(1f, -1f); postTranslate(0f, height) }
+                    ExifInterface.ORIENTATION_TRANSPOSE -> matrix.apply { postRotate(90f); postScale(-1f, 1f) }
+                    ExifInterface.ORIENTATION_ROTATE_90 -> matrix.apply { postRotate(90f); postTranslate(height, 0f) }
+                    ExifInterface.ORIENTATION_TRANSVERSE -> matrix.apply { postRotate(270f); postScale(-1f, 1f); postTranslate(height, width) }
+                    ExifInterface.ORIENTATION_ROTATE_270 -> matrix.apply { postRotate(270f); postTranslate(0f, width) }
+                }
+                val swapsSides = orientation in SIDE_SWAPPING_ORIENTATIONS
+                return TileSource(
+                    decoder = decoder,
+                    orientation = matrix,
+                    orientedWidth = if (swapsSides) decoder.height else decoder.width,
+                    tileConfig = tileConfig,
+                )
+            }
+
+            private const val MIME_JPEG = "image/jpeg"
+            private val SIDE_SWAPPING_ORIENTATIONS = setOf(
+                ExifInterface.ORIENTATION_TRANSPOSE,
+                ExifInterface.ORIENTATION_ROTATE_90,
+                ExifInterface.ORIENTATION_TRANSVERSE,
+                ExifInterface.ORIENTATION_ROTATE_270,
+            )
+        }
+    }
+
+    companion object {
+        private val TILE_CACHE_MAX_BYTES = (Runtime.getRuntime().maxMemory() / 8).toInt()
+
+        // One decode at a time: a region decoder decodes serially anyway, and the pages next to the one on screen
+        // must not take the memory of the visible one
+        @OptIn(ExperimentalCoroutinesApi::class)
+        private val tileDispatcher = Dispatchers.IO.limitedParallelism(1)
+        private val releaseScope = CoroutineScope(SupervisorJob() + tileDispatcher)
+    }
+}
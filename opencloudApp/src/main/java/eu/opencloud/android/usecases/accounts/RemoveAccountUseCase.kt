@@ -30,6 +30,7 @@ import eu.opencloud.android.domain.BaseUseCase
 import eu.opencloud.android.domain.automaticuploads.usecases.GetAutomaticUploadsConfigurationUseCase
 import eu.opencloud.android.domain.automaticuploads.usecases.ResetPictureUploadsUseCase
 import eu.opencloud.android.domain.automaticuploads.usecases.ResetVideoUploadsUseCase
+import eu.opencloud.android.usecases.synchronization.FolderDiscoveryCheckpoint
 import eu.opencloud.android.usecases.transfers.uploads.CancelTransfersFromAccountUseCase
 
 /*
@@ -48,6 +49,7 @@ class RemoveAccountUseCase(
     private val localUserDataSource: LocalUserDataSource,
     private val localSpacesDataSource: LocalSpacesDataSource,
     private val localAppRegistryDataSource: LocalAppRegistryDataSource,
+    private val folderDiscoveryCheckpoint: FolderDiscoveryCheckpoint,
 ) : BaseUseCase<Unit, RemoveAccountUseCase.Params>() {
 
     override fun run(params: Params) {
@@ -65,7 +67,7 @@ class RemoveAccountUseCase(
             CancelTransfersFromAccountUseCase.Params(accountName = params.accountName)
         )
 
-        // Delete files for the removed account in database
+        // Delete files for the removed account in database, along with the sync tokens of its spaces
         localFileDataSource.deleteFilesForAccount(params.accountName)
 
         // Delete capabilities for the removed account in database
@@ -82,6 +84,9 @@ class RemoveAccountUseCase(
 
         // Delete app registry for the removed account in database
         localAppRegistryDataSource.deleteAppRegistryForAccount(params.accountName)
+
+        // Delete the folders a discovery of the removed account left pending
+        folderDiscoveryCheckpoint.clear(params.accountName)
     }
 
     data class Params(
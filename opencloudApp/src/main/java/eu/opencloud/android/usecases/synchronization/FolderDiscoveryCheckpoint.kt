@@ -0,0 +1,137 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.usecases.synchronization
+
+import timber.log.Timber
+import java.io.File
+import java.io.FileOutputStream
+import java.io.IOException
+import java.net.URLDecoder
+import java.net.URLEncoder
+
+/**
+ * Persists the folders an account discovery still has to fetch, so that an interrupted discovery resumes from them
+ * instead of starting again from the root of every space.
+ *
+ * Each account has a journal in [directory]: folders are appended when they are queued and again when they are done
+ * with, so a save writes what changed since the previous one instead of the whole queue. Loading replays the journal
+ * and compacts it to the folders still pending.
+ */
+class FolderDiscoveryCheckpoint(
+    private val directory: File,
+) {
+
+    fun append(accountName: String, queuedFolders: Collection<PendingFolder>, doneFolders: Collection<PendingFolder>) {
+        if (queuedFolders.isEmpty() && doneFolders.isEmpty()) return
+        if (!directory.exists() && !directory.mkdirs()) {
+            Timber.w("Could not create the discovery checkpoint directory %s", directory.absolutePath)
+            return
+        }
+        try {
+            FileOutputStream(fileFor(accountName), true).bufferedWriter().use { writer ->
+                queuedFolders.forEach { writer.appendLine(QUEUED_MARK + it.serialize()) }
+                doneFolders.forEach { writer.appendLine(DONE_MARK + it.serialize()) }
+            }
+        } catch (e: IOException) {
+            Timber.w(e, "Could not save the discovery checkpoint of %s", accountName)
+        }
+    }
+
+    fun save(accountName: String, pendingFolders: Collection<PendingFolder>) {
+        if (pendingFolders.isEmpty()) {
+            clear(accountName)
+            return
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            Timber.w("Could not create the discovery checkpoint directory %s", directory.absolutePath)
+            return
+        }
+        val target = fileFor(accountName)
+        val temporary = File(directory, target.name + TEMPORARY_EXTENSION)
+        try {
+            temporary.bufferedWriter().use { writer ->
+                pendingFolders.forEach { writer.appendLine(QUEUED_MARK + it.serialize()) }
+            }
+            // Renaming, so a process killed meanwhile leaves the previous journal instead of half of this one
+            if (!temporary.renameTo(target)) {
+                Timber.w("Could not replace the discovery checkpoint of %s", accountName)
+                temporary.delete()
+            }
+        } catch (e: IOException) {
+            Timber.w(e, "Could not save the discovery checkpoint of %s", accountName)
+            temporary.delete()
+        }
+    }
+
+    fun load(accountName: String): List<PendingFolder> {
+        val file = fileFor(accountName)
+        if (!file.exists()) return emptyList()
+
+        val pendingFolders = LinkedHashSet<PendingFolder>()
+        try {
+            file.forEachLine { line ->
+                val pendingFolder = deserialize(line.drop(1)) ?: return@forEachLine
+                when (line.first()) {
+                    QUEUED_MARK -> pendingFolders.add(pendingFolder)
+                    DONE_MARK -> pendingFolders.remove(pendingFolder)
+                }
+            }
+        } catch (e: IOException) {
+            Timber.w(e, "Could not read the discovery checkpoint of %s", accountName)
+            return emptyList()
+        }
+        save(accountName, pendingFolders)
+        return pendingFolders.toList()
+    }
+
+    fun clear(accountName: String) {
+        fileFor(accountName).delete()
+    }
+
+    private fun fileFor(accountName: String) = File(directory, URLEncoder.encode(accountName, ENCODING) + EXTENSION)
+
+    private fun PendingFolder.serialize(): String =
+        listOf(depth.toString(), spaceId.orEmpty(), remotePath).joinToString(separator = FIELD_SEPARATOR) { URLEncoder.encode(it, ENCODING) }
+
+    private fun deserialize(entry: String): PendingFolder? {
+        val fields = entry.split(FIELD_SEPARATOR).map { URLDecoder.decode(it, ENCODING) }
+        val depth = fields.getOrNull(0)?.toIntOrNull()
+        if (fields.size != 3 || depth == null) return null
+        return PendingFolder(
+            remotePath = fields[2],
+            spaceId = fields[1].ifEmpty { null },
+            depth = depth,
+        )
+    }
+
+    data class PendingFolder(
+        val remotePath: String,
+        val spaceId: String?,
+        val depth: Int,
+    )
+
+    companion object {
+        private const val EXTENSION = ".checkpoint"
+        private const val TEMPORARY_EXTENSION = ".tmp"
+        private const val QUEUED_MARK = '+'
+        private const val DONE_MARK = '-'
+        private const val FIELD_SEPARATOR = ","
+        private const val ENCODING = "UTF-8"
+    }
+}
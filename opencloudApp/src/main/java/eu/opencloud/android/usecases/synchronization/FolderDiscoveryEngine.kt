@@ -0,0 +1,348 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.usecases.synchronization
+
+import eu.opencloud.android.domain.exceptions.FileNotFoundException
+import eu.opencloud.android.domain.exceptions.ForbiddenException
+import eu.opencloud.android.domain.exceptions.SpecificForbiddenException
+import eu.opencloud.android.domain.files.FileRepository
+import eu.opencloud.android.domain.files.model.OCFile.Companion.ROOT_PATH
+import eu.opencloud.android.usecases.synchronization.FolderDiscoveryCheckpoint.PendingFolder
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.NonCancellable
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+import timber.log.Timber
+import java.util.PriorityQueue
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Discovers the folder tree of an account breadth-first, with a bounded number of PROPFINDs in flight.
+ *
+ * Folders are taken from a priority queue: the personal space goes before the rest of spaces and, inside a space,
+ * shallow levels go before deeper ones, so what the user sees first is available first. Subtrees whose tree etag did
+ * not change are not fetched again, and the tree etag of a folder is stored once everything below it was fetched.
+ *
+ * The folders queued and done with are appended to a [FolderDiscoveryCheckpoint] every [CHECKPOINT_INTERVAL] folders and
+ * when the discovery is interrupted, so the next run goes on from there instead of starting again from the roots. Folders
+ * that failed are never done with, so they are kept in it too, except the ones that no longer exist or can no longer be
+ * read, which no retry would fetch.
+ *
+ * Spaces with a sync token from a previous discovery are not walked: only the changes since that token are applied.
+ * For the rest, the current token is read before walking them and stored once the whole discovery succeeded.
+ */
+class FolderDiscoveryEngine(
+    private val fileRepository: FileRepository,
+    private val checkpoint: FolderDiscoveryCheckpoint,
+) {
+
+    /**
+     * @param roots root folders of the spaces to discover. Ignored if there is a checkpoint for the account.
+     * @param maxConcurrentPropfinds number of folders fetched at the same time.
+     *
+     * @return true if every folder was fetched or is gone from the server; false if some of them failed and were kept in
+     * the checkpoint.
+     */
+    suspend fun discover(
+        accountName: String,
+        roots: List<DiscoveryRoot>,
+        maxConcurrentPropfinds: Int = DEFAULT_MAX_CONCURRENT_PROPFINDS,
+        syncStats: SynchronizeFolderUseCase.SyncStats = SynchronizeFolderUseCase.SyncStats(),
+    ): Boolean {
+        val personalSpaceIds = roots.filter { it.isPersonal }.map { it.spaceId }.toSet()
+        val run = DiscoveryRun(accountName, personalSpaceIds, syncStats)
+
+        // Tokens read before walking the spaces, stored only if the walk completes
+        val pendingSyncTokens = mutableMapOf<String?, String>()
+
+        val resumedFolders = checkpoint.load(accountName)
+        if (resumedFolders.isNotEmpty()) {
+            Timber.i("Resuming discovery of $accountName with ${resumedFolders.size} pending folders")
+            run.resume(resumedFolders)
+        } else {
+            roots.forEach { root ->
+                if (refreshSpaceChanges(accountName, root)) {
+                    return@forEach
+                }
+                fetchSpaceSyncToken(accountName, root)?.let { pendingSyncTokens[root.spaceId] = it }
+                run.enqueue(PendingFolder(remotePath = root.remotePath, spaceId = root.spaceId, depth = 0), parent = null)
+            }
+        }
+
+        try {
+            coroutineScope {
+                repeat(maxConcurrentPropfinds.coerceAtLeast(1)) {
+                    launch(Dispatchers.IO) {
+                        while (true) {
+                            val task = run.nextTask()
+                            if (task != null) {
+                                run.process(task)
+                            } else if (run.isFinished() || !run.awaitWork()) {
+                                break
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            withContext(NonCancellable) {
+                run.saveCheckpoint()
+            }
+        }
+
+        Timber.i(
+            "Discovery of $accountName finished. Folders fetched: ${syncStats.foldersFetched}, " +
+                    "folders skipped: ${syncStats.foldersSkipped}, folders failed: ${run.failedCount}, " +
+                    "folders gone: ${run.goneCount}"
+        )
+        val isDiscoveryComplete = run.failedCount == 0
+        if (isDiscoveryComplete) {
+            pendingSyncTokens.forEach { (spaceId, syncToken) -> fileRepository.saveSpaceSyncToken(accountName, spaceId, syncToken) }
+        }
+        return isDiscoveryComplete
+    }
+
+    /**
+     * @return true if the changes in the space since the last discovery were applied, so it does not need to be walked.
+     */
+    private suspend fun refreshSpaceChanges(accountName: String, root: DiscoveryRoot): Boolean =
+        root.remotePath == ROOT_PATH && withContext(Dispatchers.IO) {
+            try {
+                fileRepository.refreshSpaceChanges(accountName, root.spaceId) != null
+            } catch (exception: Exception) {
+                Timber.w(exception, "Changes in space ${root.spaceId} could not be applied, it will be walked")
+                false
+            }
+        }
+
+    private suspend fun fetchSpaceSyncToken(accountName: String, root: DiscoveryRoot): String? =
+        if (root.remotePath != ROOT_PATH) {
+            null
+        } else {
+            withContext(Dispatchers.IO) {
+                try {
+                    fileRepository.fetchSpaceSyncToken(accountName, root.spaceId)
+                } catch (exception: Exception) {
+                    Timber.w(exception, "Sync token of space ${root.spaceId} could not be read")
+                    null
+                }
+            }
+        }
+
+    private inner class DiscoveryRun(
+        private val accountName: String,
+        private val personalSpaceIds: Set<String?>,
+        private val syncStats: SynchronizeFolderUseCase.SyncStats,
+    ) {
+        private val lock = Any()
+        private val queue = PriorityQueue(
+            INITIAL_QUEUE_CAPACITY,
+            compareBy<DiscoveryTask>({ it.spacePriority }, { it.folder.depth }, { it.sequence })
+        )
+        private val inFlight = mutableSetOf<DiscoveryTask>()
+        private val queuedSinceCheckpoint = mutableListOf<PendingFolder>()
+        private val doneSinceCheckpoint = mutableListOf<PendingFolder>()
+        private var failedFolders = 0
+        private var sequence = 0L
+        private var processedSinceCheckpoint = 0
+        private var goneFolders = 0
+
+        // Wakes up an idle worker when a folder is queued, and all of them once the discovery is finished
+        private val workSignal = Channel<Unit>(Channel.CONFLATED)
+
+        val failedCount: Int
+            get() = synchronized(lock) { failedFolders }
+
+        val goneCount: Int
+            get() = synchronized(lock) { goneFolders }
+
+        fun enqueue(folder: PendingFolder, parent: DiscoveryTask?) {
+            synchronized(lock) {
+                parent?.pendingTasks?.incrementAndGet()
+                queue.add(DiscoveryTask(folder, spacePriorityOf(folder.spaceId), parent, sequence++))
+                queuedSinceCheckpoint.add(folder)
+                workSignal.trySend(Unit)
+            }
+        }
+
+        /**
+         * Queues the folders of a checkpoint. Their ancestors were already fetched by the interrupted run, but their tree
+         * etag could not be stored while something below them was pending, so they are tracked again without fetching
+         * them: once every resumed folder below one of them is complete, its tree etag is stored as usual.
+         */
+        fun resume(folders: List<PendingFolder>) {
+            synchronized(lock) {
+                val resumedTasks = folders.associateWith { DiscoveryTask(it, spacePriorityOf(it.spaceId), parent = null, sequence++) }
+                val tasksByPath = resumedTasks.values.associateBy { it.folder.spaceId to it.folder.remotePath }.toMutableMap()
+                resumedTasks.values.forEach { task ->
+                    task.parent = ancestorTaskOf(task.folder, tasksByPath)?.also { it.pendingTasks.incrementAndGet() }
+                    queue.add(task)
+                }
+                workSignal.trySend(Unit)
+            }
+        }
+
+        fun nextTask(): DiscoveryTask? =
+            synchronized(lock) {
+                queue.poll()?.also {
+                    inFlight.add(it)
+                    // Pass the wake up on, so that other idle workers take the rest of the queue
+                    if (queue.isNotEmpty()) workSignal.trySend(Unit)
+                }
+            }
+
+        fun isFinished(): Boolean =
+            synchronized(lock) {
+                queue.isEmpty() && inFlight.isEmpty()
+            }
+
+        /**
+         * Suspends until there may be a folder to take.
+         *
+         * @return false once the discovery is finished
+         */
+        suspend fun awaitWork(): Boolean = workSignal.receiveCatching().isSuccess
+
+        private fun spacePriorityOf(spaceId: String?) =
+            if (spaceId in personalSpaceIds) PERSONAL_SPACE_PRIORITY else OTHER_SPACES_PRIORITY
+
+        private fun ancestorTaskOf(folder: PendingFolder, tasksByPath: MutableMap<Pair<String?, String>, DiscoveryTask>): DiscoveryTask? {
+            if (folder.depth == 0 || folder.remotePath == ROOT_PATH) return null
+            val parentPath = folder.remotePath.trimEnd('/').substringBeforeLast('/') + "/"
+            tasksByPath[folder.spaceId to parentPath]?.let { return it }
+
+            val parentFolder = PendingFolder(remotePath = parentPath, spaceId = folder.spaceId, depth = folder.depth - 1)
+            // Already fetched, so it only waits for the resumed folders below it and is never queued
+            val ancestorTask = DiscoveryTask(parentFolder, spacePriorityOf(folder.spaceId), parent = null, sequence = -1, pendingTasks = 0)
+            tasksByPath[folder.spaceId to parentPath] = ancestorTask
+            ancestorTask.parent = ancestorTaskOf(parentFolder, tasksByPath)?.also { it.pendingTasks.incrementAndGet() }
+            return ancestorTask
+        }
+
+        fun process(task: DiscoveryTask) {
+            val folder = task.folder
+            var isGone = false
+            val childFolders = try {
+                val changedContent = fileRepository.refreshFolder(
+                    remotePath = folder.remotePath,
+                    accountName = accountName,
+                    spaceId = folder.spaceId,
+                )
+                syncStats.onFolderFetched()
+                fileRepository.getChildFoldersWithChangedTree(folder.remotePath, accountName, folder.spaceId, changedContent, syncStats)
+            } catch (exception: Exception) {
+                Timber.w(exception, "Discovery of folder ${folder.remotePath} failed")
+                task.failed = true
+                isGone = exception is FileNotFoundException || exception is ForbiddenException || exception is SpecificForbiddenException
+                emptyList()
+            }
+
+            synchronized(lock) {
+                // Children are counted before the task itself finishes, so the folder cannot be seen as complete too early
+                childFolders.forEach { childFolder ->
+                    enqueue(
+                        PendingFolder(remotePath = childFolder.remotePath, spaceId = childFolder.spaceId ?: folder.spaceId, depth = folder.depth + 1),
+                        parent = task
+                    )
+                }
+                inFlight.remove(task)
+                when {
+                    // Retrying would fail the same way, its parent is fetched again anyway since its tree etag is not stored
+                    isGone -> goneFolders++
+                    task.failed -> failedFolders++
+                }
+                if (!task.failed || isGone) {
+                    doneSinceCheckpoint.add(folder)
+                }
+                processedSinceCheckpoint++
+                if (processedSinceCheckpoint >= CHECKPOINT_INTERVAL) {
+                    saveCheckpoint()
+                }
+                if (queue.isEmpty() && inFlight.isEmpty()) {
+                    workSignal.close()
+                }
+            }
+            onTaskFinished(task)
+        }
+
+        fun saveCheckpoint() {
+            synchronized(lock) {
+                if (queue.isEmpty() && inFlight.isEmpty() && failedFolders == 0) {
+                    checkpoint.clear(accountName)
+                } else {
+                    checkpoint.append(accountName, queuedSinceCheckpoint, doneSinceCheckpoint)
+                }
+                queuedSinceCheckpoint.clear()
+                doneSinceCheckpoint.clear()
+                processedSinceCheckpoint = 0
+            }
+        }
+
+        private fun onTaskFinished(task: DiscoveryTask) {
+            var completedTask: DiscoveryTask? = task
+            while (completedTask != null && completedTask.pendingTasks.decrementAndGet() == 0) {
+                val parent = completedTask.parent
+                if (completedTask.failed) {
+                    parent?.failed = true
+                } else {
+                    fileRepository.markFolderTreeAsSynchronized(completedTask.folder.remotePath, accountName, completedTask.folder.spaceId)
+                }
+                completedTask = parent
+            }
+        }
+    }
+
+    /**
+     * A folder to fetch. [pendingTasks] counts the task itself plus its child tasks not finished yet; when it reaches 0
+     * the whole subtree was fetched.
+     */
+    private class DiscoveryTask(
+        val folder: PendingFolder,
+        val spacePriority: Int,
+        var parent: DiscoveryTask?,
+        val sequence: Long,
+        pendingTasks: Int = 1,
+    ) {
+        val pendingTasks = AtomicInteger(pendingTasks)
+
+        @Volatile
+        var failed = false
+    }
+
+    data class DiscoveryRoot(
+        val remotePath: String,
+        val spaceId: String?,
+        val isPersonal: Boolean,
+    )
+
+    companion object {
+        /**
+         * Kept below [eu.opencloud.android.lib.common.OpenCloudClient.DEFAULT_MAX_CONCURRENT_REQUESTS] so the discovery
+         * leaves room for the requests triggered by the user.
+         */
+        const val DEFAULT_MAX_CONCURRENT_PROPFINDS = 3
+
+        private const val CHECKPOINT_INTERVAL = 50
+        private const val INITIAL_QUEUE_CAPACITY = 64
+        private const val PERSONAL_SPACE_PRIORITY = 0
+        private const val OTHER_SPACES_PRIORITY = 1
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.usecases.synchronization
+
+import eu.opencloud.android.domain.files.FileRepository
+import eu.opencloud.android.domain.files.model.OCFile
+
+/**
+ * Child folders of [remotePath] whose current etag does not match the tree etag stored after the last complete pass
+ * over them. [changedContent] is what the refresh of [remotePath] returned: child folders in it carry the new etag
+ * in [OCFile.remoteEtag], while for the rest of them the stored etag is still the server one. The ones left out are
+ * passed to [onFolderSkipped].
+ */
+internal fun FileRepository.getChildFoldersWithChangedTree(
+    remotePath: String,
+    accountName: String,
+    spaceId: String?,
+    changedContent: List<OCFile>,
+    syncStats: SynchronizeFolderUseCase.SyncStats,
+    onFolderSkipped: (OCFile) -> Unit = {},
+): List<OCFile> {
+    val folder = getFileByRemotePath(remotePath, accountName, spaceId) ?: return changedContent.filter { it.isFolder }
+    val changedFolderIds = changedContent.filter { it.isFolder }.mapNotNull { it.id }.toSet()
+
+    return getFolderContent(folder.id!!).filter { it.isFolder }.filter { childFolder ->
+        val serverEtag = if (childFolder.id in changedFolderIds) childFolder.remoteEtag else childFolder.etag
+        val isTreeUnchanged = !childFolder.treeEtag.isNullOrBlank() && childFolder.treeEtag == serverEtag
+        if (isTreeUnchanged) {
+            syncStats.onFolderSkipped()
+            onFolderSkipped(childFolder)
+        }
+        !isTreeUnchanged
+    }
+}
+
+/**
+ * Stores the etag the folder got in its last refresh as its tree etag. Only to be called once everything below the
+ * folder was synchronized after that refresh.
+ */
+internal fun FileRepository.markFolderTreeAsSynchronized(remotePath: String, accountName: String, spaceId: String?) {
+    getFileByRemotePath(remotePath, accountName, spaceId)?.let { folder ->
+        updateFileWithTreeEtag(folder.id!!, folder.etag)
+    }
+}
@@ -28,6 +28,7 @@ import eu.opencloud.android.domain.files.model.OCFile
 import eu.opencloud.android.domain.files.usecases.SaveConflictUseCase
 import eu.opencloud.android.usecases.transfers.downloads.DownloadFileUseCase
 import eu.opencloud.android.usecases.transfers.uploads.UploadFileInConflictUseCase
+import eu.opencloud.android.workers.TransferScheduler
 import kotlinx.coroutines.CoroutineScope
 import kotlinx.coroutines.Dispatchers
 import timber.log.Timber
@@ -68,7 +69,7 @@ class SynchronizeFileUseCase(
             // 2. File not downloaded -> Download it
             return if (!fileToSynchronize.isAvailableLocally) {
                 Timber.i("File ${fileToSynchronize.fileName} is not downloaded. Let's download it")
-                val uuid = requestForDownload(accountName = accountName, ocFile = fileToSynchronize)
+                val uuid = requestForDownload(accountName = accountName, ocFile = fileToSynchronize, priority = params.priority)
                 SyncType.DownloadEnqueued(uuid)
             } else {
                 // 3. Check if file has changed locally
@@ -97,7 +98,7 @@ class SynchronizeFileUseCase(
                 } else if (changedRemotely) {
                     // 5.2 File has changed ONLY remotely -> download new version
                     Timber.i("File ${fileToSynchronize.fileName} has changed remotely. Let's download the new version")
-                    val uuid = requestForDownload(accountName, fileToSynchronize)
+                    val uuid = requestForDownload(accountName, fileToSynchronize, params.priority)
                     SyncType.DownloadEnqueued(uuid)
                 } else if (changedLocally) {
                     // 5.3 File has change ONLY locally -> upload new version
@@ -113,11 +114,12 @@ class SynchronizeFileUseCase(
         }
     }
 
-    private fun requestForDownload(accountName: String, ocFile: OCFile): UUID? =
+    private fun requestForDownload(accountName: String, ocFile: OCFile, priority: TransferScheduler.Priority): UUID? =
         downloadFileUseCase(
             DownloadFileUseCase.Params(
                 accountName = accountName,
-                file = ocFile
+                file = ocFile,
+                priority = priority,
             )
         )
 
@@ -133,6 +135,7 @@ class SynchronizeFileUseCase(
 
     data class Params(
         val fileToSynchronize: OCFile,
+        val priority: TransferScheduler.Priority = TransferScheduler.Priority.INTERACTIVE,
     )
 
     sealed interface SyncType {
@@ -27,6 +27,9 @@ import eu.opencloud.android.domain.files.model.OCFile
 import eu.opencloud.android.usecases.synchronization.SynchronizeFolderUseCase.SyncFolderMode.REFRESH_FOLDER_RECURSIVELY
 import eu.opencloud.android.usecases.synchronization.SynchronizeFolderUseCase.SyncFolderMode.SYNC_CONTENTS
 import eu.opencloud.android.usecases.synchronization.SynchronizeFolderUseCase.SyncFolderMode.SYNC_FOLDER_RECURSIVELY
+import eu.opencloud.android.workers.TransferScheduler
+import timber.log.Timber
+import java.util.concurrent.atomic.AtomicInteger
 
 class SynchronizeFolderUseCase(
     private val synchronizeFileUseCase: SynchronizeFileUseCase,
@@ -34,37 +37,155 @@ class SynchronizeFolderUseCase(
 ) : BaseUseCaseWithResult<Unit, SynchronizeFolderUseCase.Params>() {
 
     override fun run(params: Params) {
-        val remotePath = params.remotePath
-        val accountName = params.accountName
-
-        val folderContent = fileRepository.refreshFolder(
-            remotePath = remotePath,
-            accountName = accountName,
+        val downloadedFiles = lazy { fileRepository.getDownloadedFilesForAccount(params.accountName) }
+        synchronizeFolder(
+            remotePath = params.remotePath,
             spaceId = params.spaceId,
-            isActionSetFolderAvailableOfflineOrSynchronize = params.isActionSetFolderAvailableOfflineOrSynchronize,
+            params = params,
+            downloadedFiles = downloadedFiles,
+            filesChangedInSpace = applySpaceChanges(params),
         )
+        if (params.skipUnchangedFolders) {
+            Timber.i(
+                "Synchronization of ${params.remotePath} finished. Folders fetched: ${params.syncStats.foldersFetched}, " +
+                        "folders skipped: ${params.syncStats.foldersSkipped}"
+            )
+        }
+    }
+
+    /**
+     * @return true if the folder and everything below it is in sync with the server
+     */
+    private fun synchronizeFolder(
+        remotePath: String,
+        spaceId: String?,
+        params: Params,
+        downloadedFiles: Lazy<List<OCFile>>,
+        filesChangedInSpace: Set<Long>?,
+    ): Boolean {
+        val accountName = params.accountName
+
+        val folderContent = getFolderContent(remotePath, spaceId, params, filesChangedInSpace)
+
+        var isSubtreeSynchronized = true
+
+        val unchangedFolders = mutableListOf<OCFile>()
+        val foldersToSync = if (params.skipUnchangedFolders) {
+            fileRepository.getChildFoldersWithChangedTree(remotePath, accountName, spaceId, folderContent, params.syncStats) {
+                unchangedFolders.add(it)
+            }
+        } else {
+            folderContent.filter { it.isFolder }
+        }
 
         folderContent.forEach { ocFile ->
-            if (ocFile.isFolder) {
-                if (shouldSyncFolder(params.syncMode, ocFile)) {
-                    SynchronizeFolderUseCase(synchronizeFileUseCase, fileRepository)(
-                        Params(
-                            remotePath = ocFile.remotePath,
-                            accountName = accountName,
-                            spaceId = ocFile.spaceId,
-                            syncMode = params.syncMode,
-                            isActionSetFolderAvailableOfflineOrSynchronize = params.isActionSetFolderAvailableOfflineOrSynchronize,
-                        )
-                    )
-                }
-            } else if (shouldSyncFile(params.syncMode, ocFile)) {
-                synchronizeFileUseCase(
+            if (!ocFile.isFolder && shouldSyncFile(params.syncMode, ocFile)) {
+                val syncResult = synchronizeFileUseCase(
                     SynchronizeFileUseCase.Params(
                         fileToSynchronize = ocFile,
+                        priority = TransferScheduler.Priority.BACKGROUND,
                     )
                 )
+                if (syncResult.getDataOrNull() != SynchronizeFileUseCase.SyncType.AlreadySynchronized) {
+                    isSubtreeSynchronized = false
+                }
+            }
+        }
+
+        foldersToSync.forEach { ocFolder ->
+            if (shouldSyncFolder(params.syncMode, ocFolder)) {
+                val isChildSynchronized = try {
+                    synchronizeFolder(
+                        remotePath = ocFolder.remotePath,
+                        spaceId = ocFolder.spaceId,
+                        params = params,
+                        downloadedFiles = downloadedFiles,
+                        filesChangedInSpace = filesChangedInSpace,
+                    )
+                } catch (throwable: Throwable) {
+                    Timber.w(throwable, "Synchronization of folder ${ocFolder.remotePath} failed")
+                    false
+                }
+                isSubtreeSynchronized = isSubtreeSynchronized && isChildSynchronized
+            } else {
+                isSubtreeSynchronized = false
             }
         }
+
+        unchangedFolders.forEach { unchangedFolder ->
+            if (shouldSyncFolder(params.syncMode, unchangedFolder) && !synchronizeLocalChanges(unchangedFolder, params, downloadedFiles)) {
+                isSubtreeSynchronized = false
+            }
+        }
+
+        if (params.skipUnchangedFolders && isSubtreeSynchronized) {
+            fileRepository.markFolderTreeAsSynchronized(remotePath, accountName, spaceId)
+        }
+        return isSubtreeSynchronized
+    }
+
+    /**
+     * Brings the whole space up to date with the changes since its last sync token, when the server keeps one for it.
+     * Only worth it when walking down the tree: refreshing a single folder is cheaper with its own listing.
+     *
+     * @return ids of the files that changed, or null if the folders have to be fetched one by one
+     */
+    private fun applySpaceChanges(params: Params): Set<Long>? {
+        if (!params.syncMode.isOneOf(REFRESH_FOLDER_RECURSIVELY, SYNC_FOLDER_RECURSIVELY)) return null
+        return try {
+            fileRepository.refreshSpaceChanges(params.accountName, params.spaceId)?.mapNotNull { it.id }?.toSet()
+        } catch (exception: Exception) {
+            Timber.w(exception, "Changes in space ${params.spaceId} could not be applied, its folders will be fetched")
+            null
+        }
+    }
+
+    /**
+     * Same as the refresh of the folder returns: the files in it that changed, or all of them when synchronizing on
+     * the user's request. A folder listed before is read from the database once the changes of its space were applied,
+     * as they already brought it up to date; its child folders are all returned, carrying their new etag.
+     */
+    private fun getFolderContent(remotePath: String, spaceId: String?, params: Params, filesChangedInSpace: Set<Long>?): List<OCFile> {
+        val localFolder = filesChangedInSpace?.let { fileRepository.getFileByRemotePath(remotePath, params.accountName, spaceId) }
+        if (filesChangedInSpace == null || localFolder == null || localFolder.etag.isNullOrBlank()) {
+            return fileRepository.refreshFolder(
+                remotePath = remotePath,
+                accountName = params.accountName,
+                spaceId = spaceId,
+                isActionSetFolderAvailableOfflineOrSynchronize = params.isActionSetFolderAvailableOfflineOrSynchronize,
+            ).also { params.syncStats.onFolderFetched() }
+        }
+        return fileRepository.getFolderContent(localFolder.id!!).filter { ocFile ->
+            ocFile.isFolder || ocFile.id in filesChangedInSpace || params.isActionSetFolderAvailableOfflineOrSynchronize
+        }
+    }
+
+    /**
+     * Nothing changed on the server below [unchangedFolder], so it is not fetched, but files edited on the device below
+     * it still have to be uploaded. Those are found among the downloaded files, without any request.
+     *
+     * @return true if no file below the folder had local changes
+     */
+    private fun synchronizeLocalChanges(unchangedFolder: OCFile, params: Params, downloadedFiles: Lazy<List<OCFile>>): Boolean {
+        if (!params.syncMode.isOneOf(SYNC_FOLDER_RECURSIVELY, SYNC_CONTENTS)) return true
+
+        val filesChangedLocally = downloadedFiles.value.filter { file ->
+            !file.isFolder &&
+                    file.spaceId == unchangedFolder.spaceId &&
+                    file.remotePath.startsWith(unchangedFolder.remotePath) &&
+                    shouldSyncFile(params.syncMode, file) &&
+                    file.lastSyncDateForData?.let { file.localModificationTimestamp > it } == true
+        }
+        filesChangedLocally.forEach { file ->
+            Timber.i("File ${file.remotePath} changed locally below the unchanged folder ${unchangedFolder.remotePath}")
+            synchronizeFileUseCase(
+                SynchronizeFileUseCase.Params(
+                    fileToSynchronize = file,
+                    priority = TransferScheduler.Priority.BACKGROUND,
+                )
+            )
+        }
+        return filesChangedLocally.isEmpty()
     }
 
     private fun shouldSyncFolder(syncMode: SyncFolderMode, ocFolder: OCFile) =
@@ -73,14 +194,40 @@ class SynchronizeFolderUseCase(
     private fun shouldSyncFile(syncMode: SyncFolderMode, ocFile: OCFile) =
         syncMode == SYNC_FOLDER_RECURSIVELY || (syncMode == SYNC_CONTENTS && (ocFile.isAvailableLocally || ocFile.isAvailableOffline))
 
+    /**
+     * @param skipUnchangedFolders in the recursive modes, do not descend into folders whose etag still matches the tree
+     * etag stored after the last complete pass over them. Files edited on the device below them are still synchronized.
+     * @param syncStats counters of the folders fetched from the server and the ones skipped.
+     */
     data class Params(
         val remotePath: String,
         val accountName: String,
         val spaceId: String? = null,
         val syncMode: SyncFolderMode,
         val isActionSetFolderAvailableOfflineOrSynchronize: Boolean = false,
+        val skipUnchangedFolders: Boolean = false,
+        val syncStats: SyncStats = SyncStats(),
     )
 
+    class SyncStats {
+        private val fetched = AtomicInteger()
+        private val skipped = AtomicInteger()
+
+        val foldersFetched: Int
+            get() = fetched.get()
+
+        val foldersSkipped: Int
+            get() = skipped.get()
+
+        fun onFolderFetched() {
+            fetched.incrementAndGet()
+        }
+
+        fun onFolderSkipped() {
+            skipped.incrementAndGet()
+        }
+    }
+
     /**
      * Potential use cases for each SyncFolderMode:
      * - REFRESH_FOLDER: To get the content when picking a folder.
@@ -29,6 +29,7 @@ import eu.opencloud.android.extensions.getTagsForDownload
 import eu.opencloud.android.usecases.transfers.MAXIMUM_NUMBER_OF_RETRIES
 import eu.opencloud.android.usecases.transfers.TRANSFER_TAG_DOWNLOAD
 import eu.opencloud.android.workers.DownloadFileWorker
+import eu.opencloud.android.workers.TransferScheduler
 import timber.log.Timber
 import java.util.UUID
 
@@ -54,7 +55,7 @@ class DownloadFileUseCase(
             if (isDownloadAlreadyEnqueued(accountName, ocFile)) {
                 null
             } else {
-                enqueueNewDownload(ocFile, accountName)
+                enqueueNewDownload(ocFile, accountName, params.priority)
             }
         }
     }
@@ -86,10 +87,11 @@ class DownloadFileUseCase(
         return isEnqueued
     }
 
-    private fun enqueueNewDownload(ocFile: OCFile, accountName: String): UUID {
+    private fun enqueueNewDownload(ocFile: OCFile, accountName: String, priority: TransferScheduler.Priority): UUID {
         val inputData = workDataOf(
             DownloadFileWorker.KEY_PARAM_ACCOUNT to accountName,
-            DownloadFileWorker.KEY_PARAM_FILE_ID to ocFile.id
+            DownloadFileWorker.KEY_PARAM_FILE_ID to ocFile.id,
+            DownloadFileWorker.KEY_PARAM_PRIORITY to priority.name,
         )
 
         val downloadFileWork = OneTimeWorkRequestBuilder<DownloadFileWorker>()
@@ -107,6 +109,7 @@ class DownloadFileUseCase(
 
     data class Params(
         val accountName: String,
-        val file: OCFile
+        val file: OCFile,
+        val priority: TransferScheduler.Priority = TransferScheduler.Priority.INTERACTIVE,
     )
 }
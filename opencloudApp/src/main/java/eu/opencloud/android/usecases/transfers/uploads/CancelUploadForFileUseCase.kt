@@ -61,6 +61,11 @@ class CancelUploadForFileUseCase(
             //  In that case, we would update the database there.
             workManager.cancelWorkById(it.id)
         }
+
+        // Uploads in a batch have no work of their own; once removed from the database the batch skips them
+        if (workersToCancel.isEmpty()) {
+            transferRepository.deleteTransferById(uploadForFile.id!!)
+        }
     }
 
     data class Params(
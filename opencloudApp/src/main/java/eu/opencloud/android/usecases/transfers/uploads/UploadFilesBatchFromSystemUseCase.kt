@@ -0,0 +1,83 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.usecases.transfers.uploads
+
+import androidx.work.BackoffPolicy
+import androidx.work.Constraints
+import androidx.work.ExistingWorkPolicy
+import androidx.work.NetworkType
+import androidx.work.OneTimeWorkRequestBuilder
+import androidx.work.WorkManager
+import androidx.work.workDataOf
+import eu.opencloud.android.domain.BaseUseCase
+import eu.opencloud.android.workers.UploadFilesBatchWorker
+import timber.log.Timber
+import java.util.concurrent.TimeUnit
+
+/**
+ * Enqueues a single worker that uploads several small files, already stored in the uploads database, to the
+ * same folder. See [UploadFilesBatchWorker].
+ */
+class UploadFilesBatchFromSystemUseCase(
+    private val workManager: WorkManager
+) : BaseUseCase<Unit, UploadFilesBatchFromSystemUseCase.Params>() {
+
+    override fun run(params: Params) {
+        val inputData = workDataOf(
+            UploadFilesBatchWorker.KEY_PARAM_ACCOUNT_NAME to params.accountName,
+            UploadFilesBatchWorker.KEY_PARAM_UPLOAD_FOLDER_PATH to params.uploadFolderPath,
+            UploadFilesBatchWorker.KEY_PARAM_UPLOAD_IDS to params.uploadIdsInStorageManager.toLongArray(),
+        )
+
+        val constraints = Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .build()
+
+        // Upload IDs are unique, so the first one names the batch
+        val uniqueWorkName = "upload_batch_${params.uploadIdsInStorageManager.first()}"
+
+        // Tagged by its batch and not by its upload IDs, so that cancelling the work of one upload does not cancel the
+        // rest of the batch. Cancelled or cleared uploads are skipped by the worker instead.
+        val uploadFilesBatchWorker = OneTimeWorkRequestBuilder<UploadFilesBatchWorker>()
+            .setInputData(inputData)
+            .setConstraints(constraints)
+            .setBackoffCriteria(
+                BackoffPolicy.EXPONENTIAL,
+                10,
+                TimeUnit.SECONDS
+            )
+            .addTag(params.accountName)
+            .addTag(uniqueWorkName)
+            .build()
+
+        workManager.enqueueUniqueWork(
+            uniqueWorkName,
+            ExistingWorkPolicy.KEEP, // Keep existing work to prevent duplicate uploads
+            uploadFilesBatchWorker
+        )
+
+        Timber.i("Batch upload of ${params.uploadIdsInStorageManager.size} files to ${params.uploadFolderPath} has been enqueued")
+    }
+
+    data class Params(
+        val accountName: String,
+        val uploadFolderPath: String,
+        val uploadIdsInStorageManager: List<Long>,
+    )
+}
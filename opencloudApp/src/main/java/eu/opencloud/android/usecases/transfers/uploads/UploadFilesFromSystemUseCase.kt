@@ -27,6 +27,7 @@ import eu.opencloud.android.domain.transfers.TransferRepository
 import eu.opencloud.android.domain.transfers.model.OCTransfer
 import eu.opencloud.android.domain.transfers.model.TransferStatus
 import eu.opencloud.android.domain.transfers.model.UploadEnqueuedBy
+import eu.opencloud.android.workers.UploadFilesBatchWorker
 import timber.log.Timber
 import java.io.File
 
@@ -39,22 +40,46 @@ import java.io.File
  * - Share with oC - Files
  * - Conflicts - Keep both
  *
- * It stores the upload in the database and then enqueue a new worker to upload the single file
+ * It stores the upload in the database and then enqueue a new worker to upload the single file.
+ * Small files are uploaded together instead, by one worker per batch (see [UploadFilesBatchWorker]).
  */
 class UploadFilesFromSystemUseCase(
     private val uploadFileFromSystemUseCase: UploadFileFromSystemUseCase,
+    private val uploadFilesBatchFromSystemUseCase: UploadFilesBatchFromSystemUseCase,
     private val transferRepository: TransferRepository,
 ) : BaseUseCase<Unit, UploadFilesFromSystemUseCase.Params>() {
 
     override fun run(params: Params) {
-        params.listOfLocalPaths.forEach { localPath ->
-            val localFile = File(localPath)
+        val localFiles = params.listOfLocalPaths.map { File(it) }.filter { localFile ->
+            localFile.exists().also { exists ->
+                if (!exists) {
+                    Timber.w("Upload of ${localFile.path} won't be enqueued. We were not able to find it in the local storage")
+                }
+            }
+        }
+        val batchedFiles = localFiles.filter { it.length() <= UploadFilesBatchWorker.MAX_FILE_SIZE }
+            .takeIf { it.size >= UploadFilesBatchWorker.MIN_FILES }
+            .orEmpty()
 
-            if (!localFile.exists()) {
-                Timber.w("Upload of $localPath won't be enqueued. We were not able to find it in the local storage")
-                return@forEach
+        batchedFiles.chunked(UploadFilesBatchWorker.MAX_FILES).forEach { batch ->
+            val uploadIds = batch.map { localFile ->
+                storeInUploadsDatabase(
+                    localFile = localFile,
+                    uploadPath = params.uploadFolderPath.plus(localFile.name),
+                    accountName = params.accountName,
+                    spaceId = params.spaceId,
+                )
             }
+            uploadFilesBatchFromSystemUseCase(
+                UploadFilesBatchFromSystemUseCase.Params(
+                    accountName = params.accountName,
+                    uploadFolderPath = params.uploadFolderPath,
+                    uploadIdsInStorageManager = uploadIds,
+                )
+            )
+        }
 
+        (localFiles - batchedFiles.toSet()).forEach { localFile ->
             val uploadId = storeInUploadsDatabase(
                 localFile = localFile,
                 uploadPath = params.uploadFolderPath.plus(localFile.name),
@@ -21,12 +21,18 @@ package eu.opencloud.android.utils;
 
 import android.content.Context;
 import android.net.ConnectivityManager;
+import android.net.NetworkCapabilities;
 import android.net.NetworkInfo;
 
 import timber.log.Timber;
 
 public class ConnectivityUtils {
 
+    public static final String NETWORK_TYPE_WIFI = "wifi";
+    public static final String NETWORK_TYPE_CELLULAR = "cellular";
+    public static final String NETWORK_TYPE_ETHERNET = "ethernet";
+    public static final String NETWORK_TYPE_OTHER = "other";
+
     public static boolean isAppConnectedViaWiFi(Context context) {
         ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
         boolean result =
@@ -51,4 +57,30 @@ public class ConnectivityUtils {
 
         return (activeNetwork != null && activeNetwork.isConnectedOrConnecting());
     }
+
+    /**
+     * Transport of the active network, to keep apart what is learned about transfers on each kind of network.
+     */
+    public static String getActiveNetworkType(Context context) {
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        NetworkCapabilities capabilities = cm != null ? cm.getNetworkCapabilities(cm.getActiveNetwork()) : null;
+        if (capabilities == null) {
+            return NETWORK_TYPE_OTHER;
+        } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_WIFI)) {
+            return NETWORK_TYPE_WIFI;
+        } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_CELLULAR)) {
+            return NETWORK_TYPE_CELLULAR;
+        } else if (capabilities.hasTransport(NetworkCapabilities.TRANSPORT_ETHERNET)) {
+            return NETWORK_TYPE_ETHERNET;
+        }
+        return NETWORK_TYPE_OTHER;
+    }
+
+    /**
+     * Whether the active network may cost the user money, as mobile data does. Unknown networks count as metered.
+     */
+    public static boolean isActiveNetworkMetered(Context context) {
+        ConnectivityManager cm = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        return cm == null || cm.isActiveNetworkMetered();
+    }
 }
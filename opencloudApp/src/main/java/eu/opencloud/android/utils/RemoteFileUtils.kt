@@ -38,50 +38,41 @@ object RemoteFileUtils {
         remotePath: String,
         spaceWebDavUrl: String? = null,
         isUserLogged: Boolean,
+    ): String =
+        getAvailableRemotePath(remotePath) { candidate ->
+            existsFile(
+                openCloudClient = openCloudClient,
+                remotePath = candidate,
+                spaceWebDavUrl = spaceWebDavUrl,
+                isUserLogged = isUserLogged,
+            )
+        }
+
+    /**
+     * Same as above, with [exists] telling whether a path is already taken, e.g. from a folder listing
+     * fetched once for several uploads.
+     */
+    fun getAvailableRemotePath(
+        remotePath: String,
+        exists: (String) -> Boolean,
     ): String {
-        var checkExistsFile = existsFile(
-            openCloudClient = openCloudClient,
-            remotePath = remotePath,
-            spaceWebDavUrl = spaceWebDavUrl,
-            isUserLogged = isUserLogged,
-        )
-        if (!checkExistsFile) {
+        if (!exists(remotePath)) {
             return remotePath
         }
         val pos = remotePath.lastIndexOf(".")
-        var suffix: String
-        var extension = ""
-        if (pos >= 0) {
-            extension = remotePath.substring(pos + 1)
-            remotePath.apply {
-                substring(0, pos)
-            }
-        }
+        val extension = if (pos >= 0) remotePath.substring(pos + 1) else ""
         var count = 1
+        var candidate: String
         do {
-            suffix = " ($count)"
-            checkExistsFile = if (pos >= 0) {
-                existsFile(
-                    openCloudClient = openCloudClient,
-                    remotePath = "${remotePath.substringBeforeLast('.', "")}$suffix.$extension",
-                    spaceWebDavUrl = spaceWebDavUrl,
-                    isUserLogged = isUserLogged,
-                )
+            val suffix = " ($count)"
+            candidate = if (pos >= 0) {
+                "${remotePath.substringBeforeLast('.', "")}$suffix.$extension"
             } else {
-                existsFile(
-                    openCloudClient = openCloudClient,
-                    remotePath = remotePath + suffix,
-                    spaceWebDavUrl = spaceWebDavUrl,
-                    isUserLogged = isUserLogged,
-                )
+                remotePath + suffix
             }
             count++
-        } while (checkExistsFile)
-        return if (pos >= 0) {
-            "${remotePath.substringBeforeLast('.', "")}$suffix.$extension"
-        } else {
-            remotePath + suffix
-        }
+        } while (exists(candidate))
+        return candidate
     }
 
     private fun existsFile(
@@ -32,7 +32,8 @@ import eu.opencloud.android.domain.files.usecases.GetFileByRemotePathUseCase
 import eu.opencloud.android.domain.spaces.usecases.GetPersonalAndProjectSpacesForAccountUseCase
 import eu.opencloud.android.domain.spaces.usecases.RefreshSpacesFromServerAsyncUseCase
 import eu.opencloud.android.presentation.authentication.AccountUtils
-import eu.opencloud.android.usecases.synchronization.SynchronizeFolderUseCase
+import eu.opencloud.android.usecases.synchronization.FolderDiscoveryCheckpoint
+import eu.opencloud.android.usecases.synchronization.FolderDiscoveryEngine
 import org.koin.core.component.KoinComponent
 import org.koin.core.component.inject
 import timber.log.Timber
@@ -49,7 +50,8 @@ class AccountDiscoveryWorker(
     private val refreshSpacesFromServerAsyncUseCase: RefreshSpacesFromServerAsyncUseCase by inject()
     private val getPersonalAndProjectSpacesForAccountUseCase: GetPersonalAndProjectSpacesForAccountUseCase by inject()
     private val getFileByRemotePathUseCase: GetFileByRemotePathUseCase by inject()
-    private val synchronizeFolderUseCase: SynchronizeFolderUseCase by inject()
+    private val folderDiscoveryEngine: FolderDiscoveryEngine by inject()
+    private val folderDiscoveryCheckpoint: FolderDiscoveryCheckpoint by inject()
 
     override suspend fun doWork(): Result {
         val accountName = workerParameters.inputData.getString(KEY_PARAM_DISCOVERY_ACCOUNT)
@@ -63,59 +65,62 @@ class AccountDiscoveryWorker(
 
         val spacesAvailableForAccount = AccountUtils.isSpacesFeatureAllowedForAccount(appContext, account, capabilities)
 
+        val rootFoldersToDiscover = mutableListOf<FolderDiscoveryEngine.DiscoveryRoot>()
+
         // 2.1 Account does not support spaces
         if (!spacesAvailableForAccount) {
             val rootLegacyFolder = getFileByRemotePathUseCase(GetFileByRemotePathUseCase.Params(accountName, ROOT_PATH, null)).getDataOrNull()
             rootLegacyFolder?.let {
-                discoverRootFolder(it)
+                rootFoldersToDiscover.add(it.toDiscoveryRoot(isPersonal = true))
             }
         } else {
-            val spacesRootFoldersToDiscover = mutableListOf<OCFile>()
-
             // 2.2 Account does support spaces
             refreshSpacesFromServerAsyncUseCase(RefreshSpacesFromServerAsyncUseCase.Params(accountName))
             val spaces = getPersonalAndProjectSpacesForAccountUseCase(GetPersonalAndProjectSpacesForAccountUseCase.Params(accountName))
 
-            // First we discover the root of the personal space since it is the first thing seen after login
-            val personalSpace = spaces.firstOrNull { it.isPersonal }
-            personalSpace?.let { space ->
-                val rootFolderForSpace =
-                    getFileByRemotePathUseCase(GetFileByRemotePathUseCase.Params(accountName, ROOT_PATH, space.root.id)).getDataOrNull()
-                rootFolderForSpace?.let {
-                    discoverRootFolder(it)
-                }
-            }
-
-            // Then we discover the root of the rest of spaces
-            val spacesWithoutPersonal = spaces.filterNot { it.isPersonal }
-            spacesWithoutPersonal.forEach { space ->
+            // The personal space is discovered first since it is the first thing seen after login
+            spaces.sortedByDescending { it.isPersonal }.forEach { space ->
                 // Create the root file for each space
                 val rootFolderForSpace =
                     getFileByRemotePathUseCase(GetFileByRemotePathUseCase.Params(accountName, ROOT_PATH, space.root.id)).getDataOrNull()
                 rootFolderForSpace?.let {
-                    spacesRootFoldersToDiscover.add(it)
+                    rootFoldersToDiscover.add(it.toDiscoveryRoot(isPersonal = space.isPersonal))
                 }
             }
-            spacesRootFoldersToDiscover.forEach {
-                discoverRootFolder(it)
-            }
         }
 
-        return Result.success()
+        val maxConcurrentPropfinds =
+            workerParameters.inputData.getInt(KEY_PARAM_MAX_CONCURRENT_PROPFINDS, FolderDiscoveryEngine.DEFAULT_MAX_CONCURRENT_PROPFINDS)
+        val isDiscoveryComplete = folderDiscoveryEngine.discover(
+            accountName = accountName,
+            roots = rootFoldersToDiscover,
+            maxConcurrentPropfinds = maxConcurrentPropfinds,
+        )
+
+        // Folders that failed are kept in the checkpoint, a retry only fetches them
+        return when {
+            isDiscoveryComplete -> Result.success()
+            runAttemptCount < MAX_RUN_ATTEMPTS -> Result.retry()
+            else -> {
+                // Give up on them, or every later discovery would only retry these folders
+                Timber.w("Discovery of $accountName gave up after $MAX_RUN_ATTEMPTS attempts")
+                folderDiscoveryCheckpoint.clear(accountName)
+                Result.success()
+            }
+        }
     }
 
-    private fun discoverRootFolder(folder: OCFile) {
-        synchronizeFolderUseCase(
-            SynchronizeFolderUseCase.Params(
-                accountName = folder.owner,
-                remotePath = folder.remotePath,
-                spaceId = folder.spaceId,
-                syncMode = SynchronizeFolderUseCase.SyncFolderMode.REFRESH_FOLDER_RECURSIVELY
-            )
+    private fun OCFile.toDiscoveryRoot(isPersonal: Boolean) =
+        FolderDiscoveryEngine.DiscoveryRoot(
+            remotePath = remotePath,
+            spaceId = spaceId,
+            isPersonal = isPersonal,
         )
-    }
 
     companion object {
         const val KEY_PARAM_DISCOVERY_ACCOUNT = "KEY_PARAM_DISCOVERY_ACCOUNT"
+        const val KEY_PARAM_MAX_CONCURRENT_PROPFINDS = "KEY_PARAM_MAX_CONCURRENT_PROPFINDS"
+
+        private const val MAX_RUN_ATTEMPTS = 5
     }
 }
@@ -41,6 +41,7 @@ class AvailableOfflinePeriodicWorker(
     private val getFilesAvailableOfflineFromEveryAccountUseCase: GetFilesAvailableOfflineFromEveryAccountUseCase by inject()
     private val synchronizeFileUseCase: SynchronizeFileUseCase by inject()
     private val synchronizeFolderUseCase: SynchronizeFolderUseCase by inject()
+    private val offlineThumbnailPackGenerator: OfflineThumbnailPackGenerator by inject()
 
     override suspend fun doWork(): Result =
         try {
@@ -48,6 +49,7 @@ class AvailableOfflinePeriodicWorker(
             Timber.i("Available offline files that needs to be synced: ${availableOfflineFiles.size}")
 
             syncAvailableOfflineFiles(availableOfflineFiles)
+            generateOfflineThumbnails(availableOfflineFiles)
 
             Result.success()
         } catch (exception: Exception) {
@@ -63,15 +65,25 @@ class AvailableOfflinePeriodicWorker(
                         remotePath = it.remotePath,
                         accountName = it.owner,
                         spaceId = it.spaceId,
-                        syncMode = SynchronizeFolderUseCase.SyncFolderMode.SYNC_FOLDER_RECURSIVELY
+                        syncMode = SynchronizeFolderUseCase.SyncFolderMode.SYNC_FOLDER_RECURSIVELY,
+                        skipUnchangedFolders = true,
                     )
                 )
             } else {
-                synchronizeFileUseCase(SynchronizeFileUseCase.Params(it))
+                synchronizeFileUseCase(SynchronizeFileUseCase.Params(it, TransferScheduler.Priority.BACKGROUND))
             }
         }
     }
 
+    private suspend fun generateOfflineThumbnails(availableOfflineFiles: List<OCFile>) {
+        // Missing thumbnails are not worth failing the sync for, they are generated again on the next run
+        try {
+            offlineThumbnailPackGenerator.generate(availableOfflineFiles)
+        } catch (exception: Exception) {
+            Timber.w(exception, "Generation of offline thumbnails failed")
+        }
+    }
+
     companion object {
         const val AVAILABLE_OFFLINE_PERIODIC_WORKER = "AVAILABLE_OFFLINE_PERIODIC_WORKER"
         const val repeatInterval: Long = 15L
@@ -24,4 +24,14 @@ internal object ContentUriUploadCacheValidator {
         expectedSize: Long,
     ): Boolean =
         actualSize > 0 && (expectedSize <= 0 || actualSize == expectedSize)
+
+    /**
+     * A TUS session started from the document itself can only be resumed if the document was not modified since,
+     * as the offset on the server counts bytes of that version. Unknown dates never match.
+     */
+    fun isSameDocumentVersion(
+        recordedLastModified: Long,
+        currentLastModified: Long,
+    ): Boolean =
+        recordedLastModified > 0 && recordedLastModified == currentLastModified
 }
@@ -26,6 +26,8 @@ import android.app.PendingIntent
 import android.content.Context
 import android.content.Intent
 import androidx.work.CoroutineWorker
+import androidx.work.WorkInfo
+import androidx.work.WorkManager
 import androidx.work.WorkerParameters
 import androidx.work.workDataOf
 import at.bitfire.dav4jvm.exception.UnauthorizedException
@@ -34,7 +36,10 @@ import eu.opencloud.android.data.executeRemoteOperation
 import eu.opencloud.android.data.providers.LocalStorageProvider
 import eu.opencloud.android.domain.exceptions.CancelledException
 import eu.opencloud.android.domain.exceptions.LocalStorageNotMovedException
+import eu.opencloud.android.domain.exceptions.NetworkErrorException
 import eu.opencloud.android.domain.exceptions.NoConnectionWithServerException
+import eu.opencloud.android.domain.exceptions.ServerConnectionTimeoutException
+import eu.opencloud.android.domain.exceptions.ServerResponseTimeoutException
 import eu.opencloud.android.domain.files.model.OCFile
 import eu.opencloud.android.domain.files.usecases.CleanConflictUseCase
 import eu.opencloud.android.domain.files.usecases.CleanWorkersUUIDUseCase
@@ -54,14 +59,12 @@ import eu.opencloud.android.presentation.authentication.EXTRA_ACTION
 import eu.opencloud.android.presentation.authentication.LoginActivity
 import eu.opencloud.android.presentation.transfers.TransferOperation.Download
 import eu.opencloud.android.ui.errorhandling.ErrorMessageAdapter
+import eu.opencloud.android.utils.ConnectivityUtils
 import eu.opencloud.android.utils.DOWNLOAD_NOTIFICATION_CHANNEL_ID
 import eu.opencloud.android.utils.DOWNLOAD_NOTIFICATION_ID_DEFAULT
 import eu.opencloud.android.utils.FileStorageUtils
 import eu.opencloud.android.utils.NOTIFICATION_TIMEOUT_STANDARD
 import eu.opencloud.android.utils.NotificationUtils.createBasicNotification
-import kotlinx.coroutines.CoroutineScope
-import kotlinx.coroutines.Dispatchers
-import kotlinx.coroutines.launch
 import org.koin.core.component.KoinComponent
 import org.koin.core.component.inject
 import timber.log.Timber
@@ -82,12 +85,14 @@ class DownloadFileWorker(
     private val saveDownloadWorkerUuidUseCase: SaveDownloadWorkerUUIDUseCase by inject()
     private val cleanWorkersUuidUseCase: CleanWorkersUUIDUseCase by inject()
     private val localStorageProvider: LocalStorageProvider by inject()
+    private val transferScheduler: TransferScheduler by inject()
+    private val transferBandwidthPolicy: TransferBandwidthPolicy by inject()
+    private val transferProgressAggregator: TransferProgressAggregator by inject()
 
     lateinit var account: Account
     lateinit var ocFile: OCFile
 
     private lateinit var downloadRemoteFileOperation: DownloadRemoteFileOperation
-    private var lastPercent = 0
 
     /**
      * Temporal path for this file to be downloaded.
@@ -115,13 +120,20 @@ class DownloadFileWorker(
         if (!areParametersValid()) return Result.failure()
 
         return try {
-            downloadFileToTemporalFile()
+            transferScheduler.runWhenScheduled(transferTicket()) {
+                downloadFileToTemporalFile()
+            }
             moveTemporalFileToFinalLocation()
             updateDatabaseWithLatestInfoForThisFile()
             notifyDownloadResult(null)
+        } catch (queueFull: TransferScheduler.QueueFullException) {
+            Timber.i(queueFull, "Download of %s will be retried later", ocFile.remotePath)
+            Result.retry()
         } catch (throwable: Throwable) {
             Timber.e(throwable)
             notifyDownloadResult(throwable)
+        } finally {
+            transferProgressAggregator.finish(id)
         }
     }
 
@@ -143,6 +155,13 @@ class DownloadFileWorker(
         return !ocFile.isFolder
     }
 
+    private fun transferTicket() = TransferScheduler.Ticket(
+        accountName = account.name,
+        direction = TransferScheduler.Direction.DOWNLOAD,
+        priority = TransferScheduler.Priority.fromString(workerParameters.inputData.getString(KEY_PARAM_PRIORITY)),
+        size = ocFile.length,
+    )
+
     /**
      * Download the file or throw an exception if something goes wrong.
      * We will initialize a listener to update the notification according to the download progress.
@@ -165,7 +184,9 @@ class DownloadFileWorker(
             ocFile.remotePath,
             temporalFolderPath,
             spaceWebDavUrl,
+            expectedLength = ocFile.length,
         ).apply {
+            bandwidthLimiter = transferBandwidthPolicy.limiterFor(transferTicket(), ConnectivityUtils.isActiveNetworkMetered(appContext))
             addDatatransferProgressListener(this@DownloadFileWorker)
         }
         val client = getClientForThisDownload()
@@ -291,7 +312,10 @@ class DownloadFileWorker(
         return if (throwable == null) {
             Result.success()
         } else {
-            if (throwable is NoConnectionWithServerException) {
+            // The partial temporal file is kept, so a retry resumes the download where it stopped
+            if (throwable is NoConnectionWithServerException || throwable is NetworkErrorException ||
+                throwable is ServerResponseTimeoutException || throwable is ServerConnectionTimeoutException
+            ) {
                 Result.retry()
             } else {
                 Result.failure()
@@ -317,6 +341,13 @@ class DownloadFileWorker(
         )
     }
 
+    /**
+     * WorkManager marks the work cancelled from the app before stopping it. Work stopped by the system, e.g. for its
+     * time limit or lost constraints, stays enqueued to run again.
+     */
+    private fun isCancelledByUser(): Boolean =
+        WorkManager.getInstance(appContext).getWorkInfoById(id).get()?.state == WorkInfo.State.CANCELLED
+
     private fun getClientForThisDownload(): OpenCloudClient = SingleSessionManager.getDefaultSingleton()
         .getClientFor(OpenCloudAccount(AccountUtils.getOpenCloudAccountByName(appContext, account.name), appContext), appContext)
 
@@ -328,25 +359,21 @@ class DownloadFileWorker(
     ) {
         if (this.isStopped) {
             Timber.w("Cancelling remote operation. The worker is stopped by user or system")
-            downloadRemoteFileOperation.cancel()
+            // Only a download the user cancelled starts over, one stopped by the system is resumed by its next run
+            downloadRemoteFileOperation.cancel(keepPartialFile = !isCancelledByUser())
             downloadRemoteFileOperation.removeDatatransferProgressListener(this)
         }
 
-        val percent: Int = if (totalToTransfer == -1L) -1 else (100.0 * totalTransferredSoFar.toDouble() / totalToTransfer.toDouble()).toInt()
-        if (percent == lastPercent) return
+        val percent = transferProgressAggregator.report(id, totalTransferredSoFar, totalToTransfer) ?: return
 
         // Set current progress. Observers will listen.
-        CoroutineScope(Dispatchers.IO).launch {
-            val progress = workDataOf(WORKER_KEY_PROGRESS to percent)
-            setProgress(progress)
-        }
-
-        lastPercent = percent
+        setProgressAsync(workDataOf(WORKER_KEY_PROGRESS to percent))
     }
 
     companion object {
         const val KEY_PARAM_ACCOUNT = "KEY_PARAM_ACCOUNT"
         const val KEY_PARAM_FILE_ID = "KEY_PARAM_FILE_ID"
+        const val KEY_PARAM_PRIORITY = "KEY_PARAM_PRIORITY"
         const val WORKER_KEY_PROGRESS = "KEY_PROGRESS"
     }
 }
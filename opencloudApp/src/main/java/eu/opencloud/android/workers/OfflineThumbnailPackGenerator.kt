@@ -0,0 +1,123 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import android.content.Context
+import android.graphics.Bitmap
+import android.graphics.drawable.BitmapDrawable
+import coil.request.ImageRequest
+import coil.request.SuccessResult
+import eu.opencloud.android.domain.files.model.OCFile
+import eu.opencloud.android.domain.files.usecases.GetFolderContentUseCase
+import eu.opencloud.android.presentation.authentication.AccountUtils
+import eu.opencloud.android.presentation.thumbnails.OfflineThumbnailStore
+import eu.opencloud.android.presentation.thumbnails.ThumbnailsRequester
+import eu.opencloud.android.utils.BitmapUtils
+import eu.opencloud.android.utils.ConnectivityUtils
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import timber.log.Timber
+import kotlin.math.max
+
+/**
+ * Stage of the available offline sync that keeps a small thumbnail of every image available offline in the
+ * [OfflineThumbnailStore]. Images already downloaded are decoded from their local copy, subsampled; the others get
+ * their server preview, a batch at a time, when there is network and no transfer of the user to leave it to.
+ */
+class OfflineThumbnailPackGenerator(
+    private val context: Context,
+    private val getFolderContentUseCase: GetFolderContentUseCase,
+    private val offlineThumbnailStore: OfflineThumbnailStore,
+    private val transferScheduler: TransferScheduler,
+) {
+
+    suspend fun generate(availableOfflineFiles: List<OCFile>) {
+        val images = collectImages(availableOfflineFiles).associateBy { OfflineThumbnailStore.keyFor(it) }
+        val removed = offlineThumbnailStore.retainOnly(images.keys)
+
+        val missing = images.filterKeys { !offlineThumbnailStore.contains(it) }.toList().take(MAX_THUMBNAILS_PER_RUN)
+        val (local, remote) = missing.partition { (_, file) -> file.isAvailableLocally }
+
+        var generated = local.count { (key, file) -> storeFromLocalCopy(key, file) }
+        if (remote.isNotEmpty() && ConnectivityUtils.isAppConnected(context)) {
+            remote.chunked(PREVIEW_BATCH_SIZE).forEach { batch ->
+                if (batch.any { (_, file) -> transferScheduler.hasInteractiveTransfers(file.owner) }) return@forEach
+                generated += coroutineScope {
+                    batch.map { (key, file) -> async { storeFromServerPreview(key, file) } }.awaitAll().count { it }
+                }
+            }
+        }
+        Timber.i("Offline thumbnails: %d images, %d generated, %d removed", images.size, generated, removed)
+    }
+
+    private fun collectImages(files: List<OCFile>): List<OCFile> {
+        val images = mutableListOf<OCFile>()
+        val pending = ArrayDeque(files)
+        while (pending.isNotEmpty()) {
+            val file = pending.removeFirst()
+            when {
+                file.isFolder -> file.id?.let { folderId ->
+                    getFolderContentUseCase(GetFolderContentUseCase.Params(folderId)).getDataOrNull()?.let { pending.addAll(it) }
+                }
+                file.isImage -> images.add(file)
+            }
+        }
+        return images.distinctBy { it.id }
+    }
+
+    private fun storeFromLocalCopy(key: String, file: OCFile): Boolean {
+        val storagePath = file.storagePath ?: return false
+        val size = OfflineThumbnailStore.TIER.sizePx
+        val sampled = BitmapUtils.decodeSampledBitmapFromFile(storagePath, size, size) ?: return false
+        return store(key, BitmapUtils.rotateImage(sampled, storagePath))
+    }
+
+    private suspend fun storeFromServerPreview(key: String, file: OCFile): Boolean {
+        val account = AccountUtils.getOpenCloudAccountByName(context, file.owner) ?: return false
+        val request = ImageRequest.Builder(context)
+            .data(ThumbnailsRequester.getPreviewUriForFile(file, account, tier = OfflineThumbnailStore.TIER))
+            .size(OfflineThumbnailStore.TIER.sizePx)
+            .allowHardware(false)
+            .build()
+        val result = ThumbnailsRequester.getContentAddressedImageLoader(account).execute(request)
+        val bitmap = ((result as? SuccessResult)?.drawable as? BitmapDrawable)?.bitmap ?: return false
+        // The bitmap may be the one Coil keeps in its memory cache, it must not be recycled
+        return store(key, bitmap, recycle = false)
+    }
+
+    private fun store(key: String, bitmap: Bitmap, recycle: Boolean = true): Boolean {
+        val size = OfflineThumbnailStore.TIER.sizePx
+        val scale = size.toFloat() / max(bitmap.width, bitmap.height)
+        val thumbnail = if (scale < 1f) {
+            Bitmap.createScaledBitmap(bitmap, (bitmap.width * scale).toInt().coerceAtLeast(1), (bitmap.height * scale).toInt().coerceAtLeast(1), true)
+        } else {
+            bitmap
+        }
+        val stored = offlineThumbnailStore.put(key, thumbnail)
+        if (thumbnail !== bitmap) thumbnail.recycle()
+        if (recycle) bitmap.recycle()
+        return stored
+    }
+
+    companion object {
+        private const val MAX_THUMBNAILS_PER_RUN = 200
+        private const val PREVIEW_BATCH_SIZE = 8
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import android.content.ContentResolver
+import android.net.Uri
+import android.os.ParcelFileDescriptor
+import timber.log.Timber
+import java.io.Closeable
+import java.io.FileNotFoundException
+import java.io.IOException
+import java.nio.channels.FileChannel
+
+/**
+ * Read-only channel on the file descriptor behind a content URI, for uploading it without copying it to the cache
+ * first. Only descriptors backed by a regular file qualify: pipes and sockets, as returned by providers that
+ * stream their content, have no size and cannot be read from an arbitrary offset.
+ */
+internal class SeekableContentUriSource private constructor(
+    private val descriptor: ParcelFileDescriptor,
+) : Closeable {
+
+    val channel: FileChannel = ParcelFileDescriptor.AutoCloseInputStream(descriptor).channel
+
+    val size: Long
+        get() = channel.size()
+
+    override fun close() {
+        // Closing the channel closes the stream and the descriptor with it
+        channel.close()
+    }
+
+    companion object {
+        /**
+         * Opens [uri] for direct reads, or returns null when the provider does not hand out a seekable file.
+         */
+        fun open(contentResolver: ContentResolver, uri: Uri): SeekableContentUriSource? {
+            val descriptor = try {
+                contentResolver.openFileDescriptor(uri, "r")
+            } catch (e: FileNotFoundException) {
+                Timber.w(e, "Could not open a file descriptor for %s", uri)
+                null
+            } catch (e: SecurityException) {
+                Timber.w(e, "Could not open a file descriptor for %s", uri)
+                null
+            } ?: return null
+
+            if (descriptor.statSize < 0) {
+                Timber.d("File descriptor of %s is not a regular file", uri)
+                descriptor.close()
+                return null
+            }
+
+            val source = SeekableContentUriSource(descriptor)
+            return try {
+                source.channel.position(0)
+                source
+            } catch (e: IOException) {
+                Timber.d(e, "File descriptor of %s is not seekable", uri)
+                source.close()
+                null
+            }
+        }
+    }
+}
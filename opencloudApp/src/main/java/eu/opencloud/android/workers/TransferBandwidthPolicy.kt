@@ -0,0 +1,69 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import eu.opencloud.android.data.providers.SharedPreferencesProvider
+import eu.opencloud.android.lib.common.network.BandwidthLimiter
+import eu.opencloud.android.workers.TransferScheduler.Direction
+import eu.opencloud.android.workers.TransferScheduler.Priority
+
+/**
+ * Speed limits of the transfers, one for every [Priority] on metered and on unmetered networks.
+ *
+ * Each limit is applied to uploads and to downloads separately, and shared by all the transfers of its kind, so
+ * that e.g. twenty automatic uploads on mobile data go as fast as one of them would. Changing a limit applies to the
+ * transfers in flight, as they keep asking the same [BandwidthLimiter] for their bytes.
+ */
+class TransferBandwidthPolicy(
+    private val preferencesProvider: SharedPreferencesProvider,
+) {
+
+    private data class Budget(val priority: Priority, val metered: Boolean)
+
+    private val limiters: Map<Pair<Budget, Direction>, BandwidthLimiter> =
+        Priority.values().flatMap { priority ->
+            listOf(true, false).flatMap { metered ->
+                val budget = Budget(priority, metered)
+                Direction.values().map { direction -> (budget to direction) to BandwidthLimiter(storedLimit(priority, metered)) }
+            }
+        }.toMap()
+
+    fun limiterFor(priority: Priority, direction: Direction, metered: Boolean): BandwidthLimiter =
+        limiters.getValue(Budget(priority, metered) to direction)
+
+    fun limiterFor(ticket: TransferScheduler.Ticket, metered: Boolean): BandwidthLimiter =
+        limiterFor(ticket.priority, ticket.direction, metered)
+
+    /**
+     * Saves [bytesPerSecond] as the limit of the transfers with [priority] on [metered] networks, or removes the
+     * limit with [BandwidthLimiter.UNLIMITED].
+     */
+    fun setLimit(priority: Priority, metered: Boolean, bytesPerSecond: Long) {
+        preferencesProvider.putString(preferenceKey(priority, metered), bytesPerSecond.toString())
+        Direction.values().forEach { direction -> limiterFor(priority, direction, metered).bytesPerSecond = bytesPerSecond }
+    }
+
+    private fun storedLimit(priority: Priority, metered: Boolean): Long =
+        preferencesProvider.getString(preferenceKey(priority, metered), null)?.toLongOrNull() ?: BandwidthLimiter.UNLIMITED
+
+    companion object {
+        fun preferenceKey(priority: Priority, metered: Boolean): String =
+            "transfer_limit_${priority.name.lowercase()}_${if (metered) "metered" else "unmetered"}"
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+import kotlinx.coroutines.flow.update
+import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * Collects the progress of every running transfer worker and publishes it, keyed by worker id, through [progress].
+ *
+ * A transfer reports every time its bytes move, which can be hundreds of times a second. Only the reports that change
+ * its percentage, and at most one every [minIntervalMillis], get through; [report] tells the worker which ones, so it
+ * only saves those in WorkManager and in its notification too.
+ */
+class TransferProgressAggregator(
+    private val minIntervalMillis: Long = DEFAULT_MIN_INTERVAL_MILLIS,
+    private val nanoClock: () -> Long = System::nanoTime,
+) {
+
+    private class Sample(val percent: Int, val atNanos: Long)
+
+    private val lastSamples = ConcurrentHashMap<UUID, Sample>()
+    private val _progress = MutableStateFlow<Map<UUID, Int>>(emptyMap())
+
+    /** Percentage of every running transfer, or -1 for those of unknown size. */
+    val progress: StateFlow<Map<UUID, Int>> = _progress.asStateFlow()
+
+    /**
+     * Returns the percentage to show for the transfer of [workId], or null when nothing new has to be shown yet.
+     */
+    fun report(workId: UUID, transferred: Long, total: Long): Int? {
+        val percent = if (total <= 0) UNKNOWN_PERCENT else (100 * transferred / total).toInt().coerceIn(0, 100)
+        val now = nanoClock()
+        val last = lastSamples[workId]
+        if (last != null) {
+            if (last.percent == percent) return null
+            // The last percentage always gets through, not to leave a finished transfer at 99 %
+            val tooSoon = now - last.atNanos < TimeUnit.MILLISECONDS.toNanos(minIntervalMillis)
+            if (tooSoon && percent != 100) return null
+        }
+        lastSamples[workId] = Sample(percent, now)
+        _progress.update { it + (workId to percent) }
+        return percent
+    }
+
+    /** Forgets the transfer of [workId], once its worker is done. */
+    fun finish(workId: UUID) {
+        lastSamples.remove(workId)
+        _progress.update { it - workId }
+    }
+
+    companion object {
+        /** Four updates a second per transfer. */
+        const val DEFAULT_MIN_INTERVAL_MILLIS = 250L
+        const val UNKNOWN_PERCENT = -1
+    }
+}
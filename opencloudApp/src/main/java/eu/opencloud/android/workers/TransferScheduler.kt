@@ -0,0 +1,218 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import androidx.annotation.VisibleForTesting
+import eu.opencloud.android.domain.transfers.model.OCTransfer
+import eu.opencloud.android.domain.transfers.model.UploadEnqueuedBy
+import kotlinx.coroutines.CancellationException
+import kotlinx.coroutines.CompletableDeferred
+import timber.log.Timber
+import java.util.PriorityQueue
+import java.util.concurrent.TimeUnit
+
+/**
+ * Decides when the transfer workers move their bytes. WorkManager starts every upload and download as soon as its
+ * constraints are met; the workers then wait here for a slot of their account and direction, so that a backlog of
+ * automatic uploads neither opens dozens of connections at once nor delays a file the user is opening.
+ *
+ * Waiting transfers get a free slot by [Priority] first, then smaller files first, then in arrival order.
+ *
+ * A worker waiting here still counts as running for WorkManager, which hands at most 20 works at a time to the system
+ * scheduler. So that a backlog of background transfers cannot take all of them and hold back the ones the user starts,
+ * at most [maxWaitingBackground] background transfers wait at once in the whole app; the next ones are refused with a
+ * [QueueFullException] and their workers retry later. Interactive transfers always wait for their slot.
+ */
+class TransferScheduler(
+    private val defaultUploadLimit: Int = DEFAULT_UPLOADS_PER_ACCOUNT,
+    private val defaultDownloadLimit: Int = DEFAULT_DOWNLOADS_PER_ACCOUNT,
+    private val maxWaitingBackground: Int = MAX_WAITING_BACKGROUND_TRANSFERS,
+) {
+
+    enum class Direction { UPLOAD, DOWNLOAD }
+
+    /** Declared from the most to the least urgent. */
+    enum class Priority {
+        /** Started by the user, who is likely waiting for it. */
+        INTERACTIVE,
+
+        /** Automatic uploads, available offline and folder synchronizations. */
+        BACKGROUND;
+
+        companion object {
+            fun fromString(string: String?): Priority = values().firstOrNull { it.name == string } ?: INTERACTIVE
+        }
+    }
+
+    data class Ticket(
+        val accountName: String,
+        val direction: Direction,
+        val priority: Priority,
+        val size: Long,
+    ) {
+        companion object {
+            /** Uploads the user picked come before the automatic ones. */
+            fun forUpload(transfer: OCTransfer) = Ticket(
+                accountName = transfer.accountName,
+                direction = Direction.UPLOAD,
+                priority = if (transfer.createdBy == UploadEnqueuedBy.ENQUEUED_BY_USER) Priority.INTERACTIVE else Priority.BACKGROUND,
+                size = transfer.fileSize,
+            )
+        }
+    }
+
+    internal data class QueueMetrics(
+        val accountName: String,
+        val direction: Direction,
+        val running: Int,
+        val queued: Int,
+        val scheduled: Long,
+    )
+
+    class QueueFullException(ticket: Ticket) :
+        Exception("Too many background transfers waiting, ${ticket.direction} for ${ticket.accountName} has to be retried later")
+
+    private class Waiter(val ticket: Ticket, val sequence: Long, val enqueuedAtNanos: Long) {
+        val slot = CompletableDeferred<Unit>()
+    }
+
+    private class Queue(val limit: Int) {
+        val waiting = PriorityQueue(WAITER_ORDER)
+        var running = 0
+        var runningInteractive = 0
+        var scheduled = 0L
+    }
+
+    private val queues = HashMap<Pair<String, Direction>, Queue>()
+    private var nextSequence = 0L
+
+    /**
+     * Suspends until [ticket] gets a slot, runs [block] and frees the slot. Cancelling the caller while it waits
+     * takes it out of the queue.
+     *
+     * @throws QueueFullException if [ticket] is a background one that would have to wait while too many others do
+     */
+    suspend fun <T> runWhenScheduled(ticket: Ticket, block: suspend () -> T): T {
+        acquire(ticket)
+        try {
+            return block()
+        } finally {
+            release(ticket)
+        }
+    }
+
+    /**
+     * Whether [accountName] has transfers started by the user running or waiting for a slot. Work that can wait,
+     * like prefetching thumbnails, should leave the network to them meanwhile.
+     */
+    @Synchronized
+    fun hasInteractiveTransfers(accountName: String): Boolean =
+        queues.any { (key, queue) ->
+            key.first == accountName &&
+                (queue.runningInteractive > 0 || queue.waiting.any { it.ticket.priority == Priority.INTERACTIVE })
+        }
+
+    /** The wait of every transfer is logged when it gets its slot, this only tells the tests how the queues are. */
+    @VisibleForTesting
+    @Synchronized
+    internal fun metrics(): List<QueueMetrics> =
+        queues.map { (key, queue) ->
+            QueueMetrics(
+                accountName = key.first,
+                direction = key.second,
+                running = queue.running,
+                queued = queue.waiting.size,
+                scheduled = queue.scheduled,
+            )
+        }
+
+    private suspend fun acquire(ticket: Ticket) {
+        val waiter = synchronized(this) {
+            val queue = queueFor(ticket.accountName, ticket.direction)
+            if (ticket.priority == Priority.BACKGROUND && queue.running >= queue.limit && waitingBackground() >= maxWaitingBackground) {
+                throw QueueFullException(ticket)
+            }
+            Waiter(ticket, nextSequence++, System.nanoTime()).also {
+                queue.waiting.add(it)
+                grantFreeSlots(ticket.accountName, ticket.direction, queue)
+            }
+        }
+        try {
+            waiter.slot.await()
+        } catch (e: CancellationException) {
+            synchronized(this) {
+                val queue = queueFor(ticket.accountName, ticket.direction)
+                // Not in the queue anymore: the slot was granted right before the cancellation
+                if (!queue.waiting.remove(waiter)) {
+                    queue.running--
+                    if (ticket.priority == Priority.INTERACTIVE) queue.runningInteractive--
+                    grantFreeSlots(ticket.accountName, ticket.direction, queue)
+                }
+            }
+            throw e
+        }
+    }
+
+    @Synchronized
+    private fun release(ticket: Ticket) {
+        val queue = queueFor(ticket.accountName, ticket.direction)
+        queue.running--
+        if (ticket.priority == Priority.INTERACTIVE) queue.runningInteractive--
+        grantFreeSlots(ticket.accountName, ticket.direction, queue)
+    }
+
+    private fun grantFreeSlots(accountName: String, direction: Direction, queue: Queue) {
+        while (queue.running < queue.limit) {
+            val waiter = queue.waiting.poll() ?: return
+            val waitNanos = System.nanoTime() - waiter.enqueuedAtNanos
+            queue.running++
+            if (waiter.ticket.priority == Priority.INTERACTIVE) queue.runningInteractive++
+            queue.scheduled++
+            Timber.d(
+                "Scheduled %s %s of %d bytes for %s after %d ms (running=%d, queued=%d)",
+                waiter.ticket.priority,
+                direction,
+                waiter.ticket.size,
+                accountName,
+                TimeUnit.NANOSECONDS.toMillis(waitNanos),
+                queue.running,
+                queue.waiting.size,
+            )
+            waiter.slot.complete(Unit)
+        }
+    }
+
+    private fun waitingBackground(): Int =
+        queues.values.sumOf { queue -> queue.waiting.count { it.ticket.priority == Priority.BACKGROUND } }
+
+    private fun queueFor(accountName: String, direction: Direction): Queue =
+        queues.getOrPut(accountName to direction) {
+            Queue(if (direction == Direction.UPLOAD) defaultUploadLimit else defaultDownloadLimit)
+        }
+
+    companion object {
+        const val DEFAULT_UPLOADS_PER_ACCOUNT = 2
+        const val DEFAULT_DOWNLOADS_PER_ACCOUNT = 3
+
+        /** Well below the 20 works WorkManager runs at a time, leaving room for running and interactive transfers. */
+        const val MAX_WAITING_BACKGROUND_TRANSFERS = 8
+
+        private val WAITER_ORDER = compareBy<Waiter>({ it.ticket.priority.ordinal }, { it.ticket.size }, { it.sequence })
+    }
+}
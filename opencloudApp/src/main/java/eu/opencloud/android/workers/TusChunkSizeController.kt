@@ -0,0 +1,96 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import eu.opencloud.android.data.providers.SharedPreferencesProvider
+import timber.log.Timber
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * Sizes the TUS PATCH chunks from the throughput and the failures of the previous ones.
+ *
+ * Every chunk aims to take [TARGET_CHUNK_DURATION_MILLIS], so that fast networks are not dominated by the round trip of
+ * each PATCH, while the target shrinks as failures become frequent, since every failure throws a whole chunk away.
+ * The learned size is kept under [preferenceKey] so that the next upload on the same account and network starts from it.
+ * The parts of a parallel upload share one controller, so the samples come from several threads.
+ */
+open class TusChunkSizeController(
+    private val preferences: SharedPreferencesProvider? = null,
+    private val preferenceKey: String? = null,
+) {
+    var chunkSize: Long = loadChunkSize()
+        private set
+
+    // Exponential moving averages of the throughput (bytes per second) and the share of failed PATCHes
+    private var throughput: Double? = null
+    private var errorRate = 0.0
+
+    @Synchronized
+    fun nextChunkSize(remaining: Long, serverMaxChunk: Long?): Long =
+        minOf(chunkSize, remaining, serverMaxChunk ?: Long.MAX_VALUE)
+
+    @Synchronized
+    open fun onChunkUploaded(bytes: Long, elapsedMillis: Long) {
+        errorRate *= 1 - SMOOTHING
+        // The last chunk of a file is usually too short to tell anything about the network
+        if (bytes < MIN_CHUNK_SIZE || elapsedMillis <= 0) return
+
+        val sample = bytes * MILLIS_PER_SECOND / elapsedMillis
+        val smoothedThroughput = throughput?.let { it + SMOOTHING * (sample - it) } ?: sample
+        throughput = smoothedThroughput
+
+        val target = (smoothedThroughput * TARGET_CHUNK_DURATION_MILLIS / MILLIS_PER_SECOND * (1 - errorRate)).toLong()
+        // Chunks only grow again once the recent failures have faded out
+        val growthLimit = if (errorRate < MAX_ERROR_RATE_TO_GROW) chunkSize * MAX_GROWTH_FACTOR else chunkSize
+        updateChunkSize(min(target, growthLimit))
+    }
+
+    @Synchronized
+    open fun onChunkFailed() {
+        errorRate += SMOOTHING * (1 - errorRate)
+        updateChunkSize(chunkSize / 2)
+    }
+
+    private fun updateChunkSize(newChunkSize: Long) {
+        chunkSize = newChunkSize.coerceIn(MIN_CHUNK_SIZE, MAX_CHUNK_SIZE)
+        Timber.d("TUS: chunk size %d (throughput=%s B/s, errorRate=%.2f)", chunkSize, throughput?.toLong(), errorRate)
+        preferenceKey?.let { preferences?.putLong(it, chunkSize) }
+    }
+
+    private fun loadChunkSize(): Long {
+        val stored = preferenceKey?.let { preferences?.getLong(it, DEFAULT_CHUNK_SIZE) } ?: DEFAULT_CHUNK_SIZE
+        return max(MIN_CHUNK_SIZE, min(stored, MAX_CHUNK_SIZE))
+    }
+
+    companion object {
+        const val DEFAULT_CHUNK_SIZE = TusUploadHelper.DEFAULT_CHUNK_SIZE
+        const val MIN_CHUNK_SIZE = 1024L * 1024L
+        const val MAX_CHUNK_SIZE = 64L * 1024L * 1024L
+        private const val TARGET_CHUNK_DURATION_MILLIS = 8_000L
+        private const val MAX_GROWTH_FACTOR = 2
+        private const val MAX_ERROR_RATE_TO_GROW = 0.1
+        private const val SMOOTHING = 0.3
+        private const val MILLIS_PER_SECOND = 1_000.0
+        private const val PREFERENCE_KEY_PREFIX = "tus_chunk_size"
+
+        fun forNetwork(preferences: SharedPreferencesProvider, accountName: String, networkType: String) =
+            TusChunkSizeController(preferences, "${PREFERENCE_KEY_PREFIX}_${accountName}_$networkType")
+    }
+}
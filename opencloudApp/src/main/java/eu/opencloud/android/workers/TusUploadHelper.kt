@@ -6,9 +6,12 @@ import eu.opencloud.android.domain.transfers.TransferRepository
 import eu.opencloud.android.domain.transfers.model.OCTransfer
 import eu.opencloud.android.lib.common.OpenCloudClient
 import eu.opencloud.android.lib.common.http.HttpConstants
+import eu.opencloud.android.lib.common.network.BandwidthLimiter
 import eu.opencloud.android.lib.common.network.OnDatatransferProgressListener
 
 import eu.opencloud.android.lib.resources.files.chunks.ChunkedUploadFromFileSystemOperation
+import eu.opencloud.android.lib.resources.files.tus.ConcatenateTusUploadsRemoteOperation
+import eu.opencloud.android.lib.resources.files.tus.CreatePartialTusUploadRemoteOperation
 import eu.opencloud.android.lib.resources.files.tus.CreateTusUploadRemoteOperation
 import eu.opencloud.android.lib.resources.files.tus.GetTusUploadOffsetRemoteOperation
 import eu.opencloud.android.lib.resources.files.tus.PatchTusUploadChunkRemoteOperation
@@ -16,6 +19,11 @@ import eu.opencloud.android.lib.resources.files.tus.TusChecksumHelper
 import eu.opencloud.android.domain.exceptions.FileNotFoundException
 import timber.log.Timber
 import java.io.File
+import java.nio.channels.FileChannel
+import java.util.Collections
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
 import kotlin.math.min
 
 /**
@@ -23,20 +31,30 @@ import kotlin.math.min
  */
 class TusUploadHelper(
     private val transferRepository: TransferRepository,
+    private val chunkSizeController: TusChunkSizeController = TusChunkSizeController(),
+    private val bandwidthLimiter: BandwidthLimiter? = null,
 ) {
     @Volatile
     private var cancelled = false
-    private var activePatchOperation: PatchTusUploadChunkRemoteOperation? = null
+    private val activePatchOperations: MutableSet<PatchTusUploadChunkRemoteOperation> =
+        Collections.synchronizedSet(HashSet())
 
     fun cancel() {
-        cancelled = true
         Timber.d("TUS: upload cancellation requested")
-        activePatchOperation?.cancel()
+        stopUploading()
+    }
+
+    private fun stopUploading() {
+        cancelled = true
+        synchronized(activePatchOperations) { activePatchOperations.forEach { it.cancel() } }
     }
 
     /**
      * Runs the full TUS upload flow. On success the method returns normally. On failure an exception
      * is thrown so the caller can decide whether to retry or surface the error.
+     *
+     * When [sourceChannel] is given the bytes are read from it instead of [localPath], which then only
+     * identifies the upload in logs and progress.
      */
     @Throws(Exception::class)
     fun upload(
@@ -52,6 +70,7 @@ class TusUploadHelper(
         progressListener: OnDatatransferProgressListener?,
         progressCallback: ((Long, Long) -> Unit)? = null,
         spaceWebDavUrl: String? = null,
+        sourceChannel: FileChannel? = null,
     ) : String? {
         // Reset cancelled state for new upload
         cancelled = false
@@ -59,6 +78,29 @@ class TusUploadHelper(
             ?.takeIf { it.uploadAlgorithm == TusChecksumHelper.SHA1_WIRE_ALGORITHM }
         Timber.d("TUS: starting upload for %s size=%d", remotePath, fileSize)
 
+        val pendingParts = TusUploadPart.parse(transfer.tusUploadConcat, fileSize)
+        val parallelParts = parallelPartsFor(client)
+        if (transfer.tusUploadUrl.isNullOrBlank() &&
+            (pendingParts != null || (parallelParts > 1 && shouldUploadInParts(fileSize, tusSupport)))
+        ) {
+            return uploadInParts(
+                client = client,
+                uploadId = uploadId,
+                localPath = localPath,
+                remotePath = remotePath,
+                fileSize = fileSize,
+                metadata = buildMetadata(remotePath, mimeType, lastModified, fileChecksum),
+                tusSupport = tusSupport,
+                progressListener = progressListener,
+                progressCallback = progressCallback,
+                spaceWebDavUrl = spaceWebDavUrl,
+                fileChecksum = fileChecksum,
+                initialParts = pendingParts ?: TusUploadPart.split(fileSize, partsCountFor(fileSize, parallelParts)),
+                parallelParts = parallelParts,
+                sourceChannel = sourceChannel,
+            )
+        }
+
         val (resolvedTusUrl, createdOffset) = prepareUpload(
             client = client,
             transfer = transfer,
@@ -71,6 +113,7 @@ class TusUploadHelper(
             spaceWebDavUrl = spaceWebDavUrl,
             fileChecksum = fileChecksum,
             tusSupport = tusSupport,
+            sourceChannel = sourceChannel,
         )
 
         val offset = fetchCurrentOffset(client, resolvedTusUrl, createdOffset)
@@ -88,6 +131,7 @@ class TusUploadHelper(
             initialOffset = offset,
             uploadId = uploadId,
             checksumAlgorithm = fileChecksum?.uploadAlgorithm,
+            sourceChannel = sourceChannel,
         )
 
         verifyUploadCompletion(finalOffset, fileSize, uploadId)
@@ -107,18 +151,14 @@ class TusUploadHelper(
         spaceWebDavUrl: String?,
         fileChecksum: TusChecksumHelper.StoredChecksum?,
         tusSupport: OCCapability.TusSupport?,
+        sourceChannel: FileChannel?,
     ): Pair<String, Long?> {
         var tusUrl = transfer.tusUploadUrl
         var createdOffset: Long? = null
 
         if (tusUrl.isNullOrBlank()) {
             val fileName = File(remotePath).name
-            val metadata = linkedMapOf(
-                "filename" to fileName,
-                "mimetype" to mimeType,
-            )
-            lastModified?.takeIf { it.isNotBlank() }?.let { metadata["mtime"] = it }
-            fileChecksum?.let { metadata["checksum"] = it.metadataValue }
+            val metadata = buildMetadata(remotePath, mimeType, lastModified, fileChecksum)
 
             Timber.d(
                 "TUS: creating upload resource filename=%s size=%d metadata=%s",
@@ -136,10 +176,10 @@ class TusUploadHelper(
             // The data part of a creation-with-upload POST follows the same rules as a PATCH
             // (TUS spec), so it carries Upload-Checksum for the first chunk just like the
             // PATCH requests do for the remaining ones — and like a PATCH it must respect
-            // the server's max_chunk_size (DEFAULT_FIRST_CHUNK is 10 MiB, but e.g. OpenCloud
-            // advertises 10_000_000, slightly smaller).
+            // the server's max_chunk_size (the adaptive chunk size may exceed it, and e.g. OpenCloud
+            // advertises 10_000_000).
             val serverMaxChunk = tusSupport?.maxChunkSize?.takeIf { it > 0 }?.toLong() ?: Long.MAX_VALUE
-            val firstChunkSize = minOf(CreateTusUploadRemoteOperation.DEFAULT_FIRST_CHUNK, fileSize, serverMaxChunk)
+            val firstChunkSize = chunkSizeController.nextChunkSize(remaining = fileSize, serverMaxChunk = serverMaxChunk)
             val creationResult = executeRemoteOperation {
                 CreateTusUploadRemoteOperation(
                     file = File(localPath),
@@ -151,7 +191,8 @@ class TusUploadHelper(
                     tusUrl = "",
                     collectionUrlOverride = collectionUrl,
                     checksumAlgorithm = fileChecksum?.uploadAlgorithm,
-                ).execute(client)
+                    sourceChannel = sourceChannel,
+                ).apply { bandwidthLimiter = this@TusUploadHelper.bandwidthLimiter }.execute(client)
             }
 
             if (creationResult == null) {
@@ -160,13 +201,11 @@ class TusUploadHelper(
 
             tusUrl = creationResult.uploadUrl
             createdOffset = creationResult.uploadOffset
-            val metadataString = metadata.entries.joinToString(";") { (key, value) -> "$key=$value" }
-
             transferRepository.updateTusState(
                 id = uploadId,
                 tusUploadUrl = tusUrl,
                 tusUploadLength = fileSize,
-                tusUploadMetadata = metadataString,
+                tusUploadMetadata = metadata.toStorageValue(),
                 tusUploadChecksum = fileChecksum?.storageValue,
                 tusResumableVersion = "1.0.0",
                 tusUploadExpires = null,
@@ -178,6 +217,174 @@ class TusUploadHelper(
         return Pair(resolvedTusUrl, createdOffset)
     }
 
+    /**
+     * Uploads the file as parallel partial uploads, one per [TusUploadPart], and joins them with a final
+     * concatenation request. Part URLs are persisted as soon as they exist so that a retry resumes each
+     * part from the offset the server reports for it.
+     *
+     * The bytes the parts are sending are added up and reported to [progressListener] as the progress of the
+     * whole file, so the listener keeps seeing the upload move and can still stop it.
+     */
+    private fun uploadInParts(
+        client: OpenCloudClient,
+        uploadId: Long,
+        localPath: String,
+        remotePath: String,
+        fileSize: Long,
+        metadata: Map<String, String>,
+        tusSupport: OCCapability.TusSupport?,
+        progressListener: OnDatatransferProgressListener?,
+        progressCallback: ((Long, Long) -> Unit)?,
+        spaceWebDavUrl: String?,
+        fileChecksum: TusChecksumHelper.StoredChecksum?,
+        initialParts: List<TusUploadPart>,
+        parallelParts: Int,
+        sourceChannel: FileChannel?,
+    ): String? {
+        val collectionUrl = CreateTusUploadRemoteOperation.buildCollectionUrl(
+            base = resolveTusCollectionUrl(client = client, spaceWebDavUrl = spaceWebDavUrl),
+            remotePath = remotePath,
+        )
+        val parts = initialParts.map { preparePart(client, collectionUrl, it) }.toMutableList()
+        transferRepository.updateTusState(
+            id = uploadId,
+            tusUploadUrl = null,
+            tusUploadLength = fileSize,
+            tusUploadMetadata = metadata.toStorageValue(),
+            tusUploadChecksum = fileChecksum?.storageValue,
+            tusResumableVersion = "1.0.0",
+            tusUploadExpires = null,
+            tusUploadConcat = TusUploadPart.serialize(parts),
+        )
+        Timber.d("TUS: uploading %s in %d parallel parts", remotePath, parts.size)
+        progressCallback?.invoke(parts.sumOf { it.offset }, fileSize)
+        val partsProgress = progressListener?.let { PartsProgressListener(it, parts, fileSize, localPath) }
+
+        // Parts left over by an earlier attempt can be more than may run at once, the rest wait for a free thread
+        val executor = Executors.newFixedThreadPool(min(parts.size, parallelParts))
+        try {
+            val completion = ExecutorCompletionService<Unit>(executor)
+            parts.indices.forEach { index ->
+                completion.submit {
+                    uploadPart(
+                        client = client,
+                        part = parts[index],
+                        localPath = localPath,
+                        tusSupport = tusSupport,
+                        uploadId = uploadId,
+                        checksumAlgorithm = fileChecksum?.uploadAlgorithm,
+                        sourceChannel = sourceChannel,
+                        progressListener = partsProgress?.forPart(index),
+                    ) { partOffset ->
+                        synchronized(parts) {
+                            parts[index] = parts[index].copy(offset = partOffset)
+                            progressCallback?.invoke(parts.sumOf { it.offset }, fileSize)
+                        }
+                    }
+                }
+            }
+            repeat(parts.size) {
+                try {
+                    completion.take().get()
+                } catch (e: ExecutionException) {
+                    // One failed part fails the upload: stop the others, their progress is kept on the server
+                    stopUploading()
+                    throw e.cause ?: e
+                }
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+
+        val concatenation = ConcatenateTusUploadsRemoteOperation(
+            collectionUrl = collectionUrl,
+            partialUploadUrls = parts.map { it.url!! },
+            metadata = metadata,
+        )
+        executeRemoteOperation { concatenation.execute(client) }
+        clearTusState(uploadId)
+
+        return finalizeEtag(client, remotePath, spaceWebDavUrl, concatenation.etag.takeIf { it.isNotBlank() }, fileSize)
+    }
+
+    /**
+     * Returns [part] with the offset the server reports for it, creating its partial upload if it has none yet
+     * or the server no longer knows it.
+     */
+    private fun preparePart(
+        client: OpenCloudClient,
+        collectionUrl: String,
+        part: TusUploadPart,
+    ): TusUploadPart {
+        part.url?.let { url ->
+            val serverOffset = try {
+                executeRemoteOperation { GetTusUploadOffsetRemoteOperation(url).execute(client) }
+            } catch (e: FileNotFoundException) {
+                Timber.w(e, "TUS: partial upload %s not found on server, creating it again", url)
+                null
+            }
+            if (serverOffset != null && serverOffset in 0..part.length) {
+                return part.copy(offset = serverOffset)
+            }
+        }
+        val url = executeRemoteOperation {
+            CreatePartialTusUploadRemoteOperation(collectionUrl = collectionUrl, uploadLength = part.length).execute(client)
+        }
+        return part.copy(url = url, offset = 0)
+    }
+
+    private fun uploadPart(
+        client: OpenCloudClient,
+        part: TusUploadPart,
+        localPath: String,
+        tusSupport: OCCapability.TusSupport?,
+        uploadId: Long,
+        checksumAlgorithm: String?,
+        sourceChannel: FileChannel?,
+        progressListener: OnDatatransferProgressListener?,
+        onProgress: (Long) -> Unit,
+    ) {
+        val partUrl = part.url ?: throw IllegalStateException("TUS: missing partial upload URL at ${part.start}")
+        val (finalOffset, _) = performUploadLoop(
+            client = client,
+            resolvedTusUrl = partUrl,
+            localPath = localPath,
+            fileSize = part.length,
+            tusSupport = tusSupport,
+            progressListener = progressListener,
+            progressCallback = { offset, _ -> onProgress(offset) },
+            initialOffset = part.offset,
+            uploadId = uploadId,
+            checksumAlgorithm = checksumAlgorithm,
+            fileOffset = part.start,
+            sourceChannel = sourceChannel,
+        )
+        if (finalOffset != part.length) {
+            if (cancelled) {
+                throw java.io.InterruptedIOException("TUS upload cancelled by user")
+            }
+            throw java.io.IOException("TUS: part at ${part.start} incomplete - offset $finalOffset of ${part.length}")
+        }
+    }
+
+    private fun buildMetadata(
+        remotePath: String,
+        mimeType: String,
+        lastModified: String?,
+        fileChecksum: TusChecksumHelper.StoredChecksum?,
+    ): LinkedHashMap<String, String> {
+        val metadata = linkedMapOf(
+            "filename" to File(remotePath).name,
+            "mimetype" to mimeType,
+        )
+        lastModified?.takeIf { it.isNotBlank() }?.let { metadata["mtime"] = it }
+        fileChecksum?.let { metadata["checksum"] = it.metadataValue }
+        return metadata
+    }
+
+    private fun Map<String, String>.toStorageValue(): String =
+        entries.joinToString(";") { (key, value) -> "$key=$value" }
+
     private fun fetchCurrentOffset(
         client: OpenCloudClient,
         resolvedTusUrl: String,
@@ -248,6 +455,8 @@ class TusUploadHelper(
         initialOffset: Long,
         uploadId: Long,
         checksumAlgorithm: String?,
+        fileOffset: Long = 0L,
+        sourceChannel: FileChannel? = null,
     ): Pair<Long, String?> {
         var offset = initialOffset
         var lastEtag: String? = null
@@ -257,7 +466,7 @@ class TusUploadHelper(
 
         while (offset < fileSize && !cancelled) {
             val remaining = fileSize - offset
-            val chunkSize = min(DEFAULT_CHUNK_SIZE, min(remaining, serverMaxChunk ?: Long.MAX_VALUE))
+            val chunkSize = chunkSizeController.nextChunkSize(remaining = remaining, serverMaxChunk = serverMaxChunk)
             Timber.d("TUS: uploading chunk=%d at offset=%d remaining=%d", chunkSize, offset, remaining)
 
             if (cancelled) {
@@ -272,14 +481,19 @@ class TusUploadHelper(
                 chunkSize = chunkSize,
                 httpMethodOverride = httpOverride,
                 checksumAlgorithm = checksumAlgorithm,
+                fileOffset = fileOffset + offset,
+                sourceChannel = sourceChannel,
             ).apply {
+                bandwidthLimiter = this@TusUploadHelper.bandwidthLimiter
                 progressListener?.let { addDataTransferProgressListener(it) }
             }
-            activePatchOperation = patchOperation
+            activePatchOperations.add(patchOperation)
 
+            val patchStartedAt = System.nanoTime()
             val patchResult = patchOperation.execute(client)
+            val patchElapsedMillis = (System.nanoTime() - patchStartedAt) / NANOS_PER_MILLI
             lastEtag = patchOperation.etag.takeIf { it.isNotBlank() }
-            activePatchOperation = null
+            activePatchOperations.remove(patchOperation)
             if (checksumAlgorithm != null && isChecksumFailure(patchResult.httpCode)) {
                 clearTusState(uploadId)
                 throw java.io.IOException(
@@ -288,6 +502,9 @@ class TusUploadHelper(
             }
             if (!patchResult.isSuccess || patchResult.data == null || patchResult.data!! < offset) {
                 consecutiveFailures++
+                if (!cancelled) {
+                    chunkSizeController.onChunkFailed()
+                }
                 Timber.w(
                     "TUS: PATCH failed at offset %d (retry %d/%d)",
                     offset,
@@ -363,6 +580,7 @@ class TusUploadHelper(
                 throw java.io.IOException("TUS: server offset $newOffset exceeds file size $fileSize")
             }
 
+            chunkSizeController.onChunkUploaded(bytes = newOffset - offset, elapsedMillis = patchElapsedMillis)
             offset = newOffset
             progressCallback?.invoke(offset, fileSize)
             consecutiveFailures = 0
@@ -444,11 +662,36 @@ class TusUploadHelper(
     }
 
 
+    /**
+     * Sums the progress of the parts of a concatenation upload for [listener], which is called from one part at a
+     * time. The bodies of the parts report their position in the file, so the position of a part is that minus its
+     * start; a chunk that is sent again moves it back.
+     */
+    private class PartsProgressListener(
+        private val listener: OnDatatransferProgressListener,
+        parts: List<TusUploadPart>,
+        private val fileSize: Long,
+        private val localPath: String,
+    ) {
+        private val starts = parts.map { it.start }
+        private val positions = LongArray(parts.size) { parts[it].offset }
+
+        fun forPart(index: Int) = OnDatatransferProgressListener { read, transferred, _, _ ->
+            synchronized(this) {
+                positions[index] = (transferred - starts[index]).coerceAtLeast(0)
+                listener.onTransferProgress(read, positions.sum().coerceAtMost(fileSize), fileSize, localPath)
+            }
+        }
+    }
+
     companion object {
         const val DEFAULT_CHUNK_SIZE = ChunkedUploadFromFileSystemOperation.CHUNK_SIZE
         private const val MAX_RETRIES = 5
         private const val BASE_RETRY_DELAY_MS = 250L
         private const val MAX_RETRY_DELAY_MS = 2_000L
+        private const val NANOS_PER_MILLI = 1_000_000L
+        private const val MAX_PARALLEL_PARTS = 4
+        private const val MIN_PART_SIZE = 32L * 1024 * 1024
 
         fun shouldAttemptTusUpload(
             fileSize: Long,
@@ -456,5 +699,25 @@ class TusUploadHelper(
             tusUploadUrl: String?,
         ): Boolean =
             !tusUploadUrl.isNullOrBlank() || (tusSupport != null && fileSize >= DEFAULT_CHUNK_SIZE)
+
+        /**
+         * Parallel parts pay off for files that give every part at least [MIN_PART_SIZE] bytes,
+         * and need the server to advertise the concatenation extension.
+         */
+        fun shouldUploadInParts(fileSize: Long, tusSupport: OCCapability.TusSupport?): Boolean =
+            fileSize >= 2 * MIN_PART_SIZE &&
+                tusSupport?.extension.orEmpty().split(',').any {
+                    it.trim().equals(HttpConstants.TUS_EXTENSION_CONCATENATION, ignoreCase = true)
+                }
+
+        private fun partsCountFor(fileSize: Long, parallelParts: Int): Int =
+            min(parallelParts.toLong(), fileSize / MIN_PART_SIZE).toInt()
+
+        /**
+         * Parts sent at the same time: one less than the requests the client lets run for the account, so that its
+         * listings, thumbnails and the final concatenation are not left waiting behind a single upload.
+         */
+        private fun parallelPartsFor(client: OpenCloudClient): Int =
+            client.maxConcurrentRequests.takeIf { it > 0 }?.let { (it - 1).coerceIn(1, MAX_PARALLEL_PARTS) } ?: MAX_PARALLEL_PARTS
     }
 }
@@ -0,0 +1,76 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+/**
+ * Region of the local file sent as one partial upload of a TUS concatenation.
+ *
+ * The parts of an upload are kept in the transfers table (tusUploadConcat) as "start:length:offset:url" entries
+ * separated by spaces, so that a retry resumes every part from its own offset.
+ */
+data class TusUploadPart(
+    val start: Long,
+    val length: Long,
+    val offset: Long = 0,
+    val url: String? = null,
+) {
+    companion object {
+        private const val PARTS_SEPARATOR = " "
+        private const val FIELDS_SEPARATOR = ":"
+        private const val FIELDS = 4
+
+        /**
+         * Splits [fileSize] bytes into [count] contiguous parts, the last one taking the remainder.
+         */
+        fun split(fileSize: Long, count: Int): List<TusUploadPart> {
+            val partLength = fileSize / count
+            return (0 until count).map { index ->
+                val start = index * partLength
+                TusUploadPart(start = start, length = if (index == count - 1) fileSize - start else partLength)
+            }
+        }
+
+        fun serialize(parts: List<TusUploadPart>): String =
+            parts.joinToString(PARTS_SEPARATOR) { part ->
+                listOf(part.start, part.length, part.offset, part.url.orEmpty()).joinToString(FIELDS_SEPARATOR)
+            }
+
+        /**
+         * Parts stored for an upload of [fileSize] bytes, or null if there are none or they do not cover the file.
+         */
+        fun parse(value: String?, fileSize: Long): List<TusUploadPart>? {
+            if (value.isNullOrBlank()) return null
+
+            val parts = value.trim().split(PARTS_SEPARATOR).map { entry ->
+                val fields = entry.split(FIELDS_SEPARATOR, limit = FIELDS)
+                if (fields.size != FIELDS) return null
+                TusUploadPart(
+                    start = fields[0].toLongOrNull() ?: return null,
+                    length = fields[1].toLongOrNull() ?: return null,
+                    offset = fields[2].toLongOrNull() ?: return null,
+                    url = fields[3].ifBlank { null },
+                )
+            }
+
+            val contiguous = parts.zipWithNext().all { (previous, next) -> previous.start + previous.length == next.start }
+            val coversFile = parts.first().start == 0L && parts.last().let { it.start + it.length } == fileSize
+            return parts.takeIf { contiguous && coversFile && it.all { part -> part.offset in 0..part.length } }
+        }
+    }
+}
@@ -36,6 +36,7 @@ import androidx.work.workDataOf
 import eu.opencloud.android.R
 import eu.opencloud.android.data.executeRemoteOperation
 import eu.opencloud.android.data.providers.LocalStorageProvider
+import eu.opencloud.android.data.providers.SharedPreferencesProvider
 import eu.opencloud.android.domain.automaticuploads.model.UploadBehavior
 import eu.opencloud.android.domain.exceptions.LocalFileNotFoundException
 import eu.opencloud.android.domain.exceptions.NetworkErrorException
@@ -66,6 +67,7 @@ import eu.opencloud.android.lib.resources.files.ReadRemoteFileOperation
 import eu.opencloud.android.lib.resources.files.UploadFileFromFileSystemOperation
 import eu.opencloud.android.lib.resources.files.tus.TusChecksumHelper
 import eu.opencloud.android.presentation.authentication.AccountUtils
+import eu.opencloud.android.utils.ConnectivityUtils
 import eu.opencloud.android.utils.MimetypeIconUtil
 import eu.opencloud.android.utils.NotificationUtils
 import eu.opencloud.android.utils.UPLOAD_NOTIFICATION_CHANNEL_ID
@@ -79,6 +81,7 @@ import timber.log.Timber
 import java.io.File
 import java.io.FileOutputStream
 import java.io.IOException
+import java.nio.channels.FileChannel
 import kotlin.coroutines.cancellation.CancellationException
 
 class UploadFileFromContentUriWorker(
@@ -95,6 +98,7 @@ class UploadFileFromContentUriWorker(
     private lateinit var behavior: UploadBehavior
     private lateinit var uploadPath: String
     private lateinit var cachePath: String
+    private var directSource: SeekableContentUriSource? = null
     private lateinit var mimeType: String
     private var fileSize: Long = 0
     private var uploadIdInStorageManager: Long = -1
@@ -102,15 +106,30 @@ class UploadFileFromContentUriWorker(
     private var spaceWebDavUrl: String? = null
 
     private lateinit var uploadFileOperation: UploadFileFromFileSystemOperation
-    private val tusUploadHelper by lazy { TusUploadHelper(transferRepository) }
-
-    private var lastPercent = -1
+    private val sharedPreferencesProvider: SharedPreferencesProvider by inject()
+    private val transferBandwidthPolicy: TransferBandwidthPolicy by inject()
+    private val transferProgressAggregator: TransferProgressAggregator by inject()
+    private val bandwidthLimiter by lazy {
+        transferBandwidthPolicy.limiterFor(TransferScheduler.Ticket.forUpload(ocTransfer), ConnectivityUtils.isActiveNetworkMetered(appContext))
+    }
+    private val tusUploadHelper by lazy {
+        TusUploadHelper(
+            transferRepository = transferRepository,
+            chunkSizeController = TusChunkSizeController.forNetwork(
+                preferences = sharedPreferencesProvider,
+                accountName = account.name,
+                networkType = ConnectivityUtils.getActiveNetworkType(appContext),
+            ),
+            bandwidthLimiter = bandwidthLimiter,
+        )
+    }
 
     private var foregroundInitialized = false
     private var currentForegroundProgress = -1
     private val foregroundScope = CoroutineScope(Dispatchers.IO)
 
     private val transferRepository: TransferRepository by inject()
+    private val transferScheduler: TransferScheduler by inject()
     private val getWebdavUrlForSpaceUseCase: GetWebDavUrlForSpaceUseCase by inject()
     private val getStoredCapabilitiesUseCase: GetStoredCapabilitiesUseCase by inject()
     private val getFileByRemotePathUseCase: GetFileByRemotePathUseCase by inject()
@@ -125,7 +144,9 @@ class UploadFileFromContentUriWorker(
         val clientForThisUpload = getClientForThisUpload()
         checkParentFolderExistence(clientForThisUpload)
         checkNameCollisionAndGetAnAvailableOneInCase(clientForThisUpload)
-        uploadDocument(clientForThisUpload)
+        transferScheduler.runWhenScheduled(TransferScheduler.Ticket.forUpload(ocTransfer)) {
+            uploadDocument(clientForThisUpload)
+        }
         resolveFinalEtagIfNeeded(clientForThisUpload)
         updateUploadsDatabaseWithResult(null)
         updateFilesDatabaseWithLatestDetails()
@@ -141,6 +162,9 @@ class UploadFileFromContentUriWorker(
             updateUploadsDatabaseWithResult(throwable)
             Result.failure()
         }
+    } finally {
+        closeDirectSource()
+        transferProgressAggregator.finish(id)
     }
 
     private fun prepareFile() {
@@ -164,8 +188,76 @@ class UploadFileFromContentUriWorker(
         if (!isCacheFileReadyForUpload(cacheFile)) {
             checkDocumentFileExists()
             checkPermissionsToReadDocumentAreGranted()
-            copyFileToLocalStorage()
+            directSource = openDirectSource()
+            if (directSource == null) {
+                copyFileToLocalStorage()
+            }
+        }
+    }
+
+    /**
+     * Opens the document for uploading it straight from its file descriptor, sparing the copy to the cache.
+     * Returns null when the provider only streams it or its size is not the one recorded for the transfer,
+     * and the document has to go through the cache copy.
+     */
+    private fun openDirectSource(): SeekableContentUriSource? {
+        val source = SeekableContentUriSource.open(appContext.contentResolver, contentUri) ?: return null
+        val sourceSize = try {
+            source.size
+        } catch (e: IOException) {
+            Timber.w(e, "Could not read the size of %s", contentUri)
+            -1L
+        }
+        if (!ContentUriUploadCacheValidator.isValidCacheSize(sourceSize, ocTransfer.fileSize)) {
+            Timber.w(
+                "Size of %s does not match the transfer. expected=%d actual=%d. Copying it instead.",
+                contentUri,
+                ocTransfer.fileSize,
+                sourceSize,
+            )
+            source.close()
+            return null
+        }
+
+        Timber.d("Uploading %s straight from its file descriptor", contentUri)
+        transferRepository.updateTransferSourcePath(uploadIdInStorageManager, contentUri.toString())
+        val documentFile = DocumentFile.fromSingleUri(appContext, contentUri)
+        discardTusStateOfAnotherDocumentVersion(documentFile?.lastModified() ?: 0L)
+        ensureValidLastModified(documentFile, null)
+        return source
+    }
+
+    /**
+     * Unlike the cache copy, the document may be edited between two runs of the worker. The bytes already on the
+     * server and the stored checksum then belong to the old content, so the upload starts over.
+     */
+    private fun discardTusStateOfAnotherDocumentVersion(documentLastModified: Long) {
+        val documentVersionKey = documentVersionKey()
+        val recordedLastModified = sharedPreferencesProvider.getLong(documentVersionKey, 0L)
+        if (ContentUriUploadCacheValidator.isSameDocumentVersion(recordedLastModified, documentLastModified)) return
+
+        if (!ocTransfer.tusUploadUrl.isNullOrBlank() || !ocTransfer.tusUploadConcat.isNullOrBlank()) {
+            Timber.w(
+                "%s changed since its TUS upload started. recorded=%d current=%d. Restarting it.",
+                contentUri,
+                recordedLastModified,
+                documentLastModified,
+            )
+        }
+        clearTusState()
+        sharedPreferencesProvider.putLong(documentVersionKey, documentLastModified)
+    }
+
+    private fun documentVersionKey(): String =
+        "${PREFERENCE_KEY_TUS_DOCUMENT_LAST_MODIFIED}_$uploadIdInStorageManager"
+
+    private fun closeDirectSource() {
+        try {
+            directSource?.close()
+        } catch (e: IOException) {
+            Timber.w(e, "Could not close the file descriptor of %s", contentUri)
         }
+        directSource = null
     }
 
     private fun isCacheFileReadyForUpload(cacheFile: File): Boolean {
@@ -316,14 +408,14 @@ class UploadFileFromContentUriWorker(
         ensureValidLastModified(documentFile, cacheFile)
     }
 
-    private fun ensureValidLastModified(documentFile: DocumentFile?, cachedFile: File) {
+    private fun ensureValidLastModified(documentFile: DocumentFile?, cachedFile: File?) {
         val current = lastModified.toLongOrNull()
         if (current != null && current > 0) {
             return
         }
 
         val documentMillis = documentFile?.lastModified()?.takeIf { it > 0 }
-        val fileMillis = cachedFile.lastModified().takeIf { it > 0 }
+        val fileMillis = cachedFile?.lastModified()?.takeIf { it > 0 }
         val fallbackMillis = documentMillis ?: fileMillis ?: System.currentTimeMillis()
         lastModified = (fallbackMillis / 1000L).toString()
     }
@@ -371,10 +463,13 @@ class UploadFileFromContentUriWorker(
     }
 
     private fun uploadDocument(client: OpenCloudClient) {
+        val source = directSource
         val cacheFile = File(cachePath)
+        // Without a cache copy the content URI stands for the file in logs and progress
+        val localPath = if (source != null) contentUri.toString() else cachePath
         mimeType = MimetypeIconUtil.getBestMimeTypeByFilename(uploadPath)
-        fileSize = cacheFile.length()
-        ensureValidLastModified(null, cacheFile)
+        fileSize = source?.size ?: cacheFile.length()
+        ensureValidLastModified(null, cacheFile.takeIf { source == null })
 
         val capabilitiesForAccount = getStoredCapabilitiesUseCase(
             GetStoredCapabilitiesUseCase.Params(
@@ -382,7 +477,7 @@ class UploadFileFromContentUriWorker(
             )
         )
         val tusSupport = capabilitiesForAccount?.filesTusSupport
-        val hasPendingTusSession = !ocTransfer.tusUploadUrl.isNullOrBlank()
+        val hasPendingTusSession = !ocTransfer.tusUploadUrl.isNullOrBlank() || !ocTransfer.tusUploadConcat.isNullOrBlank()
         val shouldTryTus = TusUploadHelper.shouldAttemptTusUpload(
             fileSize = fileSize,
             tusSupport = tusSupport,
@@ -394,8 +489,8 @@ class UploadFileFromContentUriWorker(
             clearTusState()
         }
         // Always have the whole-file checksum: TUS sends it in Upload-Metadata, plain PUTs
-        // in the OC-Checksum header. Usually already persisted by copyFileToLocalStorage;
-        // this only reads the source again for cache-reuse runs of pre-checksum DB rows.
+        // in the OC-Checksum header. Persisted by copyFileToLocalStorage when the document is
+        // copied; this reads the source for direct uploads and cache-reuse runs of pre-checksum DB rows.
         ensureOriginalTusChecksum()
 
         if (shouldTryTus) {
@@ -410,15 +505,17 @@ class UploadFileFromContentUriWorker(
                     client = client,
                     transfer = ocTransfer,
                     uploadId = uploadIdInStorageManager,
-                    localPath = cachePath,
+                    localPath = localPath,
                     remotePath = uploadPath,
                     fileSize = fileSize,
                     mimeType = mimeType,
-                    lastModified = null,
+                    // Direct uploads have no cache file the creation request could take the mtime from
+                    lastModified = lastModified.takeIf { source != null },
                     tusSupport = tusSupport,
                     progressListener = this,
                     progressCallback = ::updateProgressFromTus,
                     spaceWebDavUrl = spaceWebDavUrl,
+                    sourceChannel = source?.channel,
                 )
                 if (!returnedEtag.isNullOrBlank()) {
                     finalEtag = returnedEtag
@@ -433,6 +530,7 @@ class UploadFileFromContentUriWorker(
             }
 
             if (tusSucceeded) {
+                sharedPreferencesProvider.removePreference(documentVersionKey())
                 removeCacheFile()
                 Timber.d("TUS upload completed for %s", uploadPath)
                 return
@@ -447,22 +545,24 @@ class UploadFileFromContentUriWorker(
         }
 
         Timber.d("Falling back to single PUT upload for %s", uploadPath)
-        uploadPlainFile(client)
+        uploadPlainFile(client, localPath, source?.channel)
         clearTusState()
         removeCacheFile()
     }
 
-    private fun uploadPlainFile(client: OpenCloudClient) {
+    private fun uploadPlainFile(client: OpenCloudClient, localPath: String, sourceChannel: FileChannel?) {
         val fileChecksum = TusChecksumHelper.parseStoredChecksum(ocTransfer.tusUploadChecksum)
         uploadFileOperation = UploadFileFromFileSystemOperation(
-            localPath = cachePath,
+            localPath = localPath,
             remotePath = uploadPath,
             mimeType = mimeType,
             lastModifiedTimestamp = lastModified,
             requiredEtag = null,
             spaceWebDavUrl = spaceWebDavUrl,
             ocChecksum = fileChecksum?.ocChecksumHeaderValue,
+            sourceChannel = sourceChannel,
         ).apply {
+            bandwidthLimiter = this@UploadFileFromContentUriWorker.bandwidthLimiter
             addDataTransferProgressListener(this@UploadFileFromContentUriWorker)
         }
 
@@ -496,15 +596,7 @@ class UploadFileFromContentUriWorker(
         }
 
         if (totalSize <= 0) return
-        val percent: Int = (100.0 * offset.toDouble() / totalSize.toDouble()).toInt()
-        if (percent == lastPercent) return
-
-        CoroutineScope(Dispatchers.IO).launch {
-            val progress = workDataOf(DownloadFileWorker.WORKER_KEY_PROGRESS to percent)
-            setProgress(progress)
-        }
-        scheduleForegroundUpdate(percent)
-        lastPercent = percent
+        publishProgress(offset, totalSize)
     }
 
     private fun removeCacheFile() {
@@ -541,6 +633,7 @@ class UploadFileFromContentUriWorker(
             TusChecksumHelper.SHA1_WIRE_ALGORITHM
 
     private fun clearTusState() {
+        sharedPreferencesProvider.removePreference(documentVersionKey())
         transferRepository.updateTusState(
             id = uploadIdInStorageManager,
             tusUploadUrl = null,
@@ -566,6 +659,7 @@ class UploadFileFromContentUriWorker(
         if (throwable == null) return false
         if (throwable is UnauthorizedException || throwable is LocalFileNotFoundException) return false
         if (throwable is CancellationException) return true
+        if (throwable is TransferScheduler.QueueFullException) return true
         if (throwable is IOException) return true
         // Retry on network-related exceptions
         if (throwable is NoConnectionWithServerException) return true
@@ -664,17 +758,15 @@ class UploadFileFromContentUriWorker(
             }
         }
 
-        val percent: Int = (100.0 * totalTransferredSoFar.toDouble() / totalToTransfer.toDouble()).toInt()
-        if (percent == lastPercent) return
+        publishProgress(totalTransferredSoFar, totalToTransfer)
+    }
+
+    private fun publishProgress(transferred: Long, total: Long) {
+        val percent = transferProgressAggregator.report(id, transferred, total) ?: return
 
         // Set current progress. Observers will listen.
-        CoroutineScope(Dispatchers.IO).launch {
-            val progress = workDataOf(DownloadFileWorker.WORKER_KEY_PROGRESS to percent)
-            setProgress(progress)
-        }
-
+        setProgressAsync(workDataOf(DownloadFileWorker.WORKER_KEY_PROGRESS to percent))
         scheduleForegroundUpdate(percent)
-        lastPercent = percent
     }
 
     private suspend fun startForeground() {
@@ -752,5 +844,7 @@ class UploadFileFromContentUriWorker(
         const val KEY_PARAM_LAST_MODIFIED = "KEY_PARAM_LAST_MODIFIED"
         const val KEY_PARAM_UPLOAD_PATH = "KEY_PARAM_UPLOAD_PATH"
         const val KEY_PARAM_UPLOAD_ID = "KEY_PARAM_UPLOAD_ID"
+
+        private const val PREFERENCE_KEY_TUS_DOCUMENT_LAST_MODIFIED = "tus_document_last_modified"
     }
 }
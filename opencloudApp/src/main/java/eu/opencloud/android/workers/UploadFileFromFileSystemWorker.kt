@@ -32,6 +32,7 @@ import androidx.work.WorkerParameters
 import androidx.work.workDataOf
 import eu.opencloud.android.R
 import eu.opencloud.android.data.executeRemoteOperation
+import eu.opencloud.android.data.providers.SharedPreferencesProvider
 import eu.opencloud.android.domain.automaticuploads.model.UploadBehavior
 import eu.opencloud.android.domain.capabilities.usecases.GetStoredCapabilitiesUseCase
 import eu.opencloud.android.domain.exceptions.LocalFileNotFoundException
@@ -56,6 +57,7 @@ import eu.opencloud.android.lib.resources.files.ReadRemoteFileOperation
 import eu.opencloud.android.lib.resources.files.UploadFileFromFileSystemOperation
 import eu.opencloud.android.lib.resources.files.tus.TusChecksumHelper
 import eu.opencloud.android.presentation.authentication.AccountUtils
+import eu.opencloud.android.utils.ConnectivityUtils
 import eu.opencloud.android.utils.MimetypeIconUtil
 import eu.opencloud.android.utils.NotificationUtils
 import eu.opencloud.android.utils.RemoteFileUtils.getAvailableRemotePath
@@ -99,10 +101,25 @@ class UploadFileFromFileSystemWorker(
     // Etag in conflict required to overwrite files in server. Otherwise, the upload will be rejected.
     private var eTagInConflict: String = ""
 
-    private var lastPercent = -1
-
     private val transferRepository: TransferRepository by inject()
-    private val tusUploadHelper by lazy { TusUploadHelper(transferRepository) }
+    private val transferScheduler: TransferScheduler by inject()
+    private val sharedPreferencesProvider: SharedPreferencesProvider by inject()
+    private val transferBandwidthPolicy: TransferBandwidthPolicy by inject()
+    private val transferProgressAggregator: TransferProgressAggregator by inject()
+    private val bandwidthLimiter by lazy {
+        transferBandwidthPolicy.limiterFor(TransferScheduler.Ticket.forUpload(ocTransfer), ConnectivityUtils.isActiveNetworkMetered(appContext))
+    }
+    private val tusUploadHelper by lazy {
+        TusUploadHelper(
+            transferRepository = transferRepository,
+            chunkSizeController = TusChunkSizeController.forNetwork(
+                preferences = sharedPreferencesProvider,
+                accountName = account.name,
+                networkType = ConnectivityUtils.getActiveNetworkType(appContext),
+            ),
+            bandwidthLimiter = bandwidthLimiter,
+        )
+    }
 
     private var finalEtag: String = ""
 
@@ -116,10 +133,6 @@ class UploadFileFromFileSystemWorker(
 
         if (!areParametersValid()) return Result.failure()
 
-        startForeground()
-
-        transferRepository.updateTransferStatusToInProgressById(uploadIdInStorageManager)
-
         spaceWebDavUrl =
             getWebdavUrlForSpaceUseCase(GetWebDavUrlForSpaceUseCase.Params(accountName = account.name, spaceId = ocTransfer.spaceId))
 
@@ -128,7 +141,12 @@ class UploadFileFromFileSystemWorker(
             val clientForThisUpload = getClientForThisUpload()
             checkParentFolderExistence(clientForThisUpload)
             checkNameCollisionAndGetAnAvailableOneInCase(clientForThisUpload)
-            uploadDocument(clientForThisUpload)
+            // Waiting for a slot, the upload stays queued and without a notification of its own
+            transferScheduler.runWhenScheduled(TransferScheduler.Ticket.forUpload(ocTransfer)) {
+                startForeground()
+                transferRepository.updateTransferStatusToInProgressById(uploadIdInStorageManager)
+                uploadDocument(clientForThisUpload)
+            }
             resolveFinalEtagIfNeeded(clientForThisUpload)
             updateUploadsDatabaseWithResult(null)
             updateFilesDatabaseWithLatestDetails()
@@ -144,6 +162,8 @@ class UploadFileFromFileSystemWorker(
             showNotification(throwable)
             updateUploadsDatabaseWithResult(throwable)
             Result.failure()
+        } finally {
+            transferProgressAggregator.finish(id)
         }
     }
 
@@ -263,7 +283,7 @@ class UploadFileFromFileSystemWorker(
             )
         )
         val tusSupport = capabilitiesForAccount?.filesTusSupport
-        val hasPendingTusSession = !ocTransfer.tusUploadUrl.isNullOrBlank()
+        val hasPendingTusSession = !ocTransfer.tusUploadUrl.isNullOrBlank() || !ocTransfer.tusUploadConcat.isNullOrBlank()
         val shouldTryTus = TusUploadHelper.shouldAttemptTusUpload(
             fileSize = fileSize,
             tusSupport = tusSupport,
@@ -342,6 +362,7 @@ class UploadFileFromFileSystemWorker(
             spaceWebDavUrl = spaceWebDavUrl,
             ocChecksum = fileChecksum?.ocChecksumHeaderValue,
         ).apply {
+            bandwidthLimiter = this@UploadFileFromFileSystemWorker.bandwidthLimiter
             addDataTransferProgressListener(this@UploadFileFromFileSystemWorker)
         }
 
@@ -379,15 +400,7 @@ class UploadFileFromFileSystemWorker(
         }
 
         if (totalSize <= 0) return
-        val percent: Int = (100.0 * offset.toDouble() / totalSize.toDouble()).toInt()
-        if (percent == lastPercent) return
-
-        CoroutineScope(Dispatchers.IO).launch {
-            val progress = workDataOf(DownloadFileWorker.WORKER_KEY_PROGRESS to percent)
-            setProgress(progress)
-        }
-        scheduleForegroundUpdate(percent)
-        lastPercent = percent
+        publishProgress(offset, totalSize)
     }
 
     private fun removeLocalFile() {
@@ -438,6 +451,7 @@ class UploadFileFromFileSystemWorker(
         if (throwable == null) return false
         if (throwable is LocalFileNotFoundException) return false
         if (throwable is CancellationException) return true
+        if (throwable is TransferScheduler.QueueFullException) return true
         if (throwable is IOException) return true
         return shouldRetry(throwable.cause)
     }
@@ -544,17 +558,15 @@ class UploadFileFromFileSystemWorker(
             }
         }
 
-        val percent: Int = (100.0 * totalTransferredSoFar.toDouble() / totalToTransfer.toDouble()).toInt()
-        if (percent == lastPercent) return
+        publishProgress(totalTransferredSoFar, totalToTransfer)
+    }
 
-        // Set current progress. Observers will listen.
-        CoroutineScope(Dispatchers.IO).launch {
-            val progress = workDataOf(DownloadFileWorker.WORKER_KEY_PROGRESS to percent)
-            setProgress(progress)
-        }
+    private fun publishProgress(transferred: Long, total: Long) {
+        val percent = transferProgressAggregator.report(id, transferred, total) ?: return
 
+        // Set current progress. Observers will listen.
+        setProgressAsync(workDataOf(DownloadFileWorker.WORKER_KEY_PROGRESS to percent))
         scheduleForegroundUpdate(percent)
-        lastPercent = percent
     }
 
     private suspend fun startForeground() {
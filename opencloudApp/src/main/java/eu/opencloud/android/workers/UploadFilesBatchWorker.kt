@@ -0,0 +1,389 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import android.accounts.Account
+import android.content.Context
+import android.content.pm.ServiceInfo
+import androidx.work.CoroutineWorker
+import androidx.work.ForegroundInfo
+import androidx.work.WorkerParameters
+import androidx.work.workDataOf
+import eu.opencloud.android.R
+import eu.opencloud.android.data.executeRemoteOperation
+import eu.opencloud.android.domain.exceptions.FileNotFoundException
+import eu.opencloud.android.domain.exceptions.LocalFileNotFoundException
+import eu.opencloud.android.domain.exceptions.UnauthorizedException
+import eu.opencloud.android.domain.files.model.OCFile
+import eu.opencloud.android.domain.files.usecases.GetFileByRemotePathUseCase
+import eu.opencloud.android.domain.files.usecases.GetWebDavUrlForSpaceUseCase
+import eu.opencloud.android.domain.files.usecases.SaveUploadedFilesUseCase
+import eu.opencloud.android.domain.transfers.TransferRepository
+import eu.opencloud.android.domain.transfers.model.OCTransfer
+import eu.opencloud.android.domain.transfers.model.TransferResult
+import eu.opencloud.android.domain.transfers.model.TransferStatus
+import eu.opencloud.android.extensions.parseError
+import eu.opencloud.android.lib.common.OpenCloudAccount
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.lib.common.SingleSessionManager
+import eu.opencloud.android.lib.common.network.BandwidthLimiter
+import eu.opencloud.android.lib.resources.files.CreateRemoteFolderOperation
+import eu.opencloud.android.lib.resources.files.ReadRemoteFolderOperation
+import eu.opencloud.android.lib.resources.files.UploadFileFromFileSystemOperation
+import eu.opencloud.android.lib.resources.files.tus.TusChecksumHelper
+import eu.opencloud.android.presentation.authentication.AccountUtils
+import eu.opencloud.android.utils.ConnectivityUtils
+import eu.opencloud.android.utils.MimetypeIconUtil
+import eu.opencloud.android.utils.NotificationUtils
+import eu.opencloud.android.utils.RemoteFileUtils.getAvailableRemotePath
+import eu.opencloud.android.utils.UPLOAD_NOTIFICATION_CHANNEL_ID
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
+import org.koin.core.component.KoinComponent
+import org.koin.core.component.inject
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.coroutines.cancellation.CancellationException
+
+/**
+ * Uploads several small files to the same folder in one go.
+ *
+ * Instead of checking the parent folder and every name one request at a time, the folder is listed once and the
+ * names are resolved against that listing. The PUTs then share the client's connections, a few at a time, and the
+ * results are written back with a single files transaction and a single transfers update.
+ */
+class UploadFilesBatchWorker(
+    private val appContext: Context,
+    private val workerParameters: WorkerParameters
+) : CoroutineWorker(
+    appContext,
+    workerParameters
+), KoinComponent {
+
+    private lateinit var account: Account
+    private lateinit var uploadFolderPath: String
+    private var spaceWebDavUrl: String? = null
+
+    private val transferRepository: TransferRepository by inject()
+    private val transferScheduler: TransferScheduler by inject()
+    private val transferBandwidthPolicy: TransferBandwidthPolicy by inject()
+    private val transferProgressAggregator: TransferProgressAggregator by inject()
+    private val getWebdavUrlForSpaceUseCase: GetWebDavUrlForSpaceUseCase by inject()
+    private val getFileByRemotePathUseCase: GetFileByRemotePathUseCase by inject()
+    private val saveUploadedFilesUseCase: SaveUploadedFilesUseCase by inject()
+
+    private val uploadedCount = AtomicInteger(0)
+
+    override suspend fun doWork(): Result {
+        val transfers = retrieveUploadsFromParameters() ?: return Result.failure()
+        if (transfers.isEmpty()) return Result.success()
+
+        startForeground(transfers.size)
+
+        transfers.forEach { transferRepository.updateTransferStatusToInProgressById(it.id!!) }
+
+        spaceWebDavUrl =
+            getWebdavUrlForSpaceUseCase(GetWebDavUrlForSpaceUseCase.Params(accountName = account.name, spaceId = transfers.first().spaceId))
+
+        val outcomes = try {
+            val client = getClientForThisUpload()
+            val takenNames = listTakenNames(client)
+            val ticket = TransferScheduler.Ticket.forUpload(transfers.first()).copy(size = transfers.sumOf { it.fileSize })
+            val bandwidthLimiter = transferBandwidthPolicy.limiterFor(ticket, ConnectivityUtils.isActiveNetworkMetered(appContext))
+            transferScheduler.runWhenScheduled(ticket) {
+                uploadAll(client, transfers, takenNames, bandwidthLimiter)
+            }
+        } catch (throwable: Throwable) {
+            Timber.e(throwable)
+            if (shouldRetry(throwable)) {
+                Timber.i("Retrying batch of %d uploads after transient failure", transfers.size)
+                return Result.retry()
+            }
+            showNotification(throwable)
+            transfers.forEach { updateUploadWithFailure(it, throwable) }
+            return Result.failure()
+        } finally {
+            transferProgressAggregator.finish(id)
+        }
+
+        updateDatabasesWithResults(outcomes)
+
+        return if (outcomes.any { shouldRetry(it.error) }) Result.retry() else Result.success()
+    }
+
+    private fun retrieveUploadsFromParameters(): List<OCTransfer>? {
+        val paramAccountName = workerParameters.inputData.getString(KEY_PARAM_ACCOUNT_NAME)
+        val paramUploadFolderPath = workerParameters.inputData.getString(KEY_PARAM_UPLOAD_FOLDER_PATH)
+        val paramUploadIds = workerParameters.inputData.getLongArray(KEY_PARAM_UPLOAD_IDS)
+
+        account = AccountUtils.getOpenCloudAccountByName(appContext, paramAccountName) ?: return null
+        uploadFolderPath = paramUploadFolderPath ?: return null
+        paramUploadIds ?: return null
+
+        // Uploads cancelled, cleared from the failed ones or finished on a previous run are no longer part of the batch
+        return paramUploadIds.mapNotNull { uploadId ->
+            transferRepository.getTransferById(uploadId).also {
+                if (it == null) Timber.i("Upload with id ($uploadId) was cancelled or cleared. It won't be uploaded")
+            }
+        }.filter { it.status != TransferStatus.TRANSFER_SUCCEEDED }
+    }
+
+    private fun getClientForThisUpload(): OpenCloudClient =
+        SingleSessionManager.getDefaultSingleton()
+            .getClientFor(
+                OpenCloudAccount(AccountUtils.getOpenCloudAccountByName(appContext, account.name), appContext),
+                appContext,
+            )
+
+    /**
+     * Lists the target folder once, creating it if it does not exist yet, and returns the names already in use.
+     */
+    private fun listTakenNames(client: OpenCloudClient): MutableSet<String> {
+        val folderContent = try {
+            executeRemoteOperation { ReadRemoteFolderOperation(uploadFolderPath, spaceWebDavUrl).execute(client) }
+        } catch (fileNotFoundException: FileNotFoundException) {
+            Timber.d("Folder $uploadFolderPath does not exist yet, let's create it")
+            executeRemoteOperation {
+                CreateRemoteFolderOperation(
+                    remotePath = uploadFolderPath,
+                    createFullPath = true,
+                    spaceWebDavUrl = spaceWebDavUrl,
+                ).execute(client)
+            }
+            return mutableSetOf()
+        }
+        // The first entry is the folder itself
+        return folderContent.drop(1).mapTo(mutableSetOf()) { it.remotePath.trimEnd('/').substringAfterLast('/') }
+    }
+
+    private suspend fun uploadAll(
+        client: OpenCloudClient,
+        transfers: List<OCTransfer>,
+        takenNames: MutableSet<String>,
+        bandwidthLimiter: BandwidthLimiter,
+    ): List<BatchUploadOutcome> {
+        // Names are resolved up front, so two files of the batch never compete for the same one
+        val uploadPaths = transfers.map { transfer ->
+            getAvailableRemotePath(transfer.remotePath) { it.substringAfterLast('/') in takenNames }.also { uploadPath ->
+                if (uploadPath != transfer.remotePath) Timber.d("Name collision detected, let's rename it to $uploadPath")
+                takenNames.add(uploadPath.substringAfterLast('/'))
+            }
+        }
+
+        val permits = Semaphore(parallelPutsFor(client))
+        return coroutineScope {
+            transfers.zip(uploadPaths).map { (transfer, uploadPath) ->
+                async(Dispatchers.IO) {
+                    permits.withPermit { uploadOne(client, transfer, uploadPath, bandwidthLimiter) }
+                }
+            }.awaitAll()
+        }
+    }
+
+    private fun uploadOne(
+        client: OpenCloudClient,
+        transfer: OCTransfer,
+        uploadPath: String,
+        bandwidthLimiter: BandwidthLimiter,
+    ): BatchUploadOutcome {
+        if (isStopped) {
+            return BatchUploadOutcome(transfer, uploadPath, error = CancellationException("Batch upload stopped"))
+        }
+        // The user may have cancelled this upload, or cleared it with the failed ones, while the batch was waiting
+        if (transferRepository.getTransferById(transfer.id!!) == null) {
+            Timber.i("Upload with id (${transfer.id}) was cancelled or cleared, skipping it")
+            return BatchUploadOutcome(transfer, uploadPath, cancelled = true)
+        }
+
+        return try {
+            val fileInFileSystem = File(transfer.localPath)
+            if (!fileInFileSystem.exists() || !fileInFileSystem.isFile || !fileInFileSystem.canRead()) {
+                throw LocalFileNotFoundException()
+            }
+            val lastModifiedMillis = fileInFileSystem.lastModified().takeIf { it > 0 } ?: System.currentTimeMillis()
+            val uploadFileOperation = UploadFileFromFileSystemOperation(
+                localPath = fileInFileSystem.absolutePath,
+                remotePath = uploadPath,
+                mimeType = MimetypeIconUtil.getBestMimeTypeByFilename(fileInFileSystem.name),
+                lastModifiedTimestamp = (lastModifiedMillis / 1000L).toString(),
+                requiredEtag = null,
+                spaceWebDavUrl = spaceWebDavUrl,
+                ocChecksum = TusChecksumHelper.storedSha1(TusChecksumHelper.sha1Hex(fileInFileSystem)).ocChecksumHeaderValue,
+            ).apply {
+                this.bandwidthLimiter = bandwidthLimiter
+            }
+            executeRemoteOperation { uploadFileOperation.execute(client) }
+            scheduleForegroundUpdate()
+            BatchUploadOutcome(transfer, uploadPath, etag = uploadFileOperation.etag, length = fileInFileSystem.length())
+        } catch (throwable: Throwable) {
+            Timber.w(throwable, "Upload of ${transfer.localPath} in batch failed")
+            BatchUploadOutcome(transfer, uploadPath, error = throwable)
+        }
+    }
+
+    /**
+     * Uploaded files are saved in one transaction and their transfers finished with one update. Failed uploads are
+     * finished one by one, as each one carries its own result; the ones worth retrying are left for the next run.
+     */
+    private fun updateDatabasesWithResults(outcomes: List<BatchUploadOutcome>) {
+        val succeeded = outcomes.filter { !it.cancelled && it.error == null }
+        val currentTime = System.currentTimeMillis()
+
+        val uploadedFiles = succeeded.mapNotNull { outcome ->
+            val serverEtag = FileEtagNormalizer.normalize(outcome.etag).orEmpty()
+            getFileByRemotePathUseCase(
+                GetFileByRemotePathUseCase.Params(account.name, outcome.uploadPath, outcome.transfer.spaceId)
+            ).getDataOrNull()?.let { ocFile -> ocFile.withUploadDetails(serverEtag, outcome.length, currentTime) }
+        }
+        if (uploadedFiles.isNotEmpty()) {
+            saveUploadedFilesUseCase(SaveUploadedFilesUseCase.Params(uploadedFiles))
+        }
+        if (succeeded.isNotEmpty()) {
+            transferRepository.updateTransfersWhenFinished(
+                ids = succeeded.map { it.transfer.id!! },
+                status = TransferStatus.TRANSFER_SUCCEEDED,
+                transferEndTimestamp = currentTime,
+                lastResult = TransferResult.UPLOADED,
+            )
+        }
+
+        // Like a single upload, a failure that is not retried is notified; a credentials error wins over the others
+        val failed = outcomes.filter { it.error != null && !shouldRetry(it.error) }
+        failed.forEach { updateUploadWithFailure(it.transfer, it.error!!) }
+        failed.map { it.error!! }.let { errors -> errors.firstOrNull { it is UnauthorizedException } ?: errors.firstOrNull() }
+            ?.let { showNotification(it) }
+        Timber.i("Batch upload to $uploadFolderPath finished: ${succeeded.size} of ${outcomes.size} files uploaded")
+    }
+
+    // Same details a single upload writes, see UploadFileFromFileSystemWorker
+    private fun OCFile.withUploadDetails(serverEtag: String, uploadedLength: Long, currentTime: Long): OCFile =
+        copy(
+            storagePath = null,
+            needsToUpdateThumbnail = true,
+            etag = serverEtag.ifEmpty { etag },
+            remoteEtag = serverEtag.ifEmpty { remoteEtag.orEmpty() },
+            length = uploadedLength,
+            lastSyncDateForData = currentTime,
+            modifiedAtLastSyncForData = currentTime,
+        )
+
+    private fun updateUploadWithFailure(transfer: OCTransfer, throwable: Throwable) {
+        transferRepository.updateTransferWhenFinished(
+            id = transfer.id!!,
+            status = TransferStatus.TRANSFER_FAILED,
+            transferEndTimestamp = System.currentTimeMillis(),
+            lastResult = TransferResult.fromThrowable(throwable)
+        )
+    }
+
+    private fun shouldRetry(throwable: Throwable?): Boolean {
+        if (throwable == null) return false
+        if (throwable is LocalFileNotFoundException) return false
+        if (throwable is CancellationException) return true
+        if (throwable is TransferScheduler.QueueFullException) return true
+        if (throwable is IOException) return true
+        return shouldRetry(throwable.cause)
+    }
+
+    // Same notification a single upload shows, see UploadFileFromFileSystemWorker
+    private fun showNotification(throwable: Throwable) {
+        val needsToUpdateCredentials = throwable is UnauthorizedException
+
+        val tickerId =
+            if (needsToUpdateCredentials) R.string.uploader_upload_failed_credentials_error else R.string.uploader_upload_failed_ticker
+
+        val pendingIntent = if (needsToUpdateCredentials) {
+            NotificationUtils.composePendingIntentToRefreshCredentials(appContext, account)
+        } else {
+            NotificationUtils.composePendingIntentToUploadList(appContext)
+        }
+
+        NotificationUtils.createBasicNotification(
+            context = appContext,
+            contentTitle = appContext.getString(tickerId),
+            contentText = throwable.parseError("", appContext.resources, true).toString(),
+            notificationChannelId = UPLOAD_NOTIFICATION_CHANNEL_ID,
+            notificationId = 12,
+            intent = pendingIntent,
+            onGoing = false,
+            timeOut = null
+        )
+    }
+
+    private suspend fun startForeground(filesCount: Int) {
+        try {
+            setForeground(createForegroundInfo(filesCount))
+        } catch (e: Exception) {
+            Timber.w(e, "Failed to set foreground for batch upload worker")
+        }
+    }
+
+    private fun scheduleForegroundUpdate() {
+        val filesCount = workerParameters.inputData.getLongArray(KEY_PARAM_UPLOAD_IDS)!!.size.toLong()
+        val percent = transferProgressAggregator.report(id, uploadedCount.incrementAndGet().toLong(), filesCount) ?: return
+        setProgressAsync(workDataOf(DownloadFileWorker.WORKER_KEY_PROGRESS to percent))
+    }
+
+    private fun createForegroundInfo(filesCount: Int): ForegroundInfo {
+        val folderName = File(uploadFolderPath).name
+        val notification = NotificationUtils
+            .newNotificationBuilder(appContext, UPLOAD_NOTIFICATION_CHANNEL_ID)
+            .setContentTitle(appContext.getString(R.string.uploader_upload_in_progress_ticker))
+            .setContentText(appContext.resources.getQuantityString(R.plurals.uploader_upload_batch_in_progress_content, filesCount, filesCount))
+            .setContentIntent(NotificationUtils.composePendingIntentToUploadList(appContext))
+            .setOnlyAlertOnce(true)
+            .setOngoing(true)
+            .setSubText(folderName)
+            .setProgress(0, 0, true)
+            .build()
+        return ForegroundInfo(id.hashCode(), notification, ServiceInfo.FOREGROUND_SERVICE_TYPE_DATA_SYNC)
+    }
+
+    private data class BatchUploadOutcome(
+        val transfer: OCTransfer,
+        val uploadPath: String,
+        val etag: String? = null,
+        val length: Long = 0,
+        val error: Throwable? = null,
+        val cancelled: Boolean = false,
+    )
+
+    companion object {
+        const val KEY_PARAM_ACCOUNT_NAME: String = "KEY_PARAM_ACCOUNT_NAME"
+        const val KEY_PARAM_UPLOAD_FOLDER_PATH: String = "KEY_PARAM_UPLOAD_FOLDER_PATH"
+        const val KEY_PARAM_UPLOAD_IDS: String = "KEY_PARAM_UPLOAD_IDS"
+
+        /** Files up to this size are uploaded in batches. Bigger ones are worth their own worker. */
+        const val MAX_FILE_SIZE: Long = 1024 * 1024
+        const val MIN_FILES = 2
+        const val MAX_FILES = 50
+
+        private const val MAX_PARALLEL_PUTS = 4
+
+        /** One PUT less than the requests the client lets run for the account, so the batch never takes all of them. */
+        private fun parallelPutsFor(client: OpenCloudClient): Int =
+            client.maxConcurrentRequests.takeIf { it > 0 }?.let { (it - 1).coerceIn(1, MAX_PARALLEL_PUTS) } ?: MAX_PARALLEL_PUTS
+    }
+}
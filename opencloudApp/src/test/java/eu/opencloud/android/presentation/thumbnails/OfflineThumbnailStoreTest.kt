@@ -0,0 +1,56 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.presentation.thumbnails
+
+import eu.opencloud.android.testutil.OC_FILE
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class OfflineThumbnailStoreTest {
+
+    @get:Rule
+    val temporaryFolder = TemporaryFolder()
+
+    @Test
+    fun `key changes with the content of the file`() {
+        val file = OC_FILE.copy(remoteEtag = "etag-1")
+
+        assertEquals(OfflineThumbnailStore.keyFor(file), OfflineThumbnailStore.keyFor(file.copy(length = file.length + 1)))
+        assertNotEquals(OfflineThumbnailStore.keyFor(file), OfflineThumbnailStore.keyFor(file.copy(remoteEtag = "etag-2")))
+        assertNotEquals(OfflineThumbnailStore.keyFor(file), OfflineThumbnailStore.keyFor(file.copy(owner = "other@server")))
+    }
+
+    @Test
+    fun `thumbnails not retained are removed`() {
+        val store = OfflineThumbnailStore(temporaryFolder.root)
+        store.fileFor("kept").writeText("thumbnail")
+        store.fileFor("stale").writeText("thumbnail")
+
+        val removed = store.retainOnly(setOf("kept"))
+
+        assertEquals(1, removed)
+        assertTrue(store.contains("kept"))
+        assertFalse(store.contains("stale"))
+    }
+}
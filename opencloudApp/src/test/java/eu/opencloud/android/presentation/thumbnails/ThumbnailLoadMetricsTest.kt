@@ -0,0 +1,69 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.presentation.thumbnails
+
+import coil.decode.DataSource
+import coil.request.ImageRequest
+import coil.request.SuccessResult
+import io.mockk.every
+import io.mockk.mockk
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class ThumbnailLoadMetricsTest {
+
+    private var nowMillis = 0L
+    private val metrics = ThumbnailLoadMetrics(elapsedMillis = { nowMillis })
+    private val request = mockk<ImageRequest>()
+
+    @Test
+    fun `loads from any cache count as hits`() {
+        load(DataSource.MEMORY_CACHE, tookMillis = 0)
+        load(DataSource.DISK, tookMillis = 20)
+        load(DataSource.NETWORK, tookMillis = 300)
+        load(DataSource.NETWORK, tookMillis = 180)
+
+        val snapshot = metrics.snapshot()
+
+        assertEquals(4L, snapshot.loaded)
+        assertEquals(2L, snapshot.cacheHits)
+        assertEquals(0.5f, snapshot.hitRate, 0f)
+        assertEquals(125L, snapshot.averageTimeToThumbnailMillis)
+    }
+
+    @Test
+    fun `prefetches and failures are counted apart from loads`() {
+        metrics.recordPrefetch()
+        metrics.newListener().onError(request, mockk())
+
+        val snapshot = metrics.snapshot()
+
+        assertEquals(0L, snapshot.loaded)
+        assertEquals(1L, snapshot.prefetched)
+        assertEquals(1L, snapshot.failed)
+        assertEquals(0f, snapshot.hitRate, 0f)
+    }
+
+    private fun load(dataSource: DataSource, tookMillis: Long) {
+        val listener = metrics.newListener()
+        listener.onStart(request)
+        nowMillis += tookMillis
+        listener.onSuccess(request, mockk<SuccessResult> { every { this@mockk.dataSource } returns dataSource })
+    }
+}
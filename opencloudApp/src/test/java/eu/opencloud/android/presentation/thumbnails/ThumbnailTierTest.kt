@@ -0,0 +1,44 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.presentation.thumbnails
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class ThumbnailTierTest {
+
+    @Test
+    fun `smallest tier covering the longest side is picked`() {
+        assertEquals(ThumbnailTier.SMALL, ThumbnailTier.forTargetSize(96, 64))
+        assertEquals(ThumbnailTier.MEDIUM, ThumbnailTier.forTargetSize(144, 144))
+        assertEquals(ThumbnailTier.LARGE, ThumbnailTier.forTargetSize(270, 480))
+    }
+
+    @Test
+    fun `targets bigger than every tier or of unknown size get the largest one`() {
+        assertEquals(ThumbnailTier.LARGE, ThumbnailTier.forTargetSize(2048, 1536))
+        assertEquals(ThumbnailTier.LARGE, ThumbnailTier.forTargetSize(-1, -2))
+    }
+
+    @Test
+    fun `larger tiers are listed smallest first`() {
+        assertEquals(listOf(ThumbnailTier.MEDIUM, ThumbnailTier.LARGE), ThumbnailTier.SMALL.largerTiers)
+        assertEquals(emptyList<ThumbnailTier>(), ThumbnailTier.LARGE.largerTiers)
+    }
+}
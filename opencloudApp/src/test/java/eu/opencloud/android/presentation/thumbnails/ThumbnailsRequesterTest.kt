@@ -25,6 +25,7 @@ import io.mockk.mockkStatic
 import io.mockk.unmockkStatic
 import org.junit.After
 import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
 import org.junit.Before
 import org.junit.Test
 
@@ -151,6 +152,28 @@ class ThumbnailsRequesterTest {
         )
     }
 
+    @Test
+    fun `tier of preview uri is read from its size`() {
+        val uri = "https://server.url/webdav/Photos/image.jpg?x=256&y=256&c=etag&preview=1"
+
+        assertEquals(ThumbnailTier.MEDIUM, ThumbnailsRequester.getTierOfPreviewUri(uri))
+    }
+
+    @Test
+    fun `preview uri of non tier size has no tier`() {
+        assertNull(ThumbnailsRequester.getTierOfPreviewUri("https://server.url/webdav/Photos/image.jpg?x=1024&y=768&c=etag&preview=1"))
+        assertNull(ThumbnailsRequester.getTierOfPreviewUri("https://server.url/graph/v1.0/me/photo/\$value?u=1a2b"))
+    }
+
+    @Test
+    fun `preview uri for another tier only changes its size`() {
+        val uri = "https://server.url/dav/spaces/space-id\$opaque/x=1/test.jpg?x=96&y=96&c=etag&preview=1"
+
+        val largeUri = ThumbnailsRequester.getPreviewUriForTier(uri, ThumbnailTier.LARGE)
+
+        assertEquals("https://server.url/dav/spaces/space-id\$opaque/x=1/test.jpg?x=1024&y=1024&c=etag&preview=1", largeUri)
+    }
+
     private fun encodeSpaces(value: String): String =
         value.replace(" ", "%20")
 
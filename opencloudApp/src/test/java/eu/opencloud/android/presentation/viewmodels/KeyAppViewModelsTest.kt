@@ -29,9 +29,12 @@ import eu.opencloud.android.domain.automaticuploads.usecases.GetVideoUploadsConf
 import eu.opencloud.android.domain.automaticuploads.usecases.SavePictureUploadsConfigurationUseCase
 import eu.opencloud.android.domain.automaticuploads.usecases.SaveVideoUploadsConfigurationUseCase
 import eu.opencloud.android.domain.files.model.FileListOption
+import eu.opencloud.android.domain.files.model.OCFileWithSyncInfo
 import eu.opencloud.android.domain.files.usecases.CreateFolderAsyncUseCase
 import eu.opencloud.android.domain.files.usecases.GetFileByIdUseCase
 import eu.opencloud.android.domain.files.usecases.GetFolderContentAsStreamUseCase
+import eu.opencloud.android.domain.files.usecases.SearchFilesOnServerAsStreamUseCase
+import eu.opencloud.android.domain.files.usecases.SearchFilesWithSyncInfoAsStreamUseCase
 import eu.opencloud.android.domain.files.usecases.SortFilesWithSyncInfoUseCase
 import eu.opencloud.android.domain.spaces.usecases.GetPersonalSpaceForAccountUseCase
 import eu.opencloud.android.domain.spaces.usecases.GetSpaceByIdForAccountUseCase
@@ -53,6 +56,8 @@ import eu.opencloud.android.providers.ContextProvider
 import eu.opencloud.android.providers.WorkManagerProvider
 import eu.opencloud.android.testutil.OC_ACCOUNT_NAME
 import eu.opencloud.android.testutil.OC_BACKUP
+import eu.opencloud.android.testutil.OC_FILE
+import eu.opencloud.android.testutil.OC_FILE_WITH_SYNC_INFO
 import eu.opencloud.android.testutil.OC_FOLDER
 import eu.opencloud.android.testutil.OC_FOLDER_WITH_SPACE_ID
 import eu.opencloud.android.testutil.OC_ROOT_FOLDER
@@ -61,6 +66,7 @@ import eu.opencloud.android.testutil.OC_TRANSFER
 import eu.opencloud.android.testutil.livedata.getEmittedValues
 import eu.opencloud.android.usecases.synchronization.SynchronizeFolderUseCase
 import eu.opencloud.android.usecases.transfers.uploads.UploadFilesFromSystemUseCase
+import eu.opencloud.android.workers.TransferProgressAggregator
 import io.mockk.every
 import io.mockk.mockk
 import io.mockk.slot
@@ -69,6 +75,7 @@ import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.MutableStateFlow
 import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.launch
 import kotlinx.coroutines.test.runTest
 import kotlinx.coroutines.test.setMain
 import org.junit.After
@@ -138,6 +145,7 @@ class KeyAppViewModelsTest : ViewModelTest() {
             getSpacesFromEveryAccountUseCaseAsStream = getSpacesFromEveryAccountUseCaseAsStream,
             coroutinesDispatcherProvider = coroutineDispatcherProvider,
             workManagerProvider = workManagerProvider,
+            transferProgressAggregator = TransferProgressAggregator(),
         )
 
         val transferWithSpace = viewModel.transfersWithSpaceStateFlow.first { it.isNotEmpty() }.single()
@@ -293,6 +301,9 @@ class KeyAppViewModelsTest : ViewModelTest() {
             getFolderContentAsStreamUseCase = getFolderContentAsStreamUseCase,
             getSharedByLinkForAccountAsStreamUseCase = mockk(relaxed = true),
             getFilesAvailableOfflineFromAccountAsStreamUseCase = mockk(relaxed = true),
+            searchFilesWithSyncInfoAsStreamUseCase = mockk(relaxed = true),
+            searchFilesOnServerAsStreamUseCase = mockk(relaxed = true),
+            getFileFromRemoteIdUseCase = mockk(relaxed = true),
             getFileByIdUseCase = getFileByIdUseCase,
             getFileByRemotePathUseCase = mockk(relaxed = true),
             getSpaceWithSpecialsByIdForAccountUseCase = getSpaceWithSpecialsByIdForAccountUseCase,
@@ -330,4 +341,51 @@ class KeyAppViewModelsTest : ViewModelTest() {
             )
         }
     }
+
+    @Test
+    fun mainFileList_addsServerSearchResultsNotFoundLocally() = runTest(testCoroutineDispatcher) {
+        val sharedPreferencesProvider = mockk<SharedPreferencesProvider>(relaxed = true)
+        every { sharedPreferencesProvider.getBoolean(any(), any()) } returns false
+        every { sharedPreferencesProvider.getInt(PREF_FILE_LIST_SORT_TYPE, any()) } returns SortType.SORT_TYPE_BY_NAME.ordinal
+        every { sharedPreferencesProvider.getInt(PREF_FILE_LIST_SORT_ORDER, any()) } returns SortOrder.SORT_ORDER_ASCENDING.ordinal
+        val getAppRegistryWhichAllowCreationAsStreamUseCase = mockk<GetAppRegistryWhichAllowCreationAsStreamUseCase>()
+        every { getAppRegistryWhichAllowCreationAsStreamUseCase(any()) } returns flowOf(emptyList())
+        val searchFilesWithSyncInfoAsStreamUseCase = mockk<SearchFilesWithSyncInfoAsStreamUseCase>()
+        every { searchFilesWithSyncInfoAsStreamUseCase(any()) } returns flowOf(listOf(OC_FILE_WITH_SYNC_INFO))
+        val notSyncedFile = OC_FILE.copy(id = null, parentId = null, remotePath = "/Photos/other.jpt", remoteId = "00000003ociotherfile")
+        val searchFilesOnServerAsStreamUseCase = mockk<SearchFilesOnServerAsStreamUseCase>()
+        every { searchFilesOnServerAsStreamUseCase(any()) } returns flowOf(listOf(OC_FILE.copy(id = null)), listOf(notSyncedFile))
+
+        val viewModel = MainFileListViewModel(
+            getFolderContentAsStreamUseCase = mockk(relaxed = true),
+            getSharedByLinkForAccountAsStreamUseCase = mockk(relaxed = true),
+            getFilesAvailableOfflineFromAccountAsStreamUseCase = mockk(relaxed = true),
+            searchFilesWithSyncInfoAsStreamUseCase = searchFilesWithSyncInfoAsStreamUseCase,
+            searchFilesOnServerAsStreamUseCase = searchFilesOnServerAsStreamUseCase,
+            getFileFromRemoteIdUseCase = mockk(relaxed = true),
+            getFileByIdUseCase = mockk(relaxed = true),
+            getFileByRemotePathUseCase = mockk(relaxed = true),
+            getSpaceWithSpecialsByIdForAccountUseCase = mockk(relaxed = true),
+            sortFilesWithSyncInfoUseCase = SortFilesWithSyncInfoUseCase(),
+            synchronizeFolderUseCase = mockk(relaxed = true),
+            getAppRegistryWhichAllowCreationAsStreamUseCase = getAppRegistryWhichAllowCreationAsStreamUseCase,
+            getAppRegistryForMimeTypeAsStreamUseCase = mockk(relaxed = true),
+            getUrlToOpenInWebUseCase = mockk(relaxed = true),
+            filterFileMenuOptionsUseCase = mockk(relaxed = true),
+            contextProvider = contextProvider,
+            coroutinesDispatcherProvider = coroutineDispatcherProvider,
+            sharedPreferencesProvider = sharedPreferencesProvider,
+            initialFolderToDisplay = OC_ROOT_FOLDER,
+            fileListOptionParam = FileListOption.ALL_FILES,
+        )
+        val collectJob = launch { viewModel.fileListUiState.collect { } }
+
+        viewModel.updateSearchFilter("jpt")
+        testCoroutineDispatcher.scheduler.advanceUntilIdle()
+
+        val uiState = viewModel.fileListUiState.value as MainFileListViewModel.FileListUiState.Success
+        assertEquals(listOf(OC_FILE_WITH_SYNC_INFO, OCFileWithSyncInfo(file = notSyncedFile)), uiState.folderContent)
+        verify { searchFilesOnServerAsStreamUseCase(SearchFilesOnServerAsStreamUseCase.Params(OC_ROOT_FOLDER.owner, "jpt")) }
+        collectJob.cancel()
+    }
 }
@@ -22,10 +22,14 @@
 package eu.opencloud.android.presentation.viewmodels.settings
 
 import eu.opencloud.android.data.providers.SharedPreferencesProvider
+import eu.opencloud.android.lib.common.http.HttpClient
 import eu.opencloud.android.presentation.settings.advanced.RemoveLocalFiles
+import eu.opencloud.android.presentation.settings.advanced.SettingsAdvancedFragment.Companion.PREF_HTTP2_ENABLED
 import eu.opencloud.android.presentation.settings.advanced.SettingsAdvancedFragment.Companion.PREF_SHOW_HIDDEN_FILES
 import eu.opencloud.android.presentation.settings.advanced.SettingsAdvancedViewModel
 import eu.opencloud.android.providers.WorkManagerProvider
+import eu.opencloud.android.workers.TransferBandwidthPolicy
+import eu.opencloud.android.workers.TransferScheduler
 import eu.opencloud.android.workers.RemoveLocallyFilesWithLastUsageOlderThanGivenTimeWorker.Companion.DELETE_FILES_OLDER_GIVEN_TIME_WORKER
 import io.mockk.every
 import io.mockk.mockk
@@ -38,15 +42,18 @@ class SettingsAdvancedViewModelTest {
     private lateinit var advancedViewModel: SettingsAdvancedViewModel
     private lateinit var preferencesProvider: SharedPreferencesProvider
     private lateinit var workManagerProvider: WorkManagerProvider
+    private lateinit var transferBandwidthPolicy: TransferBandwidthPolicy
 
     @Before
     fun setUp() {
         preferencesProvider = mockk()
         workManagerProvider = mockk(relaxed = true)
+        transferBandwidthPolicy = mockk(relaxed = true)
 
         advancedViewModel = SettingsAdvancedViewModel(
             preferencesProvider,
             workManagerProvider,
+            transferBandwidthPolicy,
         )
     }
 
@@ -90,4 +97,34 @@ class SettingsAdvancedViewModelTest {
             workManagerProvider.cancelAllWorkByTag(DELETE_FILES_OLDER_GIVEN_TIME_WORKER)
         }
     }
+
+    @Test
+    fun `is http2 enabled - ok - true by default`() {
+        every { preferencesProvider.getBoolean(PREF_HTTP2_ENABLED, true) } returns true
+
+        val enabled = advancedViewModel.isHttp2Enabled()
+
+        Assert.assertTrue(enabled)
+    }
+
+    @Test
+    fun `setHttp2Enabled saves the preference and applies it to the clients`() {
+        every { preferencesProvider.putBoolean(PREF_HTTP2_ENABLED, false) } returns Unit
+
+        try {
+            advancedViewModel.setHttp2Enabled(false)
+
+            Assert.assertFalse(HttpClient.isHttp2Enabled())
+            verify(exactly = 1) { preferencesProvider.putBoolean(PREF_HTTP2_ENABLED, false) }
+        } finally {
+            HttpClient.setHttp2Enabled(true)
+        }
+    }
+
+    @Test
+    fun `setTransferLimit applies the limit through the bandwidth policy`() {
+        advancedViewModel.setTransferLimit(TransferScheduler.Priority.BACKGROUND, metered = true, bytesPerSecond = 512 * 1024)
+
+        verify(exactly = 1) { transferBandwidthPolicy.setLimit(TransferScheduler.Priority.BACKGROUND, true, 512 * 1024) }
+    }
 }
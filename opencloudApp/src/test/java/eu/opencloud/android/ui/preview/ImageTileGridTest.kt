@@ -0,0 +1,84 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.ui.preview
+
+import eu.opencloud.android.ui.preview.ImageTileGrid.TILE_SIZE_PX
+import eu.opencloud.android.ui.preview.ImageTileGrid.Tile
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class ImageTileGridTest {
+
+    @Test
+    fun `sample size keeps decoded pixels no bigger than screen pixels`() {
+        assertEquals(1, ImageTileGrid.sampleSizeFor(2f))
+        assertEquals(1, ImageTileGrid.sampleSizeFor(0.6f))
+        assertEquals(2, ImageTileGrid.sampleSizeFor(0.5f))
+        assertEquals(4, ImageTileGrid.sampleSizeFor(0.2f))
+        assertEquals(32, ImageTileGrid.sampleSizeFor(0.02f))
+    }
+
+    @Test
+    fun `tiles covering the visible region are aligned to the grid`() {
+        val tiles = ImageTileGrid.tilesIn(
+            left = 600, top = 100, right = 1100, bottom = 500,
+            imageWidth = 4000, imageHeight = 3000, sampleSize = 1,
+        )
+
+        assertEquals(
+            listOf(
+                Tile(sampleSize = 1, left = 512, top = 0, right = 1024, bottom = 512),
+                Tile(sampleSize = 1, left = 1024, top = 0, right = 1536, bottom = 512),
+            ),
+            tiles
+        )
+    }
+
+    @Test
+    fun `tiles span more of the image the bigger the sample size`() {
+        val tiles = ImageTileGrid.tilesIn(
+            left = 0, top = 0, right = 4000, bottom = 3000,
+            imageWidth = 4000, imageHeight = 3000, sampleSize = 4,
+        )
+
+        assertEquals(4, tiles.size)
+        assertTrue(tiles.all { it.right - it.left <= TILE_SIZE_PX * 4 && it.bottom - it.top <= TILE_SIZE_PX * 4 })
+    }
+
+    @Test
+    fun `tiles on the edges are clipped to the image`() {
+        val tiles = ImageTileGrid.tilesIn(
+            left = -200, top = 2800, right = 300, bottom = 3400,
+            imageWidth = 4000, imageHeight = 3000, sampleSize = 1,
+        )
+
+        assertEquals(listOf(Tile(sampleSize = 1, left = 0, top = 2560, right = 512, bottom = 3000)), tiles)
+    }
+
+    @Test
+    fun `no tiles when the region is outside the image`() {
+        val tiles = ImageTileGrid.tilesIn(
+            left = 4100, top = 0, right = 4500, bottom = 500,
+            imageWidth = 4000, imageHeight = 3000, sampleSize = 1,
+        )
+
+        assertTrue(tiles.isEmpty())
+    }
+}
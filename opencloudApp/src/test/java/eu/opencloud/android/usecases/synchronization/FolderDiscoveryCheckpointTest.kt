@@ -0,0 +1,72 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.usecases.synchronization
+
+import eu.opencloud.android.testutil.OC_ACCOUNT_NAME
+import eu.opencloud.android.usecases.synchronization.FolderDiscoveryCheckpoint.PendingFolder
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class FolderDiscoveryCheckpointTest {
+
+    @Rule
+    @JvmField
+    val temporaryFolder = TemporaryFolder()
+
+    private val checkpoint by lazy { FolderDiscoveryCheckpoint(temporaryFolder.root.resolve("checkpoints")) }
+
+    private val folderA = PendingFolder(remotePath = "/A/", spaceId = "personal", depth = 1)
+    private val folderB = PendingFolder(remotePath = "/A/B, with a comma/", spaceId = null, depth = 2)
+
+    @Test
+    fun `folders done with are not loaded again`() {
+        checkpoint.append(OC_ACCOUNT_NAME, queuedFolders = listOf(folderA, folderB), doneFolders = emptyList())
+        checkpoint.append(OC_ACCOUNT_NAME, queuedFolders = emptyList(), doneFolders = listOf(folderA))
+
+        assertEquals(listOf(folderB), checkpoint.load(OC_ACCOUNT_NAME))
+    }
+
+    @Test
+    fun `loading compacts the journal to the pending folders`() {
+        checkpoint.append(OC_ACCOUNT_NAME, queuedFolders = listOf(folderA, folderB), doneFolders = listOf(folderA))
+        checkpoint.load(OC_ACCOUNT_NAME)
+
+        val journal = temporaryFolder.root.resolve("checkpoints").listFiles()!!.single()
+        assertEquals(1, journal.readLines().size)
+        assertEquals(listOf(folderB), checkpoint.load(OC_ACCOUNT_NAME))
+    }
+
+    @Test
+    fun `clearing the checkpoint of an account keeps the rest`() {
+        checkpoint.append(OC_ACCOUNT_NAME, queuedFolders = listOf(folderA), doneFolders = emptyList())
+        checkpoint.append(OTHER_ACCOUNT_NAME, queuedFolders = listOf(folderB), doneFolders = emptyList())
+
+        checkpoint.clear(OC_ACCOUNT_NAME)
+
+        assertTrue(checkpoint.load(OC_ACCOUNT_NAME).isEmpty())
+        assertEquals(listOf(folderB), checkpoint.load(OTHER_ACCOUNT_NAME))
+    }
+
+    companion object {
+        private const val OTHER_ACCOUNT_NAME = "other@demo.opencloud.eu"
+    }
+}
@@ -0,0 +1,178 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.usecases.synchronization
+
+import eu.opencloud.android.domain.exceptions.FileNotFoundException
+import eu.opencloud.android.domain.files.FileRepository
+import eu.opencloud.android.domain.files.model.OCFile
+import eu.opencloud.android.testutil.OC_ACCOUNT_NAME
+import eu.opencloud.android.testutil.OC_FOLDER
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class FolderDiscoveryEngineTest {
+
+    @Rule
+    @JvmField
+    val temporaryFolder = TemporaryFolder()
+
+    private val fileRepository: FileRepository = mockk(relaxUnitFun = true)
+    private val checkpoint by lazy { FolderDiscoveryCheckpoint(temporaryFolder.root.resolve("checkpoints")) }
+    private val engine by lazy { FolderDiscoveryEngine(fileRepository, checkpoint) }
+
+    private val fetchedFolders = mutableListOf<String>()
+
+    // personal: / -> /A/ -> /A/B/ ; project: / -> /P/
+    private val tree = mapOf(
+        PERSONAL to mapOf("/" to listOf("/A/"), "/A/" to listOf("/A/B/"), "/A/B/" to emptyList()),
+        PROJECT to mapOf("/" to listOf("/P/"), "/P/" to emptyList()),
+    )
+
+    @Before
+    fun setUp() {
+        every { fileRepository.refreshSpaceChanges(OC_ACCOUNT_NAME, any()) } returns null
+        every { fileRepository.fetchSpaceSyncToken(OC_ACCOUNT_NAME, any()) } returns null
+
+        var nextId = 1L
+        val ids = mutableMapOf<Pair<String, String>, Long>()
+        fun folder(spaceId: String, remotePath: String) =
+            OC_FOLDER.copy(id = ids.getOrPut(spaceId to remotePath) { nextId++ }, remotePath = remotePath, spaceId = spaceId, treeEtag = "")
+
+        tree.forEach { (spaceId, folders) ->
+            folders.forEach { (remotePath, children) ->
+                every { fileRepository.refreshFolder(remotePath, OC_ACCOUNT_NAME, spaceId, false) } answers {
+                    synchronized(fetchedFolders) { fetchedFolders.add("$spaceId$remotePath") }
+                    emptyList<OCFile>()
+                }
+                val ocFolder = folder(spaceId, remotePath)
+                every { fileRepository.getFileByRemotePath(remotePath, OC_ACCOUNT_NAME, spaceId) } returns ocFolder
+                every { fileRepository.getFolderContent(ocFolder.id!!) } returns children.map { folder(spaceId, it) }
+            }
+        }
+    }
+
+    @Test
+    fun `discovery goes breadth first with the personal space before the rest`() = runBlocking {
+        val isComplete = engine.discover(OC_ACCOUNT_NAME, roots(), maxConcurrentPropfinds = 1)
+
+        assertTrue(isComplete)
+        assertEquals(listOf("$PERSONAL/", "$PERSONAL/A/", "$PERSONAL/A/B/", "$PROJECT/", "$PROJECT/P/"), fetchedFolders)
+        assertTrue(checkpoint.load(OC_ACCOUNT_NAME).isEmpty())
+        verify(exactly = 5) { fileRepository.updateFileWithTreeEtag(any(), any()) }
+    }
+
+    @Test
+    fun `discovery resumes from the checkpoint instead of the roots`() = runBlocking {
+        checkpoint.save(
+            OC_ACCOUNT_NAME, listOf(FolderDiscoveryCheckpoint.PendingFolder(remotePath = "/A/B/", spaceId = PERSONAL, depth = 2))
+        )
+
+        val isComplete = engine.discover(OC_ACCOUNT_NAME, roots(), maxConcurrentPropfinds = 2)
+
+        assertTrue(isComplete)
+        assertEquals(listOf("$PERSONAL/A/B/"), fetchedFolders)
+        assertTrue(checkpoint.load(OC_ACCOUNT_NAME).isEmpty())
+    }
+
+    @Test
+    fun `ancestors of resumed folders get their tree etag once the folders below them complete`() = runBlocking {
+        checkpoint.save(
+            OC_ACCOUNT_NAME, listOf(FolderDiscoveryCheckpoint.PendingFolder(remotePath = "/A/B/", spaceId = PERSONAL, depth = 2))
+        )
+        val personalRoot = fileRepository.getFileByRemotePath("/", OC_ACCOUNT_NAME, PERSONAL)!!
+        val folderA = fileRepository.getFileByRemotePath("/A/", OC_ACCOUNT_NAME, PERSONAL)!!
+
+        engine.discover(OC_ACCOUNT_NAME, roots(), maxConcurrentPropfinds = 2)
+
+        verify(exactly = 3) { fileRepository.updateFileWithTreeEtag(any(), any()) }
+        verify(exactly = 1) { fileRepository.updateFileWithTreeEtag(folderA.id!!, any()) }
+        verify(exactly = 1) { fileRepository.updateFileWithTreeEtag(personalRoot.id!!, any()) }
+    }
+
+    @Test
+    fun `failed folders stay in the checkpoint`() = runBlocking {
+        every { fileRepository.refreshFolder("/P/", OC_ACCOUNT_NAME, PROJECT, false) } throws Exception()
+
+        val isComplete = engine.discover(OC_ACCOUNT_NAME, roots(), maxConcurrentPropfinds = 3)
+
+        assertEquals(false, isComplete)
+        assertEquals(
+            listOf(FolderDiscoveryCheckpoint.PendingFolder(remotePath = "/P/", spaceId = PROJECT, depth = 1)),
+            checkpoint.load(OC_ACCOUNT_NAME)
+        )
+    }
+
+    @Test
+    fun `folders gone from the server are not kept in the checkpoint`() = runBlocking {
+        every { fileRepository.refreshFolder("/P/", OC_ACCOUNT_NAME, PROJECT, false) } throws FileNotFoundException()
+        val projectRoot = fileRepository.getFileByRemotePath("/", OC_ACCOUNT_NAME, PROJECT)!!
+
+        val isComplete = engine.discover(OC_ACCOUNT_NAME, roots(), maxConcurrentPropfinds = 3)
+
+        assertTrue(isComplete)
+        assertTrue(checkpoint.load(OC_ACCOUNT_NAME).isEmpty())
+        // Its parent is still fetched again by the next discovery
+        verify(exactly = 0) { fileRepository.updateFileWithTreeEtag(projectRoot.id!!, any()) }
+    }
+
+    @Test
+    fun `spaces with a sync token only get their changes applied`() = runBlocking {
+        every { fileRepository.refreshSpaceChanges(OC_ACCOUNT_NAME, PROJECT) } returns emptyList()
+
+        val isComplete = engine.discover(OC_ACCOUNT_NAME, roots(), maxConcurrentPropfinds = 1)
+
+        assertTrue(isComplete)
+        assertEquals(listOf("$PERSONAL/", "$PERSONAL/A/", "$PERSONAL/A/B/"), fetchedFolders)
+    }
+
+    @Test
+    fun `sync tokens are stored only if the discovery completes`() = runBlocking {
+        every { fileRepository.fetchSpaceSyncToken(OC_ACCOUNT_NAME, PERSONAL) } returns "token-personal"
+        every { fileRepository.fetchSpaceSyncToken(OC_ACCOUNT_NAME, PROJECT) } returns "token-project"
+        every { fileRepository.refreshFolder("/P/", OC_ACCOUNT_NAME, PROJECT, false) } throws Exception()
+
+        assertEquals(false, engine.discover(OC_ACCOUNT_NAME, roots(), maxConcurrentPropfinds = 1))
+        verify(exactly = 0) { fileRepository.saveSpaceSyncToken(any(), any(), any()) }
+
+        checkpoint.clear(OC_ACCOUNT_NAME)
+        every { fileRepository.refreshFolder("/P/", OC_ACCOUNT_NAME, PROJECT, false) } returns emptyList()
+
+        assertTrue(engine.discover(OC_ACCOUNT_NAME, roots(), maxConcurrentPropfinds = 1))
+        verify(exactly = 1) { fileRepository.saveSpaceSyncToken(OC_ACCOUNT_NAME, PERSONAL, "token-personal") }
+        verify(exactly = 1) { fileRepository.saveSpaceSyncToken(OC_ACCOUNT_NAME, PROJECT, "token-project") }
+    }
+
+    private fun roots() = listOf(
+        FolderDiscoveryEngine.DiscoveryRoot(remotePath = "/", spaceId = PROJECT, isPersonal = false),
+        FolderDiscoveryEngine.DiscoveryRoot(remotePath = "/", spaceId = PERSONAL, isPersonal = true),
+    )
+
+    companion object {
+        private const val PERSONAL = "personal"
+        private const val PROJECT = "project"
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.usecases.synchronization
+
+import eu.opencloud.android.domain.UseCaseResult
+import eu.opencloud.android.domain.files.FileRepository
+import eu.opencloud.android.testutil.OC_ACCOUNT_NAME
+import eu.opencloud.android.testutil.OC_FILE
+import eu.opencloud.android.testutil.OC_FOLDER
+import eu.opencloud.android.testutil.OC_ROOT_FOLDER
+import eu.opencloud.android.usecases.synchronization.SynchronizeFolderUseCase.SyncFolderMode.REFRESH_FOLDER
+import eu.opencloud.android.usecases.synchronization.SynchronizeFolderUseCase.SyncFolderMode.REFRESH_FOLDER_RECURSIVELY
+import eu.opencloud.android.usecases.synchronization.SynchronizeFolderUseCase.SyncFolderMode.SYNC_FOLDER_RECURSIVELY
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class SynchronizeFolderUseCaseTest {
+
+    @Rule
+    @JvmField
+    val temporaryFolder = TemporaryFolder()
+
+    private val fileRepository: FileRepository = mockk(relaxUnitFun = true)
+    private val synchronizeFileUseCase: SynchronizeFileUseCase = mockk()
+    private val useCase = SynchronizeFolderUseCase(synchronizeFileUseCase, fileRepository)
+
+    private val rootFolder = OC_ROOT_FOLDER.copy(etag = "root2", remoteEtag = "root2", treeEtag = "root1")
+    private val unchangedFolder = OC_FOLDER.copy(id = 2, parentId = 1, remotePath = "/Unchanged/", etag = "a1", remoteEtag = "a1", treeEtag = "a1")
+    private val changedFolder = OC_FOLDER.copy(id = 3, parentId = 1, remotePath = "/Changed/", etag = "b1", remoteEtag = "b2", treeEtag = "b1")
+
+    @Before
+    fun setUp() {
+        every { fileRepository.refreshSpaceChanges(OC_ACCOUNT_NAME, null) } returns null
+        every { fileRepository.refreshFolder("/", OC_ACCOUNT_NAME, null, false) } returns listOf(changedFolder)
+        every { fileRepository.refreshFolder(changedFolder.remotePath, OC_ACCOUNT_NAME, null, false) } returns emptyList()
+        every { fileRepository.getFileByRemotePath("/", OC_ACCOUNT_NAME, null) } returns rootFolder
+        every { fileRepository.getFileByRemotePath(changedFolder.remotePath, OC_ACCOUNT_NAME, null) } returns
+                changedFolder.copy(etag = "b2")
+        every { fileRepository.getFolderContent(rootFolder.id!!) } returns listOf(unchangedFolder, changedFolder)
+        every { fileRepository.getFolderContent(changedFolder.id!!) } returns emptyList()
+    }
+
+    @Test
+    fun `pruned sync skips folders whose tree etag did not change`() {
+        val params = SynchronizeFolderUseCase.Params(
+            remotePath = "/",
+            accountName = OC_ACCOUNT_NAME,
+            syncMode = REFRESH_FOLDER_RECURSIVELY,
+            skipUnchangedFolders = true,
+        )
+
+        val result = useCase(params)
+
+        assertTrue(result.isSuccess)
+        assertEquals(2, params.syncStats.foldersFetched)
+        assertEquals(1, params.syncStats.foldersSkipped)
+        verify(exactly = 0) { fileRepository.refreshFolder(unchangedFolder.remotePath, any(), any(), any()) }
+        verify(exactly = 1) { fileRepository.updateFileWithTreeEtag(changedFolder.id!!, "b2") }
+        verify(exactly = 1) { fileRepository.updateFileWithTreeEtag(rootFolder.id!!, "root2") }
+    }
+
+    @Test
+    fun `folders listed before are not fetched once the changes of their space are applied`() {
+        every { fileRepository.refreshSpaceChanges(OC_ACCOUNT_NAME, null) } returns listOf(changedFolder)
+        val params = SynchronizeFolderUseCase.Params(
+            remotePath = "/",
+            accountName = OC_ACCOUNT_NAME,
+            syncMode = REFRESH_FOLDER_RECURSIVELY,
+            skipUnchangedFolders = true,
+        )
+
+        val result = useCase(params)
+
+        assertTrue(result.isSuccess)
+        assertEquals(0, params.syncStats.foldersFetched)
+        assertEquals(1, params.syncStats.foldersSkipped)
+        verify(exactly = 0) { fileRepository.refreshFolder(any(), any(), any(), any()) }
+        verify(exactly = 1) { fileRepository.updateFileWithTreeEtag(changedFolder.id!!, "b2") }
+    }
+
+    @Test
+    fun `refreshing a single folder does not ask for the changes of its space`() {
+        val params = SynchronizeFolderUseCase.Params(
+            remotePath = "/",
+            accountName = OC_ACCOUNT_NAME,
+            syncMode = REFRESH_FOLDER,
+        )
+
+        val result = useCase(params)
+
+        assertTrue(result.isSuccess)
+        verify(exactly = 0) { fileRepository.refreshSpaceChanges(any(), any()) }
+        verify(exactly = 1) { fileRepository.refreshFolder("/", OC_ACCOUNT_NAME, null, false) }
+    }
+
+    @Test
+    fun `tree etag is not stored when a subfolder fails`() {
+        every { fileRepository.refreshFolder(changedFolder.remotePath, OC_ACCOUNT_NAME, null, false) } throws Exception()
+        val params = SynchronizeFolderUseCase.Params(
+            remotePath = "/",
+            accountName = OC_ACCOUNT_NAME,
+            syncMode = REFRESH_FOLDER_RECURSIVELY,
+            skipUnchangedFolders = true,
+        )
+
+        val result = useCase(params)
+
+        assertTrue(result.isSuccess)
+        verify(exactly = 0) { fileRepository.updateFileWithTreeEtag(any(), any()) }
+    }
+
+    @Test
+    fun `files edited on the device below an unchanged folder are still synchronized`() {
+        val lastSync = 1_700_000_000_000
+        val editedFile = OC_FILE.copy(
+            id = 10,
+            parentId = unchangedFolder.id,
+            remotePath = "${unchangedFolder.remotePath}notes.txt",
+            spaceId = unchangedFolder.spaceId,
+            storagePath = temporaryFolder.newFile("notes.txt").apply { setLastModified(lastSync + 60_000) }.absolutePath,
+            lastSyncDateForData = lastSync,
+        )
+        val untouchedFile = editedFile.copy(
+            id = 11,
+            remotePath = "${unchangedFolder.remotePath}todo.txt",
+            storagePath = temporaryFolder.newFile("todo.txt").apply { setLastModified(lastSync - 60_000) }.absolutePath,
+        )
+        every { fileRepository.getDownloadedFilesForAccount(OC_ACCOUNT_NAME) } returns listOf(editedFile, untouchedFile)
+        every { synchronizeFileUseCase(any()) } returns UseCaseResult.Success(SynchronizeFileUseCase.SyncType.UploadEnqueued(null))
+        val params = SynchronizeFolderUseCase.Params(
+            remotePath = "/",
+            accountName = OC_ACCOUNT_NAME,
+            syncMode = SYNC_FOLDER_RECURSIVELY,
+            skipUnchangedFolders = true,
+        )
+
+        useCase(params)
+
+        verify(exactly = 0) { fileRepository.refreshFolder(unchangedFolder.remotePath, any(), any(), any()) }
+        verify(exactly = 1) { synchronizeFileUseCase(match { it.fileToSynchronize.id == editedFile.id }) }
+        verify(exactly = 0) { synchronizeFileUseCase(match { it.fileToSynchronize.id == untouchedFile.id }) }
+        // The upload changes the folder on the server, the next pass has to look at it again
+        verify(exactly = 0) { fileRepository.updateFileWithTreeEtag(rootFolder.id!!, any()) }
+    }
+
+    @Test
+    fun `sync without pruning does not touch tree etags`() {
+        val params = SynchronizeFolderUseCase.Params(
+            remotePath = "/",
+            accountName = OC_ACCOUNT_NAME,
+            syncMode = REFRESH_FOLDER_RECURSIVELY,
+        )
+
+        useCase(params)
+
+        assertEquals(2, params.syncStats.foldersFetched)
+        assertEquals(0, params.syncStats.foldersSkipped)
+        verify(exactly = 0) { fileRepository.getFolderContent(any()) }
+        verify(exactly = 0) { fileRepository.updateFileWithTreeEtag(any(), any()) }
+    }
+}
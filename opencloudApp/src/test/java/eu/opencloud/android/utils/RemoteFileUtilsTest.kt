@@ -0,0 +1,49 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 openCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package eu.opencloud.android.utils
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class RemoteFileUtilsTest {
+
+    @Test
+    fun `getAvailableRemotePath keeps the path when it is free`() {
+        val remotePath = RemoteFileUtils.getAvailableRemotePath("/Photos/img.jpg") { false }
+
+        assertEquals("/Photos/img.jpg", remotePath)
+    }
+
+    @Test
+    fun `getAvailableRemotePath adds the first free suffix before the extension`() {
+        val taken = setOf("/Photos/img.jpg", "/Photos/img (1).jpg")
+
+        val remotePath = RemoteFileUtils.getAvailableRemotePath("/Photos/img.jpg") { it in taken }
+
+        assertEquals("/Photos/img (2).jpg", remotePath)
+    }
+
+    @Test
+    fun `getAvailableRemotePath adds the suffix at the end when there is no extension`() {
+        val remotePath = RemoteFileUtils.getAvailableRemotePath("/Notes/README") { it == "/Notes/README" }
+
+        assertEquals("/Notes/README (1)", remotePath)
+    }
+}
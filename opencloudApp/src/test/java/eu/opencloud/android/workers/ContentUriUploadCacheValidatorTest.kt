@@ -85,4 +85,34 @@ class ContentUriUploadCacheValidatorTest {
 
         assertFalse(isValid)
     }
+
+    @Test
+    fun `document not modified since the session started is the same version`() {
+        val isSame = ContentUriUploadCacheValidator.isSameDocumentVersion(
+            recordedLastModified = 1_700_000_000_000L,
+            currentLastModified = 1_700_000_000_000L,
+        )
+
+        assertTrue(isSame)
+    }
+
+    @Test
+    fun `document modified since the session started is another version`() {
+        val isSame = ContentUriUploadCacheValidator.isSameDocumentVersion(
+            recordedLastModified = 1_700_000_000_000L,
+            currentLastModified = 1_700_000_060_000L,
+        )
+
+        assertFalse(isSame)
+    }
+
+    @Test
+    fun `document without a recorded date is another version`() {
+        val isSame = ContentUriUploadCacheValidator.isSameDocumentVersion(
+            recordedLastModified = 0L,
+            currentLastModified = 0L,
+        )
+
+        assertFalse(isSame)
+    }
 }
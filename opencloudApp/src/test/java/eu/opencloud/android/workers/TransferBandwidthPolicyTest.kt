@@ -0,0 +1,75 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import eu.opencloud.android.data.providers.SharedPreferencesProvider
+import eu.opencloud.android.lib.common.network.BandwidthLimiter
+import eu.opencloud.android.workers.TransferScheduler.Direction
+import eu.opencloud.android.workers.TransferScheduler.Priority
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Test
+
+class TransferBandwidthPolicyTest {
+
+    private val preferencesProvider: SharedPreferencesProvider = mockk(relaxed = true) {
+        every { getString(any(), any()) } returns null
+        every { getString(TransferBandwidthPolicy.preferenceKey(Priority.BACKGROUND, metered = true), any()) } returns "131072"
+    }
+
+    @Test
+    fun `limits are read from the preferences and default to unlimited`() {
+        val policy = TransferBandwidthPolicy(preferencesProvider)
+
+        assertEquals(131_072L, policy.limiterFor(Priority.BACKGROUND, Direction.UPLOAD, metered = true).bytesPerSecond)
+        assertEquals(131_072L, policy.limiterFor(Priority.BACKGROUND, Direction.DOWNLOAD, metered = true).bytesPerSecond)
+        assertEquals(BandwidthLimiter.UNLIMITED, policy.limiterFor(Priority.BACKGROUND, Direction.UPLOAD, metered = false).bytesPerSecond)
+        assertEquals(BandwidthLimiter.UNLIMITED, policy.limiterFor(Priority.INTERACTIVE, Direction.UPLOAD, metered = true).bytesPerSecond)
+    }
+
+    @Test
+    fun `transfers of the same kind share a limiter and directions do not`() {
+        val policy = TransferBandwidthPolicy(preferencesProvider)
+
+        assertSame(
+            policy.limiterFor(Priority.BACKGROUND, Direction.UPLOAD, metered = true),
+            policy.limiterFor(Priority.BACKGROUND, Direction.UPLOAD, metered = true),
+        )
+        assertNotSame(
+            policy.limiterFor(Priority.BACKGROUND, Direction.UPLOAD, metered = true),
+            policy.limiterFor(Priority.BACKGROUND, Direction.DOWNLOAD, metered = true),
+        )
+    }
+
+    @Test
+    fun `setLimit saves the limit and updates the limiters in use`() {
+        val policy = TransferBandwidthPolicy(preferencesProvider)
+        val limiterInUse = policy.limiterFor(Priority.INTERACTIVE, Direction.DOWNLOAD, metered = false)
+
+        policy.setLimit(Priority.INTERACTIVE, metered = false, bytesPerSecond = 1_048_576)
+
+        assertEquals(1_048_576L, limiterInUse.bytesPerSecond)
+        assertEquals(1_048_576L, policy.limiterFor(Priority.INTERACTIVE, Direction.UPLOAD, metered = false).bytesPerSecond)
+        verify { preferencesProvider.putString(TransferBandwidthPolicy.preferenceKey(Priority.INTERACTIVE, metered = false), "1048576") }
+    }
+}
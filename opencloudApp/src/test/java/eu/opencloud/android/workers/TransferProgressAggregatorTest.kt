@@ -0,0 +1,87 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+import java.util.UUID
+import java.util.concurrent.TimeUnit
+
+class TransferProgressAggregatorTest {
+
+    private var nowNanos = 0L
+    private val aggregator = TransferProgressAggregator(minIntervalMillis = 250, nanoClock = { nowNanos })
+    private val workId = UUID.randomUUID()
+
+    @Test
+    fun `reports the first sample and then only changed percentages`() {
+        assertEquals(10, aggregator.report(workId, 10, 100))
+
+        advanceMillis(300)
+        assertNull(aggregator.report(workId, 10, 100))
+        assertEquals(20, aggregator.report(workId, 20, 100))
+        assertEquals(mapOf(workId to 20), aggregator.progress.value)
+    }
+
+    @Test
+    fun `samples at most once per interval`() {
+        assertEquals(0, aggregator.report(workId, 0, 100))
+
+        advanceMillis(100)
+        assertNull(aggregator.report(workId, 5, 100))
+        advanceMillis(100)
+        assertNull(aggregator.report(workId, 8, 100))
+        assertEquals(mapOf(workId to 0), aggregator.progress.value)
+
+        advanceMillis(50)
+        assertEquals(9, aggregator.report(workId, 9, 100))
+    }
+
+    @Test
+    fun `completion is reported even within the interval`() {
+        aggregator.report(workId, 98, 100)
+        advanceMillis(10)
+
+        assertEquals(100, aggregator.report(workId, 100, 100))
+        assertNull(aggregator.report(workId, 100, 100))
+    }
+
+    @Test
+    fun `transfers of unknown size report an unknown percentage`() {
+        assertEquals(TransferProgressAggregator.UNKNOWN_PERCENT, aggregator.report(workId, 4096, -1))
+        assertNull(aggregator.report(workId, 8192, -1))
+    }
+
+    @Test
+    fun `finished transfers leave the published progress`() {
+        val otherWorkId = UUID.randomUUID()
+        aggregator.report(workId, 50, 100)
+        aggregator.report(otherWorkId, 1, 4)
+
+        aggregator.finish(workId)
+
+        assertEquals(mapOf(otherWorkId to 25), aggregator.progress.value)
+        assertEquals(50, aggregator.report(workId, 50, 100))
+    }
+
+    private fun advanceMillis(millis: Long) {
+        nowNanos += TimeUnit.MILLISECONDS.toNanos(millis)
+    }
+}
@@ -0,0 +1,171 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import eu.opencloud.android.domain.transfers.model.UploadEnqueuedBy
+import eu.opencloud.android.testutil.OC_TRANSFER
+import eu.opencloud.android.workers.TransferScheduler.Direction
+import eu.opencloud.android.workers.TransferScheduler.Priority
+import kotlinx.coroutines.CompletableDeferred
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.CoroutineStart
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.cancelAndJoin
+import kotlinx.coroutines.joinAll
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertThrows
+import org.junit.Test
+
+class TransferSchedulerTest {
+
+    @Test
+    fun `transfers run within the limit of their account and direction`() = runBlocking {
+        val scheduler = TransferScheduler(defaultUploadLimit = 2, defaultDownloadLimit = 1)
+        val gate = CompletableDeferred<Unit>()
+
+        val jobs = (1..4).map { startTransfer(scheduler, ticket(size = it.toLong())) { gate.await() } } +
+            startTransfer(scheduler, ticket(direction = Direction.DOWNLOAD)) { gate.await() } +
+            startTransfer(scheduler, ticket(accountName = OTHER_ACCOUNT)) { gate.await() }
+
+        assertEquals(2 to 2, scheduler.runningAndQueued(ACCOUNT, Direction.UPLOAD))
+        assertEquals(1 to 0, scheduler.runningAndQueued(ACCOUNT, Direction.DOWNLOAD))
+        assertEquals(1 to 0, scheduler.runningAndQueued(OTHER_ACCOUNT, Direction.UPLOAD))
+
+        gate.complete(Unit)
+        jobs.joinAll()
+
+        assertEquals(0 to 0, scheduler.runningAndQueued(ACCOUNT, Direction.UPLOAD))
+        assertEquals(4L, scheduler.metricsFor(ACCOUNT, Direction.UPLOAD).scheduled)
+    }
+
+    @Test
+    fun `interactive transfers go first and smaller files before larger ones`() = runBlocking {
+        val scheduler = TransferScheduler(defaultUploadLimit = 1)
+        val order = mutableListOf<String>()
+        val gate = CompletableDeferred<Unit>()
+        val blocker = startTransfer(scheduler, ticket()) { gate.await() }
+
+        val jobs = listOf(
+            "background-large" to ticket(Priority.BACKGROUND, size = 1_000),
+            "background-small" to ticket(Priority.BACKGROUND, size = 10),
+            "interactive-large" to ticket(Priority.INTERACTIVE, size = 5_000),
+            "interactive-small" to ticket(Priority.INTERACTIVE, size = 50),
+        ).map { (name, ticket) -> startTransfer(scheduler, ticket) { order += name } }
+        assertEquals(1 to 4, scheduler.runningAndQueued(ACCOUNT, Direction.UPLOAD))
+
+        gate.complete(Unit)
+        (jobs + blocker).joinAll()
+
+        assertEquals(listOf("interactive-small", "interactive-large", "background-small", "background-large"), order)
+    }
+
+    @Test
+    fun `cancelled transfers leave the queue`() = runBlocking {
+        val scheduler = TransferScheduler(defaultUploadLimit = 1)
+        val gate = CompletableDeferred<Unit>()
+        val blocker = startTransfer(scheduler, ticket()) { gate.await() }
+        val cancelled = startTransfer(scheduler, ticket()) { throw AssertionError("Cancelled transfer must not run") }
+        var ran = false
+        val next = startTransfer(scheduler, ticket()) { ran = true }
+
+        cancelled.cancelAndJoin()
+        assertEquals(1 to 1, scheduler.runningAndQueued(ACCOUNT, Direction.UPLOAD))
+
+        gate.complete(Unit)
+        listOf(blocker, next).joinAll()
+
+        assertEquals(true, ran)
+        assertEquals(0 to 0, scheduler.runningAndQueued(ACCOUNT, Direction.UPLOAD))
+    }
+
+    @Test
+    fun `only running or waiting interactive transfers keep the account busy`() = runBlocking {
+        val scheduler = TransferScheduler(defaultDownloadLimit = 1)
+        val gate = CompletableDeferred<Unit>()
+
+        val background = startTransfer(scheduler, ticket(priority = Priority.BACKGROUND, direction = Direction.DOWNLOAD)) { gate.await() }
+        assertEquals(false, scheduler.hasInteractiveTransfers(ACCOUNT))
+
+        val interactive = startTransfer(scheduler, ticket(direction = Direction.DOWNLOAD)) { gate.await() }
+        assertEquals(true, scheduler.hasInteractiveTransfers(ACCOUNT))
+        assertEquals(false, scheduler.hasInteractiveTransfers(OTHER_ACCOUNT))
+
+        gate.complete(Unit)
+        joinAll(background, interactive)
+        assertEquals(false, scheduler.hasInteractiveTransfers(ACCOUNT))
+    }
+
+    @Test
+    fun `background transfers are refused once too many of them wait`() = runBlocking {
+        val scheduler = TransferScheduler(defaultUploadLimit = 1, maxWaitingBackground = 1)
+        val gate = CompletableDeferred<Unit>()
+        val running = startTransfer(scheduler, ticket(Priority.BACKGROUND)) { gate.await() }
+        val waiting = startTransfer(scheduler, ticket(Priority.BACKGROUND)) { gate.await() }
+
+        assertThrows(TransferScheduler.QueueFullException::class.java) {
+            runBlocking { scheduler.runWhenScheduled(ticket(Priority.BACKGROUND)) { } }
+        }
+        // Background transfers that get a slot right away, and interactive ones, are never refused
+        var downloaded = false
+        startTransfer(scheduler, ticket(Priority.BACKGROUND, direction = Direction.DOWNLOAD)) { downloaded = true }.join()
+        assertEquals(true, downloaded)
+        val interactive = startTransfer(scheduler, ticket(Priority.INTERACTIVE)) { gate.await() }
+        assertEquals(1 to 2, scheduler.runningAndQueued(ACCOUNT, Direction.UPLOAD))
+
+        gate.complete(Unit)
+        joinAll(running, waiting, interactive)
+    }
+
+    @Test
+    fun `uploads enqueued by the user are interactive`() {
+        val byUser = TransferScheduler.Ticket.forUpload(OC_TRANSFER.copy(createdBy = UploadEnqueuedBy.ENQUEUED_BY_USER))
+        val automatic = TransferScheduler.Ticket.forUpload(OC_TRANSFER.copy(createdBy = UploadEnqueuedBy.ENQUEUED_AS_AUTOMATIC_UPLOAD_PICTURE))
+
+        assertEquals(Priority.INTERACTIVE, byUser.priority)
+        assertEquals(Priority.BACKGROUND, automatic.priority)
+        assertEquals(OC_TRANSFER.fileSize, automatic.size)
+    }
+
+    // Runs until the transfer waits for its slot or for the test to release it
+    private fun CoroutineScope.startTransfer(
+        scheduler: TransferScheduler,
+        ticket: TransferScheduler.Ticket,
+        block: suspend () -> Unit,
+    ): Job = launch(start = CoroutineStart.UNDISPATCHED) { scheduler.runWhenScheduled(ticket, block) }
+
+    private fun ticket(
+        priority: Priority = Priority.INTERACTIVE,
+        size: Long = 1,
+        direction: Direction = Direction.UPLOAD,
+        accountName: String = ACCOUNT,
+    ) = TransferScheduler.Ticket(accountName, direction, priority, size)
+
+    private fun TransferScheduler.metricsFor(accountName: String, direction: Direction) =
+        metrics().single { it.accountName == accountName && it.direction == direction }
+
+    private fun TransferScheduler.runningAndQueued(accountName: String, direction: Direction) =
+        metricsFor(accountName, direction).let { it.running to it.queued }
+
+    companion object {
+        private const val ACCOUNT = "user@demo.opencloud.eu"
+        private const val OTHER_ACCOUNT = "other@demo.opencloud.eu"
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import eu.opencloud.android.data.providers.SharedPreferencesProvider
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class TusChunkSizeControllerTest {
+
+    @Test
+    fun `next chunk size starts at the default and respects the server maximum and the remaining bytes`() {
+        val controller = TusChunkSizeController()
+
+        assertEquals(TusChunkSizeController.DEFAULT_CHUNK_SIZE, controller.nextChunkSize(remaining = Long.MAX_VALUE, serverMaxChunk = null))
+        assertEquals(10_000_000L, controller.nextChunkSize(remaining = Long.MAX_VALUE, serverMaxChunk = 10_000_000L))
+        assertEquals(5L, controller.nextChunkSize(remaining = 5L, serverMaxChunk = 10_000_000L))
+    }
+
+    @Test
+    fun `chunks grow on fast networks up to the maximum`() {
+        val controller = TusChunkSizeController()
+
+        repeat(10) {
+            // 10 MB in 100 ms
+            controller.onChunkUploaded(bytes = controller.chunkSize, elapsedMillis = controller.chunkSize / 100_000)
+        }
+
+        assertEquals(TusChunkSizeController.MAX_CHUNK_SIZE, controller.chunkSize)
+    }
+
+    @Test
+    fun `chunks grow at most twice per step`() {
+        val controller = TusChunkSizeController()
+
+        controller.onChunkUploaded(bytes = TusChunkSizeController.DEFAULT_CHUNK_SIZE, elapsedMillis = 1)
+
+        assertEquals(2 * TusChunkSizeController.DEFAULT_CHUNK_SIZE, controller.chunkSize)
+    }
+
+    @Test
+    fun `chunks shrink on slow networks to the configured duration`() {
+        val controller = TusChunkSizeController()
+
+        // 256 KB/s, so that 8 seconds hold 2 MB
+        controller.onChunkUploaded(bytes = 4L * 1024 * 1024, elapsedMillis = 16_000)
+
+        assertEquals(2L * 1024 * 1024, controller.chunkSize)
+    }
+
+    @Test
+    fun `failures halve the chunk down to the minimum`() {
+        val controller = TusChunkSizeController()
+
+        controller.onChunkFailed()
+        assertEquals(TusChunkSizeController.DEFAULT_CHUNK_SIZE / 2, controller.chunkSize)
+
+        repeat(10) { controller.onChunkFailed() }
+        assertEquals(TusChunkSizeController.MIN_CHUNK_SIZE, controller.chunkSize)
+    }
+
+    @Test
+    fun `recent failures keep chunks below what the throughput alone allows`() {
+        val reliable = TusChunkSizeController()
+        val flaky = TusChunkSizeController().apply { onChunkFailed() }
+
+        // 512 KB/s, so that 8 seconds hold 4 MB
+        reliable.onChunkUploaded(bytes = 4L * 1024 * 1024, elapsedMillis = 8_000)
+        flaky.onChunkUploaded(bytes = 4L * 1024 * 1024, elapsedMillis = 8_000)
+
+        assertTrue(flaky.chunkSize < reliable.chunkSize)
+    }
+
+    @Test
+    fun `short last chunks are not taken into account`() {
+        val controller = TusChunkSizeController()
+
+        controller.onChunkUploaded(bytes = 1024, elapsedMillis = 10_000)
+
+        assertEquals(TusChunkSizeController.DEFAULT_CHUNK_SIZE, controller.chunkSize)
+    }
+
+    @Test
+    fun `learned chunk size is restored and stored per account and network`() {
+        val key = "tus_chunk_size_user@server_wifi"
+        val preferences = mockk<SharedPreferencesProvider>(relaxUnitFun = true)
+        every { preferences.getLong(key, TusChunkSizeController.DEFAULT_CHUNK_SIZE) } returns 32L * 1024 * 1024
+
+        val controller = TusChunkSizeController.forNetwork(preferences, "user@server", "wifi")
+        assertEquals(32L * 1024 * 1024, controller.chunkSize)
+
+        controller.onChunkFailed()
+        verify { preferences.putLong(key, 16L * 1024 * 1024) }
+    }
+}
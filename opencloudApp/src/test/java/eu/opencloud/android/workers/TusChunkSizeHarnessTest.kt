@@ -0,0 +1,198 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import android.net.Uri
+import androidx.test.core.app.ApplicationProvider
+import eu.opencloud.android.domain.capabilities.model.OCCapability
+import eu.opencloud.android.domain.transfers.TransferRepository
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.testutil.OC_TRANSFER
+import io.mockk.mockk
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okhttp3.mockwebserver.SocketPolicy
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.io.File
+import java.io.RandomAccessFile
+import java.util.concurrent.TimeUnit
+
+/**
+ * Uploads the same file through a local TUS stand-in server with the adaptive chunk size and with the former fixed one,
+ * once on a link where the round trip of every PATCH dominates and once on a link that drops large requests.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(manifest = Config.NONE)
+class TusChunkSizeHarnessTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var localFile: File
+    private val transferRepository = mockk<TransferRepository>(relaxed = true)
+
+    @Before
+    fun setUp() {
+        server = MockWebServer().apply {
+            // Chunk bodies are only counted, not kept
+            bodyLimit = 0
+            start()
+        }
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+        localFile.delete()
+    }
+
+    @Test
+    fun adaptiveChunksNeedFewerRoundTripsOnAFastLink() {
+        localFile = sparseFile(64L * 1024 * 1024)
+
+        val fixed = runUpload(fixedChunkSize(), TusStandIn(latencyMillis = 200))
+        val adaptive = runUpload(TusChunkSizeController(), TusStandIn(latencyMillis = 200))
+
+        report("fast link", fixed, adaptive)
+        assertEquals(localFile.length(), fixed.standIn.offset)
+        assertEquals(localFile.length(), adaptive.standIn.offset)
+        assertTrue(adaptive.standIn.requests < fixed.standIn.requests)
+    }
+
+    @Test
+    fun adaptiveChunksSurviveALinkThatDropsLargeRequests() {
+        localFile = sparseFile(24L * 1024 * 1024)
+
+        val fixed = runUpload(fixedChunkSize(), TusStandIn(latencyMillis = 50, dropBodiesLargerThan = 3L * 1024 * 1024))
+        val adaptive = runUpload(TusChunkSizeController(), TusStandIn(latencyMillis = 50, dropBodiesLargerThan = 3L * 1024 * 1024))
+
+        report("dropping link", fixed, adaptive)
+        assertTrue(fixed.failure != null)
+        assertEquals(null, adaptive.failure)
+        assertEquals(localFile.length(), adaptive.standIn.offset)
+        assertTrue(adaptive.standIn.droppedBytes < fixed.standIn.droppedBytes)
+    }
+
+    private fun runUpload(controller: TusChunkSizeController, standIn: TusStandIn): Run {
+        server.dispatcher = standIn
+        val startedAt = System.nanoTime()
+        val failure = runCatching {
+            TusUploadHelper(transferRepository, controller).upload(
+                client = newClient(),
+                transfer = OC_TRANSFER.copy(tusUploadUrl = null, tusUploadChecksum = null),
+                uploadId = UPLOAD_ID,
+                localPath = localFile.absolutePath,
+                remotePath = "/Videos/video.mp4",
+                fileSize = localFile.length(),
+                mimeType = "video/mp4",
+                lastModified = null,
+                tusSupport = tusSupport(),
+                progressListener = null,
+                spaceWebDavUrl = server.url("/dav/spaces/personal").toString(),
+            )
+        }.exceptionOrNull()
+        return Run(standIn, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), failure)
+    }
+
+    private fun report(scenario: String, fixed: Run, adaptive: Run) {
+        listOf("fixed" to fixed, "adaptive" to adaptive).forEach { (name, run) ->
+            println(
+                "TUS $scenario, $name chunks: ${run.elapsedMillis} ms, ${run.standIn.requests} requests, " +
+                        "${run.standIn.droppedBytes} bytes dropped, failure=${run.failure?.message}"
+            )
+        }
+    }
+
+    private fun fixedChunkSize() = object : TusChunkSizeController() {
+        override fun onChunkUploaded(bytes: Long, elapsedMillis: Long) = Unit
+        override fun onChunkFailed() = Unit
+    }
+
+    private fun newClient(): OpenCloudClient =
+        OpenCloudClient(
+            Uri.parse(server.url("/").toString().removeSuffix("/")),
+            null,
+            true,
+            null,
+            ApplicationProvider.getApplicationContext()
+        )
+
+    private fun sparseFile(length: Long): File =
+        File.createTempFile("tus-harness", ".bin").apply {
+            RandomAccessFile(this, "rw").use { it.setLength(length) }
+        }
+
+    private fun tusSupport(): OCCapability.TusSupport =
+        OCCapability.TusSupport(
+            version = "1.0.0",
+            resumable = "1.0.0",
+            extension = "creation,creation-with-upload",
+            maxChunkSize = 0,
+            httpMethodOverride = null
+        )
+
+    private data class Run(val standIn: TusStandIn, val elapsedMillis: Long, val failure: Throwable?)
+
+    /**
+     * Minimal TUS server: creation-with-upload, PATCH and HEAD on a single upload, answering every request after
+     * [latencyMillis] and dropping the connection for chunks above [dropBodiesLargerThan].
+     */
+    private class TusStandIn(
+        private val latencyMillis: Long,
+        private val dropBodiesLargerThan: Long = Long.MAX_VALUE,
+    ) : Dispatcher() {
+        @Volatile var offset = 0L
+        @Volatile var requests = 0
+        @Volatile var droppedBytes = 0L
+
+        @Synchronized
+        override fun dispatch(request: RecordedRequest): MockResponse {
+            requests++
+            val response = when (request.method) {
+                "POST" -> {
+                    offset += request.bodySize
+                    MockResponse().setResponseCode(201).addHeader("Location", UPLOAD_PATH)
+                }
+                "PATCH" -> if (request.bodySize > dropBodiesLargerThan) {
+                    droppedBytes += request.bodySize
+                    MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST)
+                } else {
+                    offset += request.bodySize
+                    MockResponse().setResponseCode(204)
+                }
+                else -> MockResponse().setResponseCode(204)
+            }
+            return response
+                .addHeader("Upload-Offset", offset)
+                .setHeadersDelay(latencyMillis, TimeUnit.MILLISECONDS)
+        }
+    }
+
+    companion object {
+        private const val UPLOAD_ID = 42L
+        private const val UPLOAD_PATH = "/uploads/harness"
+    }
+}
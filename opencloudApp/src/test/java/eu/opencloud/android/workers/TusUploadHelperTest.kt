@@ -28,8 +28,10 @@ import eu.opencloud.android.testutil.OC_TRANSFER
 import io.mockk.every
 import io.mockk.mockk
 import io.mockk.verify
+import okhttp3.mockwebserver.Dispatcher
 import okhttp3.mockwebserver.MockResponse
 import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
 import org.junit.After
 import org.junit.Assert.assertArrayEquals
 import org.junit.Assert.assertEquals
@@ -42,8 +44,10 @@ import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
 import org.robolectric.annotation.Config
+import java.io.ByteArrayOutputStream
 import java.io.File
 import java.io.IOException
+import java.util.concurrent.atomic.AtomicInteger
 
 @RunWith(RobolectricTestRunner::class)
 @Config(manifest = Config.NONE)
@@ -253,6 +257,136 @@ class TusUploadHelperTest {
         }
     }
 
+    @Test
+    fun upload_sendsPendingPartsInParallelAndConcatenatesThem() {
+        val bytes = ByteArray(10) { it.toByte() }
+        val localFile = tempFileWithBytes(bytes)
+        val storedChecksum = TusChecksumHelper.storedSha1(TusChecksumHelper.sha1Hex(localFile)).storageValue
+        val concatenationServer = ConcatenationServer().apply {
+            // The second part was already created and partly sent by a previous attempt
+            partials["/uploads/existing-part"] = ByteArrayOutputStream().apply { write(bytes, 5, 3) }
+        }
+        server.dispatcher = concatenationServer
+        val existingPartUrl = server.url("/uploads/existing-part").toString()
+        val progress = mutableListOf<Long>()
+
+        val resultEtag = TusUploadHelper(transferRepository).upload(
+            client = newClient(),
+            transfer = OC_TRANSFER.copy(
+                tusUploadUrl = null,
+                tusUploadChecksum = storedChecksum,
+                tusUploadConcat = "0:5:0: 5:5:0:$existingPartUrl",
+            ),
+            uploadId = UPLOAD_ID,
+            localPath = localFile.absolutePath,
+            remotePath = "/Videos/clip.mp4",
+            fileSize = localFile.length(),
+            mimeType = "video/mp4",
+            lastModified = null,
+            tusSupport = tusSupport(maxChunkSize = 2, extension = "creation,creation-with-upload,concatenation"),
+            progressListener = null,
+            progressCallback = { offset, _ -> synchronized(progress) { progress += offset } },
+            spaceWebDavUrl = server.url("/dav/spaces/personal").toString(),
+        )
+
+        assertEquals("final-etag", resultEtag)
+        assertArrayEquals(bytes, concatenationServer.finalUpload)
+        assertEquals(3L, progress.first())
+        assertEquals(10L, progress.last())
+        assertTrue(concatenationServer.finalHeader!!.endsWith("/uploads/part-1 /uploads/existing-part"))
+        assertTrue(concatenationServer.finalMetadata!!.contains("checksum"))
+        verify {
+            transferRepository.updateTusState(
+                id = UPLOAD_ID,
+                tusUploadUrl = null,
+                tusUploadLength = 10,
+                tusUploadMetadata = any(),
+                tusUploadChecksum = storedChecksum,
+                tusResumableVersion = "1.0.0",
+                tusUploadExpires = null,
+                tusUploadConcat = "0:5:0:${server.url("/uploads/part-1")} 5:5:3:$existingPartUrl",
+            )
+            transferRepository.updateTusState(
+                id = UPLOAD_ID,
+                tusUploadUrl = null,
+                tusUploadLength = null,
+                tusUploadMetadata = null,
+                tusUploadChecksum = null,
+                tusResumableVersion = null,
+                tusUploadExpires = null,
+                tusUploadConcat = null,
+            )
+        }
+    }
+
+    @Test
+    fun upload_reportsTheSummedProgressOfThePartsToTheListener() {
+        val bytes = ByteArray(10) { it.toByte() }
+        val localFile = tempFileWithBytes(bytes)
+        server.dispatcher = ConcatenationServer()
+        val reported = mutableListOf<Pair<Long, Long>>()
+
+        TusUploadHelper(transferRepository).upload(
+            client = newClient(),
+            transfer = OC_TRANSFER.copy(tusUploadUrl = null, tusUploadConcat = "0:5:0: 5:5:0:"),
+            uploadId = UPLOAD_ID,
+            localPath = localFile.absolutePath,
+            remotePath = "/Videos/clip.mp4",
+            fileSize = localFile.length(),
+            mimeType = "video/mp4",
+            lastModified = null,
+            tusSupport = tusSupport(maxChunkSize = 2, extension = "creation,creation-with-upload,concatenation"),
+            progressListener = { _, transferred, total, _ -> synchronized(reported) { reported += transferred to total } },
+            spaceWebDavUrl = server.url("/dav/spaces/personal").toString(),
+        )
+
+        assertTrue(reported.all { (transferred, total) -> total == 10L && transferred in 0L..10L })
+        assertEquals(10L to 10L, reported.last())
+    }
+
+    @Test
+    fun upload_sendsFewerPartsAtOnceThanTheClientAllowsRequests() {
+        val bytes = ByteArray(10) { it.toByte() }
+        val localFile = tempFileWithBytes(bytes)
+        val concatenationServer = ConcatenationServer()
+        val recorder = ConcurrencyRecorder(concatenationServer)
+        server.dispatcher = recorder
+        val client = OpenCloudClient(
+            Uri.parse(server.url("/").toString().removeSuffix("/")),
+            null,
+            3,
+            null,
+            ApplicationProvider.getApplicationContext()
+        )
+
+        TusUploadHelper(transferRepository).upload(
+            client = client,
+            transfer = OC_TRANSFER.copy(tusUploadUrl = null, tusUploadConcat = "0:3:0: 3:3:0: 6:2:0: 8:2:0:"),
+            uploadId = UPLOAD_ID,
+            localPath = localFile.absolutePath,
+            remotePath = "/Videos/clip.mp4",
+            fileSize = localFile.length(),
+            mimeType = "video/mp4",
+            lastModified = null,
+            tusSupport = tusSupport(maxChunkSize = 1, extension = "creation,creation-with-upload,concatenation"),
+            progressListener = null,
+            spaceWebDavUrl = server.url("/dav/spaces/personal").toString(),
+        )
+
+        assertArrayEquals(bytes, concatenationServer.finalUpload)
+        assertTrue("${recorder.maxInFlight} requests at once", recorder.maxInFlight.get() <= 2)
+    }
+
+    @Test
+    fun shouldUploadInParts_requiresConcatenationAndLargeFiles() {
+        val concatenation = tusSupport(extension = "creation,concatenation")
+
+        assertTrue(TusUploadHelper.shouldUploadInParts(fileSize = 64L * 1024 * 1024, tusSupport = concatenation))
+        assertFalse(TusUploadHelper.shouldUploadInParts(fileSize = 64L * 1024 * 1024 - 1, tusSupport = concatenation))
+        assertFalse(TusUploadHelper.shouldUploadInParts(fileSize = 64L * 1024 * 1024, tusSupport = tusSupport()))
+        assertFalse(TusUploadHelper.shouldUploadInParts(fileSize = 64L * 1024 * 1024, tusSupport = null))
+    }
+
     @Test
     fun shouldAttemptTusUpload_usesFallbackForSmallFilesWithoutPendingSession() {
         val shouldAttemptTusUpload = TusUploadHelper.shouldAttemptTusUpload(
@@ -300,15 +434,80 @@ class TusUploadHelperTest {
             writeBytes(bytes)
         }
 
-    private fun tusSupport(maxChunkSize: Int = 10): OCCapability.TusSupport =
+    private fun tusSupport(
+        maxChunkSize: Int = 10,
+        extension: String = "creation,creation-with-upload",
+    ): OCCapability.TusSupport =
         OCCapability.TusSupport(
             version = "1.0.0",
             resumable = "1.0.0",
-            extension = "creation,creation-with-upload",
+            extension = extension,
             maxChunkSize = maxChunkSize,
             httpMethodOverride = null
         )
 
+    /** Keeps how many requests [delegate] was answering at the same time, holding each one for a while. */
+    private class ConcurrencyRecorder(private val delegate: Dispatcher) : Dispatcher() {
+        private val inFlight = AtomicInteger()
+        val maxInFlight = AtomicInteger()
+
+        override fun dispatch(request: RecordedRequest): MockResponse {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet()) { a, b -> maxOf(a, b) }
+            return try {
+                Thread.sleep(20)
+                delegate.dispatch(request)
+            } finally {
+                inFlight.decrementAndGet()
+            }
+        }
+    }
+
+    /**
+     * Minimal TUS server with the concatenation extension: keeps every partial upload in memory and joins them on the
+     * final POST.
+     */
+    private class ConcatenationServer : Dispatcher() {
+        val partials: MutableMap<String, ByteArrayOutputStream> = java.util.concurrent.ConcurrentHashMap()
+        var finalHeader: String? = null
+        var finalMetadata: String? = null
+        var finalUpload: ByteArray? = null
+        private var createdParts = 0
+
+        @Synchronized
+        override fun dispatch(request: RecordedRequest): MockResponse {
+            val path = request.path!!
+            val concat = request.getHeader("Upload-Concat")
+            return when {
+                request.method == "POST" && concat == "partial" -> {
+                    val location = "/uploads/part-${++createdParts}"
+                    partials[location] = ByteArrayOutputStream()
+                    MockResponse().setResponseCode(201).addHeader("Location", location)
+                }
+                request.method == "POST" && concat?.startsWith("final;") == true -> {
+                    finalHeader = concat
+                    finalMetadata = request.getHeader("Upload-Metadata")
+                    finalUpload = concat.removePrefix("final;").split(" ")
+                        .fold(ByteArrayOutputStream()) { out, part -> out.apply { write(partials.getValue(part).toByteArray()) } }
+                        .toByteArray()
+                    MockResponse().setResponseCode(201).addHeader("Location", "/uploads/final").addHeader("ETag", "\"final-etag\"")
+                }
+                request.method == "HEAD" && path in partials ->
+                    MockResponse().setResponseCode(200).addHeader("Upload-Offset", partials.getValue(path).size())
+                request.method == "PATCH" && path in partials -> {
+                    val part = partials.getValue(path)
+                    if (request.getHeader("Upload-Offset")?.toInt() != part.size()) {
+                        MockResponse().setResponseCode(409)
+                    } else {
+                        part.write(request.body.readByteArray())
+                        MockResponse().setResponseCode(204).addHeader("Upload-Offset", part.size())
+                    }
+                }
+                // PROPFIND for the ETag and anything unexpected
+                else -> MockResponse().setResponseCode(404)
+            }
+        }
+    }
+
     companion object {
         private const val UPLOAD_ID = 42L
     }
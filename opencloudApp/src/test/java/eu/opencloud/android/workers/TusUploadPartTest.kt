@@ -0,0 +1,63 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.workers
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Test
+
+class TusUploadPartTest {
+
+    @Test
+    fun split_coversTheFileWithTheRemainderInTheLastPart() {
+        val parts = TusUploadPart.split(fileSize = 10, count = 3)
+
+        assertEquals(
+            listOf(TusUploadPart(0, 3), TusUploadPart(3, 3), TusUploadPart(6, 4)),
+            parts
+        )
+    }
+
+    @Test
+    fun parse_readsBackSerializedParts() {
+        val parts = listOf(
+            TusUploadPart(start = 0, length = 5, offset = 5, url = "https://server.test/uploads/a"),
+            TusUploadPart(start = 5, length = 5, offset = 2, url = "https://server.test/uploads/b"),
+            TusUploadPart(start = 10, length = 2),
+        )
+
+        assertEquals(parts, TusUploadPart.parse(TusUploadPart.serialize(parts), fileSize = 12))
+    }
+
+    @Test
+    fun parse_returnsNullWithoutParts() {
+        assertNull(TusUploadPart.parse(null, fileSize = 12))
+        assertNull(TusUploadPart.parse("", fileSize = 12))
+    }
+
+    @Test
+    fun parse_returnsNullWhenPartsDoNotMatchTheFile() {
+        val parts = TusUploadPart.serialize(TusUploadPart.split(fileSize = 12, count = 2))
+
+        assertNull(TusUploadPart.parse(parts, fileSize = 13))
+        assertNull(TusUploadPart.parse("0:6:0: 7:6:0:", fileSize = 13))
+        assertNull(TusUploadPart.parse("0:6:7: 6:6:0:", fileSize = 12))
+        assertNull(TusUploadPart.parse("0:6:0", fileSize = 6))
+    }
+}
@@ -55,36 +55,55 @@ public class OpenCloudClient extends HttpClient {
     private static final String WEBDAV_UPLOADS_PATH_4_0 = "/remote.php/dav/uploads/";
     private static final int MAX_RETRY_COUNT = 2;
 
+    /**
+     * Default number of requests a client lets run in parallel.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
     private static int sIntanceCounter = 0;
-    private OpenCloudCredentials mCredentials = null;
+    private volatile OpenCloudCredentials mCredentials = null;
     private int mInstanceNumber;
     private Uri mBaseUri;
     private OpenCloudAccount mAccount;
     private final ConnectionValidator mConnectionValidator;
-    private Object mRequestMutex = new Object();
 
-    // If set to true a mutex will be used to prevent parallel execution of the execute() method
-    // if false the execute() method can be called even though the mutex is already aquired.
-    // This is used for the ConnectionValidator, which has to be able to execute OperationsWhile all "normal" operations net
-    // to be set on hold.
-    private final Boolean mSynchronizeRequests;
+    // Limits how many requests run in parallel and holds new ones back while the ConnectionValidator
+    // refreshes the credentials. Null means no limit at all; this is used for the client of the
+    // ConnectionValidator itself, which has to be able to execute operations while all "normal" operations
+    // need to be set on hold.
+    private final RequestGate mRequestGate;
 
     private SingleSessionManager mSingleSessionManager = null;
 
     private boolean mFollowRedirects = false;
 
+    /**
+     * @param synchronizeRequests if true, requests are executed one at a time; if false, without any limit.
+     */
     public OpenCloudClient(Uri baseUri,
                           ConnectionValidator connectionValidator,
                           boolean synchronizeRequests,
                           SingleSessionManager singleSessionManager,
                           Context context) {
+        this(baseUri, connectionValidator, synchronizeRequests ? 1 : 0, singleSessionManager, context);
+    }
+
+    /**
+     * @param maxConcurrentRequests number of requests allowed to run in parallel; 0 or less disables the limit
+     *                              and the hold during credential validation.
+     */
+    public OpenCloudClient(Uri baseUri,
+                          ConnectionValidator connectionValidator,
+                          int maxConcurrentRequests,
+                          SingleSessionManager singleSessionManager,
+                          Context context) {
         super(context);
 
         if (baseUri == null) {
             throw new IllegalArgumentException("Parameter 'baseUri' cannot be NULL");
         }
         mBaseUri = baseUri;
-        mSynchronizeRequests = synchronizeRequests;
+        mRequestGate = maxConcurrentRequests > 0 ? new RequestGate(maxConcurrentRequests) : null;
         mSingleSessionManager = singleSessionManager;
 
         mInstanceNumber = sIntanceCounter++;
@@ -102,12 +121,14 @@ public class OpenCloudClient extends HttpClient {
     }
 
     public int executeHttpMethod(HttpBaseMethod method) throws Exception {
-        if (mSynchronizeRequests) {
-            synchronized (mRequestMutex) {
-                return saveExecuteHttpMethod(method);
-            }
-        } else {
+        if (mRequestGate == null) {
+            return saveExecuteHttpMethod(method);
+        }
+        mRequestGate.enter();
+        try {
             return saveExecuteHttpMethod(method);
+        } finally {
+            mRequestGate.exit();
         }
     }
 
@@ -139,15 +160,19 @@ public class OpenCloudClient extends HttpClient {
             if (acceptLanguage != null && !acceptLanguage.isEmpty()) {
                 method.setRequestHeader(HttpConstants.ACCEPT_LANGUAGE_HEADER, acceptLanguage);
             }
-            method.setRequestHeader(HttpConstants.ACCEPT_ENCODING_HEADER, HttpConstants.ACCEPT_ENCODING_IDENTITY);
-            if (mCredentials.getHeaderAuth() != null && !mCredentials.getHeaderAuth().isEmpty()) {
-                method.setRequestHeader(AUTHORIZATION_HEADER, mCredentials.getHeaderAuth());
+            // Without an explicit Accept-Encoding, OkHttp asks for gzip and decompresses transparently
+            if (!method.getAcceptCompressedResponse() || method.getRequestHeader(HttpConstants.RANGE_HEADER) != null) {
+                method.setRequestHeader(HttpConstants.ACCEPT_ENCODING_HEADER, HttpConstants.ACCEPT_ENCODING_IDENTITY);
+            }
+            final OpenCloudCredentials usedCredentials = mCredentials;
+            if (usedCredentials.getHeaderAuth() != null && !usedCredentials.getHeaderAuth().isEmpty()) {
+                method.setRequestHeader(AUTHORIZATION_HEADER, usedCredentials.getHeaderAuth());
             }
 
             status = method.execute(this);
 
             if (shouldConnectionValidatorBeCalled(method, status)) {
-                retry = mConnectionValidator.validate(this, mSingleSessionManager, getContext()); // retry on success fail on no success
+                retry = validateConnection(usedCredentials); // retry on success fail on no success
             } else if (method.getFollowPermanentRedirects() && status == HTTP_MOVED_PERMANENTLY) {
                 retry = true;
                 method.setFollowRedirects(true);
@@ -158,6 +183,20 @@ public class OpenCloudClient extends HttpClient {
         return status;
     }
 
+    private boolean validateConnection(OpenCloudCredentials usedCredentials) {
+        if (mRequestGate == null) {
+            return mConnectionValidator.validate(this, mSingleSessionManager, getContext());
+        }
+        return mRequestGate.validating(() -> {
+            if (mCredentials != usedCredentials) {
+                // Another request already refreshed the credentials while this one was waiting
+                Timber.d("Credentials changed during the request; retrying without a new validation");
+                return true;
+            }
+            return mConnectionValidator.validate(this, mSingleSessionManager, getContext());
+        });
+    }
+
     private boolean shouldConnectionValidatorBeCalled(HttpBaseMethod method, int status) {
 
         return mConnectionValidator != null && (
@@ -252,6 +291,13 @@ public class OpenCloudClient extends HttpClient {
                 HttpUrl.parse(mBaseUri.toString()));
     }
 
+    /**
+     * @return number of requests allowed to run in parallel, or 0 if not limited.
+     */
+    public int getMaxConcurrentRequests() {
+        return mRequestGate != null ? mRequestGate.getMaxConcurrentRequests() : 0;
+    }
+
     public OpenCloudAccount getAccount() {
         return mAccount;
     }
@@ -0,0 +1,105 @@
+/* openCloud Android Library is available under MIT license
+ *   Copyright (C) 2026 openCloud GmbH.
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in
+ *   all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *   EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ *   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ *   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ *   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *   THE SOFTWARE.
+ *
+ */
+
+package eu.opencloud.android.lib.common
+
+import java.util.concurrent.Semaphore
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * Admission control for the requests executed through an [OpenCloudClient].
+ *
+ * Up to [maxConcurrentRequests] requests run at the same time. Credential validation runs one at a time
+ * in [validating]: while it runs, new requests are held back at [enter] so they do not go out with the
+ * credentials being replaced. Requests already on the wire are not waited for, so a long upload does not
+ * delay the validation nor the requests behind it; if they fail with the old credentials, they validate
+ * in turn and find the credentials already refreshed. With a limit of 1 this behaves like the former
+ * per-client request mutex.
+ */
+class RequestGate(val maxConcurrentRequests: Int) {
+
+    private val permits = Semaphore(maxConcurrentRequests, true)
+    private val lock = ReentrantLock()
+    private val validationFinished = lock.newCondition()
+    private var isValidating = false
+    private var heldBackRequests = 0
+
+    init {
+        require(maxConcurrentRequests > 0) { "maxConcurrentRequests must be greater than 0" }
+    }
+
+    /** Requests waiting in [enter] for a validation to finish. */
+    internal val requestsHeldBack: Int
+        get() = lock.withLock { heldBackRequests }
+
+    /**
+     * Blocks until the calling thread may send a request. Every call must be paired with [exit].
+     */
+    @Throws(InterruptedException::class)
+    fun enter() {
+        permits.acquire()
+        try {
+            lock.withLock {
+                heldBackRequests++
+                try {
+                    while (isValidating) {
+                        validationFinished.await()
+                    }
+                } finally {
+                    heldBackRequests--
+                }
+            }
+        } catch (e: InterruptedException) {
+            permits.release()
+            throw e
+        }
+    }
+
+    fun exit() {
+        permits.release()
+    }
+
+    /**
+     * Runs [block] once no other validation is running, holding back new requests until it returns.
+     * Callers that were waiting for another validation run their block afterwards, and are expected to
+     * find out from the credentials they sent whether that validation already did their work.
+     */
+    fun <T> validating(block: () -> T): T {
+        lock.withLock {
+            while (isValidating) {
+                validationFinished.awaitUninterruptibly()
+            }
+            isValidating = true
+        }
+        try {
+            return block()
+        } finally {
+            lock.withLock {
+                isValidating = false
+                validationFinished.signalAll()
+            }
+        }
+    }
+}
@@ -49,6 +49,7 @@ public class SingleSessionManager {
     private static SingleSessionManager sDefaultSingleton;
     private static String sUserAgent;
     private static ConnectionValidator sConnectionValidator;
+    private static int sMaxConcurrentRequests = OpenCloudClient.DEFAULT_MAX_CONCURRENT_REQUESTS;
 
     private ConcurrentMap<String, OpenCloudClient> mClientsWithKnownUsername = new ConcurrentHashMap<>();
     private ConcurrentMap<String, OpenCloudClient> mClientsWithUnknownUsername = new ConcurrentHashMap<>();
@@ -76,11 +77,27 @@ public class SingleSessionManager {
         sUserAgent = userAgent;
     }
 
+    public static int getMaxConcurrentRequests() {
+        return sMaxConcurrentRequests;
+    }
+
+    /**
+     * Sets how many requests each account may run in parallel. Only affects clients created afterwards.
+     *
+     * @param maxConcurrentRequests 1 to execute the requests of an account one at a time.
+     */
+    public static void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException("Parameter 'maxConcurrentRequests' must be greater than 0");
+        }
+        sMaxConcurrentRequests = maxConcurrentRequests;
+    }
+
     private static OpenCloudClient createOpenCloudClient(Uri uri,
                                                        Context context,
                                                        ConnectionValidator connectionValidator,
                                                        SingleSessionManager singleSessionManager) {
-        OpenCloudClient client = new OpenCloudClient(uri, connectionValidator, true, singleSessionManager, context);
+        OpenCloudClient client = new OpenCloudClient(uri, connectionValidator, sMaxConcurrentRequests, singleSessionManager, context);
         return client;
     }
 
@@ -28,7 +28,7 @@ import okhttp3.CookieJar
 import okhttp3.HttpUrl
 
 class CookieJarImpl(
-    private val cookieStore: HashMap<String, List<Cookie>>
+    private val cookieStore: MutableMap<String, List<Cookie>>
 ) : CookieJar {
 
     fun containsCookieWithName(cookies: List<Cookie>, name: String): Boolean {
@@ -50,6 +50,7 @@ class CookieJarImpl(
         return updatedList
     }
 
+    @Synchronized
     override fun saveFromResponse(url: HttpUrl, cookies: List<Cookie>) {
         // Avoid duplicated cookies but update
         val currentCookies: List<Cookie> = cookieStore[url.host] ?: ArrayList()
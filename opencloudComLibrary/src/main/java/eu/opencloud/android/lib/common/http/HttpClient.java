@@ -44,10 +44,14 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
+import java.security.KeyStore;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -57,11 +61,18 @@ import java.util.concurrent.TimeUnit;
  */
 
 public class HttpClient {
+    // Clients with the same TLS configuration derive from the same OkHttpClient, so they share its connection pool,
+    // dispatcher, socket factory and hostname verifier. OkHttp only reuses a connection for an identical socket
+    // factory and verifier, so sharing the pool alone would not be enough.
+    private static final Map<String, SharedTransport> sSharedTransports = new HashMap<>();
+    private static volatile boolean sHttp2Enabled = true;
+
     private Context mContext;
-    private HashMap<String, List<Cookie>> mCookieStore = new HashMap<>();
+    private Map<String, List<Cookie>> mCookieStore = new ConcurrentHashMap<>();
     private LogInterceptor mLogInterceptor = new LogInterceptor();
 
     private OkHttpClient mOkHttpClient = null;
+    private String mSharedTransportKey = null;
 
     // Alias (from the Android KeyChain) of the client certificate to present for mTLS on this
     // client's connections. Resolved per account; null means no client certificate.
@@ -75,21 +86,30 @@ public class HttpClient {
         mContext = context;
     }
 
+    /**
+     * Enables HTTP/2 for the servers that negotiate it with ALPN. Servers without it keep using HTTP/1.1.
+     * Clients already built keep their protocols until they are invalidated.
+     */
+    public static void setHttp2Enabled(boolean http2Enabled) {
+        sHttp2Enabled = http2Enabled;
+    }
+
+    public static boolean isHttp2Enabled() {
+        return sHttp2Enabled;
+    }
+
     public synchronized OkHttpClient getOkHttpClient() {
         if (mOkHttpClient == null) {
             try {
-                final X509TrustManager trustManager = new AdvancedX509TrustManager(
-                        NetworkUtils.getKnownServersStore(mContext));
-
-                final SSLContext sslContext = buildSSLContext();
-
-                KeyManager[] keyManagers = ClientCertificateManager.INSTANCE.getKeyManagers(mContext, mClientCertAlias);
-                sslContext.init(keyManagers, new TrustManager[]{trustManager}, null);
-                final SSLSocketFactory sslSocketFactory = sslContext.getSocketFactory();
+                mSharedTransportKey = buildSharedTransportKey();
 
                 // Automatic cookie handling, NOT PERSISTENT
                 final CookieJar cookieJar = new CookieJarImpl(mCookieStore);
-                mOkHttpClient = buildNewOkHttpClient(sslSocketFactory, trustManager, cookieJar);
+                mOkHttpClient = getSharedTransport(mSharedTransportKey).newBuilder()
+                        .addNetworkInterceptor(getLogInterceptor())
+                        .addNetworkInterceptor(DebugInterceptorFactory.INSTANCE.getInterceptor())
+                        .cookieJar(cookieJar)
+                        .build();
 
             } catch (NoSuchAlgorithmException nsae) {
                 Timber.e(nsae, "Could not setup SSL system.");
@@ -104,8 +124,11 @@ public class HttpClient {
 
     public synchronized void invalidate() {
         if (mOkHttpClient != null) {
-            // Drop idle keep-alive connections so the next request renegotiates TLS (e.g. with a
-            // changed client certificate) instead of reusing a connection from the old config.
+            // Drop the shared transport and its idle keep-alive connections so the next request renegotiates TLS
+            // (e.g. with a changed client certificate) instead of reusing a connection from the old config.
+            synchronized (sSharedTransports) {
+                sSharedTransports.remove(mSharedTransportKey);
+            }
             mOkHttpClient.connectionPool().evictAll();
         }
         mOkHttpClient = null;
@@ -143,22 +166,60 @@ public class HttpClient {
         }
     }
 
-    private OkHttpClient buildNewOkHttpClient(SSLSocketFactory sslSocketFactory, X509TrustManager trustManager,
-                                              CookieJar cookieJar) {
+    private String buildSharedTransportKey() {
+        return (mClientCertAlias == null ? "" : mClientCertAlias) + "|" + (sHttp2Enabled ? Protocol.HTTP_2 : Protocol.HTTP_1_1);
+    }
+
+    private OkHttpClient getSharedTransport(String key) throws Exception {
+        final KeyStore knownServersStore = NetworkUtils.getKnownServersStore(mContext);
+        synchronized (sSharedTransports) {
+            SharedTransport sharedTransport = sSharedTransports.get(key);
+            // A different known-servers store instance means it was reloaded, the old trust manager is stale
+            if (sharedTransport == null || sharedTransport.knownServersStore != knownServersStore) {
+                sharedTransport = new SharedTransport(knownServersStore, buildSharedOkHttpClient(knownServersStore));
+                sSharedTransports.put(key, sharedTransport);
+            }
+            return sharedTransport.okHttpClient;
+        }
+    }
+
+    private OkHttpClient buildSharedOkHttpClient(KeyStore knownServersStore) throws Exception {
+        final X509TrustManager trustManager = new AdvancedX509TrustManager(knownServersStore);
+
+        final SSLContext sslContext = buildSSLContext();
+
+        KeyManager[] keyManagers = ClientCertificateManager.INSTANCE.getKeyManagers(mContext, mClientCertAlias);
+        sslContext.init(keyManagers, new TrustManager[]{trustManager}, null);
+        final SSLSocketFactory sslSocketFactory = sslContext.getSocketFactory();
+
+        // Shared across clients, do not keep an activity alive through it
+        final Context appContext = mContext.getApplicationContext() != null ? mContext.getApplicationContext() : mContext;
+
+        final List<Protocol> protocols = sHttp2Enabled ?
+                Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1) :
+                Collections.singletonList(Protocol.HTTP_1_1);
+
         return new OkHttpClient.Builder()
-                .addNetworkInterceptor(getLogInterceptor())
-                .addNetworkInterceptor(DebugInterceptorFactory.INSTANCE.getInterceptor())
-                .protocols(Collections.singletonList(Protocol.HTTP_1_1))
+                .protocols(protocols)
                 .readTimeout(HttpConstants.DEFAULT_DATA_TIMEOUT, TimeUnit.MILLISECONDS)
                 .writeTimeout(HttpConstants.DEFAULT_DATA_TIMEOUT, TimeUnit.MILLISECONDS)
                 .connectTimeout(HttpConstants.DEFAULT_CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
                 .followRedirects(false)
                 .sslSocketFactory(sslSocketFactory, trustManager)
-                .hostnameVerifier(new KnownServersHostnameVerifier(mContext))
-                .cookieJar(cookieJar)
+                .hostnameVerifier(new KnownServersHostnameVerifier(appContext))
                 .build();
     }
 
+    private static final class SharedTransport {
+        private final KeyStore knownServersStore;
+        private final OkHttpClient okHttpClient;
+
+        private SharedTransport(KeyStore knownServersStore, OkHttpClient okHttpClient) {
+            this.knownServersStore = knownServersStore;
+            this.okHttpClient = okHttpClient;
+        }
+    }
+
     public Context getContext() {
         return mContext;
     }
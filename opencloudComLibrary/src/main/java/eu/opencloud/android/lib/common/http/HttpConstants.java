@@ -52,6 +52,12 @@ public class HttpConstants {
     public static final String CONTENT_TYPE_URLENCODED_UTF8 = "application/x-www-form-urlencoded; charset=utf-8";
     public static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
     public static final String ACCEPT_ENCODING_IDENTITY = "identity";
+    public static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    public static final String CONTENT_ENCODING_GZIP = "gzip";
+    public static final String RANGE_HEADER = "Range";
+    public static final String IF_RANGE_HEADER = "If-Range";
+    public static final String CONTENT_RANGE_HEADER = "Content-Range";
+    public static final String ETAG_HEADER = "ETag";
     public static final String OC_FILE_REMOTE_ID = "OC-FileId";
 
     // TUS protocol headers
@@ -99,6 +105,9 @@ public class HttpConstants {
 
     public static final String VALUE_FORMAT = "json";
     public static final String TUS_RESUMABLE_VERSION_1_0_0 = "1.0.0";
+    public static final String TUS_EXTENSION_CONCATENATION = "concatenation";
+    public static final String UPLOAD_CONCAT_PARTIAL = "partial";
+    public static final String UPLOAD_CONCAT_FINAL = "final";
 
     /***********************************************************************************************************
      ************************************************ STATUS CODES *********************************************
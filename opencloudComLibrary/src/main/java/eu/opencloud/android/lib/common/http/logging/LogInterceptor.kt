@@ -24,6 +24,8 @@
 package eu.opencloud.android.lib.common.http.logging
 
 import eu.opencloud.android.lib.common.http.HttpConstants.AUTHORIZATION_HEADER
+import eu.opencloud.android.lib.common.http.HttpConstants.CONTENT_ENCODING_GZIP
+import eu.opencloud.android.lib.common.http.HttpConstants.CONTENT_ENCODING_HEADER
 import eu.opencloud.android.lib.common.http.HttpConstants.OC_X_REQUEST_ID
 import com.squareup.moshi.Moshi
 import com.squareup.moshi.kotlin.reflect.KotlinJsonAdapterFactory
@@ -34,7 +36,9 @@ import okhttp3.Request
 import okhttp3.RequestBody
 import okhttp3.Response
 import okio.Buffer
+import okio.GzipSource
 import timber.log.Timber
+import java.io.EOFException
 import java.nio.charset.Charset
 import java.nio.charset.StandardCharsets
 import java.util.concurrent.TimeUnit
@@ -124,8 +128,11 @@ class LogInterceptor : Interceptor {
         val charset: Charset = contentType?.charset(StandardCharsets.UTF_8) ?: StandardCharsets.UTF_8
         val source = response.body?.source()
         source?.request(LIMIT_BODY_LOG)
-        val buffer = source?.buffer
-        val rawResponseBody = buffer?.clone()?.readString(charset)
+        // Network interceptor: the body is seen before OkHttp inflates it
+        val buffer = source?.buffer?.clone()?.let { body ->
+            if (CONTENT_ENCODING_GZIP.equals(response.header(CONTENT_ENCODING_HEADER), ignoreCase = true)) body.inflateGzip() else body
+        }
+        val rawResponseBody = buffer?.readString(charset)
         val bodyLength = rawResponseBody?.toByteArray(charset)?.size ?: 0
         val responseBody = getResponseBodyString(contentType, bodyLength, rawResponseBody ?: "")
         val duration = response.receivedResponseAtMillis - response.sentRequestAtMillis
@@ -156,6 +163,16 @@ class LogInterceptor : Interceptor {
         )
     }
 
+    private fun Buffer.inflateGzip(): Buffer {
+        val inflated = Buffer()
+        try {
+            GzipSource(this).use { inflated.writeAll(it) }
+        } catch (ignored: EOFException) {
+            // Only the first LIMIT_BODY_LOG bytes are buffered, log what could be inflated
+        }
+        return inflated
+    }
+
     private fun getResponseBodyString(contentType: MediaType?, contentLength: Int, responseBody: String): String? =
         if (contentType?.isLoggable() == true) {
             responseBody
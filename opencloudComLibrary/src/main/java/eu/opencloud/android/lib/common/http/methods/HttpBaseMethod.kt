@@ -25,6 +25,8 @@
 package eu.opencloud.android.lib.common.http.methods
 
 import eu.opencloud.android.lib.common.http.HttpClient
+import eu.opencloud.android.lib.common.network.BandwidthLimitInterceptor
+import eu.opencloud.android.lib.common.network.BandwidthLimiter
 import okhttp3.Call
 import okhttp3.Headers
 import okhttp3.HttpUrl
@@ -46,6 +48,15 @@ abstract class HttpBaseMethod constructor(url: URL) {
 
     var followRedirects: Boolean = true
     var retryOnConnectionFailure: Boolean = true
+
+    /**
+     * Lets the server compress the response; OkHttp then negotiates gzip and inflates the body while it is read.
+     * Disabled for file contents, so that Content-Length and byte ranges keep referring to the file itself.
+     */
+    var acceptCompressedResponse: Boolean = true
+
+    /** Budget the request and response bodies of this method are sent and read within. Null means no limit. */
+    var bandwidthLimiter: BandwidthLimiter? = null
     var connectionTimeoutVal: Long? = null
     var connectionTimeoutUnit: TimeUnit? = null
     var readTimeoutVal: Long? = null
@@ -78,6 +89,7 @@ abstract class HttpBaseMethod constructor(url: URL) {
             connectionTimeoutUnit?.let { unit ->
                connectionTimeoutVal?.let { connectTimeout(it, unit) }
             }
+            bandwidthLimiter?.let { addInterceptor(BandwidthLimitInterceptor(it)) }
         }.build()
 
         return onExecute(okHttpClient)
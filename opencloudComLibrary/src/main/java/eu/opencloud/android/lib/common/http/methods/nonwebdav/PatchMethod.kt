@@ -12,6 +12,11 @@ class PatchMethod(
     url: URL,
     private val patchRequestBody: RequestBody
 ) : HttpMethod(url) {
+    init {
+        // Uploads carry file contents, keep the exchange identity-encoded
+        acceptCompressedResponse = false
+    }
+
     @Throws(IOException::class)
     override fun onExecute(okHttpClient: OkHttpClient): Int {
         request = request.newBuilder()
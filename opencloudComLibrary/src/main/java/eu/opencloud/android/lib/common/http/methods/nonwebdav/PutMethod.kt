@@ -37,6 +37,11 @@ class PutMethod(
     url: URL,
     private val putRequestBody: RequestBody
 ) : HttpMethod(url) {
+    init {
+        // Uploads carry file contents, keep the exchange identity-encoded
+        acceptCompressedResponse = false
+    }
+
     @Throws(IOException::class)
     override fun onExecute(okHttpClient: OkHttpClient): Int {
         request = request.newBuilder()
@@ -39,6 +39,11 @@ class PutMethod(
     url: URL,
     private val putRequestBody: RequestBody
 ) : DavMethod(url) {
+    init {
+        // Uploads carry file contents, keep the exchange identity-encoded
+        acceptCompressedResponse = false
+    }
+
     @Throws(IOException::class, HttpException::class)
     public override fun onDavExecute(davResource: DavOCResource): Int {
         davResource.put(
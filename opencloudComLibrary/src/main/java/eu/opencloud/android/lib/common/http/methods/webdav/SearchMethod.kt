@@ -0,0 +1,114 @@
+/* openCloud Android Library is available under MIT license
+ *   Copyright (C) 2026 openCloud GmbH.
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in
+ *   all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *   EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ *   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ *   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ *   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *   THE SOFTWARE.
+ *
+ */
+package eu.opencloud.android.lib.common.http.methods.webdav
+
+import at.bitfire.dav4jvm.Property
+import at.bitfire.dav4jvm.Response
+import at.bitfire.dav4jvm.XmlUtils
+import eu.opencloud.android.lib.common.http.HttpConstants
+import eu.opencloud.android.lib.common.http.methods.nonwebdav.HttpMethod
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
+import okhttp3.RequestBody.Companion.toRequestBody
+import org.xmlpull.v1.XmlPullParser
+import java.io.Reader
+import java.io.StringWriter
+import java.net.URL
+
+/**
+ * REPORT search-files calls wrapper, the search of the OpenCloud server.
+ *
+ * The multistatus is parsed while it is being downloaded: every result is handed to [onResponse] as soon as it has
+ * been read, so callers can show the first results before the last ones arrive. When [onResponse] returns false the
+ * rest of the response is discarded.
+ *
+ * @param searchPattern KQL query, e.g. name:"*report*"
+ */
+class SearchMethod(
+    url: URL,
+    private val searchPattern: String,
+    private val limit: Int,
+    private val propertiesToRequest: Array<Property.Name>,
+    private val onResponse: (Response) -> Boolean,
+) : HttpMethod(url) {
+
+    override fun onExecute(okHttpClient: OkHttpClient): Int {
+        request = request.newBuilder()
+            .method(REPORT_METHOD, buildRequestBody().toRequestBody(CONTENT_TYPE_XML_UTF8.toMediaType()))
+            .build()
+        val status = super.onExecute(okHttpClient)
+        if (status == HttpConstants.HTTP_MULTI_STATUS) {
+            response.body?.charStream()?.use { parseMultiStatus(it) }
+        }
+        return status
+    }
+
+    private fun buildRequestBody(): String {
+        val writer = StringWriter()
+        XmlUtils.newSerializer().apply {
+            setOutput(writer)
+            startDocument("UTF-8", null)
+            setPrefix("d", XmlUtils.NS_WEBDAV)
+            setPrefix("oc", XmlUtils.NS_OWNCLOUD)
+            startTag(XmlUtils.NS_OWNCLOUD, "search-files")
+            startTag(XmlUtils.NS_WEBDAV, "prop")
+            propertiesToRequest.forEach { property ->
+                startTag(property.namespace, property.name).endTag(property.namespace, property.name)
+            }
+            endTag(XmlUtils.NS_WEBDAV, "prop")
+            startTag(XmlUtils.NS_OWNCLOUD, "search")
+            startTag(XmlUtils.NS_OWNCLOUD, "pattern").text(searchPattern).endTag(XmlUtils.NS_OWNCLOUD, "pattern")
+            startTag(XmlUtils.NS_OWNCLOUD, "limit").text(limit.toString()).endTag(XmlUtils.NS_OWNCLOUD, "limit")
+            endTag(XmlUtils.NS_OWNCLOUD, "search")
+            endTag(XmlUtils.NS_OWNCLOUD, "search-files")
+            endDocument()
+        }
+        return writer.toString()
+    }
+
+    private fun parseMultiStatus(reader: Reader) {
+        val location = response.request.url
+        val parser = XmlUtils.newPullParser()
+        parser.setInput(reader)
+
+        var keepReading = true
+        var eventType = parser.eventType
+        while (keepReading && eventType != XmlPullParser.END_DOCUMENT) {
+            // Children of DAV:multistatus
+            if (eventType == XmlPullParser.START_TAG && parser.depth == 2 &&
+                parser.namespace == XmlUtils.NS_WEBDAV && parser.name == "response"
+            ) {
+                Response.parse(parser, location) { davResponse, _ ->
+                    if (keepReading) keepReading = onResponse(davResponse)
+                }
+            }
+            if (keepReading) eventType = parser.next()
+        }
+    }
+
+    companion object {
+        private const val REPORT_METHOD = "REPORT"
+        private const val CONTENT_TYPE_XML_UTF8 = "${HttpConstants.CONTENT_TYPE_XML}; charset=utf-8"
+    }
+}
@@ -0,0 +1,133 @@
+/* openCloud Android Library is available under MIT license
+ *   Copyright (C) 2026 openCloud GmbH.
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in
+ *   all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *   EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ *   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ *   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ *   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *   THE SOFTWARE.
+ *
+ */
+package eu.opencloud.android.lib.common.http.methods.webdav
+
+import at.bitfire.dav4jvm.Property
+import at.bitfire.dav4jvm.Response
+import at.bitfire.dav4jvm.Response.HrefRelation
+import at.bitfire.dav4jvm.XmlUtils
+import eu.opencloud.android.lib.common.http.HttpConstants
+import eu.opencloud.android.lib.common.http.methods.nonwebdav.HttpMethod
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
+import okhttp3.RequestBody.Companion.toRequestBody
+import org.xmlpull.v1.XmlPullParser
+import java.io.Reader
+import java.io.StringWriter
+import java.net.URL
+
+/**
+ * REPORT sync-collection calls wrapper (RFC 6578).
+ *
+ * The multistatus is split into [members], the resources added or changed since [syncToken], and [removedMembers],
+ * the ones reported with a 404 status because they were deleted. [newSyncToken] is the token to send in the next
+ * request, and [isTruncated] tells if the server left changes out that have to be asked for with it.
+ */
+class SyncCollectionMethod(
+    url: URL,
+    private val syncToken: String,
+    private val syncLevel: String,
+    private val propertiesToRequest: Array<Property.Name>,
+) : HttpMethod(url) {
+
+    // response
+    val members: MutableList<Response> = arrayListOf()
+    val removedMembers: MutableList<Response> = arrayListOf()
+    var newSyncToken: String? = null
+        private set
+    var isTruncated = false
+        private set
+
+    override fun onExecute(okHttpClient: OkHttpClient): Int {
+        request = request.newBuilder()
+            .header(DEPTH_HEADER, DavConstants.DEPTH_0.toString())
+            .method(REPORT_METHOD, buildRequestBody().toRequestBody(CONTENT_TYPE_XML_UTF8.toMediaType()))
+            .build()
+        val status = super.onExecute(okHttpClient)
+        if (status == HttpConstants.HTTP_MULTI_STATUS) {
+            response.body?.charStream()?.use { parseMultiStatus(it) }
+        }
+        return status
+    }
+
+    private fun buildRequestBody(): String {
+        val writer = StringWriter()
+        XmlUtils.newSerializer().apply {
+            setOutput(writer)
+            startDocument("UTF-8", null)
+            setPrefix("d", XmlUtils.NS_WEBDAV)
+            setPrefix("oc", XmlUtils.NS_OWNCLOUD)
+            startTag(XmlUtils.NS_WEBDAV, "sync-collection")
+            startTag(XmlUtils.NS_WEBDAV, "sync-token").text(syncToken).endTag(XmlUtils.NS_WEBDAV, "sync-token")
+            startTag(XmlUtils.NS_WEBDAV, "sync-level").text(syncLevel).endTag(XmlUtils.NS_WEBDAV, "sync-level")
+            startTag(XmlUtils.NS_WEBDAV, "prop")
+            propertiesToRequest.forEach { property ->
+                startTag(property.namespace, property.name).endTag(property.namespace, property.name)
+            }
+            endTag(XmlUtils.NS_WEBDAV, "prop")
+            endTag(XmlUtils.NS_WEBDAV, "sync-collection")
+            endDocument()
+        }
+        return writer.toString()
+    }
+
+    private fun parseMultiStatus(reader: Reader) {
+        val location = response.request.url
+        val parser = XmlUtils.newPullParser()
+        parser.setInput(reader)
+
+        var eventType = parser.eventType
+        while (eventType != XmlPullParser.END_DOCUMENT) {
+            // Children of DAV:multistatus
+            if (eventType == XmlPullParser.START_TAG && parser.depth == 2 && parser.namespace == XmlUtils.NS_WEBDAV) {
+                when (parser.name) {
+                    "response" -> Response.parse(parser, location) { davResponse: Response, hrefRelation: HrefRelation ->
+                        onResponse(davResponse, hrefRelation)
+                    }
+                    "sync-token" -> newSyncToken = XmlUtils.readText(parser)
+                }
+            }
+            eventType = parser.next()
+        }
+    }
+
+    private fun onResponse(davResponse: Response, hrefRelation: HrefRelation) {
+        val responseStatus = davResponse.status?.code
+        when {
+            // The collection itself with 507 means that the result was truncated
+            hrefRelation == HrefRelation.SELF -> isTruncated = responseStatus == HttpConstants.HTTP_INSUFFICIENT_STORAGE
+            responseStatus == HttpConstants.HTTP_NOT_FOUND -> removedMembers.add(davResponse)
+            else -> members.add(davResponse)
+        }
+    }
+
+    companion object {
+        const val SYNC_LEVEL_ONE = "1"
+        const val SYNC_LEVEL_INFINITE = "infinite"
+
+        private const val REPORT_METHOD = "REPORT"
+        private const val DEPTH_HEADER = "Depth"
+        private const val CONTENT_TYPE_XML_UTF8 = "${HttpConstants.CONTENT_TYPE_XML}; charset=utf-8"
+    }
+}
@@ -0,0 +1,82 @@
+package eu.opencloud.android.lib.common.network
+
+import okhttp3.Interceptor
+import okhttp3.MediaType
+import okhttp3.RequestBody
+import okhttp3.Response
+import okhttp3.ResponseBody
+import okio.Buffer
+import okio.BufferedSink
+import okio.BufferedSource
+import okio.ForwardingSink
+import okio.ForwardingSource
+import okio.buffer
+
+/**
+ * Makes the bytes of the request body and of the response body of a call go through [limiter].
+ */
+class BandwidthLimitInterceptor(
+    private val limiter: BandwidthLimiter,
+) : Interceptor {
+
+    override fun intercept(chain: Interceptor.Chain): Response {
+        val request = chain.request()
+        val limitedRequest = request.body?.let { body ->
+            request.newBuilder().method(request.method, LimitedRequestBody(body, limiter)).build()
+        } ?: request
+
+        val response = chain.proceed(limitedRequest)
+        val body = response.body ?: return response
+        return response.newBuilder().body(LimitedResponseBody(body, limiter)).build()
+    }
+
+    private class LimitedRequestBody(
+        private val delegate: RequestBody,
+        private val limiter: BandwidthLimiter,
+    ) : RequestBody() {
+        override fun contentType(): MediaType? = delegate.contentType()
+
+        override fun contentLength(): Long = delegate.contentLength()
+
+        override fun isOneShot(): Boolean = delegate.isOneShot()
+
+        override fun isDuplex(): Boolean = delegate.isDuplex()
+
+        override fun writeTo(sink: BufferedSink) {
+            val limitedSink = object : ForwardingSink(sink) {
+                override fun write(source: Buffer, byteCount: Long) {
+                    var remaining = byteCount
+                    while (remaining > 0) {
+                        val count = minOf(remaining, limiter.chunkSize(FileRequestBody.BUFFER_SIZE).toLong())
+                        limiter.acquire(count)
+                        super.write(source, count)
+                        remaining -= count
+                    }
+                }
+            }.buffer()
+            delegate.writeTo(limitedSink)
+            limitedSink.emit()
+        }
+    }
+
+    private class LimitedResponseBody(
+        private val delegate: ResponseBody,
+        private val limiter: BandwidthLimiter,
+    ) : ResponseBody() {
+        private val limitedSource: BufferedSource by lazy {
+            object : ForwardingSource(delegate.source()) {
+                override fun read(sink: Buffer, byteCount: Long): Long {
+                    val read = super.read(sink, minOf(byteCount, limiter.chunkSize(FileRequestBody.BUFFER_SIZE).toLong()))
+                    if (read > 0) limiter.acquire(read)
+                    return read
+                }
+            }.buffer()
+        }
+
+        override fun contentType(): MediaType? = delegate.contentType()
+
+        override fun contentLength(): Long = delegate.contentLength()
+
+        override fun source(): BufferedSource = limitedSource
+    }
+}
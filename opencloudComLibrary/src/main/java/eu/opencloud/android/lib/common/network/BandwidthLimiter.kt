@@ -0,0 +1,86 @@
+package eu.opencloud.android.lib.common.network
+
+import java.io.InterruptedIOException
+import java.util.concurrent.TimeUnit
+
+/**
+ * Token bucket shared by the transfers that must not go over [bytesPerSecond] together.
+ *
+ * Every transfer asks for the bytes it is about to send or has just received. A transfer may take more bytes than
+ * the bucket holds, leaving it in debt; whoever comes next waits until the debt is paid at the current rate. The rate
+ * is read on every request, so changing it applies to the transfers in flight, within [MAX_WAIT_SLICE_MILLIS].
+ */
+class BandwidthLimiter(
+    bytesPerSecond: Long = UNLIMITED,
+    private val nanoClock: () -> Long = System::nanoTime,
+    private val sleeper: (Long) -> Unit = { Thread.sleep(it) },
+) {
+    @Volatile
+    var bytesPerSecond: Long = bytesPerSecond
+        set(value) {
+            field = value.coerceAtLeast(UNLIMITED)
+        }
+
+    private val lock = Object()
+    private var availableBytes = 0.0
+    private var lastRefillNanos = nanoClock()
+
+    val isLimited: Boolean
+        get() = bytesPerSecond > UNLIMITED
+
+    /**
+     * Blocks the calling thread until [byteCount] bytes fit in the budget.
+     *
+     * @throws InterruptedIOException if the thread is interrupted while waiting, so callers see it as a cancelled I/O.
+     */
+    fun acquire(byteCount: Long) {
+        if (byteCount <= 0) return
+        while (true) {
+            val rate = bytesPerSecond
+            val waitNanos = synchronized(lock) {
+                refill(rate)
+                if (rate <= UNLIMITED || availableBytes > 0) {
+                    if (rate > UNLIMITED) availableBytes -= byteCount
+                    return
+                }
+                ((-availableBytes + 1) * NANOS_PER_SECOND / rate).toLong()
+            }
+            try {
+                sleeper(TimeUnit.NANOSECONDS.toMillis(waitNanos).coerceIn(1, MAX_WAIT_SLICE_MILLIS))
+            } catch (e: InterruptedException) {
+                Thread.currentThread().interrupt()
+                throw InterruptedIOException("Interrupted while waiting for bandwidth")
+            }
+        }
+    }
+
+    /**
+     * Size of the writes that keep a limited transfer smooth: about a tenth of a second of traffic, never more than
+     * [defaultSize].
+     */
+    fun chunkSize(defaultSize: Int): Int {
+        val rate = bytesPerSecond
+        if (rate <= UNLIMITED) return defaultSize
+        return (rate / 10).coerceIn(MIN_CHUNK_SIZE.toLong(), defaultSize.toLong()).toInt()
+    }
+
+    private fun refill(rate: Long) {
+        val now = nanoClock()
+        val elapsedNanos = now - lastRefillNanos
+        lastRefillNanos = now
+        if (rate <= UNLIMITED) {
+            availableBytes = 0.0
+            return
+        }
+        // A quarter of a second of traffic is the largest burst an idle limiter lets through
+        val capacity = rate / 4.0
+        availableBytes = (availableBytes + elapsedNanos * rate / NANOS_PER_SECOND).coerceAtMost(capacity)
+    }
+
+    companion object {
+        const val UNLIMITED = 0L
+        const val MAX_WAIT_SLICE_MILLIS = 100L
+        private const val MIN_CHUNK_SIZE = 8 * 1024
+        private const val NANOS_PER_SECOND = 1_000_000_000.0
+    }
+}
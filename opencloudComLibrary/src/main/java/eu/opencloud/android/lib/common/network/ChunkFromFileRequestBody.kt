@@ -28,8 +28,10 @@ import okhttp3.MediaType
 import okio.BufferedSink
 import timber.log.Timber
 import java.io.File
+import java.io.IOException
 import java.nio.ByteBuffer
 import java.nio.channels.FileChannel
+import java.security.MessageDigest
 
 /**
  * A Request body that represents a file chunk and include information about the progress when uploading it
@@ -45,7 +47,8 @@ class ChunkFromFileRequestBody(
 
     private var offset: Long = 0
     private var alreadyTransferred: Long = 0
-    private val buffer = ByteBuffer.allocate(4_096)
+    private var mappedChunk: ByteBuffer? = null
+    private var mappedFileSize: Long = 0
 
     init {
         require(chunkSize > 0) { "Chunk size must be greater than zero" }
@@ -54,47 +57,99 @@ class ChunkFromFileRequestBody(
     override fun contentLength(): Long =
         chunkSize.coerceAtMost((channel.size() - offset).coerceAtLeast(0))
 
-    override fun writeTo(sink: BufferedSink) {
-        var readCount: Int
-        var iterator: Iterator<OnDatatransferProgressListener>
-        try {
-            channel.position(offset)
+    /**
+     * Maps the chunk at the current offset and returns a read-only view of it. Once mapped, the body is
+     * written from the same pages, so the bytes read to checksum the chunk are not read again to send it.
+     */
+    fun mapChunk(): ByteBuffer {
+        val chunk = mappedChunk ?: channel.map(FileChannel.MapMode.READ_ONLY, offset, contentLength()).also {
+            mappedChunk = it
+            mappedFileSize = channel.size()
+        }
+        return chunk.asReadOnlyBuffer()
+    }
 
-            val maxCount = (offset + chunkSize).coerceAtMost(channel.size())
-            while (channel.position() < maxCount) {
-                val remainingForChunk = (maxCount - channel.position()).toInt()
-                if (remainingForChunk <= 0) break
-                // limit how much we read so we never consume past the chunk boundary
-                val toRead = minOf(buffer.capacity(), remainingForChunk)
-                buffer.limit(toRead)
-                readCount = channel.read(buffer)
-                if (readCount == -1) break
-                sink.buffer.write(buffer.array(), 0, readCount)
-                sink.flush()
+    /**
+     * Digest of the chunk at the current offset, computed from [mapChunk] so that sending the chunk does not read it
+     * again. Channels that cannot be mapped, like those of some content providers, are read for the digest instead.
+     */
+    fun digestChunk(digest: MessageDigest): ByteArray {
+        val chunk = try {
+            mapChunk()
+        } catch (e: IOException) {
+            Timber.w(e, "Chunk at %d cannot be mapped, reading it for its digest", offset)
+            null
+        }
+        if (chunk != null) {
+            digest.update(chunk)
+        } else {
+            val buffer = ByteBuffer.allocateDirect(BUFFER_SIZE)
+            val end = offset + contentLength()
+            var position = offset
+            while (position < end) {
                 buffer.clear()
+                buffer.limit(minOf(BUFFER_SIZE.toLong(), end - position).toInt())
+                val read = channel.read(buffer, position)
+                if (read == -1) break
+                buffer.flip()
+                digest.update(buffer)
+                position += read
+            }
+        }
+        return digest.digest()
+    }
 
-                if (readCount > 0) {
-                    alreadyTransferred = (alreadyTransferred + readCount.toLong()).coerceAtMost(chunkSize)
-                }
-
-                val totalTransferred = offset + alreadyTransferred
-
-                synchronized(dataTransferListeners) {
-                    iterator = dataTransferListeners.iterator()
-                    while (iterator.hasNext()) {
-                        iterator.next().onTransferProgress(readCount.toLong(), totalTransferred, file.length(), file.absolutePath)
-                    }
+    override fun writeTo(sink: BufferedSink) {
+        var total = mappedFileSize
+        try {
+            progressNotifier.reset()
+            val chunk = mappedChunk
+            if (chunk != null) {
+                writeMappedChunk(chunk.duplicate(), total, sink)
+            } else {
+                total = channel.size()
+                val length = contentLength()
+                writeFromChannel(channel, position = offset, length = length, sink = sink) { read, _ ->
+                    onChunkBytesWritten(read, length, total)
                 }
             }
         } catch (exception: Exception) {
-            Timber.e(exception, "Transferred " + alreadyTransferred + " bytes from a total of " + file.length())
+            Timber.e(exception, "Transferred " + alreadyTransferred + " bytes from a total of " + total)
             throw exception
         }
     }
 
+    private fun writeMappedChunk(chunk: ByteBuffer, total: Long, sink: BufferedSink) {
+        val length = chunk.remaining().toLong()
+        while (chunk.hasRemaining()) {
+            val writeCount = minOf(BUFFER_SIZE, chunk.remaining())
+            val slice = chunk.duplicate().apply { limit(position() + writeCount) }
+            sink.buffer.write(slice)
+            chunk.position(chunk.position() + writeCount)
+            sink.emitCompleteSegments()
+
+            onChunkBytesWritten(writeCount.toLong(), length, total)
+        }
+    }
+
+    private fun onChunkBytesWritten(count: Long, length: Long, total: Long) {
+        if (count > 0) {
+            alreadyTransferred = (alreadyTransferred + count).coerceAtMost(chunkSize)
+        }
+
+        progressNotifier.onBytesTransferred(
+            read = count,
+            transferred = offset + alreadyTransferred,
+            total = total,
+            path = file.absolutePath,
+            endOfBody = alreadyTransferred >= length,
+        )
+    }
+
     fun setOffset(newOffset: Long) {
         offset = newOffset
         alreadyTransferred = 0
+        mappedChunk = null
     }
 
 }
@@ -26,10 +26,11 @@ package eu.opencloud.android.lib.common.network
 import okhttp3.MediaType
 import okhttp3.RequestBody
 import okio.BufferedSink
-import okio.Source
-import okio.source
 import timber.log.Timber
 import java.io.File
+import java.io.FileInputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
 import java.util.HashSet
 
 /**
@@ -40,35 +41,64 @@ import java.util.HashSet
 open class FileRequestBody(
     val file: File,
     private val contentType: MediaType?,
+    /** Already open channel to read instead of [file], e.g. the descriptor of a content URI. Not closed by the body. */
+    private val sourceChannel: FileChannel? = null,
 ) : RequestBody(), ProgressiveDataTransferer {
 
     val dataTransferListeners: MutableSet<OnDatatransferProgressListener> = HashSet()
+    protected val progressNotifier = TransferProgressNotifier(dataTransferListeners)
 
     override fun isOneShot(): Boolean = true
 
     override fun contentType(): MediaType? = contentType
 
-    override fun contentLength(): Long = file.length()
+    override fun contentLength(): Long = sourceChannel?.size() ?: file.length()
 
     override fun writeTo(sink: BufferedSink) {
-        // Don't swallow IO errors here — a missing source file used to silently produce
-        // a 0-byte PUT that the server happily stored (issue #78).
-        val source: Source = file.source()
-        var transferred: Long = 0
-        var read: Long
-        source.use { src ->
-            while (src.read(sink.buffer, BYTES_TO_READ).also { read = it } != -1L) {
-                transferred += read
-                sink.flush()
-                synchronized(dataTransferListeners) {
-                    val it = dataTransferListeners.iterator()
-                    while (it.hasNext()) {
-                        it.next().onTransferProgress(read, transferred, file.length(), file.absolutePath)
-                    }
-                }
-            }
+        if (sourceChannel != null) {
+            writeWholeChannel(sourceChannel, sink)
+        } else {
+            // Don't swallow IO errors here — a missing source file used to silently produce
+            // a 0-byte PUT that the server happily stored (issue #78).
+            FileInputStream(file).channel.use { channel -> writeWholeChannel(channel, sink) }
+        }
+        Timber.d("File with name ${file.name} and size ${contentLength()} written in request body")
+    }
+
+    private fun writeWholeChannel(channel: FileChannel, sink: BufferedSink) {
+        val length = channel.size()
+        progressNotifier.reset()
+        writeFromChannel(channel, position = 0, length = length, sink = sink) { read, written ->
+            progressNotifier.onBytesTransferred(read, written, length, file.absolutePath, endOfBody = written == length)
+        }
+    }
+
+    /**
+     * Streams [length] bytes of [channel] from [position] into [sink] through a large direct buffer, letting the
+     * sink write complete segments as they fill up instead of flushing it after every read. The buffer is kept per
+     * thread, as a new body is built for every chunk; its bytes are still copied into the segments of the sink.
+     * [onWritten] receives the bytes of every read and the total written so far.
+     */
+    protected fun writeFromChannel(
+        channel: FileChannel,
+        position: Long,
+        length: Long,
+        sink: BufferedSink,
+        onWritten: (read: Long, written: Long) -> Unit,
+    ) {
+        val buffer = readBuffer.get()!!
+        var written = 0L
+        while (written < length) {
+            buffer.clear()
+            buffer.limit(minOf(BUFFER_SIZE.toLong(), length - written).toInt())
+            val read = channel.read(buffer, position + written)
+            if (read == -1) break
+            buffer.flip()
+            sink.buffer.write(buffer)
+            sink.emitCompleteSegments()
+            written += read
+            onWritten(read.toLong(), written)
         }
-        Timber.d("File with name ${file.name} and size ${file.length()} written in request body")
     }
 
     override fun addDatatransferProgressListener(listener: OnDatatransferProgressListener) {
@@ -90,6 +120,8 @@ open class FileRequestBody(
     }
 
     companion object {
-        private const val BYTES_TO_READ = 4_096L
+        const val BUFFER_SIZE = 256 * 1024
+
+        private val readBuffer: ThreadLocal<ByteBuffer> = ThreadLocal.withInitial { ByteBuffer.allocateDirect(BUFFER_SIZE) }
     }
 }
@@ -0,0 +1,42 @@
+package eu.opencloud.android.lib.common.network
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Coalesces the progress of a request body into ticks for its listeners: one every [PROGRESS_INTERVAL_MILLIS],
+ * one for every [PROGRESS_STEP_PERCENT] of the total and one when the body is completely written, however small the
+ * buffers the body is written with. The bytes of the skipped updates are added to the read count of the next tick.
+ */
+class TransferProgressNotifier(
+    private val listeners: Set<OnDatatransferProgressListener>,
+) {
+    private var pendingBytes = 0L
+    private var lastTickNanos = System.nanoTime()
+
+    fun reset() {
+        pendingBytes = 0L
+        lastTickNanos = System.nanoTime()
+    }
+
+    fun onBytesTransferred(read: Long, transferred: Long, total: Long, path: String, endOfBody: Boolean) {
+        pendingBytes += read
+        val now = System.nanoTime()
+        val stepReached = total > 0 && pendingBytes * 100 >= total * PROGRESS_STEP_PERCENT
+        if (!endOfBody && !stepReached && now - lastTickNanos < PROGRESS_INTERVAL_NANOS) return
+
+        synchronized(listeners) {
+            val iterator = listeners.iterator()
+            while (iterator.hasNext()) {
+                iterator.next().onTransferProgress(pendingBytes, transferred, total, path)
+            }
+        }
+        pendingBytes = 0L
+        lastTickNanos = now
+    }
+
+    companion object {
+        const val PROGRESS_INTERVAL_MILLIS = 250L
+        const val PROGRESS_STEP_PERCENT = 1
+        private val PROGRESS_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(PROGRESS_INTERVAL_MILLIS)
+    }
+}
@@ -26,11 +26,14 @@ package eu.opencloud.android.lib.resources.files
 import eu.opencloud.android.lib.common.OpenCloudClient
 import eu.opencloud.android.lib.common.http.HttpConstants
 import eu.opencloud.android.lib.common.http.methods.nonwebdav.GetMethod
+import eu.opencloud.android.lib.common.network.BandwidthLimiter
 import eu.opencloud.android.lib.common.network.OnDatatransferProgressListener
+import eu.opencloud.android.lib.common.network.TransferProgressNotifier
 import eu.opencloud.android.lib.common.network.WebdavUtils
 import eu.opencloud.android.lib.common.operations.OperationCancelledException
 import eu.opencloud.android.lib.common.operations.RemoteOperation
 import eu.opencloud.android.lib.common.operations.RemoteOperationResult
+import eu.opencloud.android.lib.resources.files.tus.TusChecksumHelper
 import timber.log.Timber
 import java.io.BufferedInputStream
 import java.io.File
@@ -48,10 +51,16 @@ class DownloadRemoteFileOperation(
     private val remotePath: String,
     localFolderPath: String,
     private val spaceWebDavUrl: String? = null,
+    /** Size the file is expected to have; big files are downloaded in segments, see [SegmentedDownload]. */
+    private val expectedLength: Long = UNKNOWN_LENGTH,
+    private val segmentedDownloadConfig: SegmentedDownload.Config = SegmentedDownload.Config(),
 ) : RemoteOperation<Unit>() {
 
     private val cancellationRequested = AtomicBoolean(false)
+    @Volatile
+    private var keepPartialFileOnCancel = false
     private val dataTransferListeners: MutableSet<OnDatatransferProgressListener> = HashSet()
+    private val progressNotifier = TransferProgressNotifier(dataTransferListeners)
 
     var modificationTimestamp: Long = 0
         private set
@@ -59,8 +68,17 @@ class DownloadRemoteFileOperation(
     var etag: String = ""
         private set
 
+    /** Shared budget the file is read within while downloading. Null means no limit. */
+    var bandwidthLimiter: BandwidthLimiter? = null
+
     private val tmpPath: String = localFolderPath + remotePath
 
+    /**
+     * Keeps the strong ETag a partially downloaded temporal file belongs to, so that a later attempt
+     * resumes it with Range + If-Range instead of starting over.
+     */
+    private val partialEtagFile: File = File(tmpPath + PARTIAL_ETAG_SUFFIX)
+
     override fun run(client: OpenCloudClient): RemoteOperationResult<Unit> {
         // download will be performed to a temporal file, then moved to the final location
         val tmpFile = File(tmpPath)
@@ -68,7 +86,8 @@ class DownloadRemoteFileOperation(
         // perform the download
         return try {
             tmpFile.parentFile?.mkdirs()
-            downloadFile(client, tmpFile).also { result ->
+            val segmentedResult = if (shouldDownloadInSegments(tmpFile)) downloadInSegments(client, tmpFile) else null
+            (segmentedResult ?: downloadFile(client, tmpFile, resume = true)).also { result ->
                 val outcome = if (result.isSuccess) "success, etag=$etag" else result.logMessage
                 Timber.i("Download of $remotePath to $tmpPath: $outcome")
             }
@@ -80,51 +99,77 @@ class DownloadRemoteFileOperation(
     }
 
     @Throws(Exception::class)
-    private fun downloadFile(client: OpenCloudClient, targetFile: File): RemoteOperationResult<Unit> {
-        val result: RemoteOperationResult<Unit>
-        var it: Iterator<OnDatatransferProgressListener>
+    private fun downloadFile(client: OpenCloudClient, targetFile: File, resume: Boolean): RemoteOperationResult<Unit> {
+        val result: RemoteOperationResult<Unit>?
         var fos: FileOutputStream? = null
         var bis: BufferedInputStream? = null
         var savedFile = false
+        var keepPartialFile = false
+
+        val resumeEtag = if (resume) partialEtagOf(targetFile) else null
+        val offset = if (resumeEtag != null) targetFile.length() else 0L
 
         val webDavUri = spaceWebDavUrl ?: client.userFilesWebDavUri.toString()
-        val getMethod = GetMethod(URL(webDavUri + WebdavUtils.encodePath(remotePath)))
+        val getMethod = GetMethod(URL(webDavUri + WebdavUtils.encodePath(remotePath))).apply {
+            acceptCompressedResponse = false
+            bandwidthLimiter = this@DownloadRemoteFileOperation.bandwidthLimiter
+            if (resumeEtag != null) {
+                setRequestHeader(HttpConstants.RANGE_HEADER, "bytes=$offset-")
+                setRequestHeader(HttpConstants.IF_RANGE_HEADER, resumeEtag)
+            }
+        }
 
         try {
             val status = client.executeHttpMethod(getMethod)
+            val resumed = status == HttpConstants.HTTP_PARTIAL_CONTENT && resumeEtag != null &&
+                    getMethod.getResponseHeader(HttpConstants.ETAG_HEADER).let { it == null || it == resumeEtag } &&
+                    contentRangeStartOf(getMethod) == offset
+            val receivingFile = status == HttpConstants.HTTP_OK || resumed
+            val restartFromScratch = resumeEtag != null && !resumed &&
+                    (status == HttpConstants.HTTP_PARTIAL_CONTENT || status == HttpConstants.HTTP_REQUESTED_RANGE_NOT_SATISFIABLE)
+            var corruptedAfterResume = false
+
+            if (receivingFile) {
+                // A 200 answer to a ranged request means the file changed, its content replaces the partial one
+                val responseEtag = getMethod.getResponseHeader(HttpConstants.ETAG_HEADER) ?: resumeEtag.takeIf { resumed }
+                keepPartialFile = isStrongEtag(responseEtag)
+                if (keepPartialFile) partialEtagFile.writeText(responseEtag!!) else partialEtagFile.delete()
 
-            if (isSuccess(status)) {
                 targetFile.createNewFile()
                 bis = BufferedInputStream(getMethod.getResponseBodyAsStream())
-                fos = FileOutputStream(targetFile)
-                var transferred: Long = 0
+                fos = FileOutputStream(targetFile, resumed)
+                var transferred: Long = if (resumed) offset else 0
                 val contentLength = getMethod.getResponseHeader(HttpConstants.CONTENT_LENGTH_HEADER)
                 val totalToTransfer = if (!contentLength.isNullOrEmpty()) {
-                    contentLength.toLong()
+                    contentLength.toLong() + transferred
                 } else {
                     -1L
                 }
-                val bytes = ByteArray(4096)
+                val bytes = ByteArray(BUFFER_SIZE)
+                progressNotifier.reset()
                 var readResult: Int
                 while (bis.read(bytes).also { readResult = it } != -1) {
                     synchronized(cancellationRequested) {
                         if (cancellationRequested.get()) {
+                            // Nobody is going to resume a download the user cancelled
+                            if (!keepPartialFileOnCancel) keepPartialFile = false
                             getMethod.abort()
                             throw OperationCancelledException()
                         }
                     }
                     fos.write(bytes, 0, readResult)
                     transferred += readResult.toLong()
-                    synchronized(dataTransferListeners) {
-                        it = dataTransferListeners.iterator()
-                        while (it.hasNext()) {
-                            it.next()
-                                .onTransferProgress(readResult.toLong(), transferred, totalToTransfer, targetFile.name)
-                        }
-                    }
+                    progressNotifier.onBytesTransferred(
+                        readResult.toLong(), transferred, totalToTransfer, targetFile.name, endOfBody = transferred == totalToTransfer
+                    )
                 }
 
-                if (totalToTransfer == -1L || transferred == totalToTransfer) {  // Check if the file is completed
+                val completed = totalToTransfer == -1L || transferred == totalToTransfer  // Check if the file is completed
+                if (completed && resumed && !matchesServerChecksum(getMethod, targetFile)) {
+                    Timber.w("Checksum of resumed download of %s does not match, downloading it again", remotePath)
+                    keepPartialFile = false
+                    corruptedAfterResume = true
+                } else if (completed) {
                     savedFile = true
                     val modificationTime =
                         getMethod.getResponseHeaders()?.get("Last-Modified")
@@ -147,30 +192,107 @@ class DownloadRemoteFileOperation(
                     Timber.e("Content-Length not equal to transferred bytes.")
                     Timber.d("totalToTransfer = $totalToTransfer, transferred = $transferred")
                     client.exhaustResponse(getMethod.getResponseBodyAsStream())
-                    // TODO some kind of error control!
                 }
 
+            } else if (restartFromScratch) {
+                Timber.w("Server did not resume download of %s at %d (status %d), downloading it again", remotePath, offset, status)
+                client.exhaustResponse(getMethod.getResponseBodyAsStream())
             } else if (status != HttpConstants.HTTP_FORBIDDEN && status != HttpConstants.HTTP_SERVICE_UNAVAILABLE) {
                 client.exhaustResponse(getMethod.getResponseBodyAsStream())
             } // else, body read by RemoteOperationResult constructor
 
             result =
-                if (isSuccess(status)) {
-                    RemoteOperationResult(RemoteOperationResult.ResultCode.OK)
-                } else {
-                    RemoteOperationResult(getMethod)
+                when {
+                    restartFromScratch || corruptedAfterResume -> null
+                    // Incomplete body, the partial file is kept to be resumed by the next attempt
+                    receivingFile && !savedFile -> RemoteOperationResult(RemoteOperationResult.ResultCode.NETWORK_ERROR)
+                    receivingFile -> RemoteOperationResult(RemoteOperationResult.ResultCode.OK)
+                    else -> RemoteOperationResult(getMethod)
                 }
         } finally {
             fos?.close()
             bis?.close()
-            if (!savedFile && targetFile.exists()) {
+            if (savedFile) {
+                partialEtagFile.delete()
+            } else if (!keepPartialFile || targetFile.length() == 0L) {
                 targetFile.delete()
+                partialEtagFile.delete()
             }
         }
+        return result ?: downloadFile(client, targetFile, resume = false)
+    }
+
+    private fun shouldDownloadInSegments(targetFile: File): Boolean =
+        SegmentedDownload.hasSegmentsToResume(targetFile) ||
+                (expectedLength >= segmentedDownloadConfig.threshold && !partialEtagFile.exists())
+
+    /**
+     * Downloads the file in concurrent byte ranges. Returns null when the server cannot serve them, or the
+     * assembled file did not match its checksum, so that the file is downloaded in one request instead.
+     */
+    private fun downloadInSegments(client: OpenCloudClient, targetFile: File): RemoteOperationResult<Unit>? {
+        val webDavUri = spaceWebDavUrl ?: client.userFilesWebDavUri.toString()
+        val segmentedDownload = SegmentedDownload(
+            client = client,
+            url = URL(webDavUri + WebdavUtils.encodePath(remotePath)),
+            targetFile = targetFile,
+            config = segmentedDownloadConfig,
+            bandwidthLimiter = bandwidthLimiter,
+            isCancelled = { cancellationRequested.get() },
+            keepSegmentsOnCancel = { keepPartialFileOnCancel },
+        ) { read, transferred, total ->
+            // Segments report from their own threads, and the notifier is not thread safe
+            synchronized(progressNotifier) {
+                progressNotifier.onBytesTransferred(read, transferred, total, targetFile.name, endOfBody = transferred == total)
+            }
+        }
+        val result = segmentedDownload.run() ?: return null
+        if (result.isSuccess) {
+            etag = segmentedDownload.etag.replace("\"", "")
+            modificationTimestamp = segmentedDownload.lastModifiedHeader?.let { WebdavUtils.parseResponseDate(it)?.time } ?: 0
+        }
         return result
     }
 
-    private fun isSuccess(status: Int) = status == HttpConstants.HTTP_OK
+    /**
+     * Strong ETag of the partial temporal file, or null (forgetting any stale one) when there is nothing to resume.
+     */
+    private fun partialEtagOf(targetFile: File): String? {
+        val partialEtag = partialEtagFile.takeIf { it.exists() && targetFile.length() > 0 }?.readText()
+        if (!isStrongEtag(partialEtag)) {
+            partialEtagFile.delete()
+            return null
+        }
+        return partialEtag
+    }
+
+    /**
+     * Weak ETags cannot validate byte ranges, so If-Range requires a strong one.
+     */
+    private fun isStrongEtag(etag: String?): Boolean =
+        !etag.isNullOrBlank() && !etag.startsWith(WEAK_ETAG_PREFIX)
+
+    /**
+     * First byte position of a "Content-Range: bytes first-last/length" response header.
+     */
+    private fun contentRangeStartOf(getMethod: GetMethod): Long? =
+        getMethod.getResponseHeader(HttpConstants.CONTENT_RANGE_HEADER)
+            ?.removePrefix(CONTENT_RANGE_UNIT)
+            ?.substringBefore('-')
+            ?.trim()
+            ?.toLongOrNull()
+
+    /**
+     * Compares the assembled file with the SHA1 announced in OC-Checksum, if the server sends one.
+     */
+    private fun matchesServerChecksum(getMethod: GetMethod, file: File): Boolean {
+        val expectedSha1 = getMethod.getResponseHeader(HttpConstants.OC_CHECKSUM_HEADER)
+            ?.split(' ')
+            ?.firstOrNull { it.startsWith(SHA1_CHECKSUM_PREFIX, ignoreCase = true) }
+            ?.substringAfter(':')
+            ?: return true
+        return TusChecksumHelper.sha1Hex(file).equals(expectedSha1, ignoreCase = true)
+    }
 
     fun addDatatransferProgressListener(listener: OnDatatransferProgressListener) {
         synchronized(dataTransferListeners) { dataTransferListeners.add(listener) }
@@ -180,7 +302,21 @@ class DownloadRemoteFileOperation(
         synchronized(dataTransferListeners) { dataTransferListeners.remove(listener) }
     }
 
-    fun cancel() {
+    /**
+     * Stops the download. What was downloaded so far is deleted, unless [keepPartialFile] is set because the download
+     * was only interrupted, e.g. by the system, and the next attempt resumes it.
+     */
+    fun cancel(keepPartialFile: Boolean = false) {
+        keepPartialFileOnCancel = keepPartialFile
         cancellationRequested.set(true) // atomic set; there is no need of synchronizing it
     }
+
+    companion object {
+        const val PARTIAL_ETAG_SUFFIX = ".partial-etag"
+        const val UNKNOWN_LENGTH = -1L
+        private const val WEAK_ETAG_PREFIX = "W/"
+        private const val CONTENT_RANGE_UNIT = "bytes "
+        private const val SHA1_CHECKSUM_PREFIX = "SHA1:"
+        private const val BUFFER_SIZE = 64 * 1024
+    }
 }
@@ -0,0 +1,89 @@
+/* openCloud Android Library is available under MIT license
+ *   Copyright (C) 2026 openCloud GmbH.
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in
+ *   all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *   EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ *   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ *   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ *   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *   THE SOFTWARE.
+ *
+ */
+package eu.opencloud.android.lib.resources.files
+
+import at.bitfire.dav4jvm.PropertyRegistry
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.lib.common.http.HttpConstants.HTTP_MULTI_STATUS
+import eu.opencloud.android.lib.common.http.HttpConstants.HTTP_OK
+import eu.opencloud.android.lib.common.http.methods.webdav.DavConstants.DEPTH_0
+import eu.opencloud.android.lib.common.http.methods.webdav.PropfindMethod
+import eu.opencloud.android.lib.common.http.methods.webdav.properties.DavSyncToken
+import eu.opencloud.android.lib.common.network.WebdavUtils
+import eu.opencloud.android.lib.common.operations.RemoteOperation
+import eu.opencloud.android.lib.common.operations.RemoteOperationResult
+import eu.opencloud.android.lib.common.utils.isOneOf
+import timber.log.Timber
+import java.net.URL
+
+/**
+ * Remote operation reading the current DAV:sync-token of a collection, the starting point for
+ * [SyncCollectionRemoteOperation]. The result data is null if the server does not support sync-collection.
+ */
+class GetRemoteSyncTokenOperation(
+    val remotePath: String,
+    val spaceWebDavUrl: String? = null,
+) : RemoteOperation<String?>() {
+
+    override fun run(client: OpenCloudClient): RemoteOperationResult<String?> {
+        try {
+            PropertyRegistry.register(DavSyncToken.Factory())
+
+            val propFind = PropfindMethod(
+                url = getFinalWebDavUrl(),
+                depth = DEPTH_0,
+                propertiesToRequest = arrayOf(DavSyncToken.NAME)
+            )
+
+            val status = client.executeHttpMethod(propFind)
+            Timber.i("Read sync token of $remotePath with status $status")
+
+            return if (isSuccess(status)) {
+                val syncToken = propFind.root?.propstat
+                    ?.flatMap { it.properties }
+                    ?.filterIsInstance<DavSyncToken>()
+                    ?.firstOrNull()
+                    ?.token
+
+                RemoteOperationResult<String?>(RemoteOperationResult.ResultCode.OK).apply {
+                    data = syncToken
+                }
+            } else {
+                RemoteOperationResult<String?>(propFind).also {
+                    client.exhaustResponse(propFind.getResponseBodyAsStream())
+                }
+            }
+        } catch (exception: Exception) {
+            return RemoteOperationResult(exception)
+        }
+    }
+
+    private fun getFinalWebDavUrl(): URL {
+        val baseWebDavUrl = spaceWebDavUrl ?: client.userFilesWebDavUri.toString()
+
+        return URL(baseWebDavUrl + WebdavUtils.encodePath(remotePath))
+    }
+
+    private fun isSuccess(status: Int) = status.isOneOf(HTTP_MULTI_STATUS, HTTP_OK)
+}
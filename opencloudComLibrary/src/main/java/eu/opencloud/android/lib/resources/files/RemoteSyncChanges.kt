@@ -0,0 +1,42 @@
+/* openCloud Android Library is available under MIT license
+ *   Copyright (C) 2026 openCloud GmbH.
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in
+ *   all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *   EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ *   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ *   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ *   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *   THE SOFTWARE.
+ *
+ */
+package eu.opencloud.android.lib.resources.files
+
+/**
+ * Changes in a collection since a sync token, as reported by [SyncCollectionRemoteOperation].
+ *
+ * @property syncToken token to ask for the next changes. Null if [isFullRefreshNeeded].
+ * @property changedFiles files and folders added or modified since the previous token.
+ * @property removedPaths paths of the files and folders deleted since the previous token.
+ * @property isTruncated true if the server left changes out; they are returned asking again with [syncToken].
+ * @property isFullRefreshNeeded true if the server does not support sync-collection or rejected the token, so the
+ * changes are unknown and the collection has to be read again.
+ */
+data class RemoteSyncChanges(
+    val syncToken: String?,
+    val changedFiles: List<RemoteFile> = emptyList(),
+    val removedPaths: List<String> = emptyList(),
+    val isTruncated: Boolean = false,
+    val isFullRefreshNeeded: Boolean = false,
+)
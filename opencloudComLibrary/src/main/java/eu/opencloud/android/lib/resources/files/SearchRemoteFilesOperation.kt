@@ -0,0 +1,137 @@
+/* openCloud Android Library is available under MIT license
+ *   Copyright (C) 2026 openCloud GmbH.
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in
+ *   all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *   EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ *   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ *   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ *   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *   THE SOFTWARE.
+ *
+ */
+package eu.opencloud.android.lib.resources.files
+
+import at.bitfire.dav4jvm.PropertyRegistry
+import at.bitfire.dav4jvm.Response
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.lib.common.accounts.AccountUtils
+import eu.opencloud.android.lib.common.http.HttpConstants.HTTP_MULTI_STATUS
+import eu.opencloud.android.lib.common.http.methods.webdav.DavUtils
+import eu.opencloud.android.lib.common.http.methods.webdav.SearchMethod
+import eu.opencloud.android.lib.common.http.methods.webdav.properties.OCChecksums
+import eu.opencloud.android.lib.common.http.methods.webdav.properties.OCShareTypes
+import eu.opencloud.android.lib.common.operations.RemoteOperation
+import eu.opencloud.android.lib.common.operations.RemoteOperationResult
+import eu.opencloud.android.lib.common.operations.RemoteOperationResult.ResultCode
+import timber.log.Timber
+import java.net.URL
+import java.net.URLDecoder
+import java.nio.charset.StandardCharsets
+
+/**
+ * Remote operation searching files in every space of the account with the server search.
+ *
+ * Results are not collected in the result of the operation. They are delivered to [onPage] in groups of [pageSize]
+ * while the response is being read, so the first ones can be shown before the whole response is downloaded. When
+ * [onPage] returns false the operation stops reading and finishes successfully.
+ *
+ * The result holds the number of files delivered.
+ *
+ * @param searchPattern KQL query, e.g. name:"*report*"
+ */
+class SearchRemoteFilesOperation(
+    private val searchPattern: String,
+    private val limit: Int,
+    private val pageSize: Int,
+    private val onPage: (List<RemoteSearchResult>) -> Boolean,
+) : RemoteOperation<Int>() {
+
+    override fun run(client: OpenCloudClient): RemoteOperationResult<Int> {
+        try {
+            PropertyRegistry.register(OCShareTypes.Factory())
+            PropertyRegistry.register(OCChecksums.Factory())
+
+            val userId = AccountUtils.getUserId(mAccount, mContext)
+            val spacesDavUrl = client.baseUri.toString() + SPACES_DAV_PATH
+            val page = mutableListOf<RemoteSearchResult>()
+            var delivered = 0
+            var keepReading = true
+
+            fun deliverPage() {
+                if (page.isEmpty()) return
+                delivered += page.size
+                keepReading = onPage(page.toList())
+                page.clear()
+            }
+
+            val searchMethod = SearchMethod(
+                url = URL(spacesDavUrl),
+                searchPattern = searchPattern,
+                limit = limit,
+                propertiesToRequest = DavUtils.allPropSet,
+            ) { davResponse ->
+                if (davResponse.isSuccess()) {
+                    page.add(davResponse.toSearchResult(spacesDavUrl, userId))
+                    if (page.size >= pageSize) deliverPage()
+                }
+                keepReading
+            }
+
+            val status = client.executeHttpMethod(searchMethod)
+
+            return if (status == HTTP_MULTI_STATUS) {
+                if (keepReading) deliverPage()
+                RemoteOperationResult<Int>(ResultCode.OK).apply {
+                    data = delivered
+                    Timber.i("Search delivered $delivered results - HTTP status code: $status")
+                }
+            } else {
+                RemoteOperationResult<Int>(searchMethod).also {
+                    Timber.w("Search ${it.logMessage}")
+                }
+            }
+        } catch (e: Exception) {
+            return RemoteOperationResult<Int>(e).also {
+                Timber.e(it.exception, "Search")
+            }
+        }
+    }
+
+    /**
+     * Results come as /remote.php/dav/spaces/{spaceId}/{path}. Servers without spaces answer with the legacy files
+     * endpoint, handled by [RemoteFile.getRemoteFileFromDav] as usual.
+     */
+    private fun Response.toSearchResult(spacesDavUrl: String, userId: String): RemoteSearchResult {
+        val decodedHref = URLDecoder.decode(href.toString(), StandardCharsets.UTF_8.name())
+        val spaceId = decodedHref.substringAfter(SPACES_DAV_PATH, missingDelimiterValue = "")
+            .substringBefore('/')
+            .takeIf { it.isNotEmpty() }
+
+        val remoteFile = RemoteFile.getRemoteFileFromDav(
+            davResource = this,
+            userId = userId,
+            userName = mAccount.name,
+            spaceWebDavUrl = spaceId?.let { "$spacesDavUrl$it" },
+        ).apply {
+            if (remotePath.isEmpty()) remotePath = ROOT_PATH
+        }
+        return RemoteSearchResult(spaceId = spaceId, remoteFile = remoteFile)
+    }
+
+    companion object {
+        private const val SPACES_DAV_PATH = "/remote.php/dav/spaces/"
+        private const val ROOT_PATH = "/"
+    }
+}
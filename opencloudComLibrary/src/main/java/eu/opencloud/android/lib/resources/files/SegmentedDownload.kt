@@ -0,0 +1,316 @@
+package eu.opencloud.android.lib.resources.files
+
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.lib.common.http.HttpConstants
+import eu.opencloud.android.lib.common.http.methods.nonwebdav.GetMethod
+import eu.opencloud.android.lib.common.network.BandwidthLimiter
+import eu.opencloud.android.lib.common.operations.OperationCancelledException
+import eu.opencloud.android.lib.common.operations.RemoteOperationResult
+import eu.opencloud.android.lib.resources.files.tus.TusChecksumHelper
+import timber.log.Timber
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.net.URL
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.Collections
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.ExecutorCompletionService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Downloads a file as several byte ranges fetched at the same time, each one written at its position of a temporal
+ * file preallocated with the final size.
+ *
+ * A first one-byte request learns the size and the strong ETag of the file; every range is then asked for with
+ * If-Range on that ETag, so a file changed meanwhile is noticed instead of being mixed up. How far every range got is
+ * kept next to the temporal file, so an interrupted download resumes each range from its last byte.
+ */
+class SegmentedDownload(
+    private val client: OpenCloudClient,
+    private val url: URL,
+    private val targetFile: File,
+    private val config: Config,
+    private val bandwidthLimiter: BandwidthLimiter?,
+    private val isCancelled: () -> Boolean,
+    /** Whether a cancelled download keeps its segments to be resumed, instead of deleting them. */
+    private val keepSegmentsOnCancel: () -> Boolean = { false },
+    private val onProgress: (read: Long, transferred: Long, total: Long) -> Unit,
+) {
+
+    data class Config(
+        /** Files from this size on are downloaded in segments. */
+        val threshold: Long = 32L * 1024 * 1024,
+        val maxSegments: Int = 4,
+        val minSegmentSize: Long = 8L * 1024 * 1024,
+    )
+
+    /** Bytes [start, end) of the file; [next] is the first one still missing. */
+    private data class Segment(val start: Long, val end: Long, val next: Long)
+
+    private class SegmentsState(val etag: String, val length: Long, val segments: MutableList<Segment>)
+
+    private class FileChangedException : IOException("File changed on the server during a segmented download")
+
+    private class UnexpectedResponseException(val method: GetMethod) : IOException("Unexpected response to a range request")
+
+    private val stateFile = File(targetFile.absolutePath + SEGMENTS_SUFFIX)
+    private val activeMethods: MutableSet<GetMethod> = Collections.synchronizedSet(HashSet())
+
+    var etag: String = ""
+        private set
+    @Volatile
+    var lastModifiedHeader: String? = null
+        private set
+    @Volatile
+    private var checksumHeader: String? = null
+
+    /**
+     * Returns the result of the download, or null when the server cannot serve ranges of this file, or the file changed
+     * or did not match its checksum; the caller then downloads the whole file in one request.
+     */
+    fun run(): RemoteOperationResult<Unit>? {
+        val state = readState() ?: return startNew()
+        return downloadSegments(state)
+    }
+
+    private fun startNew(): RemoteOperationResult<Unit>? {
+        discard()
+        val probe = GetMethod(url).apply {
+            acceptCompressedResponse = false
+            setRequestHeader(HttpConstants.RANGE_HEADER, "bytes=0-0")
+        }
+        val status = client.executeHttpMethod(probe)
+        val probeEtag = probe.getResponseHeader(HttpConstants.ETAG_HEADER)
+        val length = probe.getResponseHeader(HttpConstants.CONTENT_RANGE_HEADER)?.substringAfterLast('/')?.trim()?.toLongOrNull()
+        if (status != HttpConstants.HTTP_PARTIAL_CONTENT) {
+            if (status == HttpConstants.HTTP_OK) {
+                client.exhaustResponse(probe.getResponseBodyAsStream())
+                return null
+            }
+            return RemoteOperationResult(probe)
+        }
+        client.exhaustResponse(probe.getResponseBodyAsStream())
+        if (length == null || length < config.threshold || probeEtag.isNullOrBlank() || probeEtag.startsWith(WEAK_ETAG_PREFIX)) {
+            Timber.d("Download of %s cannot be split (length=%s, etag=%s)", url, length, probeEtag)
+            return null
+        }
+
+        val segmentCount = ((length + config.minSegmentSize - 1) / config.minSegmentSize).coerceIn(1, config.maxSegments.toLong()).toInt()
+        val segmentSize = (length + segmentCount - 1) / segmentCount
+        val segments = (0 until segmentCount).map { index ->
+            val start = index * segmentSize
+            Segment(start = start, end = minOf(start + segmentSize, length), next = start)
+        }
+        targetFile.parentFile?.mkdirs()
+        RandomAccessFile(targetFile, "rw").use { it.setLength(length) }
+        val state = SegmentsState(probeEtag, length, segments.toMutableList())
+        writeState(state)
+        Timber.d("Downloading %s (%d bytes) in %d segments", url, length, segmentCount)
+        return downloadSegments(state)
+    }
+
+    private fun downloadSegments(state: SegmentsState): RemoteOperationResult<Unit>? {
+        val transferred = AtomicLong(state.segments.sumOf { it.next - it.start })
+        val pending = state.segments.indices.filter { state.segments[it].next < state.segments[it].end }
+
+        val failure = RandomAccessFile(targetFile, "rw").use { file ->
+            val executor = Executors.newFixedThreadPool(pending.size.coerceAtLeast(1))
+            try {
+                val completion = ExecutorCompletionService<Unit>(executor)
+                pending.forEach { index ->
+                    completion.submit { downloadSegment(file.channel, state, index, transferred) }
+                }
+                var firstFailure: Throwable? = null
+                repeat(pending.size) {
+                    try {
+                        completion.take().get()
+                    } catch (e: ExecutionException) {
+                        // One failed segment fails the download: stop the others, and wait for them so that
+                        // nobody writes to the file or its state once this failure is handled
+                        if (firstFailure == null) {
+                            firstFailure = e.cause ?: e
+                            activeMethods.toList().forEach { it.abort() }
+                        }
+                    }
+                }
+                firstFailure
+            } finally {
+                executor.shutdownNow()
+            }
+        }
+        writeState(state)
+        failure?.let { return onSegmentFailure(state, it) }
+
+        if (!matchesChecksum()) {
+            Timber.w("Checksum of the segmented download of %s does not match, downloading it again", url)
+            discard()
+            return null
+        }
+        stateFile.delete()
+        etag = state.etag
+        return RemoteOperationResult(RemoteOperationResult.ResultCode.OK)
+    }
+
+    private fun onSegmentFailure(state: SegmentsState, cause: Throwable): RemoteOperationResult<Unit>? =
+        when {
+            cause is OperationCancelledException || isCancelled() -> {
+                if (!keepSegmentsOnCancel()) discard()
+                throw OperationCancelledException()
+            }
+            cause is FileChangedException -> {
+                Timber.w("%s changed on the server, downloading it again", url)
+                discard()
+                null
+            }
+            cause is UnexpectedResponseException -> {
+                // Retrying does not help a file that is gone or forbidden, so its preallocated space is released;
+                // server errors keep the segments to be resumed
+                if (cause.method.statusCode < HttpConstants.HTTP_INTERNAL_SERVER_ERROR) discard()
+                RemoteOperationResult(cause.method)
+            }
+            // The segments are kept to be resumed by the next attempt
+            cause is IOException -> RemoteOperationResult<Unit>(RemoteOperationResult.ResultCode.NETWORK_ERROR).also {
+                Timber.w(cause, "Segmented download of %s interrupted with %d bytes missing", url, state.missingBytes())
+            }
+            else -> throw cause
+        }
+
+    private fun downloadSegment(channel: FileChannel, state: SegmentsState, index: Int, transferred: AtomicLong) {
+        val segment = synchronized(state) { state.segments[index] }
+        val method = GetMethod(url).apply {
+            acceptCompressedResponse = false
+            bandwidthLimiter = this@SegmentedDownload.bandwidthLimiter
+            setRequestHeader(HttpConstants.RANGE_HEADER, "bytes=${segment.next}-${segment.end - 1}")
+            setRequestHeader(HttpConstants.IF_RANGE_HEADER, state.etag)
+        }
+        activeMethods.add(method)
+        try {
+            val status = client.executeHttpMethod(method)
+            val rangeStart = method.getResponseHeader(HttpConstants.CONTENT_RANGE_HEADER)
+                ?.removePrefix(CONTENT_RANGE_UNIT)?.substringBefore('-')?.trim()?.toLongOrNull()
+            when {
+                status == HttpConstants.HTTP_OK ||
+                    method.getResponseHeader(HttpConstants.ETAG_HEADER).let { it != null && it != state.etag } -> {
+                    client.exhaustResponse(method.getResponseBodyAsStream())
+                    throw FileChangedException()
+                }
+                status != HttpConstants.HTTP_PARTIAL_CONTENT -> throw UnexpectedResponseException(method)
+                rangeStart != segment.next -> {
+                    client.exhaustResponse(method.getResponseBodyAsStream())
+                    throw FileChangedException()
+                }
+            }
+            synchronized(this) {
+                lastModifiedHeader = lastModifiedHeader ?: method.getResponseHeader(LAST_MODIFIED_HEADER)
+                checksumHeader = checksumHeader ?: method.getResponseHeader(HttpConstants.OC_CHECKSUM_HEADER)
+            }
+
+            val input = method.getResponseBodyAsStream() ?: throw IOException("Empty response to a range request")
+            input.use {
+                val bytes = ByteArray(BUFFER_SIZE)
+                var position = segment.next
+                var sinceCheckpoint = 0L
+                while (position < segment.end) {
+                    if (isCancelled()) {
+                        method.abort()
+                        throw OperationCancelledException()
+                    }
+                    val read = input.read(bytes, 0, minOf(bytes.size.toLong(), segment.end - position).toInt())
+                    if (read == -1) break
+                    val buffer = ByteBuffer.wrap(bytes, 0, read)
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer, position + buffer.position())
+                    }
+                    position += read
+                    sinceCheckpoint += read
+                    onProgress(read.toLong(), transferred.addAndGet(read.toLong()), state.length)
+                    if (sinceCheckpoint >= CHECKPOINT_BYTES || position == segment.end) {
+                        synchronized(state) {
+                            state.segments[index] = segment.copy(next = position)
+                            writeState(state)
+                        }
+                        sinceCheckpoint = 0
+                    }
+                }
+                if (position < segment.end) {
+                    synchronized(state) { state.segments[index] = segment.copy(next = position) }
+                    throw IOException("Range ${segment.start}-${segment.end} ended at $position")
+                }
+            }
+        } finally {
+            activeMethods.remove(method)
+        }
+    }
+
+    /**
+     * Whole-file SHA1 announced by the server in OC-Checksum, if it sent one, compared with the assembled file.
+     */
+    private fun matchesChecksum(): Boolean {
+        val expectedSha1 = checksumHeader
+            ?.split(' ')
+            ?.firstOrNull { it.startsWith(SHA1_CHECKSUM_PREFIX, ignoreCase = true) }
+            ?.substringAfter(':')
+            ?: return true
+        return TusChecksumHelper.sha1Hex(targetFile).equals(expectedSha1, ignoreCase = true)
+    }
+
+    private fun SegmentsState.missingBytes(): Long = segments.sumOf { it.end - it.next }
+
+    /**
+     * State of a previous attempt, if the temporal file still has the size it was preallocated with.
+     */
+    private fun readState(): SegmentsState? {
+        val lines = stateFile.takeIf { it.exists() }?.readLines() ?: return null
+        val state = try {
+            SegmentsState(
+                etag = lines[0],
+                length = lines[1].toLong(),
+                segments = lines.drop(2).filter { it.isNotBlank() }.map { line ->
+                    val (start, end, next) = line.split(' ').map { it.toLong() }
+                    Segment(start, end, next)
+                }.toMutableList(),
+            )
+        } catch (e: RuntimeException) {
+            Timber.w(e, "Discarding unreadable segments of %s", targetFile)
+            null
+        }
+        if (state == null || state.segments.isEmpty() || targetFile.length() != state.length) {
+            discard()
+            return null
+        }
+        return state
+    }
+
+    private fun writeState(state: SegmentsState) {
+        val content = buildString {
+            appendLine(state.etag)
+            appendLine(state.length)
+            state.segments.forEach { appendLine("${it.start} ${it.end} ${it.next}") }
+        }
+        val tmpStateFile = File(stateFile.absolutePath + ".tmp")
+        tmpStateFile.writeText(content)
+        tmpStateFile.renameTo(stateFile)
+    }
+
+    fun discard() {
+        stateFile.delete()
+        targetFile.delete()
+    }
+
+    companion object {
+        const val SEGMENTS_SUFFIX = ".segments"
+
+        /** Whether a previous attempt left segments to resume for [targetFile]. */
+        fun hasSegmentsToResume(targetFile: File): Boolean = File(targetFile.absolutePath + SEGMENTS_SUFFIX).exists()
+
+        private const val BUFFER_SIZE = 64 * 1024
+        private const val CHECKPOINT_BYTES = 1024L * 1024
+        private const val WEAK_ETAG_PREFIX = "W/"
+        private const val CONTENT_RANGE_UNIT = "bytes "
+        private const val SHA1_CHECKSUM_PREFIX = "SHA1:"
+        private const val LAST_MODIFIED_HEADER = "Last-Modified"
+    }
+}
@@ -0,0 +1,144 @@
+/* openCloud Android Library is available under MIT license
+ *   Copyright (C) 2026 openCloud GmbH.
+ *
+ *   Permission is hereby granted, free of charge, to any person obtaining a copy
+ *   of this software and associated documentation files (the "Software"), to deal
+ *   in the Software without restriction, including without limitation the rights
+ *   to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *   copies of the Software, and to permit persons to whom the Software is
+ *   furnished to do so, subject to the following conditions:
+ *
+ *   The above copyright notice and this permission notice shall be included in
+ *   all copies or substantial portions of the Software.
+ *
+ *   THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ *   EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ *   MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ *   NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ *   BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ *   ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ *   CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *   THE SOFTWARE.
+ *
+ */
+package eu.opencloud.android.lib.resources.files
+
+import at.bitfire.dav4jvm.PropertyRegistry
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.lib.common.accounts.AccountUtils
+import eu.opencloud.android.lib.common.http.HttpConstants.HTTP_BAD_REQUEST
+import eu.opencloud.android.lib.common.http.HttpConstants.HTTP_CONFLICT
+import eu.opencloud.android.lib.common.http.HttpConstants.HTTP_FORBIDDEN
+import eu.opencloud.android.lib.common.http.HttpConstants.HTTP_METHOD_NOT_ALLOWED
+import eu.opencloud.android.lib.common.http.HttpConstants.HTTP_MULTI_STATUS
+import eu.opencloud.android.lib.common.http.HttpConstants.HTTP_NOT_IMPLEMENTED
+import eu.opencloud.android.lib.common.http.HttpConstants.HTTP_PRECONDITION_FAILED
+import eu.opencloud.android.lib.common.http.HttpConstants.HTTP_UNSUPPORTED_MEDIA_TYPE
+import eu.opencloud.android.lib.common.http.methods.webdav.DavUtils
+import eu.opencloud.android.lib.common.http.methods.webdav.SyncCollectionMethod
+import eu.opencloud.android.lib.common.http.methods.webdav.properties.OCChecksums
+import eu.opencloud.android.lib.common.http.methods.webdav.properties.OCShareTypes
+import eu.opencloud.android.lib.common.network.WebdavUtils
+import eu.opencloud.android.lib.common.operations.RemoteOperation
+import eu.opencloud.android.lib.common.operations.RemoteOperationResult
+import eu.opencloud.android.lib.common.operations.RemoteOperationResult.ResultCode
+import eu.opencloud.android.lib.common.utils.isOneOf
+import timber.log.Timber
+import java.net.URL
+
+/**
+ * Remote operation asking for the changes below a collection since a sync token, with a REPORT sync-collection
+ * (RFC 6578). Only the added, modified and deleted resources are transferred, instead of the whole listing.
+ *
+ * Servers that do not support the report, or that do not accept the token anymore, do not make the operation fail:
+ * the result is flagged with [RemoteSyncChanges.isFullRefreshNeeded] so the caller falls back to a PROPFIND.
+ *
+ * @param syncToken token of the last changes applied, as returned by [GetRemoteSyncTokenOperation] or by a previous
+ * sync-collection.
+ */
+class SyncCollectionRemoteOperation(
+    val remotePath: String,
+    val syncToken: String,
+    val spaceWebDavUrl: String? = null,
+) : RemoteOperation<RemoteSyncChanges>() {
+
+    override fun run(client: OpenCloudClient): RemoteOperationResult<RemoteSyncChanges> {
+        try {
+            PropertyRegistry.register(OCShareTypes.Factory())
+            PropertyRegistry.register(OCChecksums.Factory())
+
+            val syncCollectionMethod = SyncCollectionMethod(
+                url = getFinalWebDavUrl(),
+                syncToken = syncToken,
+                syncLevel = SyncCollectionMethod.SYNC_LEVEL_INFINITE,
+                propertiesToRequest = DavUtils.allPropSet,
+            )
+
+            val status = client.executeHttpMethod(syncCollectionMethod)
+
+            return when {
+                status == HTTP_MULTI_STATUS && syncCollectionMethod.newSyncToken != null -> {
+                    val userId = AccountUtils.getUserId(mAccount, mContext)
+                    val changedFiles = syncCollectionMethod.members.map { resource ->
+                        RemoteFile.getRemoteFileFromDav(
+                            davResource = resource,
+                            userId = userId,
+                            userName = mAccount.name,
+                            spaceWebDavUrl = spaceWebDavUrl,
+                        )
+                    }
+                    val removedPaths = syncCollectionMethod.removedMembers.map { resource ->
+                        RemoteFile.getRemotePathFromUrl(resource.href, userId, spaceWebDavUrl)
+                    }
+
+                    RemoteOperationResult<RemoteSyncChanges>(ResultCode.OK).apply {
+                        data = RemoteSyncChanges(
+                            syncToken = syncCollectionMethod.newSyncToken,
+                            changedFiles = changedFiles,
+                            removedPaths = removedPaths,
+                            isTruncated = syncCollectionMethod.isTruncated,
+                        )
+                        Timber.i("Changes in $remotePath: ${changedFiles.size} changed, ${removedPaths.size} removed - HTTP status code: $status")
+                    }
+                }
+                status == HTTP_MULTI_STATUS || isSyncCollectionNotAvailable(status) -> {
+                    Timber.i("Sync collection not available for $remotePath - HTTP status code: $status")
+                    client.exhaustResponse(syncCollectionMethod.getResponseBodyAsStream())
+                    RemoteOperationResult<RemoteSyncChanges>(ResultCode.OK).apply {
+                        data = RemoteSyncChanges(syncToken = null, isFullRefreshNeeded = true)
+                    }
+                }
+                else -> {
+                    RemoteOperationResult<RemoteSyncChanges>(syncCollectionMethod).also {
+                        Timber.w("Changes in $remotePath ${it.logMessage}")
+                    }
+                }
+            }
+        } catch (e: Exception) {
+            return RemoteOperationResult<RemoteSyncChanges>(e).also {
+                Timber.e(it.exception, "Changes in $remotePath")
+            }
+        }
+    }
+
+    private fun getFinalWebDavUrl(): URL {
+        val baseWebDavUrl = spaceWebDavUrl ?: client.userFilesWebDavUri.toString()
+
+        return URL(baseWebDavUrl + WebdavUtils.encodePath(remotePath))
+    }
+
+    /**
+     * Unknown REPORT, unsupported report body, or a token the server does not accept anymore (DAV:valid-sync-token
+     * precondition, sent as 403 or 409, or 412 by servers that check it as an HTTP precondition).
+     */
+    private fun isSyncCollectionNotAvailable(status: Int): Boolean =
+        status.isOneOf(
+            HTTP_BAD_REQUEST,
+            HTTP_FORBIDDEN,
+            HTTP_METHOD_NOT_ALLOWED,
+            HTTP_CONFLICT,
+            HTTP_PRECONDITION_FAILED,
+            HTTP_UNSUPPORTED_MEDIA_TYPE,
+            HTTP_NOT_IMPLEMENTED,
+        )
+}
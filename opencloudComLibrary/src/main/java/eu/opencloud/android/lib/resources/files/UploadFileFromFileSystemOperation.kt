@@ -26,6 +26,7 @@ package eu.opencloud.android.lib.resources.files
 import eu.opencloud.android.lib.common.OpenCloudClient
 import eu.opencloud.android.lib.common.http.HttpConstants
 import eu.opencloud.android.lib.common.http.methods.webdav.PutMethod
+import eu.opencloud.android.lib.common.network.BandwidthLimiter
 import eu.opencloud.android.lib.common.network.FileRequestBody
 import eu.opencloud.android.lib.common.network.OnDatatransferProgressListener
 import eu.opencloud.android.lib.common.network.WebdavUtils
@@ -38,6 +39,7 @@ import okhttp3.MediaType
 import okhttp3.MediaType.Companion.toMediaTypeOrNull
 import timber.log.Timber
 import java.io.File
+import java.nio.channels.FileChannel
 import java.net.URL
 import java.util.concurrent.atomic.AtomicBoolean
 
@@ -59,6 +61,8 @@ open class UploadFileFromFileSystemOperation(
     val spaceWebDavUrl: String? = null,
     /** Whole-file checksum as "ALGORITHM:hex" (e.g. "SHA1:30338d…"); server rejects with 400 on mismatch. */
     val ocChecksum: String? = null,
+    /** Already open channel to upload instead of [localPath], e.g. the descriptor of a content URI. */
+    private val sourceChannel: FileChannel? = null,
 ) : RemoteOperation<Unit>() {
 
     protected val cancellationRequested = AtomicBoolean(false)
@@ -68,6 +72,9 @@ open class UploadFileFromFileSystemOperation(
 
     var etag: String = ""
 
+    /** Shared budget the upload is throttled with, see [BandwidthLimiter]. Null means no limit. */
+    var bandwidthLimiter: BandwidthLimiter? = null
+
     override fun run(client: OpenCloudClient): RemoteOperationResult<Unit> {
         var result: RemoteOperationResult<Unit>
         try {
@@ -98,17 +105,18 @@ open class UploadFileFromFileSystemOperation(
         val fileToUpload = File(localPath)
         val mediaType: MediaType? = mimeType.toMediaTypeOrNull()
 
-        fileRequestBody = FileRequestBody(fileToUpload, mediaType).also {
+        fileRequestBody = FileRequestBody(fileToUpload, mediaType, sourceChannel).also {
             synchronized(dataTransferListener) { it.addDatatransferProgressListeners(dataTransferListener) }
         }
 
         val baseStringUrl = spaceWebDavUrl ?: client.userFilesWebDavUri.toString()
         putMethod = PutMethod(URL(baseStringUrl + WebdavUtils.encodePath(remotePath)), fileRequestBody!!).apply {
             retryOnConnectionFailure = false
+            bandwidthLimiter = this@UploadFileFromFileSystemOperation.bandwidthLimiter
             if (!requiredEtag.isNullOrBlank()) {
                 addRequestHeader(HttpConstants.IF_MATCH_HEADER, requiredEtag)
             }
-            addRequestHeader(HttpConstants.OC_TOTAL_LENGTH_HEADER, fileToUpload.length().toString())
+            addRequestHeader(HttpConstants.OC_TOTAL_LENGTH_HEADER, fileRequestBody!!.contentLength().toString())
             addRequestHeader(HttpConstants.OC_X_OC_MTIME_HEADER, lastModifiedTimestamp)
             ocChecksum?.let { addRequestHeader(HttpConstants.OC_CHECKSUM_HEADER, it) }
         }
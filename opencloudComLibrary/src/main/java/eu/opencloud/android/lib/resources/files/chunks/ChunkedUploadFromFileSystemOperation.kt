@@ -89,6 +89,7 @@ class ChunkedUploadFromFileSystemOperation(
                 break
             } else {
                 putMethod = PutMethod(URL(uriPrefix + File.separator + chunkIndex), fileRequestBody).apply {
+                    bandwidthLimiter = this@ChunkedUploadFromFileSystemOperation.bandwidthLimiter
                     if (chunkIndex == chunkCount - 1) {
                         // Added a high timeout to the last chunk due to when the last chunk
                         // arrives to the server with the last PUT, all chunks get assembled
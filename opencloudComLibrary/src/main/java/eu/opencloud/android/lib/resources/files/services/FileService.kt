@@ -27,6 +27,8 @@ import eu.opencloud.android.lib.common.operations.RemoteOperationResult
 import eu.opencloud.android.lib.resources.Service
 import eu.opencloud.android.lib.resources.files.RemoteFile
 import eu.opencloud.android.lib.resources.files.RemoteMetaFile
+import eu.opencloud.android.lib.resources.files.RemoteSearchResult
+import eu.opencloud.android.lib.resources.files.RemoteSyncChanges
 
 interface FileService : Service {
     fun checkPathExistence(
@@ -72,11 +74,29 @@ interface FileService : Service {
         spaceWebDavUrl: String? = null,
     ): RemoteOperationResult<ArrayList<RemoteFile>>
 
+    fun getSyncToken(
+        remotePath: String,
+        spaceWebDavUrl: String? = null,
+    ): RemoteOperationResult<String?>
+
+    fun getFolderChanges(
+        remotePath: String,
+        syncToken: String,
+        spaceWebDavUrl: String? = null,
+    ): RemoteOperationResult<RemoteSyncChanges>
+
     fun removeFile(
         remotePath: String,
         spaceWebDavUrl: String? = null,
     ): RemoteOperationResult<Unit>
 
+    fun searchFiles(
+        searchPattern: String,
+        limit: Int,
+        pageSize: Int,
+        onPage: (List<RemoteSearchResult>) -> Boolean,
+    ): RemoteOperationResult<Int>
+
     fun renameFile(
         oldName: String,
         oldRemotePath: String,
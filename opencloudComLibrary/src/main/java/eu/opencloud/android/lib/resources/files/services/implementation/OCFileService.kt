@@ -30,13 +30,18 @@ import eu.opencloud.android.lib.resources.files.CopyRemoteFileOperation
 import eu.opencloud.android.lib.resources.files.CreateRemoteFolderOperation
 import eu.opencloud.android.lib.resources.files.DownloadRemoteFileOperation
 import eu.opencloud.android.lib.resources.files.GetRemoteMetaFileOperation
+import eu.opencloud.android.lib.resources.files.GetRemoteSyncTokenOperation
 import eu.opencloud.android.lib.resources.files.MoveRemoteFileOperation
 import eu.opencloud.android.lib.resources.files.ReadRemoteFileOperation
 import eu.opencloud.android.lib.resources.files.ReadRemoteFolderOperation
 import eu.opencloud.android.lib.resources.files.RemoteFile
 import eu.opencloud.android.lib.resources.files.RemoteMetaFile
+import eu.opencloud.android.lib.resources.files.RemoteSearchResult
+import eu.opencloud.android.lib.resources.files.RemoteSyncChanges
 import eu.opencloud.android.lib.resources.files.RemoveRemoteFileOperation
 import eu.opencloud.android.lib.resources.files.RenameRemoteFileOperation
+import eu.opencloud.android.lib.resources.files.SearchRemoteFilesOperation
+import eu.opencloud.android.lib.resources.files.SyncCollectionRemoteOperation
 import eu.opencloud.android.lib.resources.files.services.FileService
 
 class OCFileService(override val client: OpenCloudClient) : FileService {
@@ -119,6 +124,39 @@ class OCFileService(override val client: OpenCloudClient) : FileService {
             spaceWebDavUrl = spaceWebDavUrl,
         ).execute(client)
 
+    override fun getSyncToken(
+        remotePath: String,
+        spaceWebDavUrl: String?,
+    ): RemoteOperationResult<String?> =
+        GetRemoteSyncTokenOperation(
+            remotePath = remotePath,
+            spaceWebDavUrl = spaceWebDavUrl,
+        ).execute(client)
+
+    override fun getFolderChanges(
+        remotePath: String,
+        syncToken: String,
+        spaceWebDavUrl: String?,
+    ): RemoteOperationResult<RemoteSyncChanges> =
+        SyncCollectionRemoteOperation(
+            remotePath = remotePath,
+            syncToken = syncToken,
+            spaceWebDavUrl = spaceWebDavUrl,
+        ).execute(client)
+
+    override fun searchFiles(
+        searchPattern: String,
+        limit: Int,
+        pageSize: Int,
+        onPage: (List<RemoteSearchResult>) -> Boolean,
+    ): RemoteOperationResult<Int> =
+        SearchRemoteFilesOperation(
+            searchPattern = searchPattern,
+            limit = limit,
+            pageSize = pageSize,
+            onPage = onPage,
+        ).execute(client)
+
     override fun removeFile(
         remotePath: String,
         spaceWebDavUrl: String?,
@@ -18,6 +18,10 @@ class CheckTusSupportRemoteOperation(
     private val collectionUrlOverride: String? = null,
 ) : RemoteOperation<Boolean>() {
 
+    /** Whether the server also advertises the 'concatenation' extension, to upload parts in parallel. */
+    var supportsConcatenation: Boolean = false
+        private set
+
     @Suppress("ExpressionBodySyntax")
     override fun run(client: OpenCloudClient): RemoteOperationResult<Boolean> {
         return try {
@@ -35,9 +39,9 @@ class CheckTusSupportRemoteOperation(
                     val version = options.getResponseHeader(HttpConstants.TUS_VERSION) ?: ""
                     val extensions = options.getResponseHeader(HttpConstants.TUS_EXTENSION) ?: ""
                     val versionSupported = version.split(',').any { it.trim() == HttpConstants.TUS_RESUMABLE_VERSION_1_0_0 }
-                    val creationSupported = extensions.split(',')
-                        .map { it.trim().lowercase() }
-                        .any { it == "creation" || it == "creation-with-upload" }
+                    val extensionList = extensions.split(',').map { it.trim().lowercase() }
+                    val creationSupported = extensionList.any { it == "creation" || it == "creation-with-upload" }
+                    supportsConcatenation = HttpConstants.TUS_EXTENSION_CONCATENATION in extensionList
 
                     Timber.d("TUS supported (headers) at %s: version=%s extensions=%s", endpoint, version, extensions)
 
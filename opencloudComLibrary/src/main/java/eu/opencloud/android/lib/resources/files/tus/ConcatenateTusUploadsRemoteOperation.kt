@@ -0,0 +1,64 @@
+package eu.opencloud.android.lib.resources.files.tus
+
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.lib.common.http.HttpConstants
+import eu.opencloud.android.lib.common.http.methods.nonwebdav.PostMethod
+import eu.opencloud.android.lib.common.network.WebdavUtils
+import eu.opencloud.android.lib.common.operations.RemoteOperation
+import eu.opencloud.android.lib.common.operations.RemoteOperationResult
+import eu.opencloud.android.lib.common.operations.RemoteOperationResult.ResultCode
+import eu.opencloud.android.lib.common.utils.isOneOf
+import okhttp3.RequestBody.Companion.toRequestBody
+import timber.log.Timber
+import java.net.URL
+
+/**
+ * TUS final upload creation (POST with Upload-Concat: final;...), concatenation extension.
+ * Joins the completed partial uploads, in order, into the file described by [metadata].
+ * Returns the URL of the final upload.
+ */
+class ConcatenateTusUploadsRemoteOperation(
+    private val collectionUrl: String,
+    private val partialUploadUrls: List<String>,
+    private val metadata: Map<String, String>,
+    private val base64Encoder: CreateTusUploadRemoteOperation.Base64Encoder = CreateTusUploadRemoteOperation.DefaultBase64Encoder(),
+) : RemoteOperation<String>() {
+
+    var etag: String = ""
+        private set
+
+    override fun run(client: OpenCloudClient): RemoteOperationResult<String> =
+        try {
+            val postMethod = PostMethod(URL(collectionUrl), ByteArray(0).toRequestBody(null)).apply {
+                setRequestHeader(HttpConstants.TUS_RESUMABLE, HttpConstants.TUS_RESUMABLE_VERSION_1_0_0)
+                setRequestHeader(
+                    HttpConstants.UPLOAD_CONCAT,
+                    "${HttpConstants.UPLOAD_CONCAT_FINAL};${partialUploadUrls.joinToString(" ") { URL(it).path }}"
+                )
+                if (metadata.isNotEmpty()) {
+                    setRequestHeader(HttpConstants.UPLOAD_METADATA, encodeTusMetadata(metadata))
+                }
+            }
+
+            val status = client.executeHttpMethod(postMethod)
+            Timber.d("TUS concatenation of %d parts [%s] - %d", partialUploadUrls.size, collectionUrl, status)
+
+            val location = postMethod.getResponseHeader(HttpConstants.LOCATION_HEADER)
+            if (status.isOneOf(HttpConstants.HTTP_CREATED, HttpConstants.HTTP_OK) && !location.isNullOrBlank()) {
+                etag = WebdavUtils.getEtagFromResponse(postMethod).replace("\"", "")
+                RemoteOperationResult<String>(ResultCode.OK).apply {
+                    data = URL(URL(postMethod.getFinalUrl().toString()), location).toString()
+                }
+            } else {
+                RemoteOperationResult<String>(postMethod)
+            }
+        } catch (e: Exception) {
+            Timber.e(e, "TUS concatenation failed")
+            RemoteOperationResult(e)
+        }
+
+    private fun encodeTusMetadata(metadata: Map<String, String>): String =
+        metadata.entries.joinToString(",") { (key, value) ->
+            "$key ${base64Encoder.encode(value.toByteArray(Charsets.UTF_8))}"
+        }
+}
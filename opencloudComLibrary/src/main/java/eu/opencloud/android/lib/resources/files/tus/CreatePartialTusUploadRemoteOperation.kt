@@ -0,0 +1,47 @@
+package eu.opencloud.android.lib.resources.files.tus
+
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.lib.common.http.HttpConstants
+import eu.opencloud.android.lib.common.http.methods.nonwebdav.PostMethod
+import eu.opencloud.android.lib.common.operations.RemoteOperation
+import eu.opencloud.android.lib.common.operations.RemoteOperationResult
+import eu.opencloud.android.lib.common.operations.RemoteOperationResult.ResultCode
+import eu.opencloud.android.lib.common.utils.isOneOf
+import okhttp3.RequestBody.Companion.toRequestBody
+import timber.log.Timber
+import java.net.URL
+
+/**
+ * TUS partial upload creation (POST with Upload-Concat: partial), concatenation extension.
+ * Returns the absolute URL of the new partial upload, to be filled with PATCHes and later
+ * concatenated by [ConcatenateTusUploadsRemoteOperation].
+ */
+class CreatePartialTusUploadRemoteOperation(
+    private val collectionUrl: String,
+    private val uploadLength: Long,
+) : RemoteOperation<String>() {
+
+    override fun run(client: OpenCloudClient): RemoteOperationResult<String> =
+        try {
+            val postMethod = PostMethod(URL(collectionUrl), ByteArray(0).toRequestBody(null)).apply {
+                setRequestHeader(HttpConstants.TUS_RESUMABLE, HttpConstants.TUS_RESUMABLE_VERSION_1_0_0)
+                setRequestHeader(HttpConstants.UPLOAD_CONCAT, HttpConstants.UPLOAD_CONCAT_PARTIAL)
+                setRequestHeader(HttpConstants.UPLOAD_LENGTH, uploadLength.toString())
+            }
+
+            val status = client.executeHttpMethod(postMethod)
+            Timber.d("TUS partial creation [%s] length=%d - %d", collectionUrl, uploadLength, status)
+
+            val location = postMethod.getResponseHeader(HttpConstants.LOCATION_HEADER)
+            if (status.isOneOf(HttpConstants.HTTP_CREATED, HttpConstants.HTTP_OK) && !location.isNullOrBlank()) {
+                RemoteOperationResult<String>(ResultCode.OK).apply {
+                    data = URL(URL(postMethod.getFinalUrl().toString()), location).toString()
+                }
+            } else {
+                RemoteOperationResult<String>(postMethod)
+            }
+        } catch (e: Exception) {
+            Timber.e(e, "TUS partial creation failed")
+            RemoteOperationResult(e)
+        }
+}
@@ -4,6 +4,7 @@ import android.util.Base64
 import eu.opencloud.android.lib.common.OpenCloudClient
 import eu.opencloud.android.lib.common.http.HttpConstants
 import eu.opencloud.android.lib.common.http.methods.nonwebdav.PostMethod
+import eu.opencloud.android.lib.common.network.BandwidthLimiter
 import eu.opencloud.android.lib.common.network.ChunkFromFileRequestBody
 import eu.opencloud.android.lib.common.network.WebdavUtils
 import eu.opencloud.android.lib.common.operations.RemoteOperation
@@ -32,8 +33,13 @@ class CreateTusUploadRemoteOperation(
     private val base64Encoder: Base64Encoder = DefaultBase64Encoder(),
     /** When set (e.g. "sha1"), an Upload-Checksum header is computed over the first chunk. */
     private val checksumAlgorithm: String? = null,
+    /** Already open channel to read instead of [file], e.g. the descriptor of a content URI. Not closed here. */
+    private val sourceChannel: FileChannel? = null,
 ) : RemoteOperation<CreateTusUploadRemoteOperation.CreationResult>() {
 
+    /** Limits how fast the first chunk is sent with creation-with-upload. */
+    var bandwidthLimiter: BandwidthLimiter? = null
+
     data class CreationResult(
         val uploadUrl: String,
         val uploadOffset: Long
@@ -62,7 +68,8 @@ class CreateTusUploadRemoteOperation(
             val creationRequestBody = buildCreationRequestBody()
             creationUploadFile = creationRequestBody.fileToClose
             val postMethod = PostMethod(URL(targetFileUrl), creationRequestBody.body)
-            configureCreationRequest(postMethod)
+            postMethod.bandwidthLimiter = bandwidthLimiter
+            configureCreationRequest(postMethod, creationRequestBody.body)
 
             val status = client.executeHttpMethod(postMethod)
             Timber.d("TUS Creation [%s] - %d%s", targetFileUrl, status, if (!isSuccess(status)) " (FAIL)" else "")
@@ -102,8 +109,8 @@ class CreateTusUploadRemoteOperation(
 
     private fun buildCreationRequestBody(): CreationRequestBody =
         if (shouldUseCreationWithUpload()) {
-            val raf = RandomAccessFile(file, "r")
-            val channel: FileChannel = raf.channel
+            val raf = if (sourceChannel == null) RandomAccessFile(file, "r") else null
+            val channel: FileChannel = sourceChannel ?: raf!!.channel
             CreationRequestBody(
                 body = ChunkFromFileRequestBody(
                     file = file,
@@ -120,9 +127,9 @@ class CreateTusUploadRemoteOperation(
             )
         }
 
-    private fun configureCreationRequest(postMethod: PostMethod) {
+    private fun configureCreationRequest(postMethod: PostMethod, body: RequestBody) {
         postMethod.setRequestHeader(HttpConstants.TUS_RESUMABLE, "1.0.0")
-        postMethod.setRequestHeader(HttpConstants.UPLOAD_LENGTH, file.length().toString())
+        postMethod.setRequestHeader(HttpConstants.UPLOAD_LENGTH, uploadLength().toString())
         postMethod.setRequestHeader(HttpConstants.CONTENT_TYPE_HEADER, HttpConstants.CONTENT_TYPE_OFFSET_OCTET_STREAM)
         postMethod.setRequestHeader(HttpConstants.TUS_EXTENSION, tusExtensionHeader())
 
@@ -139,12 +146,8 @@ class CreateTusUploadRemoteOperation(
             // The data part of a creation-with-upload POST follows the same rules as a
             // PATCH (TUS spec), so it carries Upload-Checksum for the first chunk.
             checksumAlgorithm?.let { algorithm ->
-                val chunkChecksumHeader = TusChecksumHelper.uploadChecksumHeader(
-                    file = file,
-                    offset = 0,
-                    length = firstChunkSize!!,
-                    algorithm = algorithm,
-                )
+                // Checksum the mapped chunk the body is written from, so its bytes are read once
+                val chunkChecksumHeader = TusChecksumHelper.uploadChecksumHeader(body as ChunkFromFileRequestBody, algorithm)
                 postMethod.setRequestHeader(HttpConstants.UPLOAD_CHECKSUM, chunkChecksumHeader)
             }
         }
@@ -198,7 +201,7 @@ class CreateTusUploadRemoteOperation(
         Timber.w("  Collection Override: %s", collectionUrlOverride)
         Timber.w("  User Files WebDAV: %s", client.userFilesWebDavUri)
         Timber.w("  Remote Path: %s", remotePath)
-        Timber.w("  File Size: %d bytes", file.length())
+        Timber.w("  File Size: %d bytes", uploadLength())
         Timber.w("  Tus-Resumable: %s", postMethod.getRequestHeader(HttpConstants.TUS_RESUMABLE))
         Timber.w("  Upload-Length: %s", postMethod.getRequestHeader(HttpConstants.UPLOAD_LENGTH))
         Timber.w("  Upload-Metadata: %s", postMethod.getRequestHeader(HttpConstants.UPLOAD_METADATA))
@@ -217,6 +220,8 @@ class CreateTusUploadRemoteOperation(
         }
     }
 
+    private fun uploadLength(): Long = sourceChannel?.size() ?: file.length()
+
     private fun shouldUseCreationWithUpload(): Boolean =
         useCreationWithUpload && (firstChunkSize ?: 0L) > 0L
 
@@ -239,29 +244,31 @@ class CreateTusUploadRemoteOperation(
         }
     }
 
+    companion object {
+        // Use 10MB for first chunk like the browser does
+        const val DEFAULT_FIRST_CHUNK = 10 * 1024 * 1024L // 10MB
 
-    private fun buildCollectionUrl(base: String, remotePath: String): String {
-        val normalizedBase = base.trim().trimEnd('/')
-        val sanitizedRemotePath = remotePath.trim().trimEnd('/').ifEmpty { "/" }
-        if (sanitizedRemotePath == "/") {
-            return normalizedBase
-        }
+        /**
+         * Creation URL for [remotePath]: its parent folder below [base], the file name travels in the metadata.
+         */
+        fun buildCollectionUrl(base: String, remotePath: String): String {
+            val normalizedBase = base.trim().trimEnd('/')
+            val sanitizedRemotePath = remotePath.trim().trimEnd('/').ifEmpty { "/" }
+            if (sanitizedRemotePath == "/") {
+                return normalizedBase
+            }
 
-        val encodedPath = WebdavUtils.encodePath(sanitizedRemotePath)
-        val parentSegment = when (val idx = encodedPath.lastIndexOf('/')) {
-            -1, 0 -> ""
-            else -> encodedPath.substring(0, idx).removePrefix("/")
-        }
+            val encodedPath = WebdavUtils.encodePath(sanitizedRemotePath)
+            val parentSegment = when (val idx = encodedPath.lastIndexOf('/')) {
+                -1, 0 -> ""
+                else -> encodedPath.substring(0, idx).removePrefix("/")
+            }
 
-        return if (parentSegment.isEmpty()) {
-            normalizedBase
-        } else {
-            "$normalizedBase/$parentSegment"
+            return if (parentSegment.isEmpty()) {
+                normalizedBase
+            } else {
+                "$normalizedBase/$parentSegment"
+            }
         }
     }
-
-    companion object {
-        // Use 10MB for first chunk like the browser does
-        const val DEFAULT_FIRST_CHUNK = 10 * 1024 * 1024L // 10MB
-    }
 }
@@ -5,6 +5,7 @@ import eu.opencloud.android.lib.common.http.HttpConstants
 import eu.opencloud.android.lib.common.http.methods.HttpBaseMethod
 import eu.opencloud.android.lib.common.http.methods.nonwebdav.PatchMethod
 import eu.opencloud.android.lib.common.http.methods.nonwebdav.PostMethod
+import eu.opencloud.android.lib.common.network.BandwidthLimiter
 import eu.opencloud.android.lib.common.network.ChunkFromFileRequestBody
 import eu.opencloud.android.lib.common.network.OnDatatransferProgressListener
 import eu.opencloud.android.lib.common.operations.OperationCancelledException
@@ -34,6 +35,10 @@ class PatchTusUploadChunkRemoteOperation(
     private val httpMethodOverride: String? = null,
     /** When set (e.g. "sha1"), an Upload-Checksum header is computed over this chunk's bytes. */
     private val checksumAlgorithm: String? = null,
+    /** Position of the chunk in the local file; differs from [offset] for the partial uploads of a concatenation. */
+    private val fileOffset: Long = offset,
+    /** Already open channel to read the chunk from instead of [localPath], e.g. the descriptor of a content URI. */
+    private val sourceChannel: FileChannel? = null,
 ) : RemoteOperation<Long>() {
 
     private val cancellationRequested = AtomicBoolean(false)
@@ -42,6 +47,9 @@ class PatchTusUploadChunkRemoteOperation(
 
     var etag: String = ""
 
+    /** Limits how fast the chunk is sent. */
+    var bandwidthLimiter: BandwidthLimiter? = null
+
     @Suppress("ExpressionBodySyntax")
     override fun run(client: OpenCloudClient): RemoteOperationResult<Long> {
         // Fast-path: if caller requested cancellation before execution, honour it without hitting the network.
@@ -51,8 +59,9 @@ class PatchTusUploadChunkRemoteOperation(
 
         return try {
             val file = File(localPath)
-            RandomAccessFile(file, "r").use { raf ->
-                val channel: FileChannel = raf.channel
+            val ownFile = if (sourceChannel == null) RandomAccessFile(file, "r") else null
+            ownFile.use { raf ->
+                val channel: FileChannel = sourceChannel ?: raf!!.channel
                 val body = ChunkFromFileRequestBody(
                     file = file,
                     contentType = HttpConstants.CONTENT_TYPE_OFFSET_OCTET_STREAM.toMediaTypeOrNull(),
@@ -60,7 +69,7 @@ class PatchTusUploadChunkRemoteOperation(
                     chunkSize = chunkSize
                 ).also { synchronized(dataTransferListeners) { it.addDatatransferProgressListeners(dataTransferListeners) } }
 
-                body.setOffset(offset)
+                body.setOffset(fileOffset)
 
                 if (cancellationRequested.get()) {
                     return RemoteOperationResult<Long>(OperationCancelledException())
@@ -73,16 +82,13 @@ class PatchTusUploadChunkRemoteOperation(
                 } else {
                     PatchMethod(URL(uploadUrl), body)
                 }.apply {
+                    bandwidthLimiter = this@PatchTusUploadChunkRemoteOperation.bandwidthLimiter
                     setRequestHeader(HttpConstants.TUS_RESUMABLE, HttpConstants.TUS_RESUMABLE_VERSION_1_0_0)
                     setRequestHeader(HttpConstants.UPLOAD_OFFSET, offset.toString())
                     setRequestHeader(HttpConstants.CONTENT_TYPE_HEADER, HttpConstants.CONTENT_TYPE_OFFSET_OCTET_STREAM)
                     checksumAlgorithm?.let { algorithm ->
-                        val chunkChecksumHeader = TusChecksumHelper.uploadChecksumHeader(
-                            file = file,
-                            offset = offset,
-                            length = chunkSize,
-                            algorithm = algorithm,
-                        )
+                        // Checksum the mapped chunk the body is written from, so its bytes are read once
+                        val chunkChecksumHeader = TusChecksumHelper.uploadChecksumHeader(body, algorithm)
                         setRequestHeader(HttpConstants.UPLOAD_CHECKSUM, chunkChecksumHeader)
                     }
                 }
@@ -19,12 +19,14 @@
 package eu.opencloud.android.lib.resources.files.tus
 
 import android.util.Base64
+import eu.opencloud.android.lib.common.network.ChunkFromFileRequestBody
 import java.io.EOFException
 import java.io.File
 import java.io.FileInputStream
 import java.io.InputStream
 import java.io.OutputStream
 import java.io.RandomAccessFile
+import java.nio.ByteBuffer
 import java.security.MessageDigest
 import java.util.Locale
 import kotlin.math.min
@@ -117,11 +119,36 @@ object TusChecksumHelper {
     }
 
     fun uploadChecksumHeader(file: File, offset: Long, length: Long, algorithm: String): String {
+        requireSupportedUploadAlgorithm(algorithm)
+        val base64Digest = sha1Base64ForFileRange(file, offset, length)
+        return "$SHA1_WIRE_ALGORITHM $base64Digest"
+    }
+
+    /**
+     * Upload-Checksum header for the bytes remaining in [chunk], typically a chunk mapped by the request body
+     * that sends it afterwards. The position of [chunk] is left untouched.
+     */
+    fun uploadChecksumHeader(chunk: ByteBuffer, algorithm: String): String {
+        requireSupportedUploadAlgorithm(algorithm)
+        val digest = MessageDigest.getInstance(SHA1_DIGEST_ALGORITHM)
+        digest.update(chunk.duplicate())
+        return "$SHA1_WIRE_ALGORITHM ${Base64.encodeToString(digest.digest(), Base64.NO_WRAP)}"
+    }
+
+    /**
+     * Upload-Checksum header for the chunk [body] is about to send, digested from the mapping the body is then
+     * written from (see [ChunkFromFileRequestBody.digestChunk]).
+     */
+    fun uploadChecksumHeader(body: ChunkFromFileRequestBody, algorithm: String): String {
+        requireSupportedUploadAlgorithm(algorithm)
+        val digest = body.digestChunk(MessageDigest.getInstance(SHA1_DIGEST_ALGORITHM))
+        return "$SHA1_WIRE_ALGORITHM ${Base64.encodeToString(digest, Base64.NO_WRAP)}"
+    }
+
+    private fun requireSupportedUploadAlgorithm(algorithm: String) {
         if (algorithm.lowercase(Locale.ROOT) != SHA1_WIRE_ALGORITHM) {
             throw IllegalArgumentException("Unsupported TUS checksum algorithm: $algorithm")
         }
-        val base64Digest = sha1Base64ForFileRange(file, offset, length)
-        return "$SHA1_WIRE_ALGORITHM $base64Digest"
     }
 
     fun sha1Base64ForFileRange(file: File, offset: Long, length: Long): String {
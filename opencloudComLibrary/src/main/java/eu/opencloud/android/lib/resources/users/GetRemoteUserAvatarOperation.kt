@@ -50,7 +50,9 @@ class GetRemoteUserAvatarOperation : RemoteOperation<RemoteAvatarData>() {
             val endPoint = client.baseUri.toString() + GRAPH_AVATAR_PATH
             Timber.d("avatar URI: %s", endPoint)
 
-            val getMethod = GetMethod(URL(endPoint))
+            val getMethod = GetMethod(URL(endPoint)).apply {
+                acceptCompressedResponse = false
+            }
 
             val status = client.executeHttpMethod(getMethod)
 
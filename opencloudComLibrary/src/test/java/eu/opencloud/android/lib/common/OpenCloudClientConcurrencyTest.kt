@@ -0,0 +1,218 @@
+package eu.opencloud.android.lib.common
+
+import android.accounts.Account
+import android.accounts.AccountManager
+import android.net.Uri
+import androidx.test.core.app.ApplicationProvider
+import eu.opencloud.android.lib.common.accounts.AccountUtils
+import eu.opencloud.android.lib.common.authentication.OpenCloudCredentialsFactory
+import eu.opencloud.android.lib.resources.files.CheckPathExistenceRemoteOperation
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Checks that the requests of a single client are no longer serialized: N PROPFINDs are all on the
+ * server at the same time when the client allows N concurrent requests.
+ */
+@RunWith(RobolectricTestRunner::class)
+class OpenCloudClientConcurrencyTest {
+
+    private lateinit var server: MockWebServer
+
+    // Every request waits on the server until the latch is released, which needs them to run in parallel
+    private lateinit var requestsArrived: CountDownLatch
+    private val requestsOnServer = AtomicInteger()
+    private val maxRequestsOnServer = AtomicInteger()
+    private val context by lazy { ApplicationProvider.getApplicationContext<android.content.Context>() }
+
+    private val accountType = "com.example"
+    private val userId = "user-123"
+    private val username = "user@example.com"
+    private val token = "TEST_TOKEN"
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                maxRequestsOnServer.accumulateAndGet(requestsOnServer.incrementAndGet()) { current, new -> maxOf(current, new) }
+                try {
+                    requestsArrived.countDown()
+                    if (!requestsArrived.await(AWAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                        return MockResponse().setResponseCode(504)
+                    }
+                } finally {
+                    requestsOnServer.decrementAndGet()
+                }
+                return MockResponse()
+                    .setResponseCode(207)
+                    .addHeader("Content-Type", "application/xml; charset=utf-8")
+                    .setBody("""<?xml version="1.0" encoding="utf-8"?><d:multistatus xmlns:d="DAV:"/>""")
+            }
+        }
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun newClient(maxConcurrentRequests: Int): OpenCloudClient {
+        val base = server.url("/").toString().removeSuffix("/")
+
+        val am = AccountManager.get(context)
+        val account = Account("$username@${Uri.parse(base).host}", accountType)
+        am.addAccountExplicitly(account, null, null)
+        am.setUserData(account, AccountUtils.Constants.KEY_OC_BASE_URL, base)
+        am.setUserData(account, AccountUtils.Constants.KEY_ID, userId)
+
+        val ocAccount = OpenCloudAccount(account, context)
+        val client = OpenCloudClient(ocAccount.baseUri, null, maxConcurrentRequests, null, context)
+        client.account = ocAccount
+        client.credentials = OpenCloudCredentialsFactory.newBearerCredentials(username, token)
+        return client
+    }
+
+    private fun runParallelPropfinds(client: OpenCloudClient, count: Int): List<Boolean> {
+        val executor = Executors.newFixedThreadPool(count)
+        val start = CountDownLatch(1)
+        try {
+            val results = (1..count).map { index ->
+                executor.submit<Boolean> {
+                    start.await()
+                    CheckPathExistenceRemoteOperation("/folder$index", true).execute(client).isSuccess
+                }
+            }
+            start.countDown()
+            return results.map { it.get(30, TimeUnit.SECONDS) }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun parallelPropfindsAreOnTheServerAtTheSameTime() {
+        val client = newClient(PARALLEL_REQUESTS)
+        requestsArrived = CountDownLatch(PARALLEL_REQUESTS)
+
+        val results = runParallelPropfinds(client, PARALLEL_REQUESTS)
+
+        assertTrue(results.all { it })
+        assertEquals(PARALLEL_REQUESTS, server.requestCount)
+        assertEquals(PARALLEL_REQUESTS, maxRequestsOnServer.get())
+    }
+
+    @Test
+    fun synchronizedClientStillExecutesOneRequestAtATime() {
+        val client = newClient(1)
+        requestsArrived = CountDownLatch(1)
+
+        val results = runParallelPropfinds(client, PARALLEL_REQUESTS)
+
+        assertTrue(results.all { it })
+        assertEquals(PARALLEL_REQUESTS, server.requestCount)
+        assertEquals(1, maxRequestsOnServer.get())
+    }
+
+    @Test
+    fun validationHoldsNewRequestsBack() {
+        val gate = RequestGate(PARALLEL_REQUESTS)
+        val validating = CountDownLatch(1)
+        val finishValidation = CountDownLatch(1)
+        val otherRequestEntered = AtomicBoolean(false)
+        val executor = Executors.newFixedThreadPool(2)
+        try {
+            val validation = executor.submit {
+                gate.enter()
+                try {
+                    gate.validating {
+                        validating.countDown()
+                        finishValidation.await()
+                    }
+                } finally {
+                    gate.exit()
+                }
+            }
+            validating.await()
+            val request = executor.submit {
+                gate.enter()
+                otherRequestEntered.set(true)
+                gate.exit()
+            }
+
+            awaitRequestsHeldBack(gate, 1)
+            assertFalse(otherRequestEntered.get())
+
+            finishValidation.countDown()
+            validation.get(5, TimeUnit.SECONDS)
+            request.get(5, TimeUnit.SECONDS)
+            assertTrue(otherRequestEntered.get())
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun validationDoesNotWaitForRequestsInFlight() {
+        val gate = RequestGate(PARALLEL_REQUESTS)
+        val uploadInFlight = CountDownLatch(1)
+        val finishUpload = CountDownLatch(1)
+        val validated = CountDownLatch(1)
+        val executor = Executors.newFixedThreadPool(2)
+        try {
+            val upload = executor.submit {
+                gate.enter()
+                try {
+                    uploadInFlight.countDown()
+                    finishUpload.await()
+                } finally {
+                    gate.exit()
+                }
+            }
+            uploadInFlight.await()
+            executor.submit {
+                gate.enter()
+                try {
+                    gate.validating { validated.countDown() }
+                } finally {
+                    gate.exit()
+                }
+            }
+
+            assertTrue(validated.await(AWAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+            finishUpload.countDown()
+            upload.get(AWAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    private fun awaitRequestsHeldBack(gate: RequestGate, count: Int) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(AWAIT_TIMEOUT_SECONDS)
+        while (gate.requestsHeldBack < count) {
+            check(System.nanoTime() < deadline) { "Requests were not held back" }
+            Thread.yield()
+        }
+    }
+
+    companion object {
+        private const val PARALLEL_REQUESTS = 4
+        private const val AWAIT_TIMEOUT_SECONDS = 10L
+    }
+}
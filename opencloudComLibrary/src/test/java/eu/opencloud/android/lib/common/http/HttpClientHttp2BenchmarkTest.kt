@@ -0,0 +1,181 @@
+package eu.opencloud.android.lib.common.http
+
+import android.content.Context
+import android.os.Build
+import androidx.test.core.app.ApplicationProvider
+import eu.opencloud.android.lib.common.network.NetworkUtils
+import okhttp3.Call
+import okhttp3.Callback
+import okhttp3.OkHttpClient
+import okhttp3.Protocol
+import okhttp3.Request
+import okhttp3.Response
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okhttp3.tls.HandshakeCertificates
+import okhttp3.tls.HeldCertificate
+import okio.Buffer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+import java.io.IOException
+import java.lang.reflect.Field
+import java.util.Collections
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+/**
+ * Loads a grid of thumbnails from a local HTTPS server speaking HTTP/2, the way the image loader does it: every
+ * thumbnail is an asynchronous call of its own. With HTTP/2 they are multiplexed on a single connection instead of
+ * opening and handshaking one connection per parallel request.
+ *
+ * Timings are printed for comparison; the assertions only rely on the connections opened, which do not depend on the
+ * machine running the tests.
+ */
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [Build.VERSION_CODES.O], manifest = Config.NONE)
+class HttpClientHttp2BenchmarkTest {
+
+    private val context by lazy { ApplicationProvider.getApplicationContext<Context>() }
+    private lateinit var server: MockWebServer
+
+    @Before
+    fun setUp() {
+        resetKnownServersStore()
+
+        val localhostCertificate = HeldCertificate.Builder()
+            .commonName(LOCALHOST)
+            .addSubjectAlternativeName(LOCALHOST)
+            .build()
+        val serverCertificates = HandshakeCertificates.Builder()
+            .heldCertificate(localhostCertificate)
+            .build()
+        NetworkUtils.addCertToKnownServersStore(localhostCertificate.certificate, context)
+
+        server = MockWebServer()
+        server.useHttps(serverCertificates.sslSocketFactory(), false)
+        server.protocols = listOf(Protocol.HTTP_2, Protocol.HTTP_1_1)
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse =
+                MockResponse()
+                    .setResponseCode(200)
+                    .addHeader("Content-Type", "image/jpeg")
+                    .setBody(Buffer().write(ByteArray(THUMBNAIL_SIZE_BYTES)))
+                    .setHeadersDelay(SERVER_LATENCY_MS, TimeUnit.MILLISECONDS)
+        }
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        HttpClient.setHttp2Enabled(true)
+        runCatching { server.shutdown() }
+        resetKnownServersStore()
+    }
+
+    @Test
+    fun clientsWithTheSameTlsConfigShareConnectionPoolAndDispatcher() {
+        HttpClient.setHttp2Enabled(true)
+
+        val first = TestHttpClient(context).okHttpClient
+        val second = TestHttpClient(context).okHttpClient
+
+        assertNotSame(first, second)
+        assertSame(first.connectionPool, second.connectionPool)
+        assertSame(first.dispatcher, second.dispatcher)
+        assertSame(first.sslSocketFactory, second.sslSocketFactory)
+    }
+
+    @Test
+    fun thumbnailGridIsMultiplexedOverHttp2() {
+        HttpClient.setHttp2Enabled(false)
+        val http11 = loadThumbnailGrid(TestHttpClient(context).okHttpClient)
+
+        HttpClient.setHttp2Enabled(true)
+        val http2 = loadThumbnailGrid(TestHttpClient(context).okHttpClient)
+
+        println(
+            "Grid of $GRID_SIZE thumbnails: HTTP/1.1 ${http11.elapsedMillis} ms over ${http11.connections} connections, " +
+                    "HTTP/2 ${http2.elapsedMillis} ms over ${http2.connections} connections"
+        )
+        assertEquals(setOf(Protocol.HTTP_1_1), http11.protocols)
+        assertEquals(setOf(Protocol.HTTP_2), http2.protocols)
+        assertEquals(1, http2.connections)
+        assertTrue("HTTP/1.1 opened ${http11.connections} connections", http11.connections > http2.connections)
+    }
+
+    private fun loadThumbnailGrid(okHttpClient: OkHttpClient): GridResult {
+        // Same derivation as the image loaders of the app
+        val thumbnailsClient = okHttpClient.newBuilder().build()
+        val requestsBefore = server.requestCount
+        val protocols = Collections.synchronizedSet(mutableSetOf<Protocol>())
+        val failures = Collections.synchronizedList(mutableListOf<IOException>())
+        val loaded = CountDownLatch(GRID_SIZE)
+
+        val startTime = System.nanoTime()
+        repeat(GRID_SIZE) { index ->
+            val request = Request.Builder()
+                .url(server.url("/remote.php/dav/spaces/space-1/Photos/image$index.jpg?x=$THUMBNAIL_SIDE&y=$THUMBNAIL_SIDE&preview=1"))
+                .build()
+            thumbnailsClient.newCall(request).enqueue(object : Callback {
+                override fun onResponse(call: Call, response: Response) {
+                    response.use {
+                        protocols.add(it.protocol)
+                        it.body?.bytes()
+                    }
+                    loaded.countDown()
+                }
+
+                override fun onFailure(call: Call, e: IOException) {
+                    failures.add(e)
+                    loaded.countDown()
+                }
+            })
+        }
+        assertTrue("Thumbnails not loaded in time", loaded.await(60, TimeUnit.SECONDS))
+        val elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime)
+
+        assertTrue("Failed thumbnails: $failures", failures.isEmpty())
+        val requests = (requestsBefore until server.requestCount).map { server.takeRequest() }
+        return GridResult(
+            elapsedMillis = elapsedMillis,
+            // First request of every connection has sequence number 0
+            connections = requests.count { it.sequenceNumber == 0 },
+            protocols = protocols.toSet(),
+        )
+    }
+
+    private fun resetKnownServersStore() {
+        context.deleteFile(KNOWN_SERVERS_STORE_FILE)
+
+        val field: Field = NetworkUtils::class.java.getDeclaredField("mKnownServersStore")
+        field.isAccessible = true
+        field.set(null, null)
+    }
+
+    private data class GridResult(
+        val elapsedMillis: Long,
+        val connections: Int,
+        val protocols: Set<Protocol>,
+    )
+
+    private class TestHttpClient(context: Context) : HttpClient(context)
+
+    companion object {
+        private const val LOCALHOST = "localhost"
+        private const val KNOWN_SERVERS_STORE_FILE = "knownServers.bks"
+        private const val GRID_SIZE = 200
+        private const val THUMBNAIL_SIDE = 256
+        private const val THUMBNAIL_SIZE_BYTES = 8 * 1024
+        private const val SERVER_LATENCY_MS = 20L
+    }
+}
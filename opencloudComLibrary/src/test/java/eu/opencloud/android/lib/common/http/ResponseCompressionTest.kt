@@ -0,0 +1,139 @@
+package eu.opencloud.android.lib.common.http
+
+import android.accounts.Account
+import android.accounts.AccountManager
+import android.net.Uri
+import androidx.test.core.app.ApplicationProvider
+import eu.opencloud.android.lib.common.OpenCloudAccount
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.lib.common.accounts.AccountUtils
+import eu.opencloud.android.lib.common.authentication.OpenCloudCredentialsFactory
+import eu.opencloud.android.lib.resources.files.DownloadRemoteFileOperation
+import eu.opencloud.android.lib.resources.files.ReadRemoteFileOperation
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okio.Buffer
+import okio.GzipSink
+import okio.buffer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+
+/**
+ * Metadata requests let OkHttp negotiate gzip and inflate the multistatus while it is parsed,
+ * while downloads keep asking for identity so that Content-Length describes the file.
+ */
+@RunWith(RobolectricTestRunner::class)
+class ResponseCompressionTest {
+
+    private lateinit var server: MockWebServer
+    private val context by lazy { ApplicationProvider.getApplicationContext<android.content.Context>() }
+
+    private val accountType = "com.example"
+    private val userId = "user-123"
+    private val username = "user@example.com"
+    private val token = "TEST_TOKEN"
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun newClient(): OpenCloudClient {
+        val base = server.url("/").toString().removeSuffix("/")
+
+        val am = AccountManager.get(context)
+        val account = Account("$username@${Uri.parse(base).host}", accountType)
+        am.addAccountExplicitly(account, null, null)
+        am.setUserData(account, AccountUtils.Constants.KEY_OC_BASE_URL, base)
+        am.setUserData(account, AccountUtils.Constants.KEY_ID, userId)
+
+        val ocAccount = OpenCloudAccount(account, context)
+        val client = OpenCloudClient(ocAccount.baseUri, null, true, null, context)
+        client.account = ocAccount
+        client.credentials = OpenCloudCredentialsFactory.newBearerCredentials(username, token)
+        return client
+    }
+
+    private fun gzip(text: String): Buffer {
+        val compressed = Buffer()
+        GzipSink(compressed).buffer().use { it.writeUtf8(text) }
+        return compressed
+    }
+
+    private fun multiStatusBody(href: String): String =
+        """<?xml version="1.0" encoding="utf-8"?>
+            <d:multistatus xmlns:d="DAV:" xmlns:oc="http://owncloud.org/ns">
+              <d:response>
+                <d:href>$href</d:href>
+                <d:propstat>
+                  <d:prop>
+                    <d:getlastmodified>Mon, 23 Jun 2026 10:00:00 GMT</d:getlastmodified>
+                    <d:getcontentlength>12345</d:getcontentlength>
+                    <d:getcontenttype>text/plain</d:getcontenttype>
+                    <d:resourcetype/>
+                    <d:getetag>"abc123"</d:getetag>
+                    <oc:id>00000001ocidvalue</oc:id>
+                    <oc:permissions>RDNVW</oc:permissions>
+                  </d:prop>
+                  <d:status>HTTP/1.1 200 OK</d:status>
+                </d:propstat>
+              </d:response>
+            </d:multistatus>
+        """.trimIndent()
+
+    @Test
+    fun propfindNegotiatesGzipAndParsesCompressedMultistatus() {
+        val client = newClient()
+        val remotePath = "/Documents/notes.txt"
+        server.enqueue(
+            MockResponse()
+                .setResponseCode(207)
+                .addHeader("Content-Type", "application/xml; charset=utf-8")
+                .addHeader("Content-Encoding", "gzip")
+                .setBody(gzip(multiStatusBody("/remote.php/dav/files/$userId$remotePath")))
+        )
+
+        val result = ReadRemoteFileOperation(remotePath).execute(client)
+
+        val request = server.takeRequest()
+        assertEquals("PROPFIND", request.method)
+        assertEquals("gzip", request.getHeader(HttpConstants.ACCEPT_ENCODING_HEADER))
+        assertTrue("Expected success but got ${result.code} / ${result.exception}", result.isSuccess)
+        assertEquals(remotePath, result.data.remotePath)
+        assertEquals("00000001ocidvalue", result.data.remoteId)
+    }
+
+    @Test
+    fun downloadKeepsIdentityEncoding() {
+        val client = newClient()
+        val content = "file contents"
+        server.enqueue(
+            MockResponse()
+                .setResponseCode(200)
+                .addHeader("Content-Type", "text/plain")
+                .addHeader("ETag", "\"abc123\"")
+                .setBody(content)
+        )
+        val localFolder = File(context.cacheDir, "downloads").absolutePath
+
+        val result = DownloadRemoteFileOperation("/notes.txt", localFolder).execute(client)
+
+        val request = server.takeRequest()
+        assertEquals("GET", request.method)
+        assertEquals(HttpConstants.ACCEPT_ENCODING_IDENTITY, request.getHeader(HttpConstants.ACCEPT_ENCODING_HEADER))
+        assertTrue("Expected success but got ${result.code} / ${result.exception}", result.isSuccess)
+        assertEquals(content, File(localFolder, "notes.txt").readText())
+    }
+}
@@ -0,0 +1,63 @@
+package eu.opencloud.android.lib.common.network
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import java.util.concurrent.TimeUnit
+
+class BandwidthLimiterTest {
+
+    private var nowNanos = 0L
+    private var sleptMillis = 0L
+
+    private fun limiter(bytesPerSecond: Long) = BandwidthLimiter(
+        bytesPerSecond = bytesPerSecond,
+        nanoClock = { nowNanos },
+        sleeper = { millis ->
+            sleptMillis += millis
+            nowNanos += TimeUnit.MILLISECONDS.toNanos(millis)
+        },
+    )
+
+    @Test
+    fun `unlimited limiter never waits`() {
+        val limiter = limiter(BandwidthLimiter.UNLIMITED)
+
+        repeat(100) { limiter.acquire(1024 * 1024) }
+
+        assertEquals(0, sleptMillis)
+    }
+
+    @Test
+    fun `limited limiter keeps the average rate`() {
+        val limiter = limiter(100_000)
+        nowNanos += TimeUnit.SECONDS.toNanos(1) // Idle time only fills the bucket up to its burst
+
+        repeat(50) { limiter.acquire(10_000) }
+
+        // 500 KB at 100 KB/s take 5 s, minus the burst of a quarter of a second the idle limiter lets through
+        assertTrue("slept $sleptMillis ms", sleptMillis in 4_600L..5_000L)
+    }
+
+    @Test
+    fun `raising the limit applies to the next bytes`() {
+        val limiter = limiter(10_000)
+        limiter.acquire(10_000)
+        limiter.acquire(1)
+        val sleptAtLowRate = sleptMillis
+
+        limiter.bytesPerSecond = 1_000_000
+        sleptMillis = 0
+        repeat(10) { limiter.acquire(10_000) }
+
+        assertTrue("slept $sleptAtLowRate ms", sleptAtLowRate >= 900)
+        assertTrue("slept $sleptMillis ms", sleptMillis <= 110)
+    }
+
+    @Test
+    fun `chunk size follows the rate`() {
+        assertEquals(FileRequestBody.BUFFER_SIZE, limiter(BandwidthLimiter.UNLIMITED).chunkSize(FileRequestBody.BUFFER_SIZE))
+        assertEquals(10_000, limiter(100_000).chunkSize(FileRequestBody.BUFFER_SIZE))
+        assertEquals(8 * 1024, limiter(1_000).chunkSize(FileRequestBody.BUFFER_SIZE))
+    }
+}
@@ -0,0 +1,208 @@
+package eu.opencloud.android.lib.common.network
+
+import okhttp3.RequestBody
+import okio.Buffer
+import okio.BufferedSink
+import okio.Sink
+import okio.Timeout
+import okio.buffer
+import okio.source
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import kotlin.random.Random
+
+/**
+ * Writes the same file through the upload request bodies and through the 4 KB loops they used before, into a sink that
+ * discards the bytes like a fast socket would. MB/s and allocated bytes are printed for comparison; the assertions only
+ * rely on the flushes and progress callbacks, which do not depend on the machine running the tests.
+ */
+class RequestBodyThroughputBenchmarkTest {
+
+    private lateinit var file: File
+
+    @Before
+    fun setUp() {
+        file = File.createTempFile("request-body", ".bin").apply { writeBytes(Random(1).nextBytes(FILE_SIZE)) }
+    }
+
+    @After
+    fun tearDown() {
+        file.delete()
+    }
+
+    @Test
+    fun fileBodyStreamsWithoutFlushingEveryRead() {
+        val legacy = measure("FileRequestBody (4 KB)") { listener -> LegacyFileRequestBody(file, listener) }
+        val current = measure("FileRequestBody") { listener ->
+            FileRequestBody(file, null).apply { addDatatransferProgressListener(listener) }
+        }
+
+        assertEquals(FILE_SIZE.toLong(), current.bytes)
+        assertEquals(FILE_SIZE / LEGACY_BUFFER_SIZE, legacy.flushes)
+        assertEquals(0, current.flushes)
+        assertCoalescedProgress(current)
+    }
+
+    @Test
+    fun chunkBodyStreamsWithoutFlushingEveryRead() {
+        RandomAccessFile(file, "r").use { raf ->
+            val legacy = measure("ChunkFromFileRequestBody (4 KB)") { listener ->
+                LegacyChunkFromFileRequestBody(file, raf.channel, listener)
+            }
+            val current = measure("ChunkFromFileRequestBody") { listener ->
+                ChunkFromFileRequestBody(file, null, raf.channel, FILE_SIZE.toLong()).apply {
+                    addDatatransferProgressListener(listener)
+                }
+            }
+
+            assertEquals(FILE_SIZE.toLong(), current.bytes)
+            assertEquals(FILE_SIZE / LEGACY_BUFFER_SIZE, legacy.flushes)
+            assertEquals(0, current.flushes)
+            assertCoalescedProgress(current)
+        }
+    }
+
+    private fun assertCoalescedProgress(result: Result) {
+        // One tick per percent at most, plus the ones of the timer, which depend on how fast the run is
+        val maxTicks = 100 + result.millis / TransferProgressNotifier.PROGRESS_INTERVAL_MILLIS + 1
+        assertTrue("${result.progressCallbacks} progress callbacks", result.progressCallbacks <= maxTicks)
+        assertEquals(FILE_SIZE.toLong(), result.lastTransferred)
+    }
+
+    private fun measure(name: String, newBody: (OnDatatransferProgressListener) -> RequestBody): Result {
+        // Warm up, then keep the best of a few runs
+        repeat(WARM_UP_RUNS) { write(newBody) }
+        val result = (1..MEASURED_RUNS).map { write(newBody) }.minByOrNull { it.millis }!!
+        println(
+            "%-34s %8.1f MB/s %10d bytes allocated %6d flushes %6d progress callbacks".format(
+                name,
+                FILE_SIZE / 1_048_576.0 / (result.millis.coerceAtLeast(1) / 1000.0),
+                result.allocatedBytes,
+                result.flushes,
+                result.progressCallbacks,
+            )
+        )
+        return result
+    }
+
+    private fun write(newBody: (OnDatatransferProgressListener) -> RequestBody): Result {
+        var progressCallbacks = 0
+        var lastTransferred = 0L
+        val body = newBody(OnDatatransferProgressListener { _, transferred, _, _ ->
+            progressCallbacks++
+            lastTransferred = transferred
+        })
+        val sink = DiscardingSink()
+        val allocatedBefore = allocatedBytes()
+        val startedAt = System.nanoTime()
+
+        sink.buffer().use { body.writeTo(it) }
+
+        val millis = (System.nanoTime() - startedAt) / 1_000_000
+        return Result(
+            bytes = sink.bytes,
+            millis = millis,
+            allocatedBytes = allocatedBytes() - allocatedBefore,
+            flushes = sink.flushes - 1, // the one of closing the sink
+            progressCallbacks = progressCallbacks,
+            lastTransferred = lastTransferred,
+        )
+    }
+
+    // Through reflection: java.lang.management is in the JVM running the tests but not in the Android API
+    private fun allocatedBytes(): Long =
+        try {
+            val threads = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null)
+            val method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", Long::class.java)
+            method.invoke(threads, Thread.currentThread().id) as Long
+        } catch (e: ReflectiveOperationException) {
+            -1
+        }
+
+    private data class Result(
+        val bytes: Long,
+        val millis: Long,
+        val allocatedBytes: Long,
+        val flushes: Int,
+        val progressCallbacks: Int,
+        val lastTransferred: Long,
+    )
+
+    private class DiscardingSink : Sink {
+        var bytes = 0L
+        var flushes = 0
+
+        override fun write(source: Buffer, byteCount: Long) {
+            source.skip(byteCount)
+            bytes += byteCount
+        }
+
+        override fun flush() {
+            flushes++
+        }
+
+        override fun timeout(): Timeout = Timeout.NONE
+
+        override fun close() = flush()
+    }
+
+    /** FileRequestBody.writeTo before the large buffers. */
+    private class LegacyFileRequestBody(
+        private val file: File,
+        private val listener: OnDatatransferProgressListener,
+    ) : RequestBody() {
+        override fun contentType() = null
+
+        override fun writeTo(sink: BufferedSink) {
+            var transferred = 0L
+            var read: Long
+            file.source().use { source ->
+                while (source.read(sink.buffer, LEGACY_BUFFER_SIZE.toLong()).also { read = it } != -1L) {
+                    transferred += read
+                    sink.flush()
+                    listener.onTransferProgress(read, transferred, file.length(), file.absolutePath)
+                }
+            }
+        }
+    }
+
+    /** ChunkFromFileRequestBody.writeTo before the large buffers, for a chunk covering the whole file. */
+    private class LegacyChunkFromFileRequestBody(
+        private val file: File,
+        private val channel: FileChannel,
+        private val listener: OnDatatransferProgressListener,
+    ) : RequestBody() {
+        private val buffer = ByteBuffer.allocate(LEGACY_BUFFER_SIZE)
+
+        override fun contentType() = null
+
+        override fun writeTo(sink: BufferedSink) {
+            var transferred = 0L
+            channel.position(0)
+            while (channel.position() < channel.size()) {
+                buffer.limit(minOf(buffer.capacity().toLong(), channel.size() - channel.position()).toInt())
+                val readCount = channel.read(buffer)
+                if (readCount == -1) break
+                sink.buffer.write(buffer.array(), 0, readCount)
+                sink.flush()
+                buffer.clear()
+                transferred += readCount
+                listener.onTransferProgress(readCount.toLong(), transferred, file.length(), file.absolutePath)
+            }
+        }
+    }
+
+    companion object {
+        private const val FILE_SIZE = 32 * 1024 * 1024
+        private const val LEGACY_BUFFER_SIZE = 4_096
+        private const val WARM_UP_RUNS = 2
+        private const val MEASURED_RUNS = 3
+    }
+}
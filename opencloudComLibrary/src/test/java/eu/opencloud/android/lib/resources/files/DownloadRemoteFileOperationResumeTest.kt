@@ -0,0 +1,224 @@
+package eu.opencloud.android.lib.resources.files
+
+import android.accounts.Account
+import android.accounts.AccountManager
+import android.net.Uri
+import androidx.test.core.app.ApplicationProvider
+import eu.opencloud.android.lib.common.OpenCloudAccount
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.lib.common.accounts.AccountUtils
+import eu.opencloud.android.lib.common.authentication.OpenCloudCredentialsFactory
+import eu.opencloud.android.lib.common.http.HttpConstants
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.SocketPolicy
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+import java.util.concurrent.TimeUnit
+
+/**
+ * Interrupted downloads keep their temporal file together with the ETag it belongs to,
+ * and the next attempt asks only for the missing bytes with Range + If-Range.
+ */
+@RunWith(RobolectricTestRunner::class)
+class DownloadRemoteFileOperationResumeTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var localFolder: File
+    private val context by lazy { ApplicationProvider.getApplicationContext<android.content.Context>() }
+
+    private val accountType = "com.example"
+    private val userId = "user-123"
+    private val username = "user@example.com"
+    private val token = "TEST_TOKEN"
+
+    private val remotePath = "/Videos/holidays.mp4"
+    private val content = (0 until 64 * 1024).map { ('a' + it % 26) }.joinToString("")
+    private val etag = "\"abc123\""
+
+    private val tmpFile get() = File(localFolder.absolutePath + remotePath)
+    private val partialEtagFile get() = File(tmpFile.absolutePath + DownloadRemoteFileOperation.PARTIAL_ETAG_SUFFIX)
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        localFolder = File(context.cacheDir, "tmp").apply { deleteRecursively() }
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+        localFolder.deleteRecursively()
+    }
+
+    private fun newClient(): OpenCloudClient {
+        val base = server.url("/").toString().removeSuffix("/")
+
+        val am = AccountManager.get(context)
+        val account = Account("$username@${Uri.parse(base).host}", accountType)
+        am.addAccountExplicitly(account, null, null)
+        am.setUserData(account, AccountUtils.Constants.KEY_OC_BASE_URL, base)
+        am.setUserData(account, AccountUtils.Constants.KEY_ID, userId)
+
+        val ocAccount = OpenCloudAccount(account, context)
+        val client = OpenCloudClient(ocAccount.baseUri, null, true, null, context)
+        client.account = ocAccount
+        client.credentials = OpenCloudCredentialsFactory.newBearerCredentials(username, token)
+        return client
+    }
+
+    private fun download(client: OpenCloudClient) =
+        DownloadRemoteFileOperation(remotePath, localFolder.absolutePath).execute(client)
+
+    private fun writePartial(bytes: Int) {
+        tmpFile.parentFile?.mkdirs()
+        tmpFile.writeText(content.substring(0, bytes))
+        partialEtagFile.writeText(etag)
+    }
+
+    @Test
+    fun interruptedDownloadKeepsPartialFileWithItsEtag() {
+        server.enqueue(
+            MockResponse()
+                .addHeader(HttpConstants.ETAG_HEADER, etag)
+                .setBody(content)
+                .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY)
+        )
+
+        val result = download(newClient())
+
+        assertFalse(result.isSuccess)
+        assertTrue(tmpFile.length() in 1 until content.length)
+        assertEquals(etag, partialEtagFile.readText())
+    }
+
+    @Test
+    fun cancelledDownloadLeavesNoPartialFileBehind() {
+        server.enqueue(MockResponse().addHeader(HttpConstants.ETAG_HEADER, etag).setBody(content))
+
+        val operation = DownloadRemoteFileOperation(remotePath, localFolder.absolutePath).apply { cancel() }
+        val result = operation.execute(newClient())
+
+        assertFalse(result.isSuccess)
+        assertFalse(tmpFile.exists())
+        assertFalse(partialEtagFile.exists())
+    }
+
+    @Test
+    fun interruptedDownloadKeepsItsPartialFileToBeResumed() {
+        // Sent slowly, so the download is stopped long before its end
+        server.enqueue(
+            MockResponse()
+                .addHeader(HttpConstants.ETAG_HEADER, etag)
+                .setBody(content)
+                .throttleBody(4 * 1024, 10, TimeUnit.MILLISECONDS)
+        )
+
+        val operation = DownloadRemoteFileOperation(remotePath, localFolder.absolutePath)
+        operation.addDatatransferProgressListener { _, _, _, _ -> operation.cancel(keepPartialFile = true) }
+        val result = operation.execute(newClient())
+
+        assertFalse(result.isSuccess)
+        assertTrue(tmpFile.length() in 1 until content.length)
+        assertEquals(etag, partialEtagFile.readText())
+    }
+
+    @Test
+    fun partialDownloadIsResumedFromItsLastByte() {
+        val offset = 40_000
+        writePartial(offset)
+        server.enqueue(
+            MockResponse()
+                .setResponseCode(HttpConstants.HTTP_PARTIAL_CONTENT)
+                .addHeader(HttpConstants.ETAG_HEADER, etag)
+                .addHeader(HttpConstants.CONTENT_RANGE_HEADER, "bytes $offset-${content.length - 1}/${content.length}")
+                .setBody(content.substring(offset))
+        )
+
+        val operation = DownloadRemoteFileOperation(remotePath, localFolder.absolutePath)
+        val result = operation.execute(newClient())
+
+        val request = server.takeRequest()
+        assertEquals("bytes=$offset-", request.getHeader(HttpConstants.RANGE_HEADER))
+        assertEquals(etag, request.getHeader(HttpConstants.IF_RANGE_HEADER))
+        assertTrue("Expected success but got ${result.code} / ${result.exception}", result.isSuccess)
+        assertEquals(content, tmpFile.readText())
+        assertEquals("abc123", operation.etag)
+        assertFalse(partialEtagFile.exists())
+    }
+
+    @Test
+    fun partialDownloadIsReplacedWhenTheFileChanged() {
+        writePartial(40_000)
+        val newContent = content.reversed()
+        server.enqueue(
+            MockResponse()
+                .addHeader(HttpConstants.ETAG_HEADER, "\"def456\"")
+                .setBody(newContent)
+        )
+
+        val result = download(newClient())
+
+        assertTrue(result.isSuccess)
+        assertEquals(newContent, tmpFile.readText())
+        assertFalse(partialEtagFile.exists())
+    }
+
+    @Test
+    fun unsatisfiableRangeRestartsTheDownload() {
+        writePartial(40_000)
+        server.enqueue(MockResponse().setResponseCode(HttpConstants.HTTP_REQUESTED_RANGE_NOT_SATISFIABLE))
+        server.enqueue(
+            MockResponse()
+                .addHeader(HttpConstants.ETAG_HEADER, etag)
+                .setBody(content)
+        )
+
+        val result = download(newClient())
+
+        server.takeRequest()
+        val retry = server.takeRequest()
+        assertNull(retry.getHeader(HttpConstants.RANGE_HEADER))
+        assertTrue(result.isSuccess)
+        assertEquals(content, tmpFile.readText())
+    }
+
+    @Test
+    fun resumedDownloadWithWrongChecksumIsDownloadedAgain() {
+        val offset = 40_000
+        writePartial(offset)
+        tmpFile.writeText("x".repeat(offset))
+        server.enqueue(
+            MockResponse()
+                .setResponseCode(HttpConstants.HTTP_PARTIAL_CONTENT)
+                .addHeader(HttpConstants.ETAG_HEADER, etag)
+                .addHeader(HttpConstants.CONTENT_RANGE_HEADER, "bytes $offset-${content.length - 1}/${content.length}")
+                .addHeader(HttpConstants.OC_CHECKSUM_HEADER, "SHA1:${sha1Of(content)}")
+                .setBody(content.substring(offset))
+        )
+        server.enqueue(
+            MockResponse()
+                .addHeader(HttpConstants.ETAG_HEADER, etag)
+                .setBody(content)
+        )
+
+        val result = download(newClient())
+
+        assertEquals(2, server.requestCount)
+        assertTrue(result.isSuccess)
+        assertEquals(content, tmpFile.readText())
+    }
+
+    private fun sha1Of(text: String): String =
+        java.security.MessageDigest.getInstance("SHA-1").digest(text.toByteArray())
+            .joinToString("") { "%02x".format(it.toInt() and 0xff) }
+}
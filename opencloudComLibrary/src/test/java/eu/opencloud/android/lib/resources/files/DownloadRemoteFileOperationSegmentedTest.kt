@@ -0,0 +1,212 @@
+package eu.opencloud.android.lib.resources.files
+
+import android.accounts.Account
+import android.accounts.AccountManager
+import android.net.Uri
+import androidx.test.core.app.ApplicationProvider
+import eu.opencloud.android.lib.common.OpenCloudAccount
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.lib.common.accounts.AccountUtils
+import eu.opencloud.android.lib.common.authentication.OpenCloudCredentialsFactory
+import eu.opencloud.android.lib.common.http.HttpConstants
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import okio.Buffer
+import org.junit.After
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import java.io.File
+import java.io.RandomAccessFile
+import java.security.MessageDigest
+import java.util.Collections
+import kotlin.random.Random
+
+/**
+ * Big files are fetched as concurrent byte ranges into a preallocated temporal file, and checked against the
+ * server's checksum before the download is reported as done.
+ */
+@RunWith(RobolectricTestRunner::class)
+class DownloadRemoteFileOperationSegmentedTest {
+
+    private lateinit var server: MockWebServer
+    private lateinit var localFolder: File
+    private val context by lazy { ApplicationProvider.getApplicationContext<android.content.Context>() }
+
+    private val remotePath = "/Videos/holidays.mp4"
+    private val content = Random(7).nextBytes(100_000)
+    private val etag = "\"abc123\""
+    private val config = SegmentedDownload.Config(threshold = 64 * 1024, maxSegments = 4, minSegmentSize = 16 * 1024)
+    private val ranges: MutableList<String?> = Collections.synchronizedList(mutableListOf())
+
+    private val tmpFile get() = File(localFolder.absolutePath + remotePath)
+    private val segmentsFile get() = File(tmpFile.absolutePath + SegmentedDownload.SEGMENTS_SUFFIX)
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+        localFolder = File(context.cacheDir, "tmp").apply { deleteRecursively() }
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+        localFolder.deleteRecursively()
+    }
+
+    private fun newClient(): OpenCloudClient {
+        val base = server.url("/").toString().removeSuffix("/")
+
+        val am = AccountManager.get(context)
+        val account = Account("user@example.com@${Uri.parse(base).host}", "com.example")
+        am.addAccountExplicitly(account, null, null)
+        am.setUserData(account, AccountUtils.Constants.KEY_OC_BASE_URL, base)
+        am.setUserData(account, AccountUtils.Constants.KEY_ID, "user-123")
+
+        val ocAccount = OpenCloudAccount(account, context)
+        val client = OpenCloudClient(ocAccount.baseUri, null, true, null, context)
+        client.account = ocAccount
+        client.credentials = OpenCloudCredentialsFactory.newBearerCredentials("user@example.com", "TEST_TOKEN")
+        return client
+    }
+
+    private fun operation() =
+        DownloadRemoteFileOperation(
+            remotePath,
+            localFolder.absolutePath,
+            expectedLength = content.size.toLong(),
+            segmentedDownloadConfig = config,
+        )
+
+    private fun serve(rangesSupported: Boolean = true, checksum: String = sha1Of(content)) {
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val range = request.getHeader(HttpConstants.RANGE_HEADER)
+                ranges.add(range)
+                val response = MockResponse()
+                    .addHeader(HttpConstants.ETAG_HEADER, etag)
+                    .addHeader(HttpConstants.OC_CHECKSUM_HEADER, "SHA1:$checksum")
+                if (!rangesSupported || range == null) {
+                    return response.setBody(Buffer().write(content))
+                }
+                val (first, last) = range.removePrefix("bytes=").split('-').map { it.toInt() }
+                return response
+                    .setResponseCode(HttpConstants.HTTP_PARTIAL_CONTENT)
+                    .addHeader(HttpConstants.CONTENT_RANGE_HEADER, "bytes $first-$last/${content.size}")
+                    .setBody(Buffer().write(content.copyOfRange(first, last + 1)))
+            }
+        }
+    }
+
+    @Test
+    fun bigFileIsDownloadedInConcurrentRanges() {
+        serve()
+        val operation = operation()
+
+        val result = operation.execute(newClient())
+
+        assertTrue("Expected success but got ${result.code} / ${result.exception}", result.isSuccess)
+        assertArrayEquals(content, tmpFile.readBytes())
+        assertEquals("abc123", operation.etag)
+        assertFalse(segmentsFile.exists())
+        assertEquals("bytes=0-0", ranges.first())
+        assertEquals(
+            setOf("bytes=0-24999", "bytes=25000-49999", "bytes=50000-74999", "bytes=75000-99999"),
+            ranges.drop(1).toSet(),
+        )
+    }
+
+    @Test
+    fun interruptedSegmentsAreResumedFromTheirLastByte() {
+        tmpFile.parentFile?.mkdirs()
+        RandomAccessFile(tmpFile, "rw").use { file ->
+            file.setLength(content.size.toLong())
+            file.write(content, 0, 30_000)
+        }
+        segmentsFile.writeText("$etag\n${content.size}\n0 50000 30000\n50000 100000 100000\n")
+        serve()
+
+        val result = operation().execute(newClient())
+
+        assertTrue("Expected success but got ${result.code} / ${result.exception}", result.isSuccess)
+        assertEquals(listOf("bytes=30000-49999"), ranges.toList())
+        assertArrayEquals(content, tmpFile.readBytes())
+        assertFalse(segmentsFile.exists())
+    }
+
+    @Test
+    fun serverWithoutRangesGetsASingleRequest() {
+        serve(rangesSupported = false)
+
+        val result = operation().execute(newClient())
+
+        assertTrue(result.isSuccess)
+        assertArrayEquals(content, tmpFile.readBytes())
+        assertEquals(listOf("bytes=0-0", null), ranges.toList())
+    }
+
+    @Test
+    fun assembledFileWithWrongChecksumIsDownloadedAgain() {
+        serve(checksum = sha1Of(content.reversedArray()))
+
+        val result = operation().execute(newClient())
+
+        // The whole-file retry does not check the checksum of a fresh download, like before segmented downloads
+        assertTrue(result.isSuccess)
+        assertEquals(null, ranges.last())
+        assertFalse(segmentsFile.exists())
+    }
+
+    @Test
+    fun fileGoneDuringSegmentedDownloadLeavesNothingBehind() {
+        server.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val range = request.getHeader(HttpConstants.RANGE_HEADER)
+                ranges.add(range)
+                if (range != "bytes=0-0") return MockResponse().setResponseCode(HttpConstants.HTTP_NOT_FOUND)
+                return MockResponse()
+                    .setResponseCode(HttpConstants.HTTP_PARTIAL_CONTENT)
+                    .addHeader(HttpConstants.ETAG_HEADER, etag)
+                    .addHeader(HttpConstants.CONTENT_RANGE_HEADER, "bytes 0-0/${content.size}")
+                    .setBody(Buffer().write(content.copyOfRange(0, 1)))
+            }
+        }
+
+        val result = operation().execute(newClient())
+
+        assertFalse(result.isSuccess)
+        assertFalse(tmpFile.exists())
+        assertFalse(segmentsFile.exists())
+    }
+
+    @Test
+    fun cancelledSegmentedDownloadLeavesNothingBehind() {
+        serve()
+        val result = operation().apply { cancel() }.execute(newClient())
+
+        assertFalse(result.isSuccess)
+        assertFalse(tmpFile.exists())
+        assertFalse(segmentsFile.exists())
+    }
+
+    @Test
+    fun interruptedSegmentedDownloadKeepsItsSegmentsToBeResumed() {
+        serve()
+        val result = operation().apply { cancel(keepPartialFile = true) }.execute(newClient())
+
+        assertFalse(result.isSuccess)
+        assertEquals(content.size.toLong(), tmpFile.length())
+        assertTrue(segmentsFile.exists())
+    }
+
+    private fun sha1Of(bytes: ByteArray): String =
+        MessageDigest.getInstance("SHA-1").digest(bytes).joinToString("") { "%02x".format(it.toInt() and 0xff) }
+}
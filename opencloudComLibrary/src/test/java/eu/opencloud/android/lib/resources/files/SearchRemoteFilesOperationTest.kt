@@ -0,0 +1,166 @@
+package eu.opencloud.android.lib.resources.files
+
+import android.accounts.Account
+import android.accounts.AccountManager
+import android.net.Uri
+import androidx.test.core.app.ApplicationProvider
+import eu.opencloud.android.lib.common.OpenCloudAccount
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.lib.common.accounts.AccountUtils
+import eu.opencloud.android.lib.common.authentication.OpenCloudCredentialsFactory
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/**
+ * Checks the REPORT search-files request and how its results are handed over in pages while the multistatus is read,
+ * with the space of every result taken from its href.
+ */
+@RunWith(RobolectricTestRunner::class)
+class SearchRemoteFilesOperationTest {
+
+    private lateinit var server: MockWebServer
+    private val context by lazy { ApplicationProvider.getApplicationContext<android.content.Context>() }
+
+    private val accountType = "com.example"
+    private val userId = "user-123"
+    private val username = "user@example.com"
+    private val token = "TEST_TOKEN"
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun newClient(): OpenCloudClient {
+        val base = server.url("/").toString().removeSuffix("/")
+
+        val am = AccountManager.get(context)
+        val account = Account("$username@${Uri.parse(base).host}", accountType)
+        am.addAccountExplicitly(account, null, null)
+        am.setUserData(account, AccountUtils.Constants.KEY_OC_BASE_URL, base)
+        am.setUserData(account, AccountUtils.Constants.KEY_ID, userId)
+
+        val ocAccount = OpenCloudAccount(account, context)
+        val client = OpenCloudClient(ocAccount.baseUri, null, true, null, context)
+        client.account = ocAccount
+        client.credentials = OpenCloudCredentialsFactory.newBearerCredentials(username, token)
+        return client
+    }
+
+    private fun multiStatus(vararg responses: String): MockResponse =
+        MockResponse()
+            .setResponseCode(207)
+            .addHeader("Content-Type", "application/xml; charset=utf-8")
+            .setBody(
+                """<?xml version="1.0" encoding="utf-8"?>
+                <d:multistatus xmlns:d="DAV:" xmlns:oc="http://owncloud.org/ns">
+                  ${responses.joinToString("\n")}
+                </d:multistatus>
+                """.trimIndent()
+            )
+
+    private fun fileResponse(spaceId: String, path: String, remoteId: String): String =
+        """<d:response>
+             <d:href>/remote.php/dav/spaces/$spaceId$path</d:href>
+             <d:propstat>
+               <d:prop>
+                 <d:getlastmodified>Mon, 23 Jun 2026 10:00:00 GMT</d:getlastmodified>
+                 <d:getcontentlength>12345</d:getcontentlength>
+                 <d:getcontenttype>text/plain</d:getcontenttype>
+                 <d:resourcetype/>
+                 <d:getetag>"abc123"</d:getetag>
+                 <oc:id>$remoteId</oc:id>
+                 <oc:permissions>RDNVW</oc:permissions>
+               </d:prop>
+               <d:status>HTTP/1.1 200 OK</d:status>
+             </d:propstat>
+           </d:response>"""
+
+    @Test
+    fun resultsAreDeliveredInPagesWithTheirSpace() {
+        server.enqueue(
+            multiStatus(
+                fileResponse(SPACE_ID, "/Documents/report.txt", "1"),
+                fileResponse(SPACE_ID, "/report-2025.txt", "2"),
+                fileResponse(OTHER_SPACE_ID, "/Shared/report.md", "3"),
+            )
+        )
+        val pages = mutableListOf<List<RemoteSearchResult>>()
+
+        val result = SearchRemoteFilesOperation(SEARCH_PATTERN, limit = 50, pageSize = 2) { page ->
+            pages.add(page)
+            true
+        }.execute(newClient())
+
+        assertTrue("Expected success but got ${result.code} / ${result.exception}", result.isSuccess)
+        assertEquals(3, result.data)
+        assertEquals(listOf(2, 1), pages.map { it.size })
+        val results = pages.flatten()
+        assertEquals(listOf("/Documents/report.txt", "/report-2025.txt", "/Shared/report.md"), results.map { it.remoteFile.remotePath })
+        assertEquals(listOf(SPACE_ID, SPACE_ID, OTHER_SPACE_ID), results.map { it.spaceId })
+        assertEquals("1", results.first().remoteFile.remoteId)
+
+        val request = server.takeRequest()
+        assertEquals("REPORT", request.method)
+        assertEquals("/remote.php/dav/spaces/", request.path)
+        val requestBody = request.body.readUtf8()
+        assertTrue(requestBody, requestBody.contains("search-files"))
+        assertTrue(requestBody, requestBody.contains("<oc:limit>50</oc:limit>"))
+        assertTrue(requestBody, requestBody.contains("*report*"))
+    }
+
+    @Test
+    fun readingStopsWhenPageIsRejected() {
+        server.enqueue(
+            multiStatus(
+                fileResponse(SPACE_ID, "/a.txt", "1"),
+                fileResponse(SPACE_ID, "/b.txt", "2"),
+                fileResponse(SPACE_ID, "/c.txt", "3"),
+            )
+        )
+        val pages = mutableListOf<List<RemoteSearchResult>>()
+
+        val result = SearchRemoteFilesOperation(SEARCH_PATTERN, limit = 50, pageSize = 1) { page ->
+            pages.add(page)
+            false
+        }.execute(newClient())
+
+        assertTrue(result.isSuccess)
+        assertEquals(1, result.data)
+        assertEquals(listOf("/a.txt"), pages.flatten().map { it.remoteFile.remotePath })
+    }
+
+    @Test
+    fun failedSearchDeliversNothing() {
+        server.enqueue(MockResponse().setResponseCode(500))
+        var pagesDelivered = 0
+
+        val result = SearchRemoteFilesOperation(SEARCH_PATTERN, limit = 50, pageSize = 10) {
+            pagesDelivered++
+            true
+        }.execute(newClient())
+
+        assertFalse(result.isSuccess)
+        assertEquals(0, pagesDelivered)
+    }
+
+    companion object {
+        private const val SEARCH_PATTERN = "name:\"*report*\""
+        private const val SPACE_ID = "storage-1\$space-1"
+        private const val OTHER_SPACE_ID = "storage-1\$space-2"
+    }
+}
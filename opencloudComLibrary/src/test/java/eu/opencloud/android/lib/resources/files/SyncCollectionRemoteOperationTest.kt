@@ -0,0 +1,186 @@
+package eu.opencloud.android.lib.resources.files
+
+import android.accounts.Account
+import android.accounts.AccountManager
+import android.net.Uri
+import androidx.test.core.app.ApplicationProvider
+import eu.opencloud.android.lib.common.OpenCloudAccount
+import eu.opencloud.android.lib.common.OpenCloudClient
+import eu.opencloud.android.lib.common.accounts.AccountUtils
+import eu.opencloud.android.lib.common.authentication.OpenCloudCredentialsFactory
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+
+/**
+ * Checks the REPORT sync-collection request and how its multistatus is split into changed files, removed paths and
+ * the next sync token, plus the fallback flag for servers that do not support it.
+ */
+@RunWith(RobolectricTestRunner::class)
+class SyncCollectionRemoteOperationTest {
+
+    private lateinit var server: MockWebServer
+    private val context by lazy { ApplicationProvider.getApplicationContext<android.content.Context>() }
+
+    private val accountType = "com.example"
+    private val userId = "user-123"
+    private val username = "user@example.com"
+    private val token = "TEST_TOKEN"
+    private val davPath = "/remote.php/dav/files/$userId"
+
+    @Before
+    fun setUp() {
+        server = MockWebServer()
+        server.start()
+    }
+
+    @After
+    fun tearDown() {
+        server.shutdown()
+    }
+
+    private fun newClient(): OpenCloudClient {
+        val base = server.url("/").toString().removeSuffix("/")
+
+        val am = AccountManager.get(context)
+        val account = Account("$username@${Uri.parse(base).host}", accountType)
+        am.addAccountExplicitly(account, null, null)
+        am.setUserData(account, AccountUtils.Constants.KEY_OC_BASE_URL, base)
+        am.setUserData(account, AccountUtils.Constants.KEY_ID, userId)
+
+        val ocAccount = OpenCloudAccount(account, context)
+        val client = OpenCloudClient(ocAccount.baseUri, null, true, null, context)
+        client.account = ocAccount
+        client.credentials = OpenCloudCredentialsFactory.newBearerCredentials(username, token)
+        return client
+    }
+
+    private fun multiStatus(vararg responses: String, syncToken: String = NEW_SYNC_TOKEN): MockResponse =
+        MockResponse()
+            .setResponseCode(207)
+            .addHeader("Content-Type", "application/xml; charset=utf-8")
+            .setBody(
+                """<?xml version="1.0" encoding="utf-8"?>
+                <d:multistatus xmlns:d="DAV:" xmlns:oc="http://owncloud.org/ns">
+                  ${responses.joinToString("\n")}
+                  <d:sync-token>$syncToken</d:sync-token>
+                </d:multistatus>
+                """.trimIndent()
+            )
+
+    private fun changedFileResponse(path: String): String =
+        """<d:response>
+             <d:href>$davPath$path</d:href>
+             <d:propstat>
+               <d:prop>
+                 <d:getlastmodified>Mon, 23 Jun 2026 10:00:00 GMT</d:getlastmodified>
+                 <d:getcontentlength>12345</d:getcontentlength>
+                 <d:getcontenttype>text/plain</d:getcontenttype>
+                 <d:resourcetype/>
+                 <d:getetag>"abc123"</d:getetag>
+                 <oc:id>00000001ocidvalue</oc:id>
+                 <oc:permissions>RDNVW</oc:permissions>
+               </d:prop>
+               <d:status>HTTP/1.1 200 OK</d:status>
+             </d:propstat>
+           </d:response>"""
+
+    private fun statusResponse(path: String, status: String): String =
+        """<d:response>
+             <d:href>$davPath$path</d:href>
+             <d:status>$status</d:status>
+           </d:response>"""
+
+    @Test
+    fun changesAreSplitIntoChangedFilesAndRemovedPaths() {
+        server.enqueue(
+            multiStatus(
+                changedFileResponse("/Documents/new.txt"),
+                statusResponse("/Old/removed.txt", "HTTP/1.1 404 Not Found"),
+            )
+        )
+
+        val result = SyncCollectionRemoteOperation(remotePath = "/", syncToken = SYNC_TOKEN).execute(newClient())
+
+        assertTrue("Expected success but got ${result.code} / ${result.exception}", result.isSuccess)
+        assertEquals(NEW_SYNC_TOKEN, result.data.syncToken)
+        assertEquals(listOf("/Documents/new.txt"), result.data.changedFiles.map { it.remotePath })
+        assertEquals("00000001ocidvalue", result.data.changedFiles.first().remoteId)
+        assertEquals(listOf("/Old/removed.txt"), result.data.removedPaths)
+        assertFalse(result.data.isTruncated)
+        assertFalse(result.data.isFullRefreshNeeded)
+
+        val request = server.takeRequest()
+        assertEquals("REPORT", request.method)
+        assertEquals("0", request.getHeader("Depth"))
+        val requestBody = request.body.readUtf8()
+        assertTrue(requestBody, requestBody.contains(SYNC_TOKEN))
+        assertTrue(requestBody, requestBody.contains("infinite"))
+    }
+
+    @Test
+    fun truncatedResultIsFlagged() {
+        server.enqueue(
+            multiStatus(
+                changedFileResponse("/Documents/new.txt"),
+                statusResponse("/", "HTTP/1.1 507 Insufficient Storage"),
+            )
+        )
+
+        val result = SyncCollectionRemoteOperation(remotePath = "/", syncToken = SYNC_TOKEN).execute(newClient())
+
+        assertTrue(result.isSuccess)
+        assertTrue(result.data.isTruncated)
+        assertEquals(listOf("/Documents/new.txt"), result.data.changedFiles.map { it.remotePath })
+    }
+
+    @Test
+    fun serverWithoutSyncCollectionNeedsFullRefresh() {
+        server.enqueue(MockResponse().setResponseCode(405))
+
+        val result = SyncCollectionRemoteOperation(remotePath = "/", syncToken = SYNC_TOKEN).execute(newClient())
+
+        assertTrue(result.isSuccess)
+        assertTrue(result.data.isFullRefreshNeeded)
+        assertNull(result.data.syncToken)
+    }
+
+    @Test
+    fun rejectedSyncTokenNeedsFullRefresh() {
+        server.enqueue(
+            MockResponse()
+                .setResponseCode(403)
+                .addHeader("Content-Type", "application/xml; charset=utf-8")
+                .setBody("""<?xml version="1.0" encoding="utf-8"?><d:error xmlns:d="DAV:"><d:valid-sync-token/></d:error>""")
+        )
+
+        val result = SyncCollectionRemoteOperation(remotePath = "/", syncToken = SYNC_TOKEN).execute(newClient())
+
+        assertTrue(result.isSuccess)
+        assertTrue(result.data.isFullRefreshNeeded)
+    }
+
+    @Test
+    fun syncTokenFailingAsPreconditionNeedsFullRefresh() {
+        server.enqueue(MockResponse().setResponseCode(412))
+
+        val result = SyncCollectionRemoteOperation(remotePath = "/", syncToken = SYNC_TOKEN).execute(newClient())
+
+        assertTrue(result.isSuccess)
+        assertTrue(result.data.isFullRefreshNeeded)
+        assertNull(result.data.syncToken)
+    }
+
+    companion object {
+        private const val SYNC_TOKEN = "http://example.com/ns/sync/1"
+        private const val NEW_SYNC_TOKEN = "http://example.com/ns/sync/2"
+    }
+}
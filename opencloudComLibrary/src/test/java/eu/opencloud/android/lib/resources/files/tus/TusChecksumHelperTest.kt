@@ -27,6 +27,7 @@ import org.robolectric.annotation.Config
 import java.io.ByteArrayInputStream
 import java.io.ByteArrayOutputStream
 import java.io.File
+import java.nio.ByteBuffer
 import java.security.MessageDigest
 import java.util.Base64
 
@@ -64,6 +65,21 @@ class TusChecksumHelperTest {
         assertEquals(expectedSha1Base64(range), digest)
     }
 
+    @Test
+    fun uploadChecksumHeader_forBufferMatchesFileRangeAndKeepsPosition() {
+        val bytes = byteArrayOf(0, 1, 2, 3, 4, 5, 6, 7, 8, 9)
+        val file = tempFile(bytes)
+        val chunk = ByteBuffer.wrap(bytes, 3, 5)
+
+        val header = TusChecksumHelper.uploadChecksumHeader(chunk, TusChecksumHelper.SHA1_WIRE_ALGORITHM)
+
+        assertEquals(
+            TusChecksumHelper.uploadChecksumHeader(file, offset = 3, length = 5, algorithm = TusChecksumHelper.SHA1_WIRE_ALGORITHM),
+            header
+        )
+        assertEquals(3, chunk.position())
+    }
+
     @Test
     fun copyAndSha1Hex_countsLargeCopiesPastBufferSize() {
         val bytes = ByteArray(140_000) { index -> (index % 251).toByte() }
@@ -23,6 +23,7 @@ import org.junit.Test
 import org.junit.runner.RunWith
 import org.robolectric.RobolectricTestRunner
 import java.io.File
+import java.io.FileInputStream
 import java.io.RandomAccessFile
 import java.nio.channels.ClosedChannelException
 import java.util.Base64
@@ -276,6 +277,47 @@ class TusIntegrationTest {
         )
     }
 
+    @Test
+    fun patch_readsChunkFromSourceChannelInsteadOfLocalPath() {
+        val client = newClient()
+        val locationPath = "/remote.php/dav/uploads/$userId/UPLD-source-channel"
+        val bytes = ByteArray(10) { it.toByte() }
+        val localFile = File.createTempFile("tus", ".bin").apply { writeBytes(bytes) }
+        server.enqueue(
+            MockResponse()
+                .setResponseCode(204)
+                .addHeader("Upload-Offset", "9")
+        )
+
+        FileInputStream(localFile).channel.use { channel ->
+            // Resumes from the server offset, like an upload read from a content URI descriptor
+            val patch = PatchTusUploadChunkRemoteOperation(
+                localPath = "content://com.example.documents/document/42",
+                uploadUrl = server.url(locationPath).toString(),
+                offset = 4,
+                chunkSize = 5,
+                checksumAlgorithm = TusChecksumHelper.SHA1_WIRE_ALGORITHM,
+                sourceChannel = channel,
+            )
+            val patchResult = patch.execute(client)
+
+            assertTrue(patchResult.isSuccess)
+            assertEquals(9L, patchResult.data)
+            assertTrue("The operation must not close a channel it does not own", channel.isOpen)
+        }
+
+        val patchReq = server.takeRequest()
+        try {
+            assertArrayEquals(bytes.copyOfRange(4, 9), patchReq.body.readByteArray())
+            assertEquals(
+                TusChecksumHelper.uploadChecksumHeader(localFile, 4, 5, TusChecksumHelper.SHA1_WIRE_ALGORITHM),
+                patchReq.getHeader("Upload-Checksum")
+            )
+        } finally {
+            localFile.delete()
+        }
+    }
+
     @Test
     fun creation_with_upload_returns_offset() {
         val client = newClient()
@@ -368,6 +410,38 @@ class TusIntegrationTest {
         }
     }
 
+    @Test
+    fun chunk_body_sendsMappedChunkWithoutReadingTheChannelAgain() {
+        val bytes = ByteArray(10_000) { (it % 251).toByte() }
+        val localFile = File.createTempFile("tus", ".bin").apply { writeBytes(bytes) }
+        val raf = RandomAccessFile(localFile, "r")
+        val body = ChunkFromFileRequestBody(
+            file = localFile,
+            contentType = null,
+            channel = raf.channel,
+            chunkSize = 6_000
+        )
+        body.setOffset(3_000)
+        val progress = mutableListOf<Long>()
+        body.addDatatransferProgressListener { _, totalTransferred, _, _ -> progress += totalTransferred }
+
+        val checksum = TusChecksumHelper.uploadChecksumHeader(body.mapChunk(), TusChecksumHelper.SHA1_WIRE_ALGORITHM)
+        // Reads from the channel would now fail: the body must be written from the mapping
+        raf.close()
+        val sent = Buffer().also { body.writeTo(it) }
+
+        try {
+            assertArrayEquals(bytes.copyOfRange(3_000, 9_000), sent.readByteArray())
+            assertEquals(
+                TusChecksumHelper.uploadChecksumHeader(localFile, 3_000, 6_000, TusChecksumHelper.SHA1_WIRE_ALGORITHM),
+                checksum
+            )
+            assertEquals(9_000L, progress.last())
+        } finally {
+            localFile.delete()
+        }
+    }
+
     @Test
     fun creation_with_upload_sendsUploadChecksumForFirstChunk() {
         val client = newClient()
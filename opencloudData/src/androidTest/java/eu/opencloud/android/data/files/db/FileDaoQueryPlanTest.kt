@@ -0,0 +1,110 @@
+/*
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package eu.opencloud.android.data.files.db
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.test.filters.SmallTest
+import androidx.test.platform.app.InstrumentationRegistry
+import eu.opencloud.android.data.OpencloudDatabase
+import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import java.lang.reflect.Modifier
+
+/**
+ * Runs EXPLAIN QUERY PLAN on every query declared in [FileDao] and fails when one of them needs a full scan of the
+ * files table. Queries are picked up from the DAO constants, so new ones are covered without touching this test.
+ */
+@SmallTest
+class FileDaoQueryPlanTest {
+
+    @Rule
+    @JvmField
+    val instantExecutorRule = InstantTaskExecutorRule()
+
+    private lateinit var database: SupportSQLiteDatabase
+
+    @Before
+    fun setUp() {
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        OpencloudDatabase.switchToInMemory(context)
+        database = OpencloudDatabase.getDatabase(context).openHelper.writableDatabase
+    }
+
+    @Test
+    fun fileDaoQueriesAreFound() {
+        assertTrue(fileDaoQueries().size >= MIN_EXPECTED_QUERIES)
+    }
+
+    @Test
+    fun fileDaoQueriesDoNotScanFilesTable() {
+        val fullScans = fileDaoQueries()
+            .filterKeys { it !in QUERIES_ALLOWED_TO_SCAN }
+            .mapValues { (_, query) -> queryPlan(query).filter { FULL_SCAN_OF_FILES.containsMatchIn(it) } }
+            .filterValues { it.isNotEmpty() }
+
+        assertTrue("Queries scanning the whole $FILES_TABLE_NAME table: $fullScans", fullScans.isEmpty())
+    }
+
+    @Test
+    fun droppedIndexIsReportedAsFullScan() {
+        val folderContent = fileDaoQueries().getValue("SELECT_FOLDER_CONTENT")
+        assertFalse(queryPlan(folderContent).any { FULL_SCAN_OF_FILES.containsMatchIn(it) })
+
+        database.execSQL("DROP INDEX `index_${FILES_TABLE_NAME}_parentId`")
+
+        assertTrue(queryPlan(folderContent).any { FULL_SCAN_OF_FILES.containsMatchIn(it) })
+    }
+
+    private fun queryPlan(query: String): List<String> {
+        val details = mutableListOf<String>()
+        database.query("EXPLAIN QUERY PLAN $query").use { cursor ->
+            val detailIndex = cursor.getColumnIndex("detail")
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(detailIndex))
+            }
+        }
+        return details
+    }
+
+    private fun fileDaoQueries(): Map<String, String> =
+        (FileDao::class.java.declaredFields + FileDao.Companion::class.java.declaredFields)
+            .filter { Modifier.isStatic(it.modifiers) && it.type == String::class.java }
+            .associate { field ->
+                field.isAccessible = true
+                field.name to (field.get(null) as String).trim()
+            }
+
+    companion object {
+        private const val MIN_EXPECTED_QUERIES = 20
+
+        // Matches both "SCAN files" and the "SCAN TABLE files" form of older SQLite versions, with or without index
+        private val FULL_SCAN_OF_FILES = Regex("^SCAN (TABLE )?$FILES_TABLE_NAME\\b")
+
+        // Moving the storage directory rewrites every downloaded file, so a full pass is expected there
+        private val QUERIES_ALLOWED_TO_SCAN = setOf(
+            "UPDATE_FILES_STORAGE_DIRECTORY",
+        )
+    }
+}
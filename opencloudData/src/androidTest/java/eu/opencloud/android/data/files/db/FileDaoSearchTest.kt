@@ -0,0 +1,150 @@
+/*
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package eu.opencloud.android.data.files.db
+
+import androidx.arch.core.executor.testing.InstantTaskExecutorRule
+import androidx.test.filters.SmallTest
+import androidx.test.platform.app.InstrumentationRegistry
+import eu.opencloud.android.data.OpencloudDatabase
+import eu.opencloud.android.domain.files.model.OCFile.Companion.ROOT_PATH
+import org.junit.Assert.assertEquals
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+
+@SmallTest
+class FileDaoSearchTest {
+
+    @Rule
+    @JvmField
+    val instantExecutorRule = InstantTaskExecutorRule()
+
+    private lateinit var fileDao: FileDao
+
+    @Before
+    fun setUp() {
+        val context = InstrumentationRegistry.getInstrumentation().targetContext
+        OpencloudDatabase.switchToInMemory(context)
+        fileDao = OpencloudDatabase.getDatabase(context).fileDao()
+    }
+
+    @Test
+    fun searchFindsNamesAndPathsWithBestMatchesFirst() {
+        insertFile("/Reports/summary.txt")
+        insertFile("/Documents/annual report.pdf")
+        insertFile("/Documents/report.pdf")
+        insertFile("/Photos/holidays.jpg")
+
+        val result = search("report")
+
+        assertEquals(
+            listOf("/Documents/report.pdf", "/Documents/annual report.pdf", "/Reports/summary.txt"),
+            result.map { it.remotePath }
+        )
+    }
+
+    @Test
+    fun searchFindsNamesContainingItInTheMiddleOfAWord() {
+        insertFile("/Documents/annual report.pdf")
+        insertFile("/Documents/report.pdf")
+        insertFile("/Documents/report.pdf", owner = OTHER_ACCOUNT)
+        insertFile("/Photos/holidays.jpg")
+
+        val result = search("port")
+
+        assertEquals(listOf("/Documents/report.pdf", "/Documents/annual report.pdf"), result.map { it.remotePath })
+        assertEquals(setOf(ACCOUNT), result.map { it.owner }.toSet())
+    }
+
+    @Test
+    fun searchTreatsWildcardsAsPlainCharacters() {
+        insertFile("/Documents/report-2024.pdf")
+        insertFile("/Documents/report_2024.pdf")
+
+        val result = fileDao.searchFiles(
+            owner = ACCOUNT,
+            spaceId = null,
+            rootPath = ROOT_PATH,
+            match = "report* 2024*",
+            search = "report\\_2024",
+            limit = 10,
+        )
+
+        assertEquals(listOf("/Documents/report_2024.pdf", "/Documents/report-2024.pdf"), result.map { it.remotePath })
+    }
+
+    @Test
+    fun searchIsLimitedToTheAccountAndTheFolderTree() {
+        insertFile("/Documents/report.pdf")
+        insertFile("/Archive/report.pdf")
+        insertFile("/Documents/report.pdf", owner = OTHER_ACCOUNT)
+
+        val result = search("report", rootPath = "/Documents/")
+
+        assertEquals(listOf("/Documents/report.pdf"), result.map { it.remotePath })
+        assertEquals(ACCOUNT, result.single().owner)
+    }
+
+    @Test
+    fun indexFollowsUpdatesAndDeletions() {
+        val fileId = insertFile("/Documents/draft.txt")
+
+        fileDao.updateFile(
+            newFile("/Documents/final.txt").apply { id = fileId }
+        )
+        assertEquals(emptyList<OCFileEntity>(), search("draft"))
+        assertEquals(listOf(fileId), search("final").map { it.id })
+
+        fileDao.deleteFileById(fileId)
+        assertEquals(emptyList<OCFileEntity>(), search("final"))
+    }
+
+    private fun search(match: String, rootPath: String = ROOT_PATH): List<OCFileEntity> =
+        fileDao.searchFiles(
+            owner = ACCOUNT,
+            spaceId = null,
+            rootPath = rootPath,
+            match = "$match*",
+            search = match,
+            limit = 10,
+        )
+
+    private fun insertFile(remotePath: String, owner: String = ACCOUNT): Long =
+        fileDao.insertOrIgnore(newFile(remotePath, owner))
+
+    private fun newFile(remotePath: String, owner: String = ACCOUNT) =
+        OCFileEntity(
+            owner = owner,
+            remotePath = remotePath,
+            remoteId = null,
+            length = 0,
+            creationTimestamp = null,
+            modificationTimestamp = 0,
+            mimeType = "application/octet-stream",
+            etag = null,
+            permissions = null,
+            name = remotePath.substringAfterLast('/'),
+        )
+
+    companion object {
+        private const val ACCOUNT = "user@server"
+        private const val OTHER_ACCOUNT = "other@server"
+    }
+}
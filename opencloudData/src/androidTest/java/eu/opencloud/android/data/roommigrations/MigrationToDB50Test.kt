@@ -0,0 +1,92 @@
+/*
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package eu.opencloud.android.data.roommigrations
+
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.test.filters.SmallTest
+import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME
+import eu.opencloud.android.data.migrations.MIGRATION_49_50
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+@SmallTest
+class MigrationToDB50Test : MigrationTest() {
+
+    @Test
+    fun migrationFrom49to50_preservesFilesAndAddsIndices() {
+        performMigrationTest(
+            previousVersion = 49,
+            currentVersion = 50,
+            insertData = { database -> insertFileToTest(database) },
+            validateMigration = { database -> validateMigrationTo50(database) },
+            listOfMigrations = arrayOf(MIGRATION_49_50)
+        )
+    }
+
+    private fun insertFileToTest(database: SupportSQLiteDatabase) {
+        database.execSQL(
+            "INSERT INTO `$FILES_TABLE_NAME`" +
+                "(" +
+                "owner, " +
+                "remotePath, " +
+                "length, " +
+                "modificationTimestamp, " +
+                "mimeType, " +
+                "needsToUpdateThumbnail, " +
+                "sharedByLink" +
+                ")" +
+                " VALUES " +
+                "(?, ?, ?, ?, ?, ?, ?)",
+            arrayOf(
+                "user@example.com",
+                "/Documents/test.txt",
+                1024,
+                1_700_000_000,
+                "text/plain",
+                0,
+                0
+            )
+        )
+    }
+
+    private fun validateMigrationTo50(database: SupportSQLiteDatabase) {
+        assertEquals(1L, getCount(database, FILES_TABLE_NAME))
+
+        val indices = mutableListOf<String>()
+        database.query("PRAGMA index_list(`$FILES_TABLE_NAME`)").use { cursor ->
+            while (cursor.moveToNext()) {
+                indices.add(cursor.getString(cursor.getColumnIndex("name")))
+            }
+        }
+        assertTrue(indices.containsAll(EXPECTED_INDICES))
+
+        database.close()
+    }
+
+    companion object {
+        private val EXPECTED_INDICES = listOf(
+            "index_files_parentId",
+            "index_files_owner_remotePath_spaceId",
+            "index_files_remoteId",
+            "index_files_keepInSync_lastUsage",
+        )
+    }
+}
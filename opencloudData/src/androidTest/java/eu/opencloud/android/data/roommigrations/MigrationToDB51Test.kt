@@ -0,0 +1,84 @@
+/*
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package eu.opencloud.android.data.roommigrations
+
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.test.filters.SmallTest
+import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILES_FTS_TABLE_NAME
+import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME
+import eu.opencloud.android.data.migrations.MIGRATION_50_51
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+@SmallTest
+class MigrationToDB51Test : MigrationTest() {
+
+    @Test
+    fun migrationFrom50to51_indexesExistingFilesForSearch() {
+        performMigrationTest(
+            previousVersion = 50,
+            currentVersion = 51,
+            insertData = { database -> insertFileToTest(database) },
+            validateMigration = { database -> validateMigrationTo51(database) },
+            listOfMigrations = arrayOf(MIGRATION_50_51)
+        )
+    }
+
+    private fun insertFileToTest(database: SupportSQLiteDatabase) {
+        database.execSQL(
+            "INSERT INTO `$FILES_TABLE_NAME`" +
+                "(" +
+                "owner, " +
+                "remotePath, " +
+                "length, " +
+                "modificationTimestamp, " +
+                "mimeType, " +
+                "needsToUpdateThumbnail, " +
+                "sharedByLink" +
+                ")" +
+                " VALUES " +
+                "(?, ?, ?, ?, ?, ?, ?)",
+            arrayOf(
+                "user@example.com",
+                "/Documents/test.txt",
+                1024,
+                1_700_000_000,
+                "text/plain",
+                0,
+                0
+            )
+        )
+    }
+
+    private fun validateMigrationTo51(database: SupportSQLiteDatabase) {
+        assertEquals(1L, getCount(database, FILES_TABLE_NAME))
+
+        database.query(
+            "SELECT remotePath FROM `$FILES_FTS_TABLE_NAME` WHERE `$FILES_FTS_TABLE_NAME` MATCH ?",
+            arrayOf("test*")
+        ).use { cursor ->
+            assertTrue(cursor.moveToFirst())
+            assertEquals("/Documents/test.txt", cursor.getString(0))
+        }
+
+        database.close()
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package eu.opencloud.android.data.roommigrations
+
+import androidx.sqlite.db.SupportSQLiteDatabase
+import androidx.test.filters.SmallTest
+import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILES_FTS_TABLE_NAME
+import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME
+import eu.opencloud.android.data.migrations.MIGRATION_51_52
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+@SmallTest
+class MigrationToDB52Test : MigrationTest() {
+
+    @Test
+    fun migrationFrom51to52_indexesTheNameSuffixesOfExistingFiles() {
+        performMigrationTest(
+            previousVersion = 51,
+            currentVersion = 52,
+            insertData = { database -> insertFileToTest(database) },
+            validateMigration = { database -> validateMigrationTo52(database) },
+            listOfMigrations = arrayOf(MIGRATION_51_52)
+        )
+    }
+
+    private fun insertFileToTest(database: SupportSQLiteDatabase) {
+        database.execSQL(
+            "INSERT INTO `$FILES_TABLE_NAME`" +
+                "(" +
+                "owner, " +
+                "remotePath, " +
+                "name, " +
+                "length, " +
+                "modificationTimestamp, " +
+                "mimeType, " +
+                "needsToUpdateThumbnail, " +
+                "sharedByLink" +
+                ")" +
+                " VALUES " +
+                "(?, ?, ?, ?, ?, ?, ?, ?)",
+            arrayOf(
+                "user@example.com",
+                "/Documents/annual report.pdf",
+                "annual report.pdf",
+                1024,
+                1_700_000_000,
+                "application/pdf",
+                0,
+                0
+            )
+        )
+    }
+
+    private fun validateMigrationTo52(database: SupportSQLiteDatabase) {
+        assertEquals(1L, getCount(database, FILES_TABLE_NAME))
+
+        database.query(
+            "SELECT remotePath FROM `$FILES_FTS_TABLE_NAME` WHERE `$FILES_FTS_TABLE_NAME` MATCH ?",
+            arrayOf("port*")
+        ).use { cursor ->
+            assertTrue(cursor.moveToFirst())
+            assertEquals("/Documents/annual report.pdf", cursor.getString(0))
+        }
+
+        database.close()
+    }
+}
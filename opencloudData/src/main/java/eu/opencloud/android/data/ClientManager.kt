@@ -86,7 +86,7 @@ class ClientManager(
             OpenCloudClient(
                 pathUri,
                 connectionValidator,
-                true,
+                SingleSessionManager.getMaxConcurrentRequests(),
                 SingleSessionManager.getDefaultSingleton(),
                 context
             ).apply {
@@ -34,6 +34,7 @@ import eu.opencloud.android.data.capabilities.db.OCCapabilityDao
 import eu.opencloud.android.data.capabilities.db.OCCapabilityEntity
 import eu.opencloud.android.data.files.db.FileDao
 import eu.opencloud.android.data.files.db.OCFileEntity
+import eu.opencloud.android.data.files.db.OCFileFtsEntity
 import eu.opencloud.android.data.files.db.OCFileSyncEntity
 import eu.opencloud.android.data.folderbackup.db.FolderBackUpEntity
 import eu.opencloud.android.data.folderbackup.db.FolderBackupDao
@@ -52,6 +53,9 @@ import eu.opencloud.android.data.migrations.MIGRATION_41_42
 import eu.opencloud.android.data.migrations.MIGRATION_42_43
 import eu.opencloud.android.data.migrations.MIGRATION_47_48
 import eu.opencloud.android.data.migrations.MIGRATION_48_49
+import eu.opencloud.android.data.migrations.MIGRATION_49_50
+import eu.opencloud.android.data.migrations.MIGRATION_50_51
+import eu.opencloud.android.data.migrations.MIGRATION_51_52
 import eu.opencloud.android.data.sharing.shares.db.OCShareDao
 import eu.opencloud.android.data.sharing.shares.db.OCShareEntity
 import eu.opencloud.android.data.spaces.db.SpaceSpecialEntity
@@ -68,6 +72,7 @@ import eu.opencloud.android.data.user.db.UserQuotaEntity
         FolderBackUpEntity::class,
         OCCapabilityEntity::class,
         OCFileEntity::class,
+        OCFileFtsEntity::class,
         OCFileSyncEntity::class,
         OCShareEntity::class,
         OCTransferEntity::class,
@@ -127,7 +132,10 @@ abstract class OpencloudDatabase : RoomDatabase() {
                         MIGRATION_41_42,
                         MIGRATION_42_43,
                         MIGRATION_47_48,
-                        MIGRATION_48_49)
+                        MIGRATION_48_49,
+                        MIGRATION_49_50,
+                        MIGRATION_50_51,
+                        MIGRATION_51_52)
                     .build()
                 INSTANCE = instance
                 instance
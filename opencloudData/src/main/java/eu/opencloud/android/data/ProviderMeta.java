@@ -31,7 +31,7 @@ public class ProviderMeta {
 
     public static final String DB_NAME = "filelist";
     public static final String NEW_DB_NAME = "opencloud_database";
-        public static final int DB_VERSION = 49;
+        public static final int DB_VERSION = 52;
 
     private ProviderMeta() {
     }
@@ -40,6 +40,7 @@ public class ProviderMeta {
         public static final String CAPABILITIES_TABLE_NAME = "capabilities";
         public static final String FILES_SYNC_TABLE_NAME = "files_sync";
         public static final String FILES_TABLE_NAME = "files";
+        public static final String FILES_FTS_TABLE_NAME = "files_fts";
         public static final String FOLDER_BACKUP_TABLE_NAME = "folder_backup";
         public static final String OCSHARES_TABLE_NAME = "ocshares";
         public static final String SPACES_TABLE_NAME = "spaces";
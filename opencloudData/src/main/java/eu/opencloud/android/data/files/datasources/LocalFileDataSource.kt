@@ -39,6 +39,14 @@ interface LocalFileDataSource {
     fun getSearchAvailableOfflineFolderContent(folderId: Long, search: String): List<OCFile>
     fun getSearchSharedByLinkFolderContent(folderId: Long, search: String): List<OCFile>
     fun getFolderContentWithSyncInfoAsFlow(folderId: Long): Flow<List<OCFileWithSyncInfo>>
+    fun searchFiles(owner: String, spaceId: String?, rootPath: String, search: String, limit: Int): List<OCFile>
+    fun searchFilesWithSyncInfoAsFlow(
+        owner: String,
+        spaceId: String?,
+        rootPath: String,
+        search: String,
+        limit: Int
+    ): Flow<List<OCFileWithSyncInfo>>
     fun getFolderImages(folderId: Long): List<OCFile>
     fun getSharedByLinkWithSyncInfoForAccountAsFlow(owner: String): Flow<List<OCFileWithSyncInfo>>
     fun getFilesWithSyncInfoAvailableOfflineFromAccountAsFlow(owner: String): Flow<List<OCFileWithSyncInfo>>
@@ -51,6 +59,7 @@ interface LocalFileDataSource {
     fun copyFile(sourceFile: OCFile, targetFolder: OCFile, finalRemotePath: String, remoteId: String, replace: Boolean?)
     fun saveFilesInFolderAndReturnTheFilesThatChanged(listOfFiles: List<OCFile>, folder: OCFile): List<OCFile>
     fun saveFile(file: OCFile)
+    fun saveUploadedFiles(files: List<OCFile>)
     fun saveConflict(fileId: Long, eTagInConflict: String)
     fun cleanConflict(fileId: Long)
     fun deleteFile(fileId: Long)
@@ -64,4 +73,7 @@ interface LocalFileDataSource {
     fun saveDownloadWorkerUuid(fileId: Long, workerUuid: UUID)
     fun cleanWorkersUuid(fileId: Long)
     fun updateFileWithLastUsage(fileId: Long, lastUsage: Long?)
+    fun updateFileWithTreeEtag(fileId: Long, treeEtag: String?)
+    fun getSpaceSyncToken(accountName: String, spaceId: String?): String?
+    fun saveSpaceSyncToken(accountName: String, spaceId: String?, syncToken: String?)
 }
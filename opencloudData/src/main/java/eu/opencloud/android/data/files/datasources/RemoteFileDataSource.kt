@@ -22,6 +22,7 @@
 package eu.opencloud.android.data.files.datasources
 
 import eu.opencloud.android.domain.files.model.OCFile
+import eu.opencloud.android.domain.files.model.OCFileChanges
 import eu.opencloud.android.domain.files.model.OCMetaFile
 
 interface RemoteFileDataSource {
@@ -76,6 +77,19 @@ interface RemoteFileDataSource {
         spaceWebDavUrl: String? = null,
     ): List<OCFile>
 
+    fun getSyncToken(
+        remotePath: String,
+        accountName: String,
+        spaceWebDavUrl: String? = null,
+    ): String?
+
+    fun getFolderChanges(
+        remotePath: String,
+        syncToken: String,
+        accountName: String,
+        spaceWebDavUrl: String? = null,
+    ): OCFileChanges
+
     fun deleteFile(
         remotePath: String,
         accountName: String,
@@ -96,4 +110,18 @@ interface RemoteFileDataSource {
         accountName: String,
     ): OCMetaFile
 
+    /**
+     * Searches the files of every space of the account on the server. Results are handed to [onPage] while the
+     * response is still being read; returning false from it stops the search.
+     *
+     * @return number of files delivered
+     */
+    fun searchFiles(
+        search: String,
+        accountName: String,
+        limit: Int,
+        pageSize: Int,
+        onPage: (List<OCFile>) -> Boolean,
+    ): Int
+
 }
@@ -27,6 +27,7 @@ import eu.opencloud.android.data.files.datasources.LocalFileDataSource
 import eu.opencloud.android.data.files.db.FileDao
 import eu.opencloud.android.data.files.db.OCFileAndFileSync
 import eu.opencloud.android.data.files.db.OCFileEntity
+import eu.opencloud.android.data.providers.SharedPreferencesProvider
 import eu.opencloud.android.data.spaces.datasources.implementation.OCLocalSpacesDataSource.Companion.toModel
 import eu.opencloud.android.domain.availableoffline.model.AvailableOfflineStatus
 import eu.opencloud.android.domain.files.model.MIME_DIR
@@ -36,11 +37,14 @@ import eu.opencloud.android.domain.files.model.OCFile.Companion.ROOT_PARENT_ID
 import eu.opencloud.android.domain.files.model.OCFile.Companion.ROOT_PATH
 import eu.opencloud.android.domain.files.model.OCFileWithSyncInfo
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.flowOf
 import kotlinx.coroutines.flow.map
+import java.util.Locale
 import java.util.UUID
 
 class OCLocalFileDataSource(
     private val fileDao: FileDao,
+    private val preferencesProvider: SharedPreferencesProvider,
 ) : LocalFileDataSource {
     override fun getFileById(fileId: Long): OCFile? =
         fileDao.getFileById(fileId)?.toModel()
@@ -101,6 +105,38 @@ class OCLocalFileDataSource(
             folderContent.map { it.toModel() }
         }
 
+    override fun searchFiles(owner: String, spaceId: String?, rootPath: String, search: String, limit: Int): List<OCFile> {
+        val match = search.toFtsMatchQuery() ?: return emptyList()
+        return fileDao.searchFiles(
+            owner = owner,
+            spaceId = spaceId,
+            rootPath = rootPath,
+            match = match,
+            search = search.trim().escapeLikePattern(),
+            limit = limit,
+        ).map { it.toModel() }
+    }
+
+    override fun searchFilesWithSyncInfoAsFlow(
+        owner: String,
+        spaceId: String?,
+        rootPath: String,
+        search: String,
+        limit: Int
+    ): Flow<List<OCFileWithSyncInfo>> {
+        val match = search.toFtsMatchQuery() ?: return flowOf(emptyList())
+        return fileDao.searchFilesWithSyncInfoAsFlow(
+            owner = owner,
+            spaceId = spaceId,
+            rootPath = rootPath,
+            match = match,
+            search = search.trim().escapeLikePattern(),
+            limit = limit,
+        ).map { searchResults ->
+            searchResults.map { it.toModel() }
+        }
+    }
+
     override fun getFolderImages(folderId: Long): List<OCFile> =
         fileDao.getFolderByMimeType(folderId = folderId, mimeType = MIME_PREFIX_IMAGE).map {
             it.toModel()
@@ -167,6 +203,10 @@ class OCLocalFileDataSource(
         fileDao.upsert(file.toEntity())
     }
 
+    override fun saveUploadedFiles(files: List<OCFile>) {
+        fileDao.upsertUploadedFiles(files.map { it.toEntity() })
+    }
+
     override fun saveConflict(fileId: Long, eTagInConflict: String) {
         fileDao.updateConflictStatusForFile(fileId, eTagInConflict)
     }
@@ -180,6 +220,10 @@ class OCLocalFileDataSource(
     }
 
     override fun deleteFilesForAccount(accountName: String) {
+        // Sync tokens describe the files stored for each space, they are worthless without them
+        fileDao.getSpaceIdsForAccount(accountName).forEach { spaceId ->
+            preferencesProvider.removePreference(syncTokenKey(accountName, spaceId))
+        }
         fileDao.deleteFilesForAccount(accountName)
     }
 
@@ -208,6 +252,25 @@ class OCLocalFileDataSource(
         fileDao.updateFileWithLastUsage(fileId, lastUsage)
     }
 
+    override fun updateFileWithTreeEtag(fileId: Long, treeEtag: String?) {
+        fileDao.updateFileWithTreeEtag(fileId, treeEtag)
+    }
+
+    override fun getSpaceSyncToken(accountName: String, spaceId: String?): String? =
+        preferencesProvider.getString(syncTokenKey(accountName, spaceId), null)
+
+    override fun saveSpaceSyncToken(accountName: String, spaceId: String?, syncToken: String?) {
+        val key = syncTokenKey(accountName, spaceId)
+        if (syncToken == null) {
+            preferencesProvider.removePreference(key)
+        } else {
+            preferencesProvider.putString(key, syncToken)
+        }
+    }
+
+    private fun syncTokenKey(accountName: String, spaceId: String?): String =
+        "${KEY_SPACE_SYNC_TOKEN}_${accountName}_${spaceId.orEmpty()}"
+
     override fun saveUploadWorkerUuid(fileId: Long, workerUuid: UUID) {
         // Not yet implemented
     }
@@ -231,6 +294,28 @@ class OCLocalFileDataSource(
         )
 
     companion object {
+        private const val KEY_SPACE_SYNC_TOKEN = "KEY_SPACE_SYNC_TOKEN"
+
+        private val FTS_TOKEN_SEPARATOR = Regex("[^\\p{L}\\p{N}]+")
+
+        /**
+         * Turns the text typed by the user into a full-text query where every word is matched as a prefix, e.g.
+         * "annual rep" becomes "annual* rep*". Returns null when there is nothing to search for.
+         */
+        @VisibleForTesting
+        fun String.toFtsMatchQuery(): String? =
+            split(FTS_TOKEN_SEPARATOR)
+                .filter { it.isNotEmpty() }
+                .takeIf { it.isNotEmpty() }
+                ?.joinToString(" ") { "${it.lowercase(Locale.ROOT)}*" }
+
+        /**
+         * Escapes the wildcards of LIKE with a backslash, so that a "%" or "_" typed by the user only matches itself.
+         */
+        @VisibleForTesting
+        fun String.escapeLikePattern(): String =
+            replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_")
+
         @VisibleForTesting
         fun OCFileEntity.toModel(): OCFile =
             OCFile(
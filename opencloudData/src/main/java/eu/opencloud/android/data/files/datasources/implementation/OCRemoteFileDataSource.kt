@@ -27,9 +27,11 @@ import eu.opencloud.android.data.ClientManager
 import eu.opencloud.android.data.executeRemoteOperation
 import eu.opencloud.android.data.files.datasources.RemoteFileDataSource
 import eu.opencloud.android.domain.files.model.OCFile
+import eu.opencloud.android.domain.files.model.OCFileChanges
 import eu.opencloud.android.domain.files.model.OCMetaFile
 import eu.opencloud.android.lib.resources.files.RemoteFile
 import eu.opencloud.android.lib.resources.files.RemoteMetaFile
+import eu.opencloud.android.lib.resources.files.RemoteSyncChanges
 
 class OCRemoteFileDataSource(
     private val clientManager: ClientManager,
@@ -177,6 +179,30 @@ class OCRemoteFileDataSource(
             listOfRemote.map { remoteFile -> remoteFile.toModel() }
         }
 
+    override fun getSyncToken(
+        remotePath: String,
+        accountName: String,
+        spaceWebDavUrl: String?,
+    ): String? = executeRemoteOperation {
+        clientManager.getFileService(accountName).getSyncToken(
+            remotePath = remotePath,
+            spaceWebDavUrl = spaceWebDavUrl,
+        )
+    }
+
+    override fun getFolderChanges(
+        remotePath: String,
+        syncToken: String,
+        accountName: String,
+        spaceWebDavUrl: String?,
+    ): OCFileChanges = executeRemoteOperation {
+        clientManager.getFileService(accountName).getFolderChanges(
+            remotePath = remotePath,
+            syncToken = syncToken,
+            spaceWebDavUrl = spaceWebDavUrl,
+        )
+    }.toModel()
+
     override fun deleteFile(
         remotePath: String,
         accountName: String,
@@ -212,6 +238,22 @@ class OCRemoteFileDataSource(
             clientManager.getFileService(accountName).getMetaFileInfo(fileId)
         }.toModel()
 
+    override fun searchFiles(
+        search: String,
+        accountName: String,
+        limit: Int,
+        pageSize: Int,
+        onPage: (List<OCFile>) -> Boolean,
+    ): Int = executeRemoteOperation {
+        clientManager.getFileService(accountName).searchFiles(
+            searchPattern = search.toKqlNameQuery(),
+            limit = limit,
+            pageSize = pageSize,
+        ) { results ->
+            onPage(results.map { result -> result.remoteFile.toModel().copy(spaceId = result.spaceId) })
+        }
+    }
+
     companion object {
         @VisibleForTesting
         fun RemoteFile.toModel(): OCFile =
@@ -239,6 +281,26 @@ class OCRemoteFileDataSource(
                 sharedByLink = sharedByLink,
             )
 
+        @VisibleForTesting
+        fun RemoteSyncChanges.toModel(): OCFileChanges =
+            OCFileChanges(
+                syncToken = syncToken,
+                changedFiles = changedFiles.map { remoteFile -> remoteFile.toModel() },
+                removedPaths = removedPaths,
+                isTruncated = isTruncated,
+                isFullRefreshNeeded = isFullRefreshNeeded,
+            )
+
+        /**
+         * Every word of the search has to appear somewhere in the name, as the local search does.
+         */
+        @VisibleForTesting
+        fun String.toKqlNameQuery(): String =
+            split(' ')
+                .map { word -> word.replace("\"", "").replace("\\", "") }
+                .filter { word -> word.isNotBlank() }
+                .joinToString(separator = " AND ") { word -> "name:\"*$word*\"" }
+
         @VisibleForTesting
         fun RemoteMetaFile.toModel(): OCMetaFile =
             OCMetaFile(
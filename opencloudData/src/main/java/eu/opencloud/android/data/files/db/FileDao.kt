@@ -117,6 +117,27 @@ interface FileDao {
         mimeType: String
     ): List<OCFileEntity>
 
+    @Query(SEARCH_FILES)
+    fun searchFiles(
+        owner: String,
+        spaceId: String?,
+        rootPath: String,
+        match: String,
+        search: String,
+        limit: Int,
+    ): List<OCFileEntity>
+
+    @Transaction
+    @Query(SEARCH_FILES)
+    fun searchFilesWithSyncInfoAsFlow(
+        owner: String,
+        spaceId: String?,
+        rootPath: String,
+        match: String,
+        search: String,
+        limit: Int,
+    ): Flow<List<OCFileAndFileSync>>
+
     @Transaction
     @Query(SELECT_FILES_SHARED_BY_LINK)
     fun getFilesWithSyncInfoSharedByLinkAsFlow(
@@ -375,6 +396,21 @@ interface FileDao {
     @Query(UPDATE_FILE_WITH_LAST_USAGE)
     fun updateFileWithLastUsage(id: Long, lastUsage: Long?)
 
+    @Query(UPDATE_FILE_WITH_TREE_ETAG)
+    fun updateFileWithTreeEtag(id: Long, treeEtag: String?)
+
+    /**
+     * Saves the details of a batch of uploaded files and clears their conflicts, so that the folder is never
+     * shown with only part of the batch updated.
+     */
+    @Transaction
+    fun upsertUploadedFiles(ocFileEntities: List<OCFileEntity>) {
+        ocFileEntities.forEach { ocFileEntity ->
+            upsert(ocFileEntity)
+            updateConflictStatusForFile(ocFileEntity.id, null)
+        }
+    }
+
     @Transaction
     fun updateConflictStatusForFile(id: Long, eTagInConflict: String?) {
         val fileEntity = getFileById(id)
@@ -407,6 +443,9 @@ interface FileDao {
     @Query(DISABLE_THUMBNAILS_FOR_FILE)
     fun disableThumbnailsForFile(fileId: Long)
 
+    @Query(SELECT_SPACE_IDS_FOR_ACCOUNT)
+    fun getSpaceIdsForAccount(accountName: String): List<String?>
+
     @Query(DELETE_FILES_FOR_ACCOUNT)
     fun deleteFilesForAccount(accountName: String)
 
@@ -550,6 +589,28 @@ interface FileDao {
             WHERE parentId = :folderId AND mimeType LIKE :mimeType || '%'
         """
 
+        // Files whose name, path or mime type match the full-text query, below rootPath. The index also holds the
+        // suffixes of the words of every name, so a search finds names containing it in the middle of a word without
+        // a scan. Names starting with the search come first, then names containing it, then files that only match by
+        // their path. :search is escaped for LIKE with a backslash and only compared with the files the index found.
+        private const val SEARCH_FILES = """
+            SELECT ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}.*
+            FROM ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}
+            JOIN ${ProviderMeta.ProviderTableMeta.FILES_FTS_TABLE_NAME}
+            ON ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}.id = ${ProviderMeta.ProviderTableMeta.FILES_FTS_TABLE_NAME}.rowid
+            WHERE ${ProviderMeta.ProviderTableMeta.FILES_FTS_TABLE_NAME} MATCH :match
+            AND ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}.owner = :owner
+            AND (:spaceId IS NULL OR ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}.spaceId = :spaceId)
+            AND substr(${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}.remotePath, 1, length(:rootPath)) = :rootPath
+            AND ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}.remotePath != :rootPath
+            ORDER BY CASE
+                WHEN ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}.name LIKE :search || '%' ESCAPE '\' THEN 0
+                WHEN ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}.name LIKE '%' || :search || '%' ESCAPE '\' THEN 1
+                ELSE 2
+            END, length(${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}.remotePath)
+            LIMIT :limit
+        """
+
         private const val SELECT_DOWNLOADED_FILES_FOR_ACCOUNT = """
             SELECT *
             FROM ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}
@@ -598,6 +659,11 @@ interface FileDao {
             SET lastUsage = :lastUsage
             WHERE id = :id
         """
+        private const val UPDATE_FILE_WITH_TREE_ETAG = """
+            UPDATE ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}
+            SET treeEtag = :treeEtag
+            WHERE id = :id
+        """
         private const val DISABLE_THUMBNAILS_FOR_FILE = """
             UPDATE ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}
             SET needsToUpdateThumbnail = false
@@ -610,6 +676,12 @@ interface FileDao {
             WHERE storagePath IS NOT NULL
         """
 
+        private const val SELECT_SPACE_IDS_FOR_ACCOUNT = """
+            SELECT DISTINCT spaceId
+            FROM ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}
+            WHERE owner = :accountName
+        """
+
         private const val DELETE_FILES_FOR_ACCOUNT = """
             DELETE
             FROM ${ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME}
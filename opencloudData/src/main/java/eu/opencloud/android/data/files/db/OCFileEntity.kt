@@ -22,6 +22,7 @@ import android.database.Cursor
 import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.ForeignKey
+import androidx.room.Index
 import androidx.room.PrimaryKey
 import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME
 import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILE_ACCOUNT_OWNER
@@ -64,7 +65,14 @@ import eu.opencloud.android.domain.files.model.MIME_DIR_UNIX
         parentColumns = arrayOf(SPACES_ACCOUNT_NAME, SPACES_ID),
         childColumns = arrayOf(FILE_OWNER, FILE_SPACE_ID),
         onDelete = ForeignKey.CASCADE
-    )]
+    )],
+    // Access paths of the queries in FileDao. Keep FileDaoQueryPlanTest green when adding new queries.
+    indices = [
+        Index(value = ["parentId"]),
+        Index(value = ["owner", "remotePath", "spaceId"]),
+        Index(value = ["remoteId"]),
+        Index(value = ["keepInSync", "lastUsage"]),
+    ]
 )
 data class OCFileEntity(
     var parentId: Long? = null,
@@ -98,6 +106,10 @@ data class OCFileEntity(
     @PrimaryKey(autoGenerate = true)
     var id: Long = 0
 
+    /** Indexed by [OCFileFtsEntity] for infix search, always derived from the current [name] when written. */
+    var nameSuffixes: String? = null
+        get() = OCFileFtsEntity.nameSuffixesOf(name)
+
     /**
      * Use this to find out if this file is a folder.
      *
@@ -0,0 +1,60 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.opencloud.android.data.files.db
+
+import androidx.room.ColumnInfo
+import androidx.room.Entity
+import androidx.room.Fts4
+import androidx.room.FtsOptions
+import androidx.room.PrimaryKey
+import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILES_FTS_TABLE_NAME
+
+/**
+ * Full-text index over the metadata of the files table. It does not store any content itself, Room keeps it in sync
+ * with [OCFileEntity] through triggers, so every insert, update, move or delete of a file is mirrored here.
+ */
+@Fts4(contentEntity = OCFileEntity::class, tokenizer = FtsOptions.TOKENIZER_UNICODE61)
+@Entity(tableName = FILES_FTS_TABLE_NAME)
+data class OCFileFtsEntity(
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    val id: Long,
+    val name: String?,
+    val remotePath: String?,
+    val mimeType: String?,
+    val nameSuffixes: String?,
+) {
+    companion object {
+        private val WORD_SEPARATOR = Regex("[^\\p{L}\\p{N}]+")
+        private const val MIN_SUFFIX_LENGTH = 2
+        // Longer words are mostly hashes or generated ids, nobody searches them by a part in the middle
+        private const val MAX_SUFFIXED_WORD_LENGTH = 64
+
+        /**
+         * The suffixes of the words of [name] other than the words themselves, e.g. "eport port ort rt" for "report".
+         * The index matches words by their beginning, so indexing these finds a name by a part in the middle of a word.
+         */
+        fun nameSuffixesOf(name: String?): String? =
+            name.orEmpty()
+                .split(WORD_SEPARATOR)
+                .filter { it.length in MIN_SUFFIX_LENGTH + 1..MAX_SUFFIXED_WORD_LENGTH }
+                .flatMap { word -> (1..word.length - MIN_SUFFIX_LENGTH).map { word.substring(it) } }
+                .takeIf { it.isNotEmpty() }
+                ?.joinToString(" ")
+    }
+}
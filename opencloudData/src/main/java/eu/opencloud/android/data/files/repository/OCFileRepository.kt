@@ -40,8 +40,11 @@ import eu.opencloud.android.domain.files.model.MIME_DIR
 import eu.opencloud.android.domain.files.model.OCFile
 import eu.opencloud.android.domain.files.model.OCFile.Companion.PATH_SEPARATOR
 import eu.opencloud.android.domain.files.model.OCFile.Companion.ROOT_PATH
+import eu.opencloud.android.domain.files.model.OCFileChanges
 import eu.opencloud.android.domain.files.model.OCFileWithSyncInfo
+import kotlinx.coroutines.channels.trySendBlocking
 import kotlinx.coroutines.flow.Flow
+import kotlinx.coroutines.flow.channelFlow
 import timber.log.Timber
 import java.io.File
 import java.util.UUID
@@ -229,6 +232,34 @@ class OCFileRepository(
     override fun getFolderContentWithSyncInfoAsFlow(folderId: Long): Flow<List<OCFileWithSyncInfo>> =
         localFileDataSource.getFolderContentWithSyncInfoAsFlow(folderId)
 
+    override fun searchFiles(owner: String, spaceId: String?, rootPath: String, search: String, limit: Int): List<OCFile> =
+        localFileDataSource.searchFiles(owner, spaceId, rootPath, search, limit)
+
+    override fun searchFilesWithSyncInfoAsFlow(
+        owner: String,
+        spaceId: String?,
+        rootPath: String,
+        search: String,
+        limit: Int
+    ): Flow<List<OCFileWithSyncInfo>> =
+        localFileDataSource.searchFilesWithSyncInfoAsFlow(owner, spaceId, rootPath, search, limit)
+
+    /**
+     * Every page is emitted as soon as it has been parsed. Once the collector is gone the page cannot be sent, so the
+     * search stops reading the response.
+     */
+    override fun searchFilesOnServer(accountName: String, search: String, limit: Int): Flow<List<OCFile>> =
+        channelFlow {
+            remoteFileDataSource.searchFiles(
+                search = search,
+                accountName = accountName,
+                limit = limit,
+                pageSize = SEARCH_PAGE_SIZE,
+            ) { page ->
+                trySendBlocking(page).isSuccess
+            }
+        }
+
     override fun getFolderImages(folderId: Long): List<OCFile> =
         localFileDataSource.getFolderImages(folderId)
 
@@ -375,49 +406,18 @@ class OCFileRepository(
 
                 // If local child does not exists, just insert the new one.
                 if (localChildToSync == null) {
-                    folderContentUpdated.add(
-                        remoteChild.apply {
-                            parentId = localFolderByRemotePath.id
-                            needsToUpdateThumbnail = !remoteChild.isFolder
-                            // remote eTag will not be set unless file CONTENTS are synchronized
-                            etag = ""
-                            availableOfflineStatus =
-                                if (remoteFolder.isAvailableOffline) AVAILABLE_OFFLINE_PARENT else NOT_AVAILABLE_OFFLINE
-
-                        })
+                    folderContentUpdated.add(remoteChild.prepareAsNewChildOf(remoteFolder))
                 } else if (localChildToSync.etag != remoteChild.etag ||
                     localChildToSync.localModificationTimestamp > remoteChild.lastSyncDateForData!! ||
                     isActionSetFolderAvailableOfflineOrSynchronize
                 ) {
                     // File exists in the database, we need to check several stuff.
-                    folderContentUpdated.add(
-                        remoteChild.apply {
-                            copyLocalPropertiesFrom(localChildToSync)
-                            // DO NOT update etag till contents are synced.
-                            etag = localChildToSync.etag
-                            needsToUpdateThumbnail =
-                                (!remoteChild.isFolder && remoteChild.modificationTimestamp != localChildToSync.modificationTimestamp) ||
-                                        localChildToSync.needsToUpdateThumbnail
-                            // Probably not needed, if the child was already in the database, the av offline status should be also there
-                            if (remoteFolder.isAvailableOffline) {
-                                availableOfflineStatus = AVAILABLE_OFFLINE_PARENT
-                            }
-                            // Fix: What about renames? Need to fix storage path
-                        })
+                    folderContentUpdated.add(remoteChild.prepareAsUpdatedChild(localChildToSync, remoteFolder))
                 }
             }
 
             // Remaining items should be removed from the database and local storage. They do not exists in remote anymore.
-            localFilesMap.map { it.value }.forEach { ocFile ->
-                ocFile.etagInConflict?.let {
-                    localFileDataSource.cleanConflict(ocFile.id!!)
-                }
-                if (ocFile.isFolder) {
-                    deleteLocalFolderRecursively(ocFile = ocFile, onlyFromLocalStorage = false)
-                } else {
-                    deleteLocalFile(ocFile = ocFile, onlyFromLocalStorage = false)
-                }
-            }
+            localFilesMap.map { it.value }.forEach { ocFile -> removeLocalFileNotInRemote(ocFile) }
         }
 
         val anyConflictInThisFolder = folderContentUpdated.any { it.etagInConflict != null }
@@ -432,6 +432,43 @@ class OCFileRepository(
         )
     }
 
+    override fun refreshSpaceChanges(accountName: String, spaceId: String?): List<OCFile>? {
+        var syncToken = localFileDataSource.getSpaceSyncToken(accountName, spaceId) ?: return null
+        val spaceWebDavUrl = localSpacesDataSource.getWebDavUrlForSpace(spaceId, accountName)
+        val filesThatChanged = mutableListOf<OCFile>()
+
+        do {
+            val folderChanges = try {
+                remoteFileDataSource.getFolderChanges(ROOT_PATH, syncToken, accountName, spaceWebDavUrl)
+            } catch (fileNotFoundException: FileNotFoundException) {
+                Timber.i(fileNotFoundException, "Space $spaceId was not found asking for its changes, its sync token is dropped")
+                localFileDataSource.saveSpaceSyncToken(accountName, spaceId, null)
+                return null
+            }
+            val newSyncToken = folderChanges.syncToken
+            if (folderChanges.isFullRefreshNeeded || newSyncToken == null) {
+                Timber.i("Changes in space $spaceId are not available with its sync token, a full refresh is needed")
+                localFileDataSource.saveSpaceSyncToken(accountName, spaceId, null)
+                return null
+            }
+            filesThatChanged.addAll(applyFolderChanges(folderChanges, accountName, spaceId))
+            syncToken = newSyncToken
+            localFileDataSource.saveSpaceSyncToken(accountName, spaceId, syncToken)
+        } while (folderChanges.isTruncated)
+
+        return filesThatChanged
+    }
+
+    override fun fetchSpaceSyncToken(accountName: String, spaceId: String?): String? {
+        val spaceWebDavUrl = localSpacesDataSource.getWebDavUrlForSpace(spaceId, accountName)
+
+        return remoteFileDataSource.getSyncToken(ROOT_PATH, accountName, spaceWebDavUrl)
+    }
+
+    override fun saveSpaceSyncToken(accountName: String, spaceId: String?, syncToken: String?) {
+        localFileDataSource.saveSpaceSyncToken(accountName, spaceId, syncToken)
+    }
+
     override fun deleteFiles(listOfFilesToDelete: List<OCFile>, removeOnlyLocalCopy: Boolean) {
         val spaceWebDavUrl = localSpacesDataSource.getWebDavUrlForSpace(
             spaceId = listOfFilesToDelete.first().spaceId,
@@ -508,6 +545,10 @@ class OCFileRepository(
         localFileDataSource.saveFile(file)
     }
 
+    override fun saveUploadedFiles(files: List<OCFile>) {
+        localFileDataSource.saveUploadedFiles(files)
+    }
+
     override fun saveConflict(fileId: Long, eTagInConflict: String) {
         localFileDataSource.saveConflict(fileId, eTagInConflict)
     }
@@ -528,6 +569,10 @@ class OCFileRepository(
         localFileDataSource.updateFileWithLastUsage(fileId, lastUsage)
     }
 
+    override fun updateFileWithTreeEtag(fileId: Long, treeEtag: String?) {
+        localFileDataSource.updateFileWithTreeEtag(fileId, treeEtag)
+    }
+
     override fun updateDownloadedFilesStorageDirectoryInStoragePath(oldDirectory: String, newDirectory: String) {
         localFileDataSource.updateDownloadedFilesStorageDirectoryInStoragePath(oldDirectory, newDirectory)
     }
@@ -580,6 +625,144 @@ class OCFileRepository(
             }
         }
 
+    /**
+     * Applies the changes returned by a sync-collection to the database, the same way [refreshFolder] does with the
+     * content of a folder. Changes inside folders that are not in the database yet are ignored, they will be fetched
+     * when the folder is.
+     *
+     * Folders listed before take the etag the server reports for them, as the changes below them are applied as well;
+     * the ones never listed keep an empty etag so that they are still fetched.
+     *
+     * @return the files that changed
+     */
+    private fun applyFolderChanges(folderChanges: OCFileChanges, accountName: String, spaceId: String?): List<OCFile> {
+        val changedFiles = folderChanges.changedFiles.map { it.copy(spaceId = spaceId) }
+        val filesThatChanged = mutableListOf<OCFile>()
+
+        // Moves go first, so a moved file keeps its local copy instead of being removed and added again
+        val movedRemoteIds = moveLocalFilesMovedInRemote(changedFiles, accountName, spaceId)
+
+        folderChanges.removedPaths.filter { it != ROOT_PATH }.forEach { removedPath ->
+            val removedFile = localFileDataSource.getFileByRemotePath(removedPath, accountName, spaceId)
+                ?: localFileDataSource.getFileByRemotePath("$removedPath$PATH_SEPARATOR", accountName, spaceId)
+            removedFile?.takeIf { it.remoteId !in movedRemoteIds }?.let { removeLocalFileNotInRemote(it) }
+        }
+
+        changedFiles.find { it.remotePath == ROOT_PATH }?.let { remoteRoot ->
+            localFileDataSource.getFileByRemotePath(ROOT_PATH, accountName, spaceId)
+                ?.takeUnless { it.etag.isNullOrBlank() }
+                ?.let { localRoot -> localFileDataSource.saveFile(localRoot.copy(etag = remoteRoot.etag, remoteEtag = remoteRoot.etag)) }
+        }
+
+        // Parents go before their children, so a folder created in this round can receive its content
+        changedFiles
+            .filter { it.remotePath != ROOT_PATH }
+            .groupBy { it.getParentRemotePath() }
+            .entries
+            .sortedBy { (parentRemotePath, _) -> parentRemotePath.count { it == PATH_SEPARATOR } }
+            .forEach { (parentRemotePath, remoteChildren) ->
+                val localParent = localFileDataSource.getFileByRemotePath(parentRemotePath, accountName, spaceId) ?: return@forEach
+                val localChildren = localFileDataSource.getFolderContent(folderId = localParent.id!!)
+                    .associateBy { localChild -> localChild.remoteId ?: localChild.remotePath }
+
+                val updatedChildren = remoteChildren.map { remoteChild ->
+                    val localChild = localChildren[remoteChild.remoteId] ?: localChildren[remoteChild.remotePath]
+                    if (localChild == null) {
+                        remoteChild.prepareAsNewChildOf(localParent)
+                    } else {
+                        val serverEtag = remoteChild.etag
+                        remoteChild.prepareAsUpdatedChild(localChild, localParent).apply {
+                            if (isFolder && !localChild.etag.isNullOrBlank()) etag = serverEtag
+                        }
+                    }
+                }
+                filesThatChanged.addAll(
+                    localFileDataSource.saveFilesInFolderAndReturnTheFilesThatChanged(
+                        folder = localParent,
+                        listOfFiles = updatedChildren
+                    )
+                )
+            }
+        return filesThatChanged
+    }
+
+    /**
+     * Moves in the database and in the local storage the files the server reports in another place, the same way
+     * [moveFile] does after moving them in the server.
+     *
+     * @return remote ids of the files moved
+     */
+    private fun moveLocalFilesMovedInRemote(changedFiles: List<OCFile>, accountName: String, spaceId: String?): Set<String> {
+        val changedRemoteIds = changedFiles.mapNotNull { it.remoteId }.toSet()
+        val movedRemoteIds = mutableSetOf<String>()
+
+        // Parents go before their children, whose paths are already updated when their parent is moved
+        changedFiles.sortedBy { it.remotePath.count { char -> char == PATH_SEPARATOR } }.forEach { remoteFile ->
+            val remoteId = remoteFile.remoteId ?: return@forEach
+            val localFile = localFileDataSource.getFileByRemoteId(remoteId)
+                ?.takeIf { it.owner == accountName && it.spaceId == spaceId && it.remotePath != remoteFile.remotePath }
+                ?: return@forEach
+            val targetFolder = localFileDataSource.getFileByRemotePath(remoteFile.getParentRemotePath(), accountName, spaceId)
+                ?: return@forEach
+
+            // A file still in the new place was replaced in the server, unless it was moved somewhere else as well
+            val replacedFile = localFileDataSource.getFileByRemotePath(remoteFile.remotePath, accountName, spaceId)
+            if (replacedFile != null) {
+                if (replacedFile.remoteId in changedRemoteIds) return@forEach
+                removeLocalFileNotInRemote(replacedFile)
+            }
+
+            val finalStoragePath = localStorageProvider.getDefaultSavePathFor(accountName, remoteFile.remotePath, spaceId)
+            localFile.etagInConflict?.let { localFileDataSource.cleanConflict(localFile.id!!) }
+            localFileDataSource.moveFile(
+                sourceFile = localFile,
+                targetFolder = targetFolder,
+                finalRemotePath = remoteFile.remotePath,
+                finalStoragePath = finalStoragePath
+            )
+            localFile.etagInConflict?.let { localFileDataSource.saveConflict(localFile.id!!, it) }
+            localStorageProvider.moveLocalFile(localFile, finalStoragePath)
+            movedRemoteIds.add(remoteId)
+        }
+        return movedRemoteIds
+    }
+
+    private fun OCFile.prepareAsNewChildOf(parentFolder: OCFile): OCFile =
+        apply {
+            parentId = parentFolder.id
+            needsToUpdateThumbnail = !isFolder
+            // remote eTag will not be set unless file CONTENTS are synchronized
+            etag = ""
+            availableOfflineStatus =
+                if (parentFolder.isAvailableOffline) AVAILABLE_OFFLINE_PARENT else NOT_AVAILABLE_OFFLINE
+        }
+
+    private fun OCFile.prepareAsUpdatedChild(localChild: OCFile, parentFolder: OCFile): OCFile =
+        apply {
+            copyLocalPropertiesFrom(localChild)
+            // DO NOT update etag till contents are synced.
+            etag = localChild.etag
+            needsToUpdateThumbnail =
+                (!isFolder && modificationTimestamp != localChild.modificationTimestamp) || localChild.needsToUpdateThumbnail
+            // Probably not needed, if the child was already in the database, the av offline status should be also there
+            if (parentFolder.isAvailableOffline) {
+                availableOfflineStatus = AVAILABLE_OFFLINE_PARENT
+            }
+            // Fix: What about renames? Need to fix storage path
+        }
+
+    // Removes from the database and the local storage a file that does not exist in remote anymore
+    private fun removeLocalFileNotInRemote(ocFile: OCFile) {
+        ocFile.etagInConflict?.let {
+            localFileDataSource.cleanConflict(ocFile.id!!)
+        }
+        if (ocFile.isFolder) {
+            deleteLocalFolderRecursively(ocFile = ocFile, onlyFromLocalStorage = false)
+        } else {
+            deleteLocalFile(ocFile = ocFile, onlyFromLocalStorage = false)
+        }
+    }
+
     private fun deleteLocalFolderRecursively(ocFile: OCFile, onlyFromLocalStorage: Boolean) {
         val folderContent = localFileDataSource.getFolderContent(ocFile.id!!)
 
@@ -616,4 +799,8 @@ class OCFileRepository(
             localFileDataSource.deleteFile(ocFile.id!!)
         }
     }
+
+    companion object {
+        private const val SEARCH_PAGE_SIZE = 20
+    }
 }
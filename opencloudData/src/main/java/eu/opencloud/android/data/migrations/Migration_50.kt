@@ -0,0 +1,26 @@
+package eu.opencloud.android.data.migrations
+
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta
+
+val MIGRATION_49_50 = object : Migration(49, 50) {
+    override fun migrate(database: SupportSQLiteDatabase) {
+        database.execSQL(
+            "CREATE INDEX IF NOT EXISTS `index_${ProviderTableMeta.FILES_TABLE_NAME}_parentId` " +
+                "ON `${ProviderTableMeta.FILES_TABLE_NAME}` (`parentId`)"
+        )
+        database.execSQL(
+            "CREATE INDEX IF NOT EXISTS `index_${ProviderTableMeta.FILES_TABLE_NAME}_owner_remotePath_spaceId` " +
+                "ON `${ProviderTableMeta.FILES_TABLE_NAME}` (`owner`, `remotePath`, `spaceId`)"
+        )
+        database.execSQL(
+            "CREATE INDEX IF NOT EXISTS `index_${ProviderTableMeta.FILES_TABLE_NAME}_remoteId` " +
+                "ON `${ProviderTableMeta.FILES_TABLE_NAME}` (`remoteId`)"
+        )
+        database.execSQL(
+            "CREATE INDEX IF NOT EXISTS `index_${ProviderTableMeta.FILES_TABLE_NAME}_keepInSync_lastUsage` " +
+                "ON `${ProviderTableMeta.FILES_TABLE_NAME}` (`keepInSync`, `lastUsage`)"
+        )
+    }
+}
@@ -0,0 +1,36 @@
+package eu.opencloud.android.data.migrations
+
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILES_FTS_TABLE_NAME
+import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME
+
+val MIGRATION_50_51 = object : Migration(50, 51) {
+    override fun migrate(database: SupportSQLiteDatabase) {
+        database.execSQL(
+            "CREATE VIRTUAL TABLE IF NOT EXISTS `$FILES_FTS_TABLE_NAME` " +
+                "USING FTS4(`name` TEXT, `remotePath` TEXT, `mimeType` TEXT, tokenize=unicode61, content=`$FILES_TABLE_NAME`)"
+        )
+
+        // Same content sync triggers that Room creates for external content FTS tables
+        val triggerPrefix = "room_fts_content_sync_$FILES_FTS_TABLE_NAME"
+        val deleteFromFts = "DELETE FROM `$FILES_FTS_TABLE_NAME` WHERE `docid`=OLD.`rowid`;"
+        val insertIntoFts = "INSERT INTO `$FILES_FTS_TABLE_NAME`(`docid`, `name`, `remotePath`, `mimeType`) " +
+            "VALUES (NEW.`rowid`, NEW.`name`, NEW.`remotePath`, NEW.`mimeType`);"
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS ${triggerPrefix}_BEFORE_UPDATE BEFORE UPDATE ON `$FILES_TABLE_NAME` BEGIN $deleteFromFts END"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS ${triggerPrefix}_BEFORE_DELETE BEFORE DELETE ON `$FILES_TABLE_NAME` BEGIN $deleteFromFts END"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS ${triggerPrefix}_AFTER_UPDATE AFTER UPDATE ON `$FILES_TABLE_NAME` BEGIN $insertIntoFts END"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS ${triggerPrefix}_AFTER_INSERT AFTER INSERT ON `$FILES_TABLE_NAME` BEGIN $insertIntoFts END"
+        )
+
+        // Index the files that are already cached
+        database.execSQL("INSERT INTO `$FILES_FTS_TABLE_NAME`(`$FILES_FTS_TABLE_NAME`) VALUES('rebuild')")
+    }
+}
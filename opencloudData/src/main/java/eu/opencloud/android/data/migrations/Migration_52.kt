@@ -0,0 +1,59 @@
+package eu.opencloud.android.data.migrations
+
+import android.content.ContentValues
+import android.database.sqlite.SQLiteDatabase
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
+import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILES_FTS_TABLE_NAME
+import eu.opencloud.android.data.ProviderMeta.ProviderTableMeta.FILES_TABLE_NAME
+import eu.opencloud.android.data.files.db.OCFileFtsEntity
+
+val MIGRATION_51_52 = object : Migration(51, 52) {
+    override fun migrate(database: SupportSQLiteDatabase) {
+        // The index gets a new column, so it is built again once the files have their name suffixes
+        val triggerPrefix = "room_fts_content_sync_$FILES_FTS_TABLE_NAME"
+        listOf("BEFORE_UPDATE", "BEFORE_DELETE", "AFTER_UPDATE", "AFTER_INSERT").forEach {
+            database.execSQL("DROP TRIGGER IF EXISTS ${triggerPrefix}_$it")
+        }
+        database.execSQL("DROP TABLE IF EXISTS `$FILES_FTS_TABLE_NAME`")
+
+        database.execSQL("ALTER TABLE `$FILES_TABLE_NAME` ADD COLUMN `nameSuffixes` TEXT")
+        database.query("SELECT `id`, `name` FROM `$FILES_TABLE_NAME`").use { cursor ->
+            while (cursor.moveToNext()) {
+                val nameSuffixes = OCFileFtsEntity.nameSuffixesOf(cursor.getString(1)) ?: continue
+                database.update(
+                    FILES_TABLE_NAME,
+                    SQLiteDatabase.CONFLICT_NONE,
+                    ContentValues().apply { put("nameSuffixes", nameSuffixes) },
+                    "id = ?",
+                    arrayOf(cursor.getLong(0))
+                )
+            }
+        }
+
+        database.execSQL(
+            "CREATE VIRTUAL TABLE IF NOT EXISTS `$FILES_FTS_TABLE_NAME` " +
+                "USING FTS4(`name` TEXT, `remotePath` TEXT, `mimeType` TEXT, `nameSuffixes` TEXT, " +
+                "tokenize=unicode61, content=`$FILES_TABLE_NAME`)"
+        )
+
+        // Same content sync triggers that Room creates for external content FTS tables
+        val deleteFromFts = "DELETE FROM `$FILES_FTS_TABLE_NAME` WHERE `docid`=OLD.`rowid`;"
+        val insertIntoFts = "INSERT INTO `$FILES_FTS_TABLE_NAME`(`docid`, `name`, `remotePath`, `mimeType`, `nameSuffixes`) " +
+            "VALUES (NEW.`rowid`, NEW.`name`, NEW.`remotePath`, NEW.`mimeType`, NEW.`nameSuffixes`);"
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS ${triggerPrefix}_BEFORE_UPDATE BEFORE UPDATE ON `$FILES_TABLE_NAME` BEGIN $deleteFromFts END"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS ${triggerPrefix}_BEFORE_DELETE BEFORE DELETE ON `$FILES_TABLE_NAME` BEGIN $deleteFromFts END"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS ${triggerPrefix}_AFTER_UPDATE AFTER UPDATE ON `$FILES_TABLE_NAME` BEGIN $insertIntoFts END"
+        )
+        database.execSQL(
+            "CREATE TRIGGER IF NOT EXISTS ${triggerPrefix}_AFTER_INSERT AFTER INSERT ON `$FILES_TABLE_NAME` BEGIN $insertIntoFts END"
+        )
+
+        database.execSQL("INSERT INTO `$FILES_FTS_TABLE_NAME`(`$FILES_FTS_TABLE_NAME`) VALUES('rebuild')")
+    }
+}
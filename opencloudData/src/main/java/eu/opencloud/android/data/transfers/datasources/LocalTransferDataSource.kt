@@ -38,6 +38,13 @@ interface LocalTransferDataSource {
         lastResult: TransferResult
     )
 
+    fun updateTransfersWhenFinished(
+        ids: List<Long>,
+        status: TransferStatus,
+        transferEndTimestamp: Long,
+        lastResult: TransferResult
+    )
+
     fun updateTransferLocalPath(id: Long, localPath: String)
     fun updateTransferSourcePath(id: Long, sourcePath: String)
     fun updateTransferStorageDirectoryInLocalPath(
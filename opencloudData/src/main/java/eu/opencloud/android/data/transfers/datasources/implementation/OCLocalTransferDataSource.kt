@@ -60,6 +60,15 @@ class OCLocalTransferDataSource(
         transferDao.updateTransferWhenFinished(id, status.value, transferEndTimestamp, lastResult.value)
     }
 
+    override fun updateTransfersWhenFinished(
+        ids: List<Long>,
+        status: TransferStatus,
+        transferEndTimestamp: Long,
+        lastResult: TransferResult
+    ) {
+        transferDao.updateTransfersWhenFinished(ids, status.value, transferEndTimestamp, lastResult.value)
+    }
+
     override fun updateTransferLocalPath(id: Long, localPath: String) {
         transferDao.updateTransferLocalPath(id, localPath)
     }
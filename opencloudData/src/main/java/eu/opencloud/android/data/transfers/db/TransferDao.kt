@@ -54,6 +54,9 @@ interface TransferDao {
     @Query(UPDATE_TRANSFER_WHEN_FINISHED)
     fun updateTransferWhenFinished(id: Long, status: Int, transferEndTimestamp: Long, lastResult: Int)
 
+    @Query(UPDATE_TRANSFERS_WHEN_FINISHED)
+    fun updateTransfersWhenFinished(ids: List<Long>, status: Int, transferEndTimestamp: Long, lastResult: Int)
+
     @Query(UPDATE_TRANSFER_LOCAL_PATH_WITH_ID)
     fun updateTransferLocalPath(id: Long, localPath: String)
 
@@ -132,6 +135,12 @@ interface TransferDao {
             WHERE id = :id
         """
 
+        private const val UPDATE_TRANSFERS_WHEN_FINISHED = """
+            UPDATE $TRANSFERS_TABLE_NAME
+            SET status = :status, transferEndTimestamp = :transferEndTimestamp, lastResult = :lastResult
+            WHERE id IN (:ids)
+        """
+
         private const val UPDATE_TRANSFER_LOCAL_PATH_WITH_ID = """
             UPDATE $TRANSFERS_TABLE_NAME
             SET localPath = :localPath
@@ -67,6 +67,20 @@ class OCTransferRepository(
         )
     }
 
+    override fun updateTransfersWhenFinished(
+        ids: List<Long>,
+        status: TransferStatus,
+        transferEndTimestamp: Long,
+        lastResult: TransferResult
+    ) {
+        localTransferDataSource.updateTransfersWhenFinished(
+            ids = ids,
+            status = status,
+            transferEndTimestamp = transferEndTimestamp,
+            lastResult = lastResult
+        )
+    }
+
     override fun updateTransferStorageDirectoryInLocalPath(
         id: Long,
         oldDirectory: String,
@@ -26,6 +26,7 @@ package eu.opencloud.android.data.files.datasources.implementation
 import eu.opencloud.android.data.files.datasources.implementation.OCLocalFileDataSource.Companion.toEntity
 import eu.opencloud.android.data.files.db.FileDao
 import eu.opencloud.android.data.files.db.OCFileEntity
+import eu.opencloud.android.data.providers.SharedPreferencesProvider
 import eu.opencloud.android.domain.availableoffline.model.AvailableOfflineStatus
 import eu.opencloud.android.domain.files.model.MIME_DIR
 import eu.opencloud.android.domain.files.model.MIME_PREFIX_IMAGE
@@ -60,13 +61,14 @@ class OCLocalFileDataSourceTest {
 
     private lateinit var ocLocalFileDataSource: OCLocalFileDataSource
     private val fileDao = mockk<FileDao>(relaxUnitFun = true)
+    private val preferencesProvider = mockk<SharedPreferencesProvider>(relaxUnitFun = true)
 
     private val fileEntitySharedByLink = OC_FILE_ENTITY.copy(sharedByLink = true).apply { this.id = OC_FILE_ENTITY.id }
     private val fileSharedByLink = OC_FILE.copy(sharedByLink = true)
     private val timeInMilliseconds = 3600000L
     @Before
     fun setUp() {
-        ocLocalFileDataSource = OCLocalFileDataSource(fileDao)
+        ocLocalFileDataSource = OCLocalFileDataSource(fileDao, preferencesProvider)
     }
 
     @Test
@@ -295,6 +297,50 @@ class OCLocalFileDataSourceTest {
         verify(exactly = 1) { fileDao.getSearchFolderContent(OC_FILE_ENTITY.parentId!!, "test") }
     }
 
+    @Test
+    fun `searchFiles turns the search into a prefix query and returns a list of OCFile`() {
+        every {
+            fileDao.searchFiles(OC_ACCOUNT_NAME, null, ROOT_PATH, "annual* rep*", "Annual-rep", 50)
+        } returns listOf(OC_FILE_ENTITY)
+
+        val result = ocLocalFileDataSource.searchFiles(OC_ACCOUNT_NAME, null, ROOT_PATH, " Annual-rep ", 50)
+
+        assertEquals(listOf(OC_FILE), result)
+
+        verify(exactly = 1) { fileDao.searchFiles(OC_ACCOUNT_NAME, null, ROOT_PATH, "annual* rep*", "Annual-rep", 50) }
+    }
+
+    @Test
+    fun `searchFiles escapes the wildcards of LIKE in the search`() {
+        every { fileDao.searchFiles(OC_ACCOUNT_NAME, null, ROOT_PATH, "100* 2024*", "100\\%\\_2024", 50) } returns emptyList()
+
+        ocLocalFileDataSource.searchFiles(OC_ACCOUNT_NAME, null, ROOT_PATH, "100%_2024", 50)
+
+        verify(exactly = 1) { fileDao.searchFiles(OC_ACCOUNT_NAME, null, ROOT_PATH, "100* 2024*", "100\\%\\_2024", 50) }
+    }
+
+    @Test
+    fun `searchFiles returns an empty list without querying when there are no words to search`() {
+        val result = ocLocalFileDataSource.searchFiles(OC_ACCOUNT_NAME, null, ROOT_PATH, " \"*- ", 50)
+
+        assertEquals(emptyList<OCFile>(), result)
+
+        verify(exactly = 0) { fileDao.searchFiles(any(), any(), any(), any(), any(), any()) }
+    }
+
+    @Test
+    fun `searchFilesWithSyncInfoAsFlow returns a Flow with a list of OCFileWithSyncInfo`() = runTest {
+        every {
+            fileDao.searchFilesWithSyncInfoAsFlow(OC_ACCOUNT_NAME, null, ROOT_PATH, "test*", "test", 50)
+        } returns flowOf(listOf(OC_FILE_AND_FILE_SYNC))
+
+        val result = ocLocalFileDataSource.searchFilesWithSyncInfoAsFlow(OC_ACCOUNT_NAME, null, ROOT_PATH, "test", 50).first()
+
+        assertEquals(listOf(OC_FILE_WITH_SYNC_INFO_AND_SPACE), result)
+
+        verify(exactly = 1) { fileDao.searchFilesWithSyncInfoAsFlow(OC_ACCOUNT_NAME, null, ROOT_PATH, "test*", "test", 50) }
+    }
+
     @Test
     fun `getSearchAvailableOfflineFolderContent returns a list of OCFile`() {
         every {
@@ -556,6 +602,13 @@ class OCLocalFileDataSourceTest {
         verify(exactly = 1) { fileDao.insertFilesInFolderAndReturnTheFilesThatChanged(OC_FOLDER_ENTITY, emptyList()) }
     }
 
+    @Test
+    fun `saveUploadedFiles saves every file in a single DAO transaction`() {
+        ocLocalFileDataSource.saveUploadedFiles(listOf(OC_FILE))
+
+        verify(exactly = 1) { fileDao.upsertUploadedFiles(listOf(OC_FILE_ENTITY)) }
+    }
+
     @Test
     fun `saveFile saves a file correctly`() {
         ocLocalFileDataSource.saveFile(OC_FILE)
@@ -588,11 +641,26 @@ class OCLocalFileDataSourceTest {
 
     @Test
     fun `deleteFilesForAccount removes files for an account correctly`() {
+        every { fileDao.getSpaceIdsForAccount(OC_ACCOUNT_NAME) } returns emptyList()
+
         ocLocalFileDataSource.deleteFilesForAccount(OC_ACCOUNT_NAME)
 
         verify(exactly = 1) { fileDao.deleteFilesForAccount(OC_ACCOUNT_NAME) }
     }
 
+    @Test
+    fun `deleteFilesForAccount removes the sync tokens of the spaces of the account`() {
+        val spaceId = "personal-space"
+        every { fileDao.getSpaceIdsForAccount(OC_ACCOUNT_NAME) } returns listOf(spaceId, null)
+
+        ocLocalFileDataSource.deleteFilesForAccount(OC_ACCOUNT_NAME)
+
+        verify(exactly = 1) {
+            preferencesProvider.removePreference("KEY_SPACE_SYNC_TOKEN_${OC_ACCOUNT_NAME}_$spaceId")
+            preferencesProvider.removePreference("KEY_SPACE_SYNC_TOKEN_${OC_ACCOUNT_NAME}_")
+        }
+    }
+
     @Test
     fun `renameFile performs a move in the file to change its name`() {
         every { fileDao.getFileById(OC_FILE.parentId!!) } returns OC_FOLDER_ENTITY
@@ -641,6 +709,35 @@ class OCLocalFileDataSourceTest {
         verify(exactly = 1) { fileDao.updateFileWithLastUsage(OC_FILE_ENTITY.id, lastUsage) }
     }
 
+    @Test
+    fun `updateFileWithTreeEtag updates tree etag for a file correctly`() {
+        val treeEtag = "5efb0c13c688f"
+
+        ocLocalFileDataSource.updateFileWithTreeEtag(OC_FILE_ENTITY.id, treeEtag)
+
+        verify(exactly = 1) { fileDao.updateFileWithTreeEtag(OC_FILE_ENTITY.id, treeEtag) }
+    }
+
+    @Test
+    fun `saveSpaceSyncToken stores the sync token of a space and getSpaceSyncToken returns it`() {
+        val syncToken = "http://server.url/ns/sync/1"
+        val syncTokenKey = "KEY_SPACE_SYNC_TOKEN_${OC_ACCOUNT_NAME}_${OC_FILE.spaceId.orEmpty()}"
+        every { preferencesProvider.getString(syncTokenKey, null) } returns syncToken
+
+        ocLocalFileDataSource.saveSpaceSyncToken(OC_ACCOUNT_NAME, OC_FILE.spaceId, syncToken)
+        val result = ocLocalFileDataSource.getSpaceSyncToken(OC_ACCOUNT_NAME, OC_FILE.spaceId)
+
+        assertEquals(syncToken, result)
+        verify(exactly = 1) { preferencesProvider.putString(syncTokenKey, syncToken) }
+    }
+
+    @Test
+    fun `saveSpaceSyncToken removes the sync token of a space when it is null`() {
+        ocLocalFileDataSource.saveSpaceSyncToken(OC_ACCOUNT_NAME, OC_FILE.spaceId, null)
+
+        verify(exactly = 1) { preferencesProvider.removePreference("KEY_SPACE_SYNC_TOKEN_${OC_ACCOUNT_NAME}_${OC_FILE.spaceId.orEmpty()}") }
+    }
+
     @Test
     fun `saveDownloadWorkerUuid saves the worker UUID for a file correctly`() {
         val workerUuid = UUID.randomUUID()
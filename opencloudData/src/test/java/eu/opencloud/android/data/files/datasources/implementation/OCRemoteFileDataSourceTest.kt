@@ -26,6 +26,7 @@ import eu.opencloud.android.data.ClientManager
 import eu.opencloud.android.data.files.datasources.implementation.OCRemoteFileDataSource.Companion.toModel
 import eu.opencloud.android.domain.files.model.OCFile
 import eu.opencloud.android.lib.resources.files.RemoteFile
+import eu.opencloud.android.lib.resources.files.RemoteSearchResult
 import eu.opencloud.android.lib.resources.files.services.implementation.OCFileService
 import eu.opencloud.android.testutil.OC_ACCOUNT_NAME
 import eu.opencloud.android.testutil.OC_FILE
@@ -35,6 +36,7 @@ import eu.opencloud.android.testutil.REMOTE_META_FILE
 import eu.opencloud.android.utils.createRemoteOperationResultMock
 import io.mockk.every
 import io.mockk.mockk
+import io.mockk.slot
 import io.mockk.verify
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
@@ -402,4 +404,32 @@ class OCRemoteFileDataSourceTest {
             ocFileService.getMetaFileInfo(OC_FILE.remoteId!!)
         }
     }
+
+    @Test
+    fun `searchFiles sends a name query and delivers the pages with their space`() {
+        val searchResult = createRemoteOperationResultMock(data = 1, isSuccess = true)
+        val onRemotePage = slot<(List<RemoteSearchResult>) -> Boolean>()
+        val spaceId = "storage-1\$space-1"
+
+        every {
+            ocFileService.searchFiles("name:\"*annual*\" AND name:\"*report*\"", 50, 10, capture(onRemotePage))
+        } answers {
+            onRemotePage.captured(listOf(RemoteSearchResult(spaceId = spaceId, remoteFile = REMOTE_FILE)))
+            searchResult
+        }
+        val pages = mutableListOf<List<OCFile>>()
+
+        val delivered = ocRemoteFileDataSource.searchFiles("annual \"report", OC_ACCOUNT_NAME, 50, 10) { page ->
+            pages.add(page)
+            true
+        }
+
+        assertEquals(1, delivered)
+        assertEquals(listOf(listOf(REMOTE_FILE.toModel().copy(spaceId = spaceId))), pages)
+
+        verify(exactly = 1) {
+            clientManager.getFileService(OC_ACCOUNT_NAME)
+            ocFileService.searchFiles(any(), 50, 10, any())
+        }
+    }
 }
@@ -34,6 +34,7 @@ import eu.opencloud.android.domain.files.model.FileListOption
 import eu.opencloud.android.domain.files.model.MIME_DIR
 import eu.opencloud.android.domain.files.model.OCFile
 import eu.opencloud.android.domain.files.model.OCFile.Companion.ROOT_PATH
+import eu.opencloud.android.domain.files.model.OCFileChanges
 import eu.opencloud.android.testutil.OC_AVAILABLE_OFFLINE_FILES
 import eu.opencloud.android.testutil.OC_FILE
 import eu.opencloud.android.testutil.OC_FILE_AVAILABLE_OFFLINE
@@ -55,6 +56,7 @@ import io.mockk.verify
 import kotlinx.coroutines.ExperimentalCoroutinesApi
 import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.toList
 import kotlinx.coroutines.test.runTest
 import org.junit.Assert.assertEquals
 import org.junit.Assert.assertNull
@@ -84,6 +86,8 @@ class OCFileRepositoryTest {
     private val searchText = "image"
     private val etagInConflict = "5efb0c13c688i"
     private val fileWithConflict = OC_FILE_WITH_SPACE_ID.copy(etagInConflict = etagInConflict)
+    private val syncToken = "http://server.url/ns/sync/1"
+    private val newSyncToken = "http://server.url/ns/sync/2"
 
     @Before
     fun setUp() {
@@ -961,6 +965,27 @@ class OCFileRepositoryTest {
         }
     }
 
+    @Test
+    fun `searchFilesOnServer emits every page found by the remote datasource`() = runTest {
+        val firstPage = listOf(OC_FILE_WITH_SPACE_ID)
+        val secondPage = listOf(OC_FOLDER_WITH_SPACE_ID)
+        every {
+            remoteFileDataSource.searchFiles("report", OC_FILE_WITH_SPACE_ID.owner, 100, any(), any())
+        } answers {
+            val onPage = arg<(List<OCFile>) -> Boolean>(4)
+            onPage(firstPage)
+            onPage(secondPage)
+            2
+        }
+
+        val pages = ocFileRepository.searchFilesOnServer(OC_FILE_WITH_SPACE_ID.owner, "report", 100).toList()
+        assertEquals(listOf(firstPage, secondPage), pages)
+
+        verify(exactly = 1) {
+            remoteFileDataSource.searchFiles("report", OC_FILE_WITH_SPACE_ID.owner, 100, any(), any())
+        }
+    }
+
     @Test
     fun `getFilesAvailableOfflineFromAccount returns a list of OCFiles`() {
         every {
@@ -1756,6 +1781,158 @@ class OCFileRepositoryTest {
         }
     }
 
+    @Test
+    fun `refreshSpaceChanges returns null without asking the server when there is no sync token`() {
+        every {
+            localFileDataSource.getSpaceSyncToken(OC_PARENT_FOLDER_WITH_SPACE_ID.owner, OC_PARENT_FOLDER_WITH_SPACE_ID.spaceId)
+        } returns null
+
+        val filesThatChanged = ocFileRepository.refreshSpaceChanges(OC_PARENT_FOLDER_WITH_SPACE_ID.owner, OC_PARENT_FOLDER_WITH_SPACE_ID.spaceId)
+
+        assertNull(filesThatChanged)
+        verify(exactly = 0) {
+            remoteFileDataSource.getFolderChanges(any(), any(), any(), any())
+        }
+    }
+
+    @Test
+    fun `refreshSpaceChanges applies changed and removed files and stores the new sync token`() {
+        val accountName = OC_PARENT_FOLDER_WITH_SPACE_ID.owner
+        val spaceId = OC_PARENT_FOLDER_WITH_SPACE_ID.spaceId
+        val changedOcFile = OC_FILE_WITH_SPACE_ID.copy(id = null, parentId = null, spaceId = null, etag = "5efb0c13c688j")
+        val removedOcFile = OC_FILE_WITH_SPACE_ID.copy(id = 300, remotePath = "/Folder/image3.jpt", remoteId = "00000003oci9p7er2hox2")
+        every { localFileDataSource.getSpaceSyncToken(accountName, spaceId) } returns syncToken
+        every {
+            remoteFileDataSource.getFolderChanges(ROOT_PATH, syncToken, accountName, OC_SPACE_PERSONAL.root.webDavUrl)
+        } returns OCFileChanges(syncToken = newSyncToken, changedFiles = listOf(changedOcFile), removedPaths = listOf(removedOcFile.remotePath))
+        every { localFileDataSource.getFileByRemoteId(changedOcFile.remoteId!!) } returns OC_FILE_WITH_SPACE_ID
+        every { localFileDataSource.getFileByRemotePath(removedOcFile.remotePath, accountName, spaceId) } returns removedOcFile
+        every { localFileDataSource.getFileByRemotePath("/Folder/", accountName, spaceId) } returns OC_PARENT_FOLDER_WITH_SPACE_ID
+        every { localFileDataSource.getFolderContent(OC_PARENT_FOLDER_WITH_SPACE_ID.id!!) } returns listOf(OC_FILE_WITH_SPACE_ID)
+        every { localStorageProvider.deleteLocalFile(removedOcFile) } returns true
+        every { localFileDataSource.saveFilesInFolderAndReturnTheFilesThatChanged(any(), any()) } returns listOf(OC_FILE_WITH_SPACE_ID)
+
+        val filesThatChanged = ocFileRepository.refreshSpaceChanges(accountName, spaceId)
+
+        assertEquals(listOf(OC_FILE_WITH_SPACE_ID), filesThatChanged)
+        verify(exactly = 1) {
+            localStorageProvider.deleteLocalFile(removedOcFile)
+            localFileDataSource.deleteFile(removedOcFile.id!!)
+            localFileDataSource.saveFilesInFolderAndReturnTheFilesThatChanged(
+                folder = OC_PARENT_FOLDER_WITH_SPACE_ID,
+                listOfFiles = withArg<List<OCFile>> {
+                    assertEquals(1, it.size)
+                    assertEquals(OC_FILE_WITH_SPACE_ID.id, it[0].id)
+                    assertEquals(OC_FILE_WITH_SPACE_ID.etag, it[0].etag)
+                    assertEquals(spaceId, it[0].spaceId)
+                }
+            )
+            localFileDataSource.saveSpaceSyncToken(accountName, spaceId, newSyncToken)
+        }
+    }
+
+    @Test
+    fun `refreshSpaceChanges clears the sync token and returns null when the server needs a full refresh`() {
+        val accountName = OC_PARENT_FOLDER_WITH_SPACE_ID.owner
+        val spaceId = OC_PARENT_FOLDER_WITH_SPACE_ID.spaceId
+        every { localFileDataSource.getSpaceSyncToken(accountName, spaceId) } returns syncToken
+        every {
+            remoteFileDataSource.getFolderChanges(ROOT_PATH, syncToken, accountName, OC_SPACE_PERSONAL.root.webDavUrl)
+        } returns OCFileChanges(syncToken = null, isFullRefreshNeeded = true)
+
+        val filesThatChanged = ocFileRepository.refreshSpaceChanges(accountName, spaceId)
+
+        assertNull(filesThatChanged)
+        verify(exactly = 1) {
+            localFileDataSource.saveSpaceSyncToken(accountName, spaceId, null)
+        }
+        verify(exactly = 0) {
+            localFileDataSource.saveFilesInFolderAndReturnTheFilesThatChanged(any(), any())
+        }
+    }
+
+    @Test
+    fun `refreshSpaceChanges clears the sync token and returns null when the server does not find the space`() {
+        val accountName = OC_PARENT_FOLDER_WITH_SPACE_ID.owner
+        val spaceId = OC_PARENT_FOLDER_WITH_SPACE_ID.spaceId
+        every { localFileDataSource.getSpaceSyncToken(accountName, spaceId) } returns syncToken
+        every {
+            remoteFileDataSource.getFolderChanges(ROOT_PATH, syncToken, accountName, OC_SPACE_PERSONAL.root.webDavUrl)
+        } throws FileNotFoundException()
+
+        val filesThatChanged = ocFileRepository.refreshSpaceChanges(accountName, spaceId)
+
+        assertNull(filesThatChanged)
+        verify(exactly = 1) {
+            localFileDataSource.saveSpaceSyncToken(accountName, spaceId, null)
+        }
+    }
+
+    @Test
+    fun `refreshSpaceChanges moves a file moved in the server keeping its local copy`() {
+        val accountName = OC_PARENT_FOLDER_WITH_SPACE_ID.owner
+        val spaceId = OC_PARENT_FOLDER_WITH_SPACE_ID.spaceId
+        val localFile = OC_FILE_WITH_SPACE_ID.copy(storagePath = "/local/Folder/image2.jpt")
+        val movedOcFile = OC_FILE_WITH_SPACE_ID.copy(id = null, parentId = null, spaceId = null, remotePath = "/Folder/Photos/image2.jpt")
+        val finalStoragePath = "/local/Folder/Photos/image2.jpt"
+        every { localFileDataSource.getSpaceSyncToken(accountName, spaceId) } returns syncToken
+        every {
+            remoteFileDataSource.getFolderChanges(ROOT_PATH, syncToken, accountName, OC_SPACE_PERSONAL.root.webDavUrl)
+        } returns OCFileChanges(syncToken = newSyncToken, changedFiles = listOf(movedOcFile), removedPaths = listOf(localFile.remotePath))
+        every { localFileDataSource.getFileByRemoteId(localFile.remoteId!!) } returns localFile
+        every { localFileDataSource.getFileByRemotePath("/Folder/Photos/", accountName, spaceId) } returns OC_FOLDER_WITH_SPACE_ID
+        every { localFileDataSource.getFileByRemotePath(movedOcFile.remotePath, accountName, spaceId) } returns null
+        every { localFileDataSource.getFileByRemotePath(localFile.remotePath, accountName, spaceId) } returns null
+        every { localFileDataSource.getFileByRemotePath("${localFile.remotePath}/", accountName, spaceId) } returns null
+        every { localStorageProvider.getDefaultSavePathFor(accountName, movedOcFile.remotePath, spaceId) } returns finalStoragePath
+        every { localFileDataSource.getFolderContent(OC_FOLDER_WITH_SPACE_ID.id!!) } returns listOf(
+            localFile.copy(parentId = OC_FOLDER_WITH_SPACE_ID.id, remotePath = movedOcFile.remotePath, storagePath = finalStoragePath)
+        )
+        every { localFileDataSource.saveFilesInFolderAndReturnTheFilesThatChanged(any(), any()) } returns emptyList()
+
+        ocFileRepository.refreshSpaceChanges(accountName, spaceId)
+
+        verify(exactly = 1) {
+            localFileDataSource.moveFile(localFile, OC_FOLDER_WITH_SPACE_ID, movedOcFile.remotePath, finalStoragePath)
+            localStorageProvider.moveLocalFile(localFile, finalStoragePath)
+            localFileDataSource.saveFilesInFolderAndReturnTheFilesThatChanged(
+                folder = OC_FOLDER_WITH_SPACE_ID,
+                listOfFiles = withArg<List<OCFile>> { assertEquals(finalStoragePath, it.single().storagePath) }
+            )
+        }
+        verify(exactly = 0) {
+            localFileDataSource.deleteFile(any())
+            localStorageProvider.deleteLocalFile(any())
+        }
+    }
+
+    @Test
+    fun `refreshSpaceChanges gives a folder listed before the etag reported by the server`() {
+        val accountName = OC_PARENT_FOLDER_WITH_SPACE_ID.owner
+        val spaceId = OC_PARENT_FOLDER_WITH_SPACE_ID.spaceId
+        val changedFolder = OC_FOLDER_WITH_SPACE_ID.copy(id = null, parentId = null, spaceId = null, etag = "5efb0c13c688z")
+        every { localFileDataSource.getSpaceSyncToken(accountName, spaceId) } returns syncToken
+        every {
+            remoteFileDataSource.getFolderChanges(ROOT_PATH, syncToken, accountName, OC_SPACE_PERSONAL.root.webDavUrl)
+        } returns OCFileChanges(syncToken = newSyncToken, changedFiles = listOf(changedFolder))
+        every { localFileDataSource.getFileByRemoteId(changedFolder.remoteId!!) } returns OC_FOLDER_WITH_SPACE_ID
+        every { localFileDataSource.getFileByRemotePath("/Folder/", accountName, spaceId) } returns OC_PARENT_FOLDER_WITH_SPACE_ID
+        every { localFileDataSource.getFolderContent(OC_PARENT_FOLDER_WITH_SPACE_ID.id!!) } returns listOf(OC_FOLDER_WITH_SPACE_ID)
+        every { localFileDataSource.saveFilesInFolderAndReturnTheFilesThatChanged(any(), any()) } returns emptyList()
+
+        ocFileRepository.refreshSpaceChanges(accountName, spaceId)
+
+        verify(exactly = 1) {
+            localFileDataSource.saveFilesInFolderAndReturnTheFilesThatChanged(
+                folder = OC_PARENT_FOLDER_WITH_SPACE_ID,
+                listOfFiles = withArg<List<OCFile>> {
+                    assertEquals(OC_FOLDER_WITH_SPACE_ID.id, it.single().id)
+                    assertEquals("5efb0c13c688z", it.single().etag)
+                }
+            )
+        }
+    }
+
     @Test
     fun `deleteFiles removes a file and its conflict from local and remote correctly`() {
         every {
@@ -1976,6 +2153,15 @@ class OCFileRepositoryTest {
         }
     }
 
+    @Test
+    fun `saveUploadedFiles saves the uploaded files correctly`() {
+        ocFileRepository.saveUploadedFiles(listOf(OC_FILE_WITH_SPACE_ID))
+
+        verify(exactly = 1) {
+            localFileDataSource.saveUploadedFiles(listOf(OC_FILE_WITH_SPACE_ID))
+        }
+    }
+
     @Test
     fun `saveConflict saves the etagInConflict related to a file correctly`() {
         ocFileRepository.saveConflict(OC_FILE_WITH_SPACE_ID.id!!, etagInConflict)
@@ -2032,6 +2218,20 @@ class OCFileRepositoryTest {
         }
     }
 
+    @Test
+    fun `updateFileWithTreeEtag updates tree etag for a file correctly`() {
+        val treeEtag = "5efb0c13c688f"
+
+        ocFileRepository.updateFileWithTreeEtag(OC_FILE_WITH_SPACE_ID.id!!, treeEtag)
+
+        verify(exactly = 1) {
+            localFileDataSource.updateFileWithTreeEtag(
+                fileId = OC_FILE_WITH_SPACE_ID.id!!,
+                treeEtag = treeEtag
+            )
+        }
+    }
+
     @Test
     fun `updateDownloadedFilesStorageDirectoryInStoragePath updates storage path for downloaded files correctly`() {
         val oldDirectory = "/old/directory"
@@ -117,6 +117,18 @@ class OCLocalTransferDataSourceTest {
         }
     }
 
+    @Test
+    fun `updateTransfersWhenFinished changes the status of every transfer in one update`() {
+        val timestamp = System.currentTimeMillis()
+        val ids = listOf(OC_TRANSFER.id!!, OC_TRANSFER.id!! + 1)
+
+        ocLocalTransferDataSource.updateTransfersWhenFinished(ids, TransferStatus.TRANSFER_SUCCEEDED, timestamp, TransferResult.UPLOADED)
+
+        verify(exactly = 1) {
+            transferDao.updateTransfersWhenFinished(ids, TransferStatus.TRANSFER_SUCCEEDED.value, timestamp, TransferResult.UPLOADED.value)
+        }
+    }
+
     @Test
     fun `updateTransferLocalPath changes transfer local path correctly`() {
 
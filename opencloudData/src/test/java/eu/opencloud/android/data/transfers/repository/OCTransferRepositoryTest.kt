@@ -111,6 +111,17 @@ class OCTransferRepositoryTest {
         }
     }
 
+    @Test
+    fun `updateTransfersWhenFinished changes the status of every transfer`() {
+        val ids = listOf(OC_TRANSFER.id!!, OC_TRANSFER.id!! + 1)
+
+        ocTransferRepository.updateTransfersWhenFinished(ids, OC_FINISHED_TRANSFER.status, 1_000, TransferResult.UPLOADED)
+
+        verify(exactly = 1) {
+            localTransferDataSource.updateTransfersWhenFinished(ids, OC_FINISHED_TRANSFER.status, 1_000, TransferResult.UPLOADED)
+        }
+    }
+
     @Test
     fun `updateTransferStorageDirectoryInLocalPath updates transfer storage directory correctly`() {
         val oldDirectory = "/oldDirectory/path"
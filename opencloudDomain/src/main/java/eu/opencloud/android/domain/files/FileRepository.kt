@@ -46,6 +46,15 @@ interface FileRepository {
     fun getSearchFolderContent(fileListOption: FileListOption, folderId: Long, search: String): List<OCFile>
     fun getFolderContent(folderId: Long): List<OCFile>
     fun getFolderContentWithSyncInfoAsFlow(folderId: Long): Flow<List<OCFileWithSyncInfo>>
+    fun searchFiles(owner: String, spaceId: String?, rootPath: String, search: String, limit: Int): List<OCFile>
+    fun searchFilesWithSyncInfoAsFlow(
+        owner: String,
+        spaceId: String?,
+        rootPath: String,
+        search: String,
+        limit: Int
+    ): Flow<List<OCFileWithSyncInfo>>
+    fun searchFilesOnServer(accountName: String, search: String, limit: Int): Flow<List<OCFile>>
     fun getFolderImages(folderId: Long): List<OCFile>
     fun getSharedByLinkWithSyncInfoForAccountAsFlow(owner: String): Flow<List<OCFileWithSyncInfo>>
     fun getFilesWithSyncInfoAvailableOfflineFromAccountAsFlow(owner: String): Flow<List<OCFileWithSyncInfo>>
@@ -63,14 +72,20 @@ interface FileRepository {
         spaceId: String? = null,
         isActionSetFolderAvailableOfflineOrSynchronize: Boolean = false
     ): List<OCFile>
+    // Returns the files that changed, or null if the space has no usable sync token and needs a full refresh instead
+    fun refreshSpaceChanges(accountName: String, spaceId: String? = null): List<OCFile>?
+    fun fetchSpaceSyncToken(accountName: String, spaceId: String? = null): String?
+    fun saveSpaceSyncToken(accountName: String, spaceId: String?, syncToken: String?)
     fun deleteFiles(listOfFilesToDelete: List<OCFile>, removeOnlyLocalCopy: Boolean)
     fun renameFile(ocFile: OCFile, newName: String)
     fun saveFile(file: OCFile)
+    fun saveUploadedFiles(files: List<OCFile>)
     fun saveConflict(fileId: Long, eTagInConflict: String)
     fun cleanConflict(fileId: Long)
     fun disableThumbnailsForFile(fileId: Long)
     fun updateFileWithNewAvailableOfflineStatus(ocFile: OCFile, newAvailableOfflineStatus: AvailableOfflineStatus)
     fun updateFileWithLastUsage(fileId: Long, lastUsage: Long?)
+    fun updateFileWithTreeEtag(fileId: Long, treeEtag: String?)
     fun updateDownloadedFilesStorageDirectoryInStoragePath(oldDirectory: String, newDirectory: String)
     fun saveDownloadWorkerUuid(fileId: Long, workerUuid: UUID)
     fun cleanWorkersUuid(fileId: Long)
@@ -0,0 +1,30 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.domain.files.model
+
+/**
+ * Changes in a folder tree since a sync token. See [isFullRefreshNeeded] for servers without delta support.
+ */
+data class OCFileChanges(
+    val syncToken: String?,
+    val changedFiles: List<OCFile> = emptyList(),
+    val removedPaths: List<String> = emptyList(),
+    val isTruncated: Boolean = false,
+    val isFullRefreshNeeded: Boolean = false,
+)
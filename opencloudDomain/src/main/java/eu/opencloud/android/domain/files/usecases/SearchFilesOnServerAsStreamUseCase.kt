@@ -0,0 +1,46 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.domain.files.usecases
+
+import eu.opencloud.android.domain.BaseUseCase
+import eu.opencloud.android.domain.files.FileRepository
+import eu.opencloud.android.domain.files.model.OCFile
+import eu.opencloud.android.domain.files.usecases.SearchFilesUseCase.Companion.SEARCH_RESULTS_LIMIT
+import kotlinx.coroutines.flow.Flow
+
+/**
+ * Search in every space of the account on the server. Files are emitted page by page as the server response is read,
+ * so they can be shown before the search finishes. They are not saved in the database.
+ */
+class SearchFilesOnServerAsStreamUseCase(
+    private val repository: FileRepository
+) : BaseUseCase<Flow<List<OCFile>>, SearchFilesOnServerAsStreamUseCase.Params>() {
+
+    override fun run(params: Params) = repository.searchFilesOnServer(
+        accountName = params.accountName,
+        search = params.search,
+        limit = params.limit,
+    )
+
+    data class Params(
+        val accountName: String,
+        val search: String,
+        val limit: Int = SEARCH_RESULTS_LIMIT,
+    )
+}
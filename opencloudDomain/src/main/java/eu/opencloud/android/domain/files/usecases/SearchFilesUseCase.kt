@@ -0,0 +1,52 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.opencloud.android.domain.files.usecases
+
+import eu.opencloud.android.domain.BaseUseCaseWithResult
+import eu.opencloud.android.domain.files.FileRepository
+import eu.opencloud.android.domain.files.model.OCFile
+import eu.opencloud.android.domain.files.model.OCFile.Companion.ROOT_PATH
+
+/**
+ * Searches the cached metadata of an account through its full-text index. Only files below [Params.rootPath] are
+ * returned, best matches first, and at most [Params.limit] of them.
+ */
+class SearchFilesUseCase(
+    private val repository: FileRepository
+) : BaseUseCaseWithResult<List<OCFile>, SearchFilesUseCase.Params>() {
+
+    override fun run(params: Params) = repository.searchFiles(
+        owner = params.owner,
+        spaceId = params.spaceId,
+        rootPath = params.rootPath,
+        search = params.search,
+        limit = params.limit,
+    )
+
+    data class Params(
+        val owner: String,
+        val search: String,
+        val spaceId: String? = null,
+        val rootPath: String = ROOT_PATH,
+        val limit: Int = SEARCH_RESULTS_LIMIT,
+    )
+
+    companion object {
+        const val SEARCH_RESULTS_LIMIT = 100
+    }
+}
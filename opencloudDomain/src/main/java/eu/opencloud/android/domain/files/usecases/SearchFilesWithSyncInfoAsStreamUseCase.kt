@@ -0,0 +1,46 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.opencloud.android.domain.files.usecases
+
+import eu.opencloud.android.domain.BaseUseCase
+import eu.opencloud.android.domain.files.FileRepository
+import eu.opencloud.android.domain.files.model.OCFile.Companion.ROOT_PATH
+import eu.opencloud.android.domain.files.model.OCFileWithSyncInfo
+import eu.opencloud.android.domain.files.usecases.SearchFilesUseCase.Companion.SEARCH_RESULTS_LIMIT
+import kotlinx.coroutines.flow.Flow
+
+class SearchFilesWithSyncInfoAsStreamUseCase(
+    private val repository: FileRepository
+) : BaseUseCase<Flow<List<OCFileWithSyncInfo>>, SearchFilesWithSyncInfoAsStreamUseCase.Params>() {
+
+    override fun run(params: Params) = repository.searchFilesWithSyncInfoAsFlow(
+        owner = params.owner,
+        spaceId = params.spaceId,
+        rootPath = params.rootPath,
+        search = params.search,
+        limit = params.limit,
+    )
+
+    data class Params(
+        val owner: String,
+        val search: String,
+        val spaceId: String? = null,
+        val rootPath: String = ROOT_PATH,
+        val limit: Int = SEARCH_RESULTS_LIMIT,
+    )
+}
@@ -40,6 +40,13 @@ interface TransferRepository {
         lastResult: TransferResult
     )
 
+    fun updateTransfersWhenFinished(
+        ids: List<Long>,
+        status: TransferStatus,
+        transferEndTimestamp: Long,
+        lastResult: TransferResult
+    )
+
     fun updateTransferStorageDirectoryInLocalPath(
         id: Long,
         oldDirectory: String,
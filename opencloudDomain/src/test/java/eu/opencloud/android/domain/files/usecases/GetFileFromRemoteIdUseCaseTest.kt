@@ -0,0 +1,61 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.domain.files.usecases
+
+import eu.opencloud.android.domain.exceptions.UnauthorizedException
+import eu.opencloud.android.domain.files.FileRepository
+import eu.opencloud.android.testutil.OC_ACCOUNT_NAME
+import eu.opencloud.android.testutil.OC_FILE
+import io.mockk.every
+import io.mockk.spyk
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class GetFileFromRemoteIdUseCaseTest {
+
+    private val repository: FileRepository = spyk()
+    private val useCase = GetFileFromRemoteIdUseCase(repository)
+    private val useCaseParams = GetFileFromRemoteIdUseCase.Params(remoteId = OC_FILE.remoteId!!, accountName = OC_ACCOUNT_NAME)
+
+    @Test
+    fun `get file from remote id - ok`() {
+        every { repository.getFileFromRemoteId(OC_FILE.remoteId!!, OC_ACCOUNT_NAME) } returns OC_FILE
+
+        val useCaseResult = useCase(useCaseParams)
+
+        assertTrue(useCaseResult.isSuccess)
+        assertEquals(OC_FILE, useCaseResult.getDataOrNull())
+
+        verify(exactly = 1) { repository.getFileFromRemoteId(OC_FILE.remoteId!!, OC_ACCOUNT_NAME) }
+    }
+
+    @Test
+    fun `get file from remote id - ko`() {
+        every { repository.getFileFromRemoteId(any(), any()) } throws UnauthorizedException()
+
+        val useCaseResult = useCase(useCaseParams)
+
+        assertTrue(useCaseResult.isError)
+        assertTrue(useCaseResult.getThrowableOrNull() is UnauthorizedException)
+
+        verify(exactly = 1) { repository.getFileFromRemoteId(OC_FILE.remoteId!!, OC_ACCOUNT_NAME) }
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.domain.files.usecases
+
+import eu.opencloud.android.domain.exceptions.UnauthorizedException
+import eu.opencloud.android.domain.files.FileRepository
+import eu.opencloud.android.testutil.OC_FILE
+import io.mockk.every
+import io.mockk.spyk
+import io.mockk.verify
+import org.junit.Assert
+import org.junit.Test
+
+class SaveUploadedFilesUseCaseTest {
+    private val fileRepository: FileRepository = spyk()
+    private val useCase = SaveUploadedFilesUseCase(fileRepository)
+    private val useCaseParams = SaveUploadedFilesUseCase.Params(listOf(OC_FILE, OC_FILE.copy(id = 2, remotePath = "/Photos/image2.jpt")))
+
+    @Test
+    fun `save uploaded files - ok`() {
+        val useCaseResult = useCase(useCaseParams)
+        Assert.assertTrue(useCaseResult.isSuccess)
+        Assert.assertEquals(Unit, useCaseResult.getDataOrNull())
+
+        verify(exactly = 1) { fileRepository.saveUploadedFiles(useCaseParams.uploadedFiles) }
+    }
+
+    @Test
+    fun `save uploaded files - ko`() {
+        every { fileRepository.saveUploadedFiles(any()) } throws UnauthorizedException()
+
+        val useCaseResult = useCase(useCaseParams)
+
+        Assert.assertFalse(useCaseResult.isSuccess)
+        Assert.assertTrue(useCaseResult.getThrowableOrNull() is UnauthorizedException)
+
+        verify(exactly = 1) { fileRepository.saveUploadedFiles(useCaseParams.uploadedFiles) }
+    }
+}
@@ -0,0 +1,53 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package eu.opencloud.android.domain.files.usecases
+
+import eu.opencloud.android.domain.files.FileRepository
+import eu.opencloud.android.domain.files.usecases.SearchFilesUseCase.Companion.SEARCH_RESULTS_LIMIT
+import eu.opencloud.android.testutil.OC_ACCOUNT_NAME
+import eu.opencloud.android.testutil.OC_FILE
+import eu.opencloud.android.testutil.OC_FOLDER
+import io.mockk.every
+import io.mockk.spyk
+import io.mockk.verify
+import kotlinx.coroutines.flow.flowOf
+import kotlinx.coroutines.flow.toList
+import kotlinx.coroutines.test.runTest
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class SearchFilesOnServerAsStreamUseCaseTest {
+
+    private val repository: FileRepository = spyk()
+    private val useCase = SearchFilesOnServerAsStreamUseCase(repository)
+    private val useCaseParams = SearchFilesOnServerAsStreamUseCase.Params(accountName = OC_ACCOUNT_NAME, search = "report")
+
+    @Test
+    fun `search files on server - ok`() = runTest {
+        every {
+            repository.searchFilesOnServer(OC_ACCOUNT_NAME, "report", SEARCH_RESULTS_LIMIT)
+        } returns flowOf(listOf(OC_FILE), listOf(OC_FOLDER))
+
+        val pages = useCase(useCaseParams).toList()
+
+        assertEquals(listOf(listOf(OC_FILE), listOf(OC_FOLDER)), pages)
+
+        verify(exactly = 1) { repository.searchFilesOnServer(OC_ACCOUNT_NAME, "report", SEARCH_RESULTS_LIMIT) }
+    }
+}
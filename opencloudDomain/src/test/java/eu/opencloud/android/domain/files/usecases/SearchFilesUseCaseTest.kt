@@ -0,0 +1,62 @@
+/**
+ * openCloud Android client application
+ *
+ * Copyright (C) 2026 OpenCloud GmbH.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License version 2,
+ * as published by the Free Software Foundation.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package eu.opencloud.android.domain.files.usecases
+
+import eu.opencloud.android.domain.exceptions.UnauthorizedException
+import eu.opencloud.android.domain.files.FileRepository
+import eu.opencloud.android.domain.files.model.OCFile.Companion.ROOT_PATH
+import eu.opencloud.android.domain.files.usecases.SearchFilesUseCase.Companion.SEARCH_RESULTS_LIMIT
+import eu.opencloud.android.testutil.OC_ACCOUNT_NAME
+import eu.opencloud.android.testutil.OC_FILE
+import io.mockk.every
+import io.mockk.spyk
+import io.mockk.verify
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class SearchFilesUseCaseTest {
+
+    private val repository: FileRepository = spyk()
+    private val useCase = SearchFilesUseCase(repository)
+    private val useCaseParams = SearchFilesUseCase.Params(owner = OC_ACCOUNT_NAME, search = "report")
+
+    @Test
+    fun `search files - ok`() {
+        every { repository.searchFiles(OC_ACCOUNT_NAME, null, ROOT_PATH, "report", SEARCH_RESULTS_LIMIT) } returns listOf(OC_FILE)
+
+        val useCaseResult = useCase(useCaseParams)
+
+        assertTrue(useCaseResult.isSuccess)
+        assertEquals(listOf(OC_FILE), useCaseResult.getDataOrNull())
+
+        verify(exactly = 1) { repository.searchFiles(OC_ACCOUNT_NAME, null, ROOT_PATH, "report", SEARCH_RESULTS_LIMIT) }
+    }
+
+    @Test
+    fun `search files - ko`() {
+        every { repository.searchFiles(any(), any(), any(), any(), any()) } throws UnauthorizedException()
+
+        val useCaseResult = useCase(useCaseParams)
+
+        assertTrue(useCaseResult.isError)
+        assertTrue(useCaseResult.getThrowableOrNull() is UnauthorizedException)
+
+        verify(exactly = 1) { repository.searchFiles(OC_ACCOUNT_NAME, null, ROOT_PATH, "report", SEARCH_RESULTS_LIMIT) }
+    }
+}